@@ -1,5 +1,7 @@
 package io.nuls.base.protocol;
 
+import io.nuls.base.RPCUtil;
+
 public interface MessageProcessor {
 
     /**
@@ -17,4 +19,15 @@ public interface MessageProcessor {
      */
     void process(int chainId, String nodeId, String message);
 
+    /**
+     * 消息处理方法，消息体为网络模块转发的原始字节
+     * 默认转为十六进制字符串交给{@link #process(int, String, String)}，高频消息的处理器应覆盖此方法直接解析字节
+     *
+     * @param chainId
+     * @param message
+     */
+    default void process(int chainId, String nodeId, byte[] message) {
+        process(chainId, nodeId, RPCUtil.encode(message));
+    }
+
 }
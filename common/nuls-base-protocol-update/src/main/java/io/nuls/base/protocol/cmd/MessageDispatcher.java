@@ -56,10 +56,15 @@ public final class MessageDispatcher extends BaseCmd {
         int chainId = Integer.parseInt(params.get(Constants.CHAIN_ID).toString());
         String nodeId = (String) params.get("nodeId");
         String cmd = (String) params.get("cmd");
-        String msgStr = (String) params.get("messageBody");
+        Object messageBody = params.get("messageBody");
         for (MessageProcessor processor : processors) {
             if (cmd.equals(processor.getCmd())) {
-                processor.process(chainId, nodeId, msgStr);
+                //二进制通道转发的是原始字节，旧版本网络模块或JSON通道转发的是十六进制字符串
+                if (messageBody instanceof byte[]) {
+                    processor.process(chainId, nodeId, (byte[]) messageBody);
+                } else {
+                    processor.process(chainId, nodeId, (String) messageBody);
+                }
             }
         }
         return success();
@@ -31,6 +31,10 @@ import io.nuls.core.crypto.HexUtil;
 import io.nuls.core.log.Log;
 import io.nuls.core.model.StringUtils;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
 public class RPCUtil {
     public static String encode(byte[] src) {
         return (src == null) ? null :HexUtil.encode(src);
@@ -40,6 +44,48 @@ public class RPCUtil {
         return (src == null) ? null : HexUtil.decode(src);
     }
 
+    /**
+     * 解析RPC参数中的字节数据，二进制通道传来的是原始byte[]，JSON通道或旧版本模块传来的是十六进制字符串
+     * Decode byte data of an RPC parameter, raw byte[] over the binary channel, a hex string over JSON or from older modules
+     *
+     * @param src byte[]、ByteBuffer或十六进制字符串 / byte[], ByteBuffer or hex string
+     * @return byte[]
+     */
+    public static byte[] decode(Object src) {
+        if (src == null) {
+            return null;
+        }
+        if (src instanceof byte[]) {
+            return (byte[]) src;
+        }
+        if (src instanceof ByteBuffer) {
+            ByteBuffer buffer = ((ByteBuffer) src).duplicate();
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return bytes;
+        }
+        return HexUtil.decode(src.toString());
+    }
+
+    /**
+     * 解析RPC参数中的字节数据列表，元素可以是byte[]或十六进制字符串
+     * Decode a list parameter whose elements are byte[] or hex strings
+     *
+     * @param src List
+     * @return List<byte[]>
+     */
+    public static List<byte[]> decodeList(Object src) {
+        if (src == null) {
+            return null;
+        }
+        List<?> list = (List<?>) src;
+        List<byte[]> result = new ArrayList<>(list.size());
+        for (Object item : list) {
+            result.add(decode(item));
+        }
+        return result;
+    }
+
     public static <T> T getInstance(byte[] bytes, Class<? extends BaseNulsData> clazz) {
         if (null == bytes || bytes.length == 0) {
             Log.error("error code-" + CommonCodeConstanst.DESERIALIZE_ERROR);
@@ -70,4 +116,20 @@ public class RPCUtil {
         }
         return getInstance(decode(data), clazz);
     }
+
+    /**
+     * RPCUtil 反序列化，参数可以是byte[]或十六进制字符串
+     * Deserialize from an RPC parameter that is either byte[] or a hex string
+     *
+     * @param data
+     * @param clazz
+     * @param <T>
+     * @return
+     */
+    public static <T> T getInstanceRpcData(Object data, Class<? extends BaseNulsData> clazz) {
+        if (data instanceof String) {
+            return getInstanceRpcStr((String) data, clazz);
+        }
+        return getInstance(decode(data), clazz);
+    }
 }
@@ -0,0 +1,216 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.base.data;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import io.nuls.base.basic.NulsByteBuffer;
+import io.nuls.base.basic.NulsOutputStreamBuffer;
+import io.nuls.core.constant.CommonCodeConstanst;
+import io.nuls.core.crypto.Sha256Hash;
+import io.nuls.core.exception.NulsException;
+import io.nuls.core.model.ByteUtils;
+import io.nuls.core.parse.SerializeUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 紧凑区块，与{@link SmallBlock}用途相同，但交易hash列表替换为按区块加盐计算的6字节短交易ID
+ * 短ID = SipHash-2-4(key, txHash)的低48位，key取自SHA256(blockHash || nonce)的前16字节，每个区块的key不同，无法预先构造碰撞
+ * 系统交易仍然完整携带，接收方据此计算短ID并放回对应位置
+ * Compact block, used like {@link SmallBlock} but carrying salted 6-byte short tx ids instead of full tx hashes.
+ * The short id is the low 48 bits of SipHash-2-4 keyed with the first 16 bytes of SHA256(blockHash || nonce),
+ * so collisions cannot be precomputed across blocks. System txs are still carried in full.
+ */
+public class CompactBlock extends BaseNulsData {
+
+    public static final int SHORT_ID_LENGTH = 6;
+
+    public static final long SHORT_ID_MASK = 0xFFFFFFFFFFFFL;
+
+    /**
+     * 区块头
+     * block header
+     */
+    private BlockHeader header;
+
+    /**
+     * 短ID的盐
+     * salt of short ids
+     */
+    private long nonce;
+
+    /**
+     * 区块中全部交易(包括系统交易)的短ID，与区块中交易顺序一致
+     * short ids of all txs in the block (system txs included), in block order
+     */
+    private long[] shortIdList;
+
+    /**
+     * 系统交易列表（其他节点一定没有的交易）
+     * system tx list (transactions that no other node can have)
+     */
+    private List<Transaction> systemTxList = new ArrayList<>();
+
+    public CompactBlock() {
+    }
+
+    /**
+     * 由小区块生成紧凑区块
+     * Build a compact block from a small block
+     *
+     * @param smallBlock 小区块
+     * @param nonce      盐
+     * @return CompactBlock
+     */
+    public static CompactBlock of(SmallBlock smallBlock, long nonce) {
+        CompactBlock compactBlock = new CompactBlock();
+        compactBlock.header = smallBlock.getHeader();
+        compactBlock.nonce = nonce;
+        compactBlock.systemTxList = smallBlock.getSystemTxList();
+        HashFunction hasher = compactBlock.shortIdHasher();
+        List<NulsHash> txHashList = smallBlock.getTxHashList();
+        long[] shortIdList = new long[txHashList.size()];
+        for (int i = 0; i < shortIdList.length; i++) {
+            shortIdList[i] = shortTxId(hasher, txHashList.get(i));
+        }
+        compactBlock.shortIdList = shortIdList;
+        return compactBlock;
+    }
+
+    /**
+     * 按区块hash与盐生成短ID的哈希函数
+     * Keyed hash function for the short ids of one block
+     *
+     * @param blockHash 区块hash
+     * @param nonce     盐
+     * @return HashFunction
+     */
+    public static HashFunction shortIdHasher(NulsHash blockHash, long nonce) {
+        byte[] key = Sha256Hash.hash(ByteUtils.concatenate(blockHash.getBytes(), ByteUtils.longToBytes(nonce)));
+        return Hashing.sipHash24(SerializeUtils.readInt64LE(key, 0), SerializeUtils.readInt64LE(key, 8));
+    }
+
+    /**
+     * 计算交易短ID
+     * Short id of a tx
+     *
+     * @param hasher 本区块的哈希函数
+     * @param txHash 交易hash
+     * @return 48位短ID
+     */
+    public static long shortTxId(HashFunction hasher, NulsHash txHash) {
+        return hasher.hashBytes(txHash.getBytes()).asLong() & SHORT_ID_MASK;
+    }
+
+    public HashFunction shortIdHasher() {
+        return shortIdHasher(header.getHash(), nonce);
+    }
+
+    @Override
+    public int size() {
+        int size = header.size();
+        size += SerializeUtils.sizeOfInt64();
+        size += SerializeUtils.sizeOfVarInt(shortIdList.length);
+        size += shortIdList.length * SHORT_ID_LENGTH;
+        size += SerializeUtils.sizeOfVarInt(systemTxList.size());
+        for (Transaction tx : systemTxList) {
+            size += SerializeUtils.sizeOfNulsData(tx);
+        }
+        return size;
+    }
+
+    @Override
+    protected void serializeToStream(NulsOutputStreamBuffer stream) throws IOException {
+        stream.writeNulsData(header);
+        stream.writeInt64(nonce);
+        stream.writeVarInt(shortIdList.length);
+        for (long shortId : shortIdList) {
+            stream.writeUint48(shortId);
+        }
+        stream.writeVarInt(systemTxList.size());
+        for (Transaction tx : systemTxList) {
+            stream.writeNulsData(tx);
+        }
+    }
+
+    @Override
+    public void parse(NulsByteBuffer byteBuffer) throws NulsException {
+        this.header = byteBuffer.readNulsData(new BlockHeader());
+        this.nonce = byteBuffer.readInt64();
+        long shortIdCount = byteBuffer.readVarInt();
+        //短ID数量必须与区块头中的交易数一致,避免按恶意长度分配内存
+        if (shortIdCount != header.getTxCount()) {
+            throw new NulsException(CommonCodeConstanst.DATA_PARSE_ERROR);
+        }
+        this.shortIdList = new long[(int) shortIdCount];
+        for (int i = 0; i < shortIdCount; i++) {
+            //readUint48把全1读成-1,这里按位还原
+            this.shortIdList[i] = byteBuffer.readUint48() & SHORT_ID_MASK;
+        }
+        this.systemTxList = new ArrayList<>();
+        long systemTxCount = byteBuffer.readVarInt();
+        for (int i = 0; i < systemTxCount; i++) {
+            Transaction tx = byteBuffer.readTransaction();
+            tx.setBlockHeight(header.getHeight());
+            this.systemTxList.add(tx);
+        }
+    }
+
+    public BlockHeader getHeader() {
+        return header;
+    }
+
+    public void setHeader(BlockHeader header) {
+        this.header = header;
+    }
+
+    public long getNonce() {
+        return nonce;
+    }
+
+    public void setNonce(long nonce) {
+        this.nonce = nonce;
+    }
+
+    public long[] getShortIdList() {
+        return shortIdList;
+    }
+
+    public void setShortIdList(long[] shortIdList) {
+        this.shortIdList = shortIdList;
+    }
+
+    public List<Transaction> getSystemTxList() {
+        return systemTxList;
+    }
+
+    public void setSystemTxList(List<Transaction> systemTxList) {
+        this.systemTxList = systemTxList;
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.base.signture;
+
+import io.nuls.core.crypto.Sha256Hash;
+import io.nuls.core.model.ByteArrayWrapper;
+import io.nuls.core.model.CollectionUtils;
+
+import java.security.MessageDigest;
+import java.util.Map;
+
+/**
+ * 已验证通过的签名缓存，交易收到时验证过的签名在区块验证、跨链签名处理时不再重复验证
+ * Cache of signatures that passed verification, so signatures checked when a transaction is received
+ * are not verified again by block validation or cross-chain signature handling
+ * <p>
+ * key为(摘要, 公钥, 签名)的SHA-256，签名字节不同时不会命中，避免接受同一签名者对同一交易的错误签名
+ * The key is the SHA-256 of (digest, public key, signature), so a different signature from the same signer
+ * for the same transaction never hits the cache
+ */
+public class SignatureCache {
+
+    private static final int SEGMENT_COUNT = 16;
+
+    /**
+     * 缓存条目上限
+     * Maximum number of cached entries
+     */
+    public static final int DEFAULT_CAPACITY = 200000;
+
+    private static final Map<ByteArrayWrapper, Boolean>[] SEGMENTS = createSegments(DEFAULT_CAPACITY);
+
+    @SuppressWarnings("unchecked")
+    private static Map<ByteArrayWrapper, Boolean>[] createSegments(int capacity) {
+        Map<ByteArrayWrapper, Boolean>[] segments = new Map[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = CollectionUtils.getSynSizedMap(capacity / SEGMENT_COUNT);
+        }
+        return segments;
+    }
+
+    /**
+     * 签名是否已验证通过
+     * Whether the signature already passed verification
+     */
+    public static boolean contains(byte[] digest, byte[] signBytes, byte[] pubKey) {
+        ByteArrayWrapper key = key(digest, signBytes, pubKey);
+        return segment(key).containsKey(key);
+    }
+
+    /**
+     * 记录验证通过的签名
+     * Record a signature that passed verification
+     */
+    public static void put(byte[] digest, byte[] signBytes, byte[] pubKey) {
+        ByteArrayWrapper key = key(digest, signBytes, pubKey);
+        segment(key).put(key, Boolean.TRUE);
+    }
+
+    public static int size() {
+        int size = 0;
+        for (Map<ByteArrayWrapper, Boolean> segment : SEGMENTS) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public static void clear() {
+        for (Map<ByteArrayWrapper, Boolean> segment : SEGMENTS) {
+            segment.clear();
+        }
+    }
+
+    private static Map<ByteArrayWrapper, Boolean> segment(ByteArrayWrapper key) {
+        return SEGMENTS[(key.hashCode() & Integer.MAX_VALUE) % SEGMENT_COUNT];
+    }
+
+    private static ByteArrayWrapper key(byte[] digest, byte[] signBytes, byte[] pubKey) {
+        MessageDigest messageDigest = Sha256Hash.newDigest();
+        messageDigest.update(digest);
+        messageDigest.update((byte) pubKey.length);
+        messageDigest.update(pubKey);
+        messageDigest.update(signBytes);
+        return new ByteArrayWrapper(messageDigest.digest());
+    }
+}
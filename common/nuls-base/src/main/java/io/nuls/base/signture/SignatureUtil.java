@@ -82,7 +82,7 @@ public class SignatureUtil {
                 if (forked) {
                     //这里用硬分叉后的新逻辑
                     for (P2PHKSignature signature : transactionSignature.getP2PHKSignatures()) {
-                        if (!ECKey.verify(tx.getHash().getBytes(), signature.getSignData().getSignBytes(), signature.getPublicKey())) {
+                        if (!SignatureVerifier.verify(tx.getHash().getBytes(), signature.getSignData().getSignBytes(), signature.getPublicKey())) {
                             throw new NulsException(new Exception("Transaction signature error !"));
                         }
                     }
@@ -90,7 +90,7 @@ public class SignatureUtil {
                     int signCount = tx.getCoinDataInstance().getFromAddressCount();
                     int passCount = 0;
                     for (P2PHKSignature signature : transactionSignature.getP2PHKSignatures()) {
-                        if (!ECKey.verify(tx.getHash().getBytes(), signature.getSignData().getSignBytes(), signature.getPublicKey())) {
+                        if (!SignatureVerifier.verify(tx.getHash().getBytes(), signature.getSignData().getSignBytes(), signature.getPublicKey())) {
                             throw new NulsException(new Exception("Transaction signature error !"));
                         }
                         passCount++;
@@ -108,7 +108,7 @@ public class SignatureUtil {
                 List<P2PHKSignature> validSignatures = transactionSignature.getValidSignature();
                 int validCount = 0;
                 for (P2PHKSignature signature : validSignatures) {
-                    if (ECKey.verify(tx.getHash().getBytes(), signature.getSignData().getSignBytes(), signature.getPublicKey())) {
+                    if (SignatureVerifier.verify(tx.getHash().getBytes(), signature.getSignData().getSignBytes(), signature.getPublicKey())) {
                         validCount++;
                     }
                     if (!forked && validCount >= transactionSignature.getM()) {
@@ -146,7 +146,7 @@ public class SignatureUtil {
         int passCount = 0;
         String signAddress;
         for (P2PHKSignature signature : transactionSignature.getP2PHKSignatures()) {
-            if (!ECKey.verify(tx.getHash().getBytes(), signature.getSignData().getSignBytes(), signature.getPublicKey())) {
+            if (!SignatureVerifier.verify(tx.getHash().getBytes(), signature.getSignData().getSignBytes(), signature.getPublicKey())) {
                 throw new NulsException(new Exception("Transaction signature error !"));
             }
             signAddress = AddressTool.getStringAddressByBytes(AddressTool.getAddress(signature.getPublicKey(), chainId));
@@ -180,7 +180,7 @@ public class SignatureUtil {
         TransactionSignature transactionSignature = new TransactionSignature();
         transactionSignature.parse(tx.getTransactionSignature(), 0);
         for (P2PHKSignature signature : transactionSignature.getP2PHKSignatures()) {
-            if (!ECKey.verify(tx.getHash().getBytes(), signature.getSignData().getSignBytes(), signature.getPublicKey())) {
+            if (!SignatureVerifier.verify(tx.getHash().getBytes(), signature.getSignData().getSignBytes(), signature.getPublicKey())) {
                 throw new NulsException(new Exception("Transaction signature error !"));
             }
         }
@@ -199,7 +199,7 @@ public class SignatureUtil {
         if (null == p2PHKSignature) {
             throw new NulsException(new Exception("P2PHKSignature is null!"));
         }
-        if (ECKey.verify(digestBytes, p2PHKSignature.getSignData().getSignBytes(), p2PHKSignature.getPublicKey())) {
+        if (SignatureVerifier.verify(digestBytes, p2PHKSignature.getSignData().getSignBytes(), p2PHKSignature.getPublicKey())) {
             return true;
         }
         return false;
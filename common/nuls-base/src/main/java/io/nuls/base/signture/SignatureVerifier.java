@@ -0,0 +1,150 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.base.signture;
+
+import io.nuls.base.data.Transaction;
+import io.nuls.core.crypto.ECKey;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * 签名验证服务：带缓存的单个签名验证，以及把一批交易（如整个区块）的签名拆开后在固定大小的fork-join线程池中并行验证
+ * Signature verification service: cached verification of a single signature, and parallel verification of all
+ * signatures of a batch of transactions (e.g. a whole block) on a fixed size fork-join pool
+ */
+public class SignatureVerifier {
+
+    private static final String THREAD_NAME = "verify-sign";
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName(THREAD_NAME + "-" + thread.getPoolIndex());
+        return thread;
+    }, null, false);
+
+    /**
+     * 验证签名，已验证通过的签名直接返回
+     * Verify a signature, signatures that already passed are not verified again
+     *
+     * @param digest    签名的摘要（交易hash） / signed digest (transaction hash)
+     * @param signBytes 签名 / signature
+     * @param pubKey    公钥 / public key
+     * @return 签名是否正确 / whether the signature is valid
+     */
+    public static boolean verify(byte[] digest, byte[] signBytes, byte[] pubKey) {
+        if (SignatureCache.contains(digest, signBytes, pubKey)) {
+            return true;
+        }
+        if (ECKey.verify(digest, signBytes, pubKey)) {
+            SignatureCache.put(digest, signBytes, pubKey);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 并行预验证一批交易的全部签名，验证通过的签名进入缓存，之后逐笔交易的签名验证规则不变但直接命中缓存
+     * 解析失败或签名错误的交易不在此处报错，由逐笔验证给出结果
+     * Verify all signatures of a batch of transactions in parallel and cache those that pass, the per-transaction
+     * signature rules afterwards stay unchanged but hit the cache. Transactions that fail to parse or carry a wrong
+     * signature are not reported here, the per-transaction verification does that
+     *
+     * @param txs 交易列表 / transactions
+     */
+    public static void preVerify(Collection<Transaction> txs) {
+        List<SignTask> tasks = new ArrayList<>();
+        for (Transaction tx : txs) {
+            collectSignatures(tx, tasks);
+        }
+        if (tasks.isEmpty()) {
+            return;
+        }
+        Runnable verifyAll = () -> tasks.parallelStream().forEach(SignTask::verify);
+        if (ForkJoinTask.getPool() == POOL) {
+            verifyAll.run();
+        } else {
+            POOL.submit(verifyAll).join();
+        }
+    }
+
+    /**
+     * 在签名验证线程池中执行任务，任务中的parallelStream同样使用该线程池
+     * Run a task on the signature verification pool, parallel streams inside the task use the same pool
+     */
+    public static <T> ForkJoinTask<T> submit(Callable<T> task) {
+        return POOL.submit(task);
+    }
+
+    private static void collectSignatures(Transaction tx, List<SignTask> tasks) {
+        if (tx.getTransactionSignature() == null || tx.getTransactionSignature().length == 0) {
+            return;
+        }
+        try {
+            List<P2PHKSignature> signatures;
+            if (tx.isMultiSignTx()) {
+                MultiSignTxSignature multiSignTxSignature = new MultiSignTxSignature();
+                multiSignTxSignature.parse(tx.getTransactionSignature(), 0);
+                signatures = multiSignTxSignature.getValidSignature();
+            } else {
+                TransactionSignature transactionSignature = new TransactionSignature();
+                transactionSignature.parse(tx.getTransactionSignature(), 0);
+                signatures = transactionSignature.getP2PHKSignatures();
+            }
+            if (signatures == null) {
+                return;
+            }
+            byte[] digest = tx.getHash().getBytes();
+            for (P2PHKSignature signature : signatures) {
+                tasks.add(new SignTask(digest, signature));
+            }
+        } catch (Exception e) {
+            //签名数据无法解析，由逐笔验证报错
+        }
+    }
+
+    private static class SignTask {
+        private final byte[] digest;
+        private final P2PHKSignature signature;
+
+        SignTask(byte[] digest, P2PHKSignature signature) {
+            this.digest = digest;
+            this.signature = signature;
+        }
+
+        void verify() {
+            try {
+                SignatureVerifier.verify(digest, signature.getSignData().getSignBytes(), signature.getPublicKey());
+            } catch (Exception e) {
+                //签名格式错误，由逐笔验证报错
+            }
+        }
+    }
+}
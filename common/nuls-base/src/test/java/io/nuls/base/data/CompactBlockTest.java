@@ -0,0 +1,110 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.base.data;
+
+import com.google.common.hash.HashFunction;
+import io.nuls.base.basic.NulsByteBuffer;
+import io.nuls.base.signture.BlockSignature;
+import io.nuls.core.crypto.Sha256Hash;
+import io.nuls.core.exception.NulsException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+public class CompactBlockTest {
+
+    private static SmallBlock smallBlock(int txCount) {
+        ArrayList<NulsHash> txHashList = new ArrayList<>();
+        for (int i = 0; i < txCount; i++) {
+            txHashList.add(new NulsHash(Sha256Hash.hash(new byte[]{(byte) i, (byte) (i >> 8)})));
+        }
+        BlockHeader header = new BlockHeader();
+        header.setPreHash(new NulsHash(new byte[NulsHash.HASH_LENGTH]));
+        header.setMerkleHash(NulsHash.calcMerkleHash(txHashList));
+        header.setTime(1560000000L);
+        header.setHeight(100);
+        header.setTxCount(txCount);
+        header.setExtend(new byte[]{1, 2, 3});
+        BlockSignature signature = new BlockSignature();
+        signature.setPublicKey(new byte[33]);
+        NulsSignData signData = new NulsSignData();
+        signData.setSignBytes(new byte[64]);
+        signature.setSignData(signData);
+        header.setBlockSignature(signature);
+        SmallBlock smallBlock = new SmallBlock();
+        smallBlock.setHeader(header);
+        smallBlock.setTxHashList(txHashList);
+        return smallBlock;
+    }
+
+    /**
+     * 序列化后每笔交易只占6字节,反序列化后短ID与发送方一致
+     * Each tx takes six bytes on the wire and the short ids survive a round trip
+     */
+    @Test
+    public void serializeTest() throws Exception {
+        SmallBlock smallBlock = smallBlock(1000);
+        CompactBlock compactBlock = CompactBlock.of(smallBlock, 0x1234567890ABCDEFL);
+        byte[] bytes = compactBlock.serialize();
+        Assert.assertTrue(bytes.length < smallBlock.size() - 1000 * (NulsHash.HASH_LENGTH - CompactBlock.SHORT_ID_LENGTH) + 16);
+
+        CompactBlock parsed = new CompactBlock();
+        parsed.parse(new NulsByteBuffer(bytes));
+        Assert.assertEquals(compactBlock.getNonce(), parsed.getNonce());
+        Assert.assertArrayEquals(compactBlock.getShortIdList(), parsed.getShortIdList());
+        HashFunction hasher = parsed.shortIdHasher();
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(parsed.getShortIdList()[i], CompactBlock.shortTxId(hasher, smallBlock.getTxHashList().get(i)));
+        }
+    }
+
+    /**
+     * 不同的盐得到不同的短ID
+     * A different salt gives different short ids
+     */
+    @Test
+    public void saltTest() {
+        SmallBlock smallBlock = smallBlock(10);
+        long[] a = CompactBlock.of(smallBlock, 1).getShortIdList();
+        long[] b = CompactBlock.of(smallBlock, 2).getShortIdList();
+        for (int i = 0; i < a.length; i++) {
+            Assert.assertEquals(a[i], a[i] & CompactBlock.SHORT_ID_MASK);
+            Assert.assertNotEquals(a[i], b[i]);
+        }
+    }
+
+    /**
+     * 短ID数量与区块头交易数不一致时拒绝解析
+     * Parsing rejects a short id count that does not match the header
+     */
+    @Test(expected = NulsException.class)
+    public void countMismatchTest() throws Exception {
+        SmallBlock smallBlock = smallBlock(10);
+        CompactBlock compactBlock = CompactBlock.of(smallBlock, 1);
+        compactBlock.getHeader().setTxCount(11);
+        new CompactBlock().parse(new NulsByteBuffer(compactBlock.serialize()));
+    }
+}
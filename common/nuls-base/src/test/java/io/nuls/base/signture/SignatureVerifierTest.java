@@ -0,0 +1,69 @@
+package io.nuls.base.signture;
+
+import io.nuls.base.data.NulsHash;
+import io.nuls.base.data.Transaction;
+import io.nuls.core.constant.TxType;
+import io.nuls.core.crypto.ECKey;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class SignatureVerifierTest {
+
+    private final ECKey ecKey = new ECKey();
+
+    @Before
+    public void clear() {
+        SignatureCache.clear();
+    }
+
+    /**
+     * 批量预验证后签名进入缓存，逐笔验证结果不变
+     * Pre-verified signatures are cached and the per-transaction result is unchanged
+     */
+    @Test
+    public void preVerifyTest() throws Exception {
+        List<Transaction> txs = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            txs.add(signedTx(i));
+        }
+        SignatureVerifier.preVerify(txs);
+        Assert.assertEquals(txs.size(), SignatureCache.size());
+        for (Transaction tx : txs) {
+            Assert.assertTrue(SignatureUtil.validateTransactionSignture(2, tx));
+        }
+        Assert.assertEquals(txs.size(), SignatureCache.size());
+    }
+
+    /**
+     * 同一签名者对同一交易的其他签名不会命中缓存
+     * Another signature from the same signer over the same transaction does not hit the cache
+     */
+    @Test
+    public void wrongSignatureTest() throws Exception {
+        Transaction tx = signedTx(1);
+        Assert.assertTrue(SignatureUtil.validateTransactionSignture(2, tx));
+
+        P2PHKSignature other = SignatureUtil.createSignatureByEckey(NulsHash.calcHash(new byte[]{1}), ecKey);
+        byte[] digest = tx.getHash().getBytes();
+        Assert.assertFalse(SignatureVerifier.verify(digest, other.getSignData().getSignBytes(), ecKey.getPubKey()));
+
+        TransactionSignature transactionSignature = new TransactionSignature();
+        transactionSignature.setP2PHKSignatures(Collections.singletonList(other));
+        tx.setTransactionSignature(transactionSignature.serialize());
+        SignatureVerifier.preVerify(Collections.singletonList(tx));
+        Assert.assertEquals(1, SignatureCache.size());
+    }
+
+    private Transaction signedTx(int index) throws Exception {
+        Transaction tx = new Transaction(TxType.TRANSFER);
+        tx.setTime(System.currentTimeMillis() / 1000 + index);
+        tx.setRemark(new byte[]{(byte) index});
+        SignatureUtil.createTransactionSignture(tx, Collections.singletonList(ecKey));
+        return tx;
+    }
+}
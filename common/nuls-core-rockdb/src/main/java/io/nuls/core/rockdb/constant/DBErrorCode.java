@@ -31,4 +31,7 @@ public interface DBErrorCode {
     String DB_TABLE_CREATE_PATH_ERROR = "Create DB table path error";
     String DB_TABLE_DESTROY_ERROR = "Destroy DB table error";
     String DB_TABLE_FAILED_BATCH_CLOSE = "DB batch operation closed";
+    String DB_TABLE_MIGRATE_ERROR = "Migrate DB table error";
+    String DB_STORAGE_MODE_CONFLICT = "DB storage mode conflict";
+    String DB_TABLE_NOT_SAME_INSTANCE = "DB tables not in the same instance";
 }
\ No newline at end of file
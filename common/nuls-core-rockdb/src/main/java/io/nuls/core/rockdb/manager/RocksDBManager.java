@@ -23,11 +23,12 @@ import io.nuls.core.log.Log;
 import io.nuls.core.model.StringUtils;
 import io.nuls.core.rockdb.constant.DBErrorCode;
 import io.nuls.core.rockdb.model.Entry;
+import io.nuls.core.rockdb.model.TableProfile;
 import io.nuls.core.rockdb.util.DBUtils;
 import org.rocksdb.*;
-import org.rocksdb.util.SizeUnit;
 
-import java.io.File;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantLock;
@@ -47,11 +48,57 @@ public class RocksDBManager {
      */
     private static final ConcurrentHashMap<String, RocksDB> TABLES = new ConcurrentHashMap<>();
 
+    /**
+     * 数据表对应的列族句柄缓存, 目录模式下为各自数据库的默认列族.
+     * Column family handle of every opened table, the default column family in directory mode
+     */
+    private static final ConcurrentHashMap<String, ColumnFamilyHandle> COLUMN_FAMILIES = new ConcurrentHashMap<>();
+
+    /**
+     * 列族模式下已关闭的数据表句柄, 列族仍存在于共享数据库中, 重新创建同名表时复用
+     */
+    private static final ConcurrentHashMap<String, ColumnFamilyHandle> CLOSED_COLUMN_FAMILIES = new ConcurrentHashMap<>();
+
     /**
      * 数据表基础文件夹名.
      */
     private static final String BASE_DB_NAME = "rocksdb";
 
+    /**
+     * 列族模式下共享数据库的文件夹名.
+     */
+    private static final String COLUMN_FAMILY_DB_NAME = "cf_rocksdb";
+
+    /**
+     * 列族模式下已迁移的旧数据表目录的存放文件夹名.
+     */
+    private static final String MIGRATED_DIR_NAME = "migrated_tables";
+
+    /**
+     * 迁移旧数据表时每批写入的记录数.
+     */
+    private static final int MIGRATE_BATCH_SIZE = 10000;
+
+    /**
+     * 记录数据表调优方案的文件名.
+     */
+    private static final String PROFILE_FILE_NAME = "table_profiles.properties";
+
+    /**
+     * 数据表调优方案, 未记录的表使用默认方案.
+     */
+    private static final ConcurrentHashMap<String, TableProfile> PROFILES = new ConcurrentHashMap<>();
+
+    /**
+     * 是否为列族模式(所有数据表共享一个数据库实例).
+     */
+    private static volatile boolean columnFamilyMode = false;
+
+    /**
+     * 列族模式下共享的数据库实例.
+     */
+    private static RocksDB sharedDB;
+
     /**
      * 数据操作同步锁.
      */
@@ -75,9 +122,13 @@ public class RocksDBManager {
 
     public static void init(final String path, Options options, Set<String> skipTables) throws Exception {
         synchronized (RocksDBManager.class) {
+            if (columnFamilyMode) {
+                throw new Exception(DBErrorCode.DB_STORAGE_MODE_CONFLICT);
+            }
             File dir = DBUtils.loadDataPath(path);
             dataPath = dir.getPath();
             Log.info("RocksDBManager dataPath is " + dataPath);
+            loadProfiles();
             File[] tableFiles = dir.listFiles();
             RocksDB db;
             String dbPath = null;
@@ -93,12 +144,13 @@ public class RocksDBManager {
                 try {
                     dbPath = tableFile.getPath() + File.separator + BASE_DB_NAME;
                     if (options == null) {
-                        db = initOpenDB(dbPath);
+                        db = initOpenDB(dbPath, RocksDBOptionsFactory.createOptions(getProfile(tableFile.getName()), false));
                     } else {
                         db = initOpenDB(dbPath, options);
                     }
                     if (db != null) {
                         TABLES.put(tableFile.getName(), db);
+                        COLUMN_FAMILIES.put(tableFile.getName(), db.getDefaultColumnFamily());
                     }
                 } catch (Exception e) {
                     Log.warn("load table failed, tableName: " + tableFile.getName() + ", dbPath: " + dbPath, e);
@@ -109,26 +161,137 @@ public class RocksDBManager {
 
     }
 
-    private static RocksDB initOpenDB(final String dbPath, Options options) throws RocksDBException {
-        File checkFile = new File(dbPath + File.separator + "CURRENT");
-        if (!checkFile.exists()) {
-            return null;
+    /**
+     * 以列族模式打开数据库: 数据目录下只有一个共享的RocksDB实例, 每个数据表对应其中一个列族,
+     * 从而共享memtable/WAL内存并支持跨表原子写入.
+     * 数据目录下已存在的旧版按目录分表的数据会被迁移为列族, 迁移完成后旧目录被移动到migrated_tables下.
+     * Open the data path in column family mode, one shared RocksDB with a column family per table.
+     * Tables found in the legacy per-directory layout are copied into column families and then moved aside.
+     *
+     * @param path 数据库地址
+     * @throws Exception 数据库打开连接异常
+     */
+    public static void initColumnFamily(final String path) throws Exception {
+        synchronized (RocksDBManager.class) {
+            if (!TABLES.isEmpty() && !columnFamilyMode) {
+                throw new Exception(DBErrorCode.DB_STORAGE_MODE_CONFLICT);
+            }
+            File dir = DBUtils.loadDataPath(path);
+            dataPath = dir.getPath();
+            Log.info("RocksDBManager dataPath is " + dataPath + ", column family mode");
+            loadProfiles();
+            if (sharedDB == null) {
+                openSharedDB();
+            }
+            columnFamilyMode = true;
+            File[] tableFiles = dir.listFiles();
+            for (File tableFile : tableFiles) {
+                if (!tableFile.isDirectory() || COLUMN_FAMILY_DB_NAME.equals(tableFile.getName()) || MIGRATED_DIR_NAME.equals(tableFile.getName())) {
+                    continue;
+                }
+                String dbPath = tableFile.getPath() + File.separator + BASE_DB_NAME;
+                if (!new File(dbPath + File.separator + "CURRENT").exists()) {
+                    continue;
+                }
+                try {
+                    migrateTable(tableFile.getName(), dbPath);
+                } catch (Exception e) {
+                    Log.warn("migrate table failed, tableName: " + tableFile.getName() + ", dbPath: " + dbPath, e);
+                    throw e;
+                }
+            }
         }
-        return RocksDB.open(options, dbPath);
     }
 
     /**
-     * @param dbPath 数据库地址
-     * @return RocksDB 数据库连接对象
-     * @throws RocksDBException 数据库连接异常
+     * 打开共享数据库并装载已存在的全部列族.
+     */
+    private static void openSharedDB() throws RocksDBException {
+        String dbPath = dataPath + File.separator + COLUMN_FAMILY_DB_NAME;
+        List<byte[]> names = new ArrayList<>();
+        if (new File(dbPath + File.separator + "CURRENT").exists()) {
+            names.addAll(RocksDB.listColumnFamilies(new Options(), dbPath));
+        } else {
+            new File(dbPath).mkdirs();
+            names.add(RocksDB.DEFAULT_COLUMN_FAMILY);
+        }
+        List<ColumnFamilyDescriptor> descriptors = new ArrayList<>();
+        for (byte[] name : names) {
+            descriptors.add(new ColumnFamilyDescriptor(name, RocksDBOptionsFactory.createColumnFamilyOptions(getProfile(new String(name, StandardCharsets.UTF_8)))));
+        }
+        List<ColumnFamilyHandle> handles = new ArrayList<>();
+        sharedDB = RocksDB.open(RocksDBOptionsFactory.createDBOptions(), dbPath, descriptors, handles);
+        for (ColumnFamilyHandle handle : handles) {
+            String tableName = new String(handle.getName(), StandardCharsets.UTF_8);
+            if (Arrays.equals(handle.getName(), RocksDB.DEFAULT_COLUMN_FAMILY)) {
+                continue;
+            }
+            TABLES.put(tableName, sharedDB);
+            COLUMN_FAMILIES.put(tableName, handle);
+        }
+    }
+
+    /**
+     * 将旧版目录模式的数据表复制到同名列族中, 完成后将旧目录移走.
+     * 复制过程是幂等的, 中途中断后重启会重新复制.
+     *
+     * @param tableName 数据表名称
+     * @param dbPath    旧数据库地址
+     */
+    private static void migrateTable(final String tableName, final String dbPath) throws Exception {
+        ColumnFamilyHandle handle = COLUMN_FAMILIES.get(tableName);
+        if (handle == null) {
+            handle = sharedDB.createColumnFamily(new ColumnFamilyDescriptor(tableName.getBytes(StandardCharsets.UTF_8), RocksDBOptionsFactory.createColumnFamilyOptions(getProfile(tableName))));
+        }
+        long count = 0;
+        try (RocksDB legacyDB = RocksDB.openReadOnly(RocksDBOptionsFactory.createOptions(TableProfile.DEFAULT, false), dbPath);
+             RocksIterator iterator = legacyDB.newIterator();
+             WriteOptions writeOptions = new WriteOptions()) {
+            WriteBatch writeBatch = new WriteBatch();
+            try {
+                for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+                    writeBatch.put(handle, iterator.key(), iterator.value());
+                    if (++count % MIGRATE_BATCH_SIZE == 0) {
+                        sharedDB.write(writeOptions, writeBatch);
+                        writeBatch.close();
+                        writeBatch = new WriteBatch();
+                    }
+                }
+                sharedDB.write(writeOptions, writeBatch);
+            } finally {
+                writeBatch.close();
+            }
+        }
+        sharedDB.flush(new FlushOptions().setWaitForFlush(true), handle);
+        TABLES.put(tableName, sharedDB);
+        COLUMN_FAMILIES.put(tableName, handle);
+
+        File migratedDir = new File(dataPath + File.separator + MIGRATED_DIR_NAME);
+        if (!migratedDir.exists()) {
+            migratedDir.mkdirs();
+        }
+        File tableDir = new File(dataPath + File.separator + tableName);
+        File target = new File(migratedDir, tableName + "_" + System.currentTimeMillis());
+        if (!tableDir.renameTo(target)) {
+            throw new Exception(DBErrorCode.DB_TABLE_MIGRATE_ERROR);
+        }
+        Log.info("migrated table {} into column family, {} entries, legacy data moved to {}", tableName, count, target.getPath());
+    }
+
+    /**
+     * 是否为列族模式.
+     *
+     * @return boolean
      */
-    private static RocksDB initOpenDB(final String dbPath) throws RocksDBException {
+    public static boolean isColumnFamilyMode() {
+        return columnFamilyMode;
+    }
+
+    private static RocksDB initOpenDB(final String dbPath, Options options) throws RocksDBException {
         File checkFile = new File(dbPath + File.separator + "CURRENT");
         if (!checkFile.exists()) {
             return null;
         }
-
-        Options options = getCommonOptions(false);
         return RocksDB.open(options, dbPath);
     }
 
@@ -143,15 +306,32 @@ public class RocksDBManager {
      *
      * @param dbPath          数据库地址
      * @param createIfMissing 数据库不存在时是否默认创建
+     * @param profile         调优方案
      * @return RocksDB
      * @throws RocksDBException 数据库连接异常
      */
-    private static RocksDB openDB(final String dbPath, final boolean createIfMissing) throws RocksDBException {
-        Options options = getCommonOptions(createIfMissing);
+    private static RocksDB openDB(final String dbPath, final boolean createIfMissing, TableProfile profile) throws RocksDBException {
+        Options options = RocksDBOptionsFactory.createOptions(profile, createIfMissing);
         return RocksDB.open(options, dbPath);
     }
 
     public static boolean createTable(final String tableName, Options options) throws Exception {
+        return createTable(tableName, options, TableProfile.DEFAULT);
+    }
+
+    /**
+     * 按指定调优方案创建数据表, 调优方案会被记录, 重新打开时沿用.
+     * Create a table with the given tuning profile, the profile is kept for later reopening
+     *
+     * @param tableName 数据库表名称
+     * @param profile   调优方案
+     * @return 创建结果
+     */
+    public static boolean createTable(final String tableName, TableProfile profile) throws Exception {
+        return createTable(tableName, null, profile);
+    }
+
+    private static boolean createTable(final String tableName, Options options, TableProfile profile) throws Exception {
         lock.lock();
         try {
             if (StringUtils.isBlank(tableName)) {
@@ -163,6 +343,12 @@ public class RocksDBManager {
             if (StringUtils.isBlank(dataPath) || !DBUtils.checkPathLegal(tableName)) {
                 throw new Exception(DBErrorCode.DB_TABLE_CREATE_PATH_ERROR);
             }
+            if (options == null) {
+                saveProfile(tableName, profile);
+            }
+            if (columnFamilyMode) {
+                return createColumnFamily(tableName, options);
+            }
             try {
                 File dir = new File(dataPath + File.separator + tableName);
                 if (!dir.exists()) {
@@ -171,11 +357,12 @@ public class RocksDBManager {
                 String filePath = dataPath + File.separator + tableName + File.separator + BASE_DB_NAME;
                 RocksDB db;
                 if (options == null) {
-                    db = openDB(filePath, true);
+                    db = openDB(filePath, true, getProfile(tableName));
                 } else {
                     db = openDB(filePath, true, options);
                 }
                 TABLES.put(tableName, db);
+                COLUMN_FAMILIES.put(tableName, db.getDefaultColumnFamily());
             } catch (Exception e) {
                 Log.error("error create table: " + tableName, e);
                 throw new Exception(DBErrorCode.DB_TABLE_CREATE_ERROR);
@@ -186,6 +373,29 @@ public class RocksDBManager {
         }
     }
 
+    /**
+     * 列族模式下创建数据表, 即在共享数据库中创建同名列族.
+     *
+     * @param tableName 数据库表名称
+     * @param options   数据表属性, 为空时使用公共属性
+     * @return 创建结果
+     */
+    private static boolean createColumnFamily(final String tableName, Options options) throws Exception {
+        try {
+            ColumnFamilyHandle handle = CLOSED_COLUMN_FAMILIES.remove(tableName);
+            if (handle == null) {
+                ColumnFamilyOptions cfOptions = options == null ? RocksDBOptionsFactory.createColumnFamilyOptions(getProfile(tableName)) : new ColumnFamilyOptions(options);
+                handle = sharedDB.createColumnFamily(new ColumnFamilyDescriptor(tableName.getBytes(StandardCharsets.UTF_8), cfOptions));
+            }
+            TABLES.put(tableName, sharedDB);
+            COLUMN_FAMILIES.put(tableName, handle);
+        } catch (Exception e) {
+            Log.error("error create table: " + tableName, e);
+            throw new Exception(DBErrorCode.DB_TABLE_CREATE_ERROR);
+        }
+        return true;
+    }
+
     /**
      * 根据名称创建对应的数据库.
      * Create database based by name
@@ -194,7 +404,7 @@ public class RocksDBManager {
      * @return Result 创建结果
      */
     public static boolean createTable(final String tableName) throws Exception {
-        return createTable(tableName, null);
+        return createTable(tableName, TableProfile.DEFAULT);
     }
 
     /**
@@ -208,6 +418,17 @@ public class RocksDBManager {
         return TABLES.get(tableName);
     }
 
+    /**
+     * 根据名称获得对应的列族句柄, 目录模式下为该表数据库的默认列族.
+     * Get the column family handle of a table
+     *
+     * @param tableName 数据库表名称
+     * @return ColumnFamilyHandle
+     */
+    public static ColumnFamilyHandle getColumnFamily(final String tableName) {
+        return COLUMN_FAMILIES.get(tableName);
+    }
+
     /**
      * 根据名称删除对应的数据库.
      * Delete database by name
@@ -223,7 +444,16 @@ public class RocksDBManager {
             throw new Exception(DBErrorCode.DB_TABLE_CREATE_PATH_ERROR);
         }
         try {
+            saveProfile(tableName, TableProfile.DEFAULT);
+            if (columnFamilyMode) {
+                TABLES.remove(tableName);
+                ColumnFamilyHandle handle = COLUMN_FAMILIES.remove(tableName);
+                sharedDB.dropColumnFamily(handle);
+                handle.close();
+                return true;
+            }
             RocksDB db = TABLES.remove(tableName);
+            COLUMN_FAMILIES.remove(tableName);
             db.close();
             File dir = new File(dataPath + File.separator + tableName);
             if (!dir.exists()) {
@@ -254,13 +484,35 @@ public class RocksDBManager {
      * close all table
      */
     public static void close() {
-        Set<Map.Entry<String, RocksDB>> entries = TABLES.entrySet();
-        for (Map.Entry<String, RocksDB> entry : entries) {
-            try {
-                TABLES.remove(entry.getKey());
-                entry.getValue().close();
-            } catch (Exception e) {
-                Log.warn("close rocksdb error", e);
+        synchronized (RocksDBManager.class) {
+            if (columnFamilyMode) {
+                for (ColumnFamilyHandle handle : COLUMN_FAMILIES.values()) {
+                    handle.close();
+                }
+                for (ColumnFamilyHandle handle : CLOSED_COLUMN_FAMILIES.values()) {
+                    handle.close();
+                }
+                COLUMN_FAMILIES.clear();
+                CLOSED_COLUMN_FAMILIES.clear();
+                TABLES.clear();
+                try {
+                    sharedDB.close();
+                } catch (Exception e) {
+                    Log.warn("close rocksdb error", e);
+                }
+                sharedDB = null;
+                columnFamilyMode = false;
+                return;
+            }
+            Set<Map.Entry<String, RocksDB>> entries = TABLES.entrySet();
+            for (Map.Entry<String, RocksDB> entry : entries) {
+                try {
+                    TABLES.remove(entry.getKey());
+                    COLUMN_FAMILIES.remove(entry.getKey());
+                    entry.getValue().close();
+                } catch (Exception e) {
+                    Log.warn("close rocksdb error", e);
+                }
             }
         }
     }
@@ -274,6 +526,14 @@ public class RocksDBManager {
     public static void closeTable(final String tableName) {
         try {
             RocksDB db = TABLES.remove(tableName);
+            ColumnFamilyHandle handle = COLUMN_FAMILIES.remove(tableName);
+            if (columnFamilyMode) {
+                // 共享数据库不能关闭, 列族仍存在, 保留句柄供重新创建同名表时复用
+                if (handle != null) {
+                    CLOSED_COLUMN_FAMILIES.put(tableName, handle);
+                }
+                return;
+            }
             db.close();
         } catch (Exception e) {
             Log.warn("close rocksdb tableName error:" + tableName, e);
@@ -333,7 +593,7 @@ public class RocksDBManager {
         }
         try {
             RocksDB db = TABLES.get(table);
-            db.put(key, value);
+            db.put(COLUMN_FAMILIES.get(table), key, value);
             return true;
         } catch (Exception e) {
             Log.error(e);
@@ -358,7 +618,7 @@ public class RocksDBManager {
         }
         try {
             RocksDB db = TABLES.get(table);
-            db.delete(key);
+            db.delete(COLUMN_FAMILIES.get(table), key);
             return true;
         } catch (Exception e) {
             Log.error(e);
@@ -383,8 +643,9 @@ public class RocksDBManager {
         }
         try (WriteBatch writeBatch = new WriteBatch()) {
             RocksDB db = TABLES.get(table);
+            ColumnFamilyHandle handle = COLUMN_FAMILIES.get(table);
             for (Map.Entry<byte[], byte[]> entry : kvs.entrySet()) {
-                writeBatch.put(entry.getKey(), entry.getValue());
+                writeBatch.put(handle, entry.getKey(), entry.getValue());
             }
             db.write(new WriteOptions(), writeBatch);
             return true;
@@ -411,8 +672,9 @@ public class RocksDBManager {
         }
         try (WriteBatch writeBatch = new WriteBatch()) {
             RocksDB db = TABLES.get(table);
+            ColumnFamilyHandle handle = COLUMN_FAMILIES.get(table);
             for (byte[] key : keys) {
-                writeBatch.delete(key);
+                writeBatch.delete(handle, key);
             }
             db.write(new WriteOptions(), writeBatch);
             return true;
@@ -440,7 +702,7 @@ public class RocksDBManager {
         }
         try {
             RocksDB db = TABLES.get(table);
-            return db.get(key);
+            return db.get(COLUMN_FAMILIES.get(table), key);
         } catch (Exception e) {
             Log.error("get table={}: error",table);
             Log.error(e);
@@ -465,8 +727,9 @@ public class RocksDBManager {
         }
         try {
             RocksDB db = TABLES.get(table);
-            boolean rs = db.keyMayExist(key, new StringBuilder());
-            return rs && (db.get(key) != null);
+            ColumnFamilyHandle handle = COLUMN_FAMILIES.get(table);
+            boolean rs = db.keyMayExist(handle, key, new StringBuilder());
+            return rs && (db.get(handle, key) != null);
         } catch (Exception e) {
             Log.error("keyMayExist table={}: error",table);
             Log.error(e);
@@ -492,7 +755,7 @@ public class RocksDBManager {
         }
         try {
             RocksDB db = TABLES.get(table);
-            return db.multiGet(keys);
+            return db.multiGet(columnFamilyList(table, keys.size()), keys);
         } catch (Exception ex) {
             Log.error("multiGet table={}: error",table);
             Log.error(ex);
@@ -516,7 +779,7 @@ public class RocksDBManager {
         try {
             RocksDB db = TABLES.get(table);
             //该方法获取的结果包含查不到的key, 将以null 值放入返回的list中,因此需要把空值去除.
-            List<byte[]> list = db.multiGetAsList(keys);
+            List<byte[]> list = db.multiGetAsList(columnFamilyList(table, keys.size()), keys);
             List<byte[]> rs = new ArrayList<>();
             for(byte[] tx : list){
                 if(null != tx){
@@ -548,7 +811,7 @@ public class RocksDBManager {
         }
         try {
             RocksDB db = TABLES.get(table);
-            Map<byte[], byte[]> map = db.multiGet(keys);
+            Map<byte[], byte[]> map = db.multiGet(columnFamilyList(table, keys.size()), keys);
             if (map != null && map.size() > 0) {
                 list.addAll(map.values());
             }
@@ -579,7 +842,7 @@ public class RocksDBManager {
         }
         try {
             RocksDB db = TABLES.get(table);
-            Map<byte[], byte[]> map = db.multiGet(keys);
+            Map<byte[], byte[]> map = db.multiGet(columnFamilyList(table, keys.size()), keys);
             if (map != null && map.size() > 0) {
                 list.addAll(map.keySet());
             }
@@ -606,7 +869,7 @@ public class RocksDBManager {
         List<byte[]> list = new ArrayList<>();
         try {
             RocksDB db = TABLES.get(table);
-            try (RocksIterator iterator = db.newIterator()) {
+            try (RocksIterator iterator = db.newIterator(COLUMN_FAMILIES.get(table))) {
                 for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
                     list.add(iterator.key());
                 }
@@ -634,7 +897,7 @@ public class RocksDBManager {
         List<byte[]> list = new ArrayList<>();
         try {
             RocksDB db = TABLES.get(table);
-            try (RocksIterator iterator = db.newIterator()) {
+            try (RocksIterator iterator = db.newIterator(COLUMN_FAMILIES.get(table))) {
                 for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
                     list.add(iterator.value());
                 }
@@ -662,7 +925,7 @@ public class RocksDBManager {
         List<Entry<byte[], byte[]>> entryList = new ArrayList<>();
         try {
             RocksDB db = TABLES.get(table);
-            try (RocksIterator iterator = db.newIterator()) {
+            try (RocksIterator iterator = db.newIterator(COLUMN_FAMILIES.get(table))) {
                 for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
                     entryList.add(new Entry(iterator.key(), iterator.value()));
                 }
@@ -676,35 +939,71 @@ public class RocksDBManager {
     }
 
     /**
-     * 获得公共的数据库连接属性.
+     * 构造与keys等长的列族句柄列表, 供multiGet使用.
      *
-     * @param createIfMissing 是否默认表
-     * @return 数据库连接属性
+     * @param table 数据库表名称
+     * @param size  keys数量
+     * @return 列族句柄列表
      */
-    private static synchronized Options getCommonOptions(final boolean createIfMissing) {
-        Options options = new Options();
+    private static List<ColumnFamilyHandle> columnFamilyList(final String table, final int size) {
+        return Collections.nCopies(size, COLUMN_FAMILIES.get(table));
+    }
 
-        options.setCreateIfMissing(createIfMissing);
-        /**
-         * 优化读取性能方案
-         */
-        options.setAllowMmapReads(true);
-        options.setCompressionType(CompressionType.NO_COMPRESSION);
-        options.setMaxOpenFiles(-1);
-        BlockBasedTableConfig tableOption = new BlockBasedTableConfig();
-        tableOption.setNoBlockCache(true);
-        tableOption.setBlockRestartInterval(4);
-        tableOption.setFilterPolicy(new BloomFilter(10, true));
-        options.setTableFormatConfig(tableOption);
-
-        options.setMaxBackgroundCompactions(16);
-        options.setNewTableReaderForCompactionInputs(true);
-        //为压缩的输入，打开RocksDB层的预读取
-        options.setCompactionReadaheadSize(128 * SizeUnit.KB);
-        options.setNewTableReaderForCompactionInputs(true);
-
-        return options;
+    /**
+     * 读取数据目录下记录的各数据表调优方案.
+     */
+    private static void loadProfiles() {
+        PROFILES.clear();
+        File file = new File(dataPath + File.separator + PROFILE_FILE_NAME);
+        if (!file.exists()) {
+            return;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            properties.load(in);
+        } catch (IOException e) {
+            Log.warn("load table profiles failed, file: " + file.getPath(), e);
+            return;
+        }
+        for (String tableName : properties.stringPropertyNames()) {
+            PROFILES.put(tableName, TableProfile.parse(properties.getProperty(tableName)));
+        }
+    }
+
+    /**
+     * 记录数据表的调优方案, 默认方案不记录.
+     *
+     * @param tableName 数据库表名称
+     * @param profile   调优方案
+     */
+    private static void saveProfile(final String tableName, TableProfile profile) {
+        if (profile == null || profile == TableProfile.DEFAULT) {
+            if (PROFILES.remove(tableName) == null) {
+                return;
+            }
+        } else {
+            PROFILES.put(tableName, profile);
+        }
+        Properties properties = new Properties();
+        for (Map.Entry<String, TableProfile> entry : PROFILES.entrySet()) {
+            properties.setProperty(entry.getKey(), entry.getValue().name());
+        }
+        File file = new File(dataPath + File.separator + PROFILE_FILE_NAME);
+        try (OutputStream out = new FileOutputStream(file)) {
+            properties.store(out, "rocksdb table profiles");
+        } catch (IOException e) {
+            Log.warn("save table profiles failed, file: " + file.getPath(), e);
+        }
     }
 
+    /**
+     * 获取数据表的调优方案.
+     *
+     * @param tableName 数据库表名称
+     * @return 未记录时为默认方案
+     */
+    public static TableProfile getProfile(final String tableName) {
+        return PROFILES.getOrDefault(tableName, TableProfile.DEFAULT);
+    }
 
 }
@@ -0,0 +1,248 @@
+/**
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.core.rockdb.manager;
+
+import io.nuls.core.log.Log;
+import io.nuls.core.model.StringUtils;
+import io.nuls.core.rockdb.model.TableProfile;
+import io.nuls.core.rockdb.util.DBUtils;
+import org.rocksdb.*;
+import org.rocksdb.util.SizeUnit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * rocksdb数据库属性工厂, 所有数据表共享同一个块缓存, 并按调优方案生成表属性.
+ * 相关配置项:
+ * dbBlockCacheSize      共享块缓存字节数, 0表示不使用块缓存(历史默认行为)
+ * dbBlockCacheType      块缓存类型, lru 或 clock
+ * dbCompression         冷数据层(L2及以下)的压缩算法, none、lz4 或 zstd
+ * dbPartitionedFilters  是否使用分区索引与过滤器(需开启块缓存)
+ */
+public class RocksDBOptionsFactory {
+
+    public static final String CONFIG_BLOCK_CACHE_SIZE = "dbBlockCacheSize";
+    public static final String CONFIG_BLOCK_CACHE_TYPE = "dbBlockCacheType";
+    public static final String CONFIG_COMPRESSION = "dbCompression";
+    public static final String CONFIG_PARTITIONED_FILTERS = "dbPartitionedFilters";
+
+    /**
+     * 默认的层数, 与rocksdb的num_levels默认值一致
+     */
+    private static final int NUM_LEVELS = 7;
+
+    /**
+     * 不压缩的热数据层数
+     */
+    private static final int UNCOMPRESSED_LEVELS = 2;
+
+    private static volatile boolean loaded = false;
+
+    private static long blockCacheSize;
+
+    private static String blockCacheType;
+
+    private static CompressionType compressionType;
+
+    private static boolean partitionedFilters;
+
+    /**
+     * 所有数据表共享的块缓存
+     */
+    private static Cache sharedCache;
+
+    /**
+     * 读取配置, 只在第一次使用时执行
+     */
+    private static void load() {
+        if (loaded) {
+            return;
+        }
+        synchronized (RocksDBOptionsFactory.class) {
+            if (loaded) {
+                return;
+            }
+            String value = DBUtils.getConfigValue(CONFIG_BLOCK_CACHE_SIZE);
+            configure(StringUtils.isBlank(value) ? 0 : Long.parseLong(value.trim()),
+                    DBUtils.getConfigValue(CONFIG_BLOCK_CACHE_TYPE),
+                    DBUtils.getConfigValue(CONFIG_COMPRESSION),
+                    Boolean.parseBoolean(DBUtils.getConfigValue(CONFIG_PARTITIONED_FILTERS)));
+        }
+    }
+
+    /**
+     * 设置共享块缓存与压缩参数, 须在打开任何数据表之前调用, 未调用时从模块配置中读取
+     * Configure the shared block cache and compression, must be called before any table is opened
+     *
+     * @param cacheSize          共享块缓存字节数, 0表示不使用块缓存
+     * @param cacheType          lru 或 clock
+     * @param compression        none、lz4 或 zstd
+     * @param partitionedFilter  是否使用分区索引与过滤器
+     */
+    public static synchronized void configure(long cacheSize, String cacheType, String compression, boolean partitionedFilter) {
+        blockCacheSize = Math.max(0, cacheSize);
+        blockCacheType = StringUtils.isBlank(cacheType) ? "lru" : cacheType.trim().toLowerCase();
+        compressionType = parseCompression(compression);
+        partitionedFilters = partitionedFilter && blockCacheSize > 0;
+        if (sharedCache != null) {
+            sharedCache.close();
+            sharedCache = null;
+        }
+        if (blockCacheSize > 0) {
+            if ("clock".equals(blockCacheType)) {
+                sharedCache = new ClockCache(blockCacheSize);
+            } else {
+                sharedCache = new LRUCache(blockCacheSize);
+            }
+        }
+        loaded = true;
+        Log.info("rocksdb options: blockCacheSize={}, blockCacheType={}, compression={}, partitionedFilters={}",
+                blockCacheSize, blockCacheType, compressionType, partitionedFilters);
+    }
+
+    private static CompressionType parseCompression(String compression) {
+        if (StringUtils.isBlank(compression)) {
+            return CompressionType.NO_COMPRESSION;
+        }
+        switch (compression.trim().toLowerCase()) {
+            case "lz4":
+                return CompressionType.LZ4_COMPRESSION;
+            case "zstd":
+                return CompressionType.ZSTD_COMPRESSION;
+            default:
+                return CompressionType.NO_COMPRESSION;
+        }
+    }
+
+    /**
+     * 是否启用了共享块缓存
+     *
+     * @return boolean
+     */
+    public static boolean isBlockCacheEnabled() {
+        load();
+        return sharedCache != null;
+    }
+
+    /**
+     * 目录模式下单个数据表的完整属性
+     *
+     * @param profile         调优方案
+     * @param createIfMissing 数据库不存在时是否默认创建
+     * @return Options
+     */
+    public static Options createOptions(TableProfile profile, boolean createIfMissing) {
+        Options options = new Options(createDBOptions(), createColumnFamilyOptions(profile));
+        options.setCreateIfMissing(createIfMissing);
+        return options;
+    }
+
+    /**
+     * 数据库实例级属性
+     *
+     * @return DBOptions
+     */
+    public static DBOptions createDBOptions() {
+        load();
+        DBOptions options = new DBOptions();
+        options.setCreateIfMissing(true);
+        options.setCreateMissingColumnFamilies(true);
+        /**
+         * 优化读取性能方案
+         * 使用块缓存时不能使用mmap读取, 否则未压缩的数据块会绕过缓存
+         */
+        options.setAllowMmapReads(sharedCache == null);
+        options.setMaxOpenFiles(-1);
+        options.setMaxBackgroundCompactions(16);
+        options.setNewTableReaderForCompactionInputs(true);
+        //为压缩的输入，打开RocksDB层的预读取
+        options.setCompactionReadaheadSize(128 * SizeUnit.KB);
+        return options;
+    }
+
+    /**
+     * 按调优方案生成数据表(列族)属性
+     *
+     * @param profile 调优方案
+     * @return ColumnFamilyOptions
+     */
+    public static ColumnFamilyOptions createColumnFamilyOptions(TableProfile profile) {
+        load();
+        if (profile == null) {
+            profile = TableProfile.DEFAULT;
+        }
+        ColumnFamilyOptions options = new ColumnFamilyOptions();
+        BlockBasedTableConfig tableOption = new BlockBasedTableConfig();
+        if (sharedCache == null) {
+            tableOption.setNoBlockCache(true);
+        } else {
+            tableOption.setBlockCache(sharedCache);
+            tableOption.setCacheIndexAndFilterBlocks(true);
+            tableOption.setCacheIndexAndFilterBlocksWithHighPriority(true);
+            tableOption.setPinL0FilterAndIndexBlocksInCache(true);
+        }
+        boolean compressColdLevels = true;
+        switch (profile) {
+            case POINT_LOOKUP:
+                tableOption.setBlockSize(4 * SizeUnit.KB);
+                tableOption.setBlockRestartInterval(4);
+                tableOption.setDataBlockIndexType(DataBlockIndexType.kDataBlockBinaryAndHash);
+                tableOption.setFilterPolicy(new BloomFilter(10, false));
+                break;
+            case SEQUENTIAL:
+                tableOption.setBlockSize(64 * SizeUnit.KB);
+                tableOption.setBlockRestartInterval(16);
+                tableOption.setFilterPolicy(new BloomFilter(10, false));
+                options.setWriteBufferSize(64 * SizeUnit.MB);
+                options.setTargetFileSizeBase(64 * SizeUnit.MB);
+                options.setLevelCompactionDynamicLevelBytes(true);
+                break;
+            case HOT:
+                tableOption.setBlockSize(4 * SizeUnit.KB);
+                tableOption.setBlockRestartInterval(4);
+                tableOption.setFilterPolicy(new BloomFilter(10, false));
+                compressColdLevels = false;
+                break;
+            default:
+                tableOption.setBlockRestartInterval(4);
+                tableOption.setFilterPolicy(new BloomFilter(10, !partitionedFilters));
+                break;
+        }
+        if (partitionedFilters && profile != TableProfile.HOT) {
+            tableOption.setIndexType(IndexType.kTwoLevelIndexSearch);
+            tableOption.setPartitionFilters(true);
+            tableOption.setMetadataBlockSize(4 * SizeUnit.KB);
+            tableOption.setPinTopLevelIndexAndFilter(true);
+        }
+        options.setTableFormatConfig(tableOption);
+
+        options.setCompressionType(CompressionType.NO_COMPRESSION);
+        if (compressColdLevels && compressionType != CompressionType.NO_COMPRESSION) {
+            List<CompressionType> levels = new ArrayList<>(NUM_LEVELS);
+            for (int i = 0; i < NUM_LEVELS; i++) {
+                levels.add(i < UNCOMPRESSED_LEVELS ? CompressionType.NO_COMPRESSION : compressionType);
+            }
+            options.setCompressionPerLevel(levels);
+            options.setBottommostCompressionType(compressionType);
+        }
+        return options;
+    }
+}
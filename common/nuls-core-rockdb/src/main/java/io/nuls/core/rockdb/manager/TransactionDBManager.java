@@ -4,6 +4,7 @@ import io.nuls.core.log.Log;
 import io.nuls.core.model.StringUtils;
 import io.nuls.core.rockdb.constant.DBErrorCode;
 import io.nuls.core.rockdb.model.Entry;
+import io.nuls.core.rockdb.model.TableProfile;
 import io.nuls.core.rockdb.util.DBUtils;
 import org.rocksdb.*;
 
@@ -550,27 +551,12 @@ public class TransactionDBManager {
 
 
     /**
-     * 获得公共的数据库连接属性.
+     * 获得公共的数据库连接属性, 与RocksDBManager共享块缓存与压缩配置.
      *
      * @param createIfMissing 是否默认表
      * @return 数据库连接属性
      */
-    private static synchronized Options getCommonOptions(final boolean createIfMissing) {
-        Options options = new Options();
-        options.setCreateIfMissing(createIfMissing);
-        /**
-         * 优化读取性能方案
-         */
-        options.setAllowMmapReads(true);
-        options.setCompressionType(CompressionType.NO_COMPRESSION);
-        options.setMaxOpenFiles(-1);
-
-        BlockBasedTableConfig tableOption = new BlockBasedTableConfig();
-        tableOption.setNoBlockCache(true);
-        tableOption.setBlockRestartInterval(4);
-        tableOption.setFilterPolicy(new BloomFilter(10, true));
-        options.setTableFormatConfig(tableOption);
-
-        return options;
+    private static Options getCommonOptions(final boolean createIfMissing) {
+        return RocksDBOptionsFactory.createOptions(TableProfile.DEFAULT, createIfMissing);
     }
 }
@@ -0,0 +1,69 @@
+/**
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.core.rockdb.model;
+
+/**
+ * 数据表调优方案, 创建数据表时指定, 决定该表的块大小、过滤器、缓存与压缩策略.
+ * Tuning profile of a table, selected when the table is created.
+ */
+public enum TableProfile {
+
+    /**
+     * 默认方案, 与历史版本的表属性一致
+     * Default profile, same as the historical table options
+     */
+    DEFAULT,
+
+    /**
+     * 随机点查为主的大表, 如按hash查询的交易、区块头
+     * Large table mostly read by random point lookups, e.g. transactions and headers by hash
+     */
+    POINT_LOOKUP,
+
+    /**
+     * 按顺序追加写入、顺序读取的表, 如按高度存储的数据
+     * Append-only table read sequentially, e.g. data keyed by height
+     */
+    SEQUENTIAL,
+
+    /**
+     * 频繁访问的小表, 索引与过滤器常驻缓存且不压缩
+     * Small frequently accessed table, index and filter blocks pinned and no compression
+     */
+    HOT;
+
+    /**
+     * 根据名称解析调优方案, 无法识别时返回默认方案
+     *
+     * @param name 方案名称
+     * @return TableProfile
+     */
+    public static TableProfile parse(String name) {
+        if (name == null) {
+            return DEFAULT;
+        }
+        for (TableProfile profile : values()) {
+            if (profile.name().equalsIgnoreCase(name.trim())) {
+                return profile;
+            }
+        }
+        return DEFAULT;
+    }
+}
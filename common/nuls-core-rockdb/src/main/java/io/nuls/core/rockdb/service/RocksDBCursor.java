@@ -0,0 +1,172 @@
+/**
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.core.rockdb.service;
+
+import io.nuls.core.rockdb.constant.DBErrorCode;
+import io.nuls.core.rockdb.manager.RocksDBManager;
+import io.nuls.core.rockdb.model.Entry;
+import org.rocksdb.*;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * 数据表游标, 在创建时的快照上按顺序遍历数据, 内存占用与表大小无关.
+ * 可限定前缀、范围[lower, upper)以及遍历方向, 使用完毕必须关闭以释放快照.
+ * Cursor over a snapshot of a table, optionally bounded by a prefix and a [lower, upper) range,
+ * forward or reverse. Must be closed to release the snapshot.
+ */
+public class RocksDBCursor implements Iterator<Entry<byte[], byte[]>>, Closeable {
+
+    private final RocksDB db;
+    private final Snapshot snapshot;
+    private final ReadOptions readOptions;
+    private final RocksIterator iterator;
+    private final byte[] lower;
+    private final byte[] upper;
+    private final byte[] prefix;
+    private final boolean reverse;
+    private volatile boolean isClose = false;
+
+    RocksDBCursor(String table, byte[] lower, byte[] upper, byte[] prefix, boolean reverse) throws Exception {
+        this.db = RocksDBManager.getTable(table);
+        ColumnFamilyHandle columnFamily = RocksDBManager.getColumnFamily(table);
+        if (db == null || columnFamily == null) {
+            throw new Exception(DBErrorCode.DB_TABLE_NOT_EXIST);
+        }
+        this.prefix = prefix;
+        this.reverse = reverse;
+        this.lower = max(lower, prefix);
+        this.upper = min(upper, prefix == null ? null : successor(prefix));
+        this.snapshot = db.getSnapshot();
+        // 全表遍历不填充块缓存, 避免挤出热点数据
+        this.readOptions = new ReadOptions().setSnapshot(snapshot).setFillCache(false);
+        this.iterator = db.newIterator(columnFamily, readOptions);
+        seek();
+    }
+
+    private void seek() {
+        if (!reverse) {
+            if (lower == null) {
+                iterator.seekToFirst();
+            } else {
+                iterator.seek(lower);
+            }
+            return;
+        }
+        if (upper == null) {
+            iterator.seekToLast();
+        } else {
+            iterator.seekForPrev(upper);
+            // upper为开区间
+            if (iterator.isValid() && compare(iterator.key(), upper) >= 0) {
+                iterator.prev();
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (isClose || !iterator.isValid()) {
+            return false;
+        }
+        byte[] key = iterator.key();
+        if (reverse) {
+            return lower == null || compare(key, lower) >= 0;
+        }
+        return upper == null || compare(key, upper) < 0;
+    }
+
+    @Override
+    public Entry<byte[], byte[]> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Entry<byte[], byte[]> entry = new Entry<>(iterator.key(), iterator.value());
+        if (reverse) {
+            iterator.prev();
+        } else {
+            iterator.next();
+        }
+        return entry;
+    }
+
+    @Override
+    public void close() {
+        if (isClose) {
+            return;
+        }
+        isClose = true;
+        iterator.close();
+        readOptions.close();
+        db.releaseSnapshot(snapshot);
+    }
+
+    /**
+     * 按rocksdb默认比较器(无符号字节序)比较
+     */
+    static int compare(byte[] a, byte[] b) {
+        int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            int x = a[i] & 0xff;
+            int y = b[i] & 0xff;
+            if (x != y) {
+                return x - y;
+            }
+        }
+        return a.length - b.length;
+    }
+
+    /**
+     * 大于所有以prefix开头的key的最小key, prefix全为0xff时返回null(无上界)
+     */
+    static byte[] successor(byte[] prefix) {
+        for (int i = prefix.length - 1; i >= 0; i--) {
+            if (prefix[i] != (byte) 0xff) {
+                byte[] result = new byte[i + 1];
+                System.arraycopy(prefix, 0, result, 0, i + 1);
+                result[i]++;
+                return result;
+            }
+        }
+        return null;
+    }
+
+    private static byte[] max(byte[] a, byte[] b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        return compare(a, b) >= 0 ? a : b;
+    }
+
+    private static byte[] min(byte[] a, byte[] b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        return compare(a, b) <= 0 ? a : b;
+    }
+}
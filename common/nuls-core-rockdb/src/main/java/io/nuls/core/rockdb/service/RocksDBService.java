@@ -21,23 +21,51 @@ package io.nuls.core.rockdb.service;
 
 import io.nuls.core.log.Log;
 import io.nuls.core.model.StringUtils;
+import io.nuls.core.rockdb.constant.DBErrorCode;
 import io.nuls.core.rockdb.manager.RocksDBManager;
 import io.nuls.core.rockdb.model.Entry;
+import io.nuls.core.rockdb.model.TableProfile;
+import io.nuls.core.rockdb.util.DBUtils;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
 public class RocksDBService {
 
+    /**
+     * 配置项: 是否以列族模式存储, 开启后模块的所有数据表共享一个数据库实例
+     * config item: store every table of the module as a column family of one shared database
+     */
+    public static final String CONFIG_COLUMN_FAMILY = "dbColumnFamily";
+
     public static void init(String path) {
+        init(path, Boolean.parseBoolean(DBUtils.getConfigValue(CONFIG_COLUMN_FAMILY)));
+    }
+
+    public static void init(String path, boolean columnFamily) {
         try {
-            RocksDBManager.init(path);
+            if (columnFamily) {
+                RocksDBManager.initColumnFamily(path);
+            } else {
+                RocksDBManager.init(path);
+            }
         } catch (Exception e) {
             Log.error(e.getMessage(),e);
         }
     }
 
+    /**
+     * 是否以列族模式打开, 只有列族模式支持跨表原子批量操作
+     * whether the database is open in column family mode, cross-table atomic batches need it
+     *
+     * @return boolean
+     */
+    public static boolean isColumnFamilyMode() {
+        return RocksDBManager.isColumnFamilyMode();
+    }
+
     public static boolean createTable(String tableName) throws Exception {
         if (!RocksDBService.existTable(tableName)) {
             return RocksDBManager.createTable(tableName);
@@ -45,6 +73,22 @@ public class RocksDBService {
         return false;
     }
 
+    /**
+     * 按调优方案创建表
+     * create table with a tuning profile
+     *
+     * @param tableName 表名
+     * @param profile   调优方案
+     * @return
+     * @throws Exception
+     */
+    public static boolean createTable(String tableName, TableProfile profile) throws Exception {
+        if (!RocksDBService.existTable(tableName)) {
+            return RocksDBManager.createTable(tableName, profile);
+        }
+        return false;
+    }
+
     public static boolean destroyTable(String table) throws Exception {
         return RocksDBManager.destroyTable(table);
     }
@@ -68,6 +112,22 @@ public class RocksDBService {
         return exist;
     }
 
+    /**
+     * 如果表不存在就按调优方案创建表
+     * if table not exist then create this with a tuning profile;
+     * @param table
+     * @param profile
+     * @return
+     * @throws Exception
+     */
+    public static boolean createTableIfNotExist(String table, TableProfile profile) throws Exception {
+        boolean exist = existTable(table);
+        if(!exist){
+            createTable(table, profile);
+        }
+        return exist;
+    }
+
     /**
      * 判断表是否存在
      *
@@ -130,6 +190,135 @@ public class RocksDBService {
         return RocksDBManager.entryList(table);
     }
 
+    /**
+     * 打开全表游标, 使用完毕必须关闭
+     * open a cursor over the whole table, must be closed after use
+     *
+     * @param table 表名
+     * @return 游标
+     * @throws Exception 表不存在
+     */
+    public static RocksDBCursor openCursor(String table) throws Exception {
+        return new RocksDBCursor(table, null, null, null, false);
+    }
+
+    /**
+     * 打开前缀游标, 只遍历以prefix开头的key
+     * open a cursor over the keys starting with prefix
+     *
+     * @param table  表名
+     * @param prefix key前缀
+     * @return 游标
+     * @throws Exception 表不存在
+     */
+    public static RocksDBCursor openPrefixCursor(String table, byte[] prefix) throws Exception {
+        return new RocksDBCursor(table, null, null, prefix, false);
+    }
+
+    /**
+     * 打开范围游标, 遍历[from, to)内的key, from或to为空时不限制
+     * open a cursor over the keys in [from, to), null means unbounded
+     *
+     * @param table   表名
+     * @param from    起始key(包含)
+     * @param to      结束key(不包含)
+     * @param reverse 是否倒序遍历
+     * @return 游标
+     * @throws Exception 表不存在
+     */
+    public static RocksDBCursor openRangeCursor(String table, byte[] from, byte[] to, boolean reverse) throws Exception {
+        return new RocksDBCursor(table, from, to, null, reverse);
+    }
+
+    /**
+     * 在快照上遍历全表, 不把整表读入内存
+     * visit every entry of the table on a snapshot without materializing it
+     *
+     * @param table   表名
+     * @param visitor 回调, 返回false时停止
+     * @throws Exception 表不存在或回调抛出的异常
+     */
+    public static void forEach(String table, EntryVisitor visitor) throws Exception {
+        try (RocksDBCursor cursor = openCursor(table)) {
+            visit(cursor, visitor);
+        }
+    }
+
+    /**
+     * 在快照上遍历以prefix开头的数据
+     * visit the entries whose key starts with prefix
+     *
+     * @param table   表名
+     * @param prefix  key前缀
+     * @param visitor 回调, 返回false时停止
+     * @throws Exception 表不存在或回调抛出的异常
+     */
+    public static void forEach(String table, byte[] prefix, EntryVisitor visitor) throws Exception {
+        try (RocksDBCursor cursor = openPrefixCursor(table, prefix)) {
+            visit(cursor, visitor);
+        }
+    }
+
+    /**
+     * 在快照上按批遍历全表, 每批最多batchSize条
+     * visit the table in batches of at most batchSize entries
+     *
+     * @param table     表名
+     * @param batchSize 每批条数
+     * @param visitor   回调, 返回false时停止
+     * @throws Exception 表不存在或回调抛出的异常
+     */
+    public static void forEachBatch(String table, int batchSize, BatchEntryVisitor visitor) throws Exception {
+        if (batchSize <= 0) {
+            throw new Exception(DBErrorCode.NULL_PARAMETER);
+        }
+        List<Entry<byte[], byte[]>> batch = new ArrayList<>(batchSize);
+        try (RocksDBCursor cursor = openCursor(table)) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == batchSize) {
+                    if (!visitor.visit(batch)) {
+                        return;
+                    }
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                visitor.visit(batch);
+            }
+        }
+    }
+
+    /**
+     * 统计表中的数据条数, 不把key读入内存
+     * count the entries of the table without materializing the keys
+     *
+     * @param table 表名
+     * @return 表不存在时返回0
+     */
+    public static int count(String table) {
+        int count = 0;
+        try (RocksDBCursor cursor = openCursor(table)) {
+            while (cursor.hasNext()) {
+                cursor.next();
+                count++;
+            }
+        } catch (Exception e) {
+            Log.error("count table={}: error", table);
+            return 0;
+        }
+        return count;
+    }
+
+    private static void visit(RocksDBCursor cursor, EntryVisitor visitor) throws Exception {
+        while (cursor.hasNext()) {
+            Entry<byte[], byte[]> entry = cursor.next();
+            if (!visitor.visit(entry.getKey(), entry.getValue())) {
+                return;
+            }
+        }
+    }
+
     public static BatchOperation createWriteBatch(String table) {
         if (StringUtils.isBlank(table)) {
             return null;
@@ -146,4 +335,23 @@ public class RocksDBService {
         }
         return batchOperation;
     }
+
+    /**
+     * 创建跨数据表的原子批量操作, 仅列族模式下可用
+     * create an atomic batch across tables, only available in column family mode
+     *
+     * @param tables 参与批量操作的数据表
+     * @return 不满足条件时返回null
+     */
+    public static MultiTableBatchOperation createMultiTableWriteBatch(String... tables) {
+        if (tables == null || tables.length == 0) {
+            return null;
+        }
+        try {
+            return new RocksDBMultiTableBatchOperation(tables);
+        } catch (Exception e) {
+            Log.error("DB multi table batch create error: " + e.getMessage());
+            return null;
+        }
+    }
 }
@@ -24,6 +24,8 @@
  */
 package io.nuls.core.rockdb.util;
 
+import io.nuls.core.core.config.ConfigurationLoader;
+import io.nuls.core.core.ioc.SpringLiteContext;
 import io.nuls.core.model.StringUtils;
 import io.nuls.core.log.Log;
 import io.nuls.core.parse.config.IniEntity;
@@ -128,6 +130,23 @@ public class DBUtils {
         return dbPath.substring(start, end);
     }
 
+    /**
+     * 读取模块配置项, 未初始化配置或配置不存在时返回null
+     * Read a config item of the module, null if absent
+     *
+     * @param key 配置项名称
+     * @return 配置值
+     */
+    public static String getConfigValue(String key) {
+        try {
+            ConfigurationLoader configLoader = SpringLiteContext.getBean(ConfigurationLoader.class);
+            ConfigurationLoader.ConfigItem configItem = configLoader.getConfigItem(key);
+            return configItem == null ? null : configItem.getValue();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
     public static boolean checkPathLegal(String areaName) {
         if (StringUtils.isBlank(areaName)) {
             return false;
@@ -0,0 +1,149 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.core.storage;
+
+import io.nuls.core.rockdb.manager.RocksDBManager;
+import io.nuls.core.rockdb.manager.RocksDBOptionsFactory;
+import io.nuls.core.rockdb.model.TableProfile;
+import io.nuls.core.rockdb.service.MultiTableBatchOperation;
+import io.nuls.core.rockdb.service.RocksDBService;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * 列族模式存储测试
+ */
+public class ColumnFamilyTest {
+
+    private String dataPath;
+
+    @Before
+    public void before() throws Exception {
+        RocksDBManager.close();
+        dataPath = Files.createTempDirectory("cf-rocksdb").toFile().getAbsolutePath();
+    }
+
+    @After
+    public void after() {
+        RocksDBManager.close();
+    }
+
+    @Test
+    public void crudTest() throws Exception {
+        RocksDBService.init(dataPath, true);
+        Assert.assertTrue(RocksDBService.createTable("table_a"));
+        Assert.assertTrue(RocksDBService.createTable("table_b"));
+        RocksDBService.put("table_a", "k".getBytes(UTF_8), "a".getBytes(UTF_8));
+        RocksDBService.put("table_b", "k".getBytes(UTF_8), "b".getBytes(UTF_8));
+        Assert.assertEquals("a", new String(RocksDBService.get("table_a", "k".getBytes(UTF_8)), UTF_8));
+        Assert.assertEquals("b", new String(RocksDBService.get("table_b", "k".getBytes(UTF_8)), UTF_8));
+        Assert.assertEquals(1, RocksDBService.keyList("table_a").size());
+        Assert.assertEquals(1, RocksDBService.multiGetValueList("table_b", Arrays.asList("k".getBytes(UTF_8))).size());
+
+        MultiTableBatchOperation batch = RocksDBService.createMultiTableWriteBatch("table_a", "table_b");
+        Assert.assertNotNull(batch);
+        batch.put("table_a", "k2".getBytes(UTF_8), "a2".getBytes(UTF_8));
+        batch.delete("table_b", "k".getBytes(UTF_8));
+        batch.executeBatch();
+        Assert.assertEquals("a2", new String(RocksDBService.get("table_a", "k2".getBytes(UTF_8)), UTF_8));
+        Assert.assertNull(RocksDBService.get("table_b", "k".getBytes(UTF_8)));
+
+        // 重新打开后列族仍然存在
+        RocksDBManager.close();
+        RocksDBService.init(dataPath, true);
+        Assert.assertTrue(RocksDBService.existTable("table_a"));
+        Assert.assertEquals(2, RocksDBService.valueList("table_a").size());
+        Assert.assertTrue(RocksDBService.destroyTable("table_b"));
+        Assert.assertFalse(RocksDBService.existTable("table_b"));
+    }
+
+    @Test
+    public void closeAndRecreateTest() throws Exception {
+        RocksDBService.init(dataPath, true);
+        Assert.assertTrue(RocksDBService.createTable("reopen"));
+        RocksDBService.put("reopen", "k".getBytes(UTF_8), "v".getBytes(UTF_8));
+        RocksDBManager.closeTable("reopen");
+        Assert.assertFalse(RocksDBService.existTable("reopen"));
+        // 列族仍在共享数据库中, 重新创建时复用并保留数据
+        Assert.assertTrue(RocksDBService.createTable("reopen"));
+        Assert.assertEquals("v", new String(RocksDBService.get("reopen", "k".getBytes(UTF_8)), UTF_8));
+        RocksDBManager.closeTable("reopen");
+        RocksDBManager.close();
+        RocksDBService.init(dataPath, true);
+        Assert.assertTrue(RocksDBService.existTable("reopen"));
+    }
+
+    @Test
+    public void migrateTest() throws Exception {
+        RocksDBService.init(dataPath, false);
+        RocksDBService.createTable("legacy");
+        for (int i = 0; i < 100; i++) {
+            RocksDBService.put("legacy", ("key" + i).getBytes(UTF_8), ("value" + i).getBytes(UTF_8));
+        }
+        Assert.assertNull(RocksDBService.createMultiTableWriteBatch("legacy"));
+        RocksDBManager.close();
+
+        RocksDBService.init(dataPath, true);
+        Assert.assertTrue(RocksDBManager.isColumnFamilyMode());
+        Assert.assertTrue(RocksDBService.existTable("legacy"));
+        List<byte[]> values = RocksDBService.valueList("legacy");
+        Assert.assertEquals(100, values.size());
+        Assert.assertEquals("value7", new String(RocksDBService.get("legacy", "key7".getBytes(UTF_8)), UTF_8));
+        Assert.assertFalse(new File(dataPath + File.separator + "legacy").exists());
+    }
+
+    @Test
+    public void profileTest() throws Exception {
+        RocksDBOptionsFactory.configure(8 * 1024 * 1024, "lru", "lz4", true);
+        try {
+            RocksDBService.init(dataPath, false);
+            RocksDBService.createTable("lookup", TableProfile.POINT_LOOKUP);
+            RocksDBService.createTable("sequential", TableProfile.SEQUENTIAL);
+            for (int i = 0; i < 100; i++) {
+                RocksDBService.put("lookup", ("key" + i).getBytes(UTF_8), ("value" + i).getBytes(UTF_8));
+                RocksDBService.put("sequential", ("key" + i).getBytes(UTF_8), ("value" + i).getBytes(UTF_8));
+            }
+            RocksDBManager.close();
+
+            RocksDBService.init(dataPath, true);
+            Assert.assertEquals(TableProfile.POINT_LOOKUP, RocksDBManager.getProfile("lookup"));
+            Assert.assertEquals(TableProfile.SEQUENTIAL, RocksDBManager.getProfile("sequential"));
+            Assert.assertEquals("value42", new String(RocksDBService.get("lookup", "key42".getBytes(UTF_8)), UTF_8));
+            Assert.assertEquals(100, RocksDBService.keyList("sequential").size());
+        } finally {
+            RocksDBManager.close();
+            RocksDBOptionsFactory.configure(0, null, null, false);
+        }
+    }
+}
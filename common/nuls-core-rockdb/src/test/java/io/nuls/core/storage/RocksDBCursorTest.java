@@ -0,0 +1,114 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.core.storage;
+
+import io.nuls.core.rockdb.manager.RocksDBManager;
+import io.nuls.core.rockdb.model.Entry;
+import io.nuls.core.rockdb.service.RocksDBCursor;
+import io.nuls.core.rockdb.service.RocksDBService;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * 游标与流式遍历测试
+ */
+public class RocksDBCursorTest {
+
+    private static final String TABLE = "cursor_table";
+
+    @Before
+    public void before() throws Exception {
+        RocksDBManager.close();
+        RocksDBService.init(Files.createTempDirectory("cursor-rocksdb").toFile().getAbsolutePath(), false);
+        RocksDBService.createTable(TABLE);
+        for (String prefix : new String[]{"a", "b", "c"}) {
+            for (int i = 0; i < 5; i++) {
+                RocksDBService.put(TABLE, (prefix + i).getBytes(UTF_8), (prefix + i).getBytes(UTF_8));
+            }
+        }
+        RocksDBService.put(TABLE, new byte[]{(byte) 0xff, 1}, new byte[]{1});
+    }
+
+    @After
+    public void after() {
+        RocksDBManager.close();
+    }
+
+    private List<String> keys(RocksDBCursor cursor) {
+        List<String> keys = new ArrayList<>();
+        try (RocksDBCursor c = cursor) {
+            while (c.hasNext()) {
+                Entry<byte[], byte[]> entry = c.next();
+                keys.add(entry.getKey()[0] == (byte) 0xff ? "ff" : new String(entry.getKey(), UTF_8));
+            }
+        }
+        return keys;
+    }
+
+    @Test
+    public void cursorTest() throws Exception {
+        Assert.assertEquals(16, keys(RocksDBService.openCursor(TABLE)).size());
+        Assert.assertEquals("[b0, b1, b2, b3, b4]", keys(RocksDBService.openPrefixCursor(TABLE, "b".getBytes(UTF_8))).toString());
+        Assert.assertEquals("[a3, a4, b0]", keys(RocksDBService.openRangeCursor(TABLE, "a3".getBytes(UTF_8), "b1".getBytes(UTF_8), false)).toString());
+        Assert.assertEquals("[b0, a4, a3]", keys(RocksDBService.openRangeCursor(TABLE, "a3".getBytes(UTF_8), "b1".getBytes(UTF_8), true)).toString());
+        Assert.assertEquals("ff", keys(RocksDBService.openRangeCursor(TABLE, null, null, true)).get(0));
+    }
+
+    @Test
+    public void snapshotTest() throws Exception {
+        try (RocksDBCursor cursor = RocksDBService.openPrefixCursor(TABLE, "c".getBytes(UTF_8))) {
+            RocksDBService.put(TABLE, "c9".getBytes(UTF_8), "c9".getBytes(UTF_8));
+            int count = 0;
+            while (cursor.hasNext()) {
+                cursor.next();
+                count++;
+            }
+            Assert.assertEquals(5, count);
+        }
+        Assert.assertEquals(17, RocksDBService.count(TABLE));
+    }
+
+    @Test
+    public void visitorTest() throws Exception {
+        List<String> keys = new ArrayList<>();
+        RocksDBService.forEach(TABLE, "a".getBytes(UTF_8), (key, value) -> {
+            keys.add(new String(key, UTF_8));
+            return keys.size() < 3;
+        });
+        Assert.assertEquals("[a0, a1, a2]", keys.toString());
+
+        List<Integer> batchSizes = new ArrayList<>();
+        RocksDBService.forEachBatch(TABLE, 4, entries -> batchSizes.add(entries.size()));
+        Assert.assertEquals("[4, 4, 4, 4]", batchSizes.toString());
+    }
+}
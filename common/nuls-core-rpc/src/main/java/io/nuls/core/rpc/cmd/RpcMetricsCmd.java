@@ -0,0 +1,55 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.core.rpc.cmd;
+
+import io.nuls.core.core.annotation.Component;
+import io.nuls.core.rpc.info.Constants;
+import io.nuls.core.rpc.metrics.RpcMetrics;
+import io.nuls.core.rpc.model.CmdAnnotation;
+import io.nuls.core.rpc.model.Parameter;
+import io.nuls.core.rpc.model.message.Response;
+
+import java.util.Map;
+
+/**
+ * 查询本模块RPC调用统计数据，每个模块都提供
+ * Query the RPC statistics of this module, available in every module
+ */
+@Component
+public class RpcMetricsCmd extends BaseCmd {
+
+    private static final String FORMAT_PROMETHEUS = "prometheus";
+
+    @CmdAnnotation(cmd = "rpcMetrics", version = 1.0, scope = Constants.PUBLIC,
+            description = "RPC latency, throughput and queue depth statistics of this module")
+    @Parameter(parameterName = "format", parameterType = "String", parameterDes = "json(默认) / prometheus", canNull = true)
+    public Response rpcMetrics(Map params) {
+        Object format = params == null ? null : params.get("format");
+        if (FORMAT_PROMETHEUS.equals(format)) {
+            return success(RpcMetrics.toPrometheusText());
+        }
+        return success(RpcMetrics.snapshot());
+    }
+}
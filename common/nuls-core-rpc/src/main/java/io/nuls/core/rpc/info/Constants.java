@@ -187,6 +187,13 @@ public class Constants {
 
     public static final String ZERO = "0";
 
+    /**
+     * 握手协议版本，0.1只支持JSON文本帧，0.2起支持二进制帧
+     * Handshake protocol version, 0.1 supports JSON text frames only, binary frames since 0.2
+     */
+    public static final String PROTOCOL_VERSION_JSON = "0.1";
+    public static final String PROTOCOL_VERSION_BINARY = "0.2";
+
     /**
      * 处理待处理消息的线程池
      * Thread pool for processing messages to be processed
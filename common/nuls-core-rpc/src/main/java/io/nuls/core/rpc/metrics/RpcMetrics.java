@@ -0,0 +1,278 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.core.rpc.metrics;
+
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import io.nuls.core.rpc.netty.channel.ConnectData;
+import io.nuls.core.rpc.netty.channel.manager.ConnectManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RPC调用统计：各接口的客户端往返耗时、服务端处理耗时，消息编解码耗时，
+ * 各连接的进行中请求数、收发字节数及待处理队列长度
+ * RPC statistics: client round-trip and server handler time per cmd, message encoding/decoding time,
+ * and in-flight requests, bytes in/out and pending queue depths per connection
+ */
+public class RpcMetrics {
+
+    public static final String ENCODE_JSON = "encode_json";
+    public static final String ENCODE_BINARY = "encode_binary";
+    public static final String DECODE_JSON = "decode_json";
+    public static final String DECODE_BINARY = "decode_binary";
+
+    private static final String INBOUND_PREFIX = "inbound:";
+
+    private static final AttributeKey<String> PEER_LABEL = AttributeKey.valueOf("metricsPeer");
+
+    /**
+     * 客户端往返耗时，key:cmd
+     * Client round-trip time, key: cmd
+     */
+    private static final Map<String, LatencyHistogram> CLIENT_LATENCY = new ConcurrentHashMap<>();
+
+    /**
+     * 服务端接口处理耗时，key:cmd
+     * Server handler time, key: cmd
+     */
+    private static final Map<String, LatencyHistogram> HANDLER_LATENCY = new ConcurrentHashMap<>();
+
+    /**
+     * 消息编解码耗时，key:编解码方式
+     * Message encoding/decoding time, key: operation and format
+     */
+    private static final Map<String, LatencyHistogram> SERIALIZE_LATENCY = new ConcurrentHashMap<>();
+
+    /**
+     * 已发出尚未收到返回的请求数，key:角色
+     * Requests sent and not yet answered, key: role
+     */
+    private static final Map<String, LongAdder> CLIENT_IN_FLIGHT = new ConcurrentHashMap<>();
+
+    /**
+     * 正在执行的本地接口数
+     * Local commands being executed
+     */
+    private static final LongAdder HANDLER_IN_FLIGHT = new LongAdder();
+
+    private static final Map<String, LongAdder> BYTES_IN = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> BYTES_OUT = new ConcurrentHashMap<>();
+
+    public static void recordClient(String cmd, long nanos) {
+        CLIENT_LATENCY.computeIfAbsent(cmd, k -> new LatencyHistogram()).record(nanos);
+    }
+
+    public static void recordHandler(String cmd, long nanos) {
+        HANDLER_LATENCY.computeIfAbsent(cmd, k -> new LatencyHistogram()).record(nanos);
+    }
+
+    public static void recordSerialize(String operation, long nanos) {
+        SERIALIZE_LATENCY.computeIfAbsent(operation, k -> new LatencyHistogram()).record(nanos);
+    }
+
+    public static void clientStart(String role) {
+        CLIENT_IN_FLIGHT.computeIfAbsent(role, k -> new LongAdder()).increment();
+    }
+
+    public static void clientEnd(String role) {
+        LongAdder adder = CLIENT_IN_FLIGHT.get(role);
+        if (adder != null) {
+            adder.decrement();
+        }
+    }
+
+    public static void handlerStart() {
+        HANDLER_IN_FLIGHT.increment();
+    }
+
+    public static void handlerEnd() {
+        HANDLER_IN_FLIGHT.decrement();
+    }
+
+    public static void bytesIn(Channel channel, long bytes) {
+        BYTES_IN.computeIfAbsent(peerLabel(channel), k -> new LongAdder()).add(bytes);
+    }
+
+    public static void bytesOut(Channel channel, long bytes) {
+        BYTES_OUT.computeIfAbsent(peerLabel(channel), k -> new LongAdder()).add(bytes);
+    }
+
+    /**
+     * 对方主动建立的连接断开后移除其统计，避免重连后按端口无限增长
+     * Drop the statistics of a closed inbound connection, so reconnects with new ports do not grow without bound
+     */
+    public static void channelClosed(Channel channel) {
+        String label = channel.attr(PEER_LABEL).get();
+        if (label != null && label.startsWith(INBOUND_PREFIX)) {
+            BYTES_IN.remove(label);
+            BYTES_OUT.remove(label);
+        }
+    }
+
+    /**
+     * 连接对应的统计标签：本模块发起的连接为对方角色，对方发起的连接为对方地址
+     * Statistics label of a connection: the peer role for outbound connections, the peer address for inbound ones
+     */
+    static String peerLabel(Channel channel) {
+        String label = channel.attr(PEER_LABEL).get();
+        if (label != null) {
+            return label;
+        }
+        if (channel.parent() != null) {
+            label = INBOUND_PREFIX + channel.remoteAddress();
+        } else {
+            label = ConnectManager.getRoleByChannel(channel);
+            if (label.isEmpty()) {
+                //角色与连接尚未关联（握手阶段），暂不缓存
+                return String.valueOf(channel.remoteAddress());
+            }
+        }
+        channel.attr(PEER_LABEL).set(label);
+        return label;
+    }
+
+    /**
+     * 各连接待处理队列长度
+     * Pending queue depths per connection
+     */
+    public static Map<String, Map<String, Long>> queueDepths() {
+        Map<String, Map<String, Long>> result = new TreeMap<>();
+        for (ConnectData connectData : ConnectManager.CHANNEL_DATA_MAP.values()) {
+            Map<String, Long> depths = new LinkedHashMap<>();
+            depths.put("requestOnly", (long) connectData.getRequestOnlyQueue().size());
+            depths.put("requestOnlyBytes", connectData.getRequestOnlyQueueMemSize());
+            depths.put("responseAuto", (long) connectData.getResponseAutoQueue().size());
+            depths.put("requestEventResponse", (long) connectData.getRequestEventResponseQueue().size());
+            depths.put("requestPeriodLoop", (long) connectData.getRequestPeriodLoopQueue().size());
+            result.put(peerLabel(connectData.getChannel()), depths);
+        }
+        return result;
+    }
+
+    /**
+     * 全部统计数据，供RPC接口返回，时间单位为毫秒
+     * All statistics for the RPC command, times in milliseconds
+     */
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("client", summaries(CLIENT_LATENCY));
+        map.put("handler", summaries(HANDLER_LATENCY));
+        map.put("serialize", summaries(SERIALIZE_LATENCY));
+        map.put("clientInFlight", sums(CLIENT_IN_FLIGHT));
+        map.put("handlerInFlight", HANDLER_IN_FLIGHT.sum());
+        map.put("bytesIn", sums(BYTES_IN));
+        map.put("bytesOut", sums(BYTES_OUT));
+        map.put("queueDepth", queueDepths());
+        return map;
+    }
+
+    /**
+     * Prometheus文本格式输出
+     * Statistics in the Prometheus text exposition format
+     */
+    public static String toPrometheusText() {
+        StringBuilder sb = new StringBuilder(4096);
+        writeHistograms(sb, "nuls_rpc_client_seconds", "Client round-trip time per cmd", "cmd", CLIENT_LATENCY);
+        writeHistograms(sb, "nuls_rpc_handler_seconds", "Server handler time per cmd", "cmd", HANDLER_LATENCY);
+        writeHistograms(sb, "nuls_rpc_serialize_seconds", "Message encoding and decoding time", "op", SERIALIZE_LATENCY);
+
+        writeHeader(sb, "nuls_rpc_client_in_flight", "Requests waiting for a response per role", "gauge");
+        sums(CLIENT_IN_FLIGHT).forEach((role, value) -> writeSample(sb, "nuls_rpc_client_in_flight", "role", role, value));
+        writeHeader(sb, "nuls_rpc_handler_in_flight", "Local commands being executed", "gauge");
+        sb.append("nuls_rpc_handler_in_flight ").append(HANDLER_IN_FLIGHT.sum()).append('\n');
+
+        writeHeader(sb, "nuls_rpc_received_bytes_total", "Bytes received per peer", "counter");
+        sums(BYTES_IN).forEach((peer, value) -> writeSample(sb, "nuls_rpc_received_bytes_total", "peer", peer, value));
+        writeHeader(sb, "nuls_rpc_sent_bytes_total", "Bytes sent per peer", "counter");
+        sums(BYTES_OUT).forEach((peer, value) -> writeSample(sb, "nuls_rpc_sent_bytes_total", "peer", peer, value));
+
+        writeHeader(sb, "nuls_rpc_queue_depth", "Pending entries per connection queue", "gauge");
+        queueDepths().forEach((peer, depths) -> depths.forEach((queue, value) ->
+                sb.append("nuls_rpc_queue_depth{peer=\"").append(escape(peer))
+                        .append("\",queue=\"").append(queue).append("\"} ").append(value).append('\n')));
+        return sb.toString();
+    }
+
+    /**
+     * 清空统计数据
+     * Reset all statistics
+     */
+    public static void reset() {
+        CLIENT_LATENCY.clear();
+        HANDLER_LATENCY.clear();
+        SERIALIZE_LATENCY.clear();
+        BYTES_IN.clear();
+        BYTES_OUT.clear();
+    }
+
+    private static Map<String, Object> summaries(Map<String, LatencyHistogram> histograms) {
+        Map<String, Object> map = new TreeMap<>();
+        histograms.forEach((key, histogram) -> map.put(key, histogram.summary()));
+        return map;
+    }
+
+    private static Map<String, Long> sums(Map<String, LongAdder> adders) {
+        Map<String, Long> map = new TreeMap<>();
+        adders.forEach((key, adder) -> map.put(key, adder.sum()));
+        return map;
+    }
+
+    private static void writeHistograms(StringBuilder sb, String name, String help, String labelName, Map<String, LatencyHistogram> histograms) {
+        writeHeader(sb, name, help, "histogram");
+        new TreeMap<>(histograms).forEach((key, histogram) -> {
+            String label = labelName + "=\"" + escape(key) + "\"";
+            long[] counts = histogram.cumulativeCounts();
+            for (int i = 0; i < counts.length; i++) {
+                String le = i < LatencyHistogram.BOUNDS.length ? Double.toString(toSeconds(LatencyHistogram.BOUNDS[i])) : "+Inf";
+                sb.append(name).append("_bucket{").append(label).append(",le=\"").append(le).append("\"} ").append(counts[i]).append('\n');
+            }
+            sb.append(name).append("_sum{").append(label).append("} ").append(toSeconds(histogram.getSumNanos())).append('\n');
+            sb.append(name).append("_count{").append(label).append("} ").append(counts[counts.length - 1]).append('\n');
+        });
+    }
+
+    private static void writeHeader(StringBuilder sb, String name, String help, String type) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void writeSample(StringBuilder sb, String name, String labelName, String labelValue, long value) {
+        sb.append(name).append('{').append(labelName).append("=\"").append(escape(labelValue)).append("\"} ").append(value).append('\n');
+    }
+
+    private static double toSeconds(long nanos) {
+        return nanos / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
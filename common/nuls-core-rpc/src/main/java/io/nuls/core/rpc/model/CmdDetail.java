@@ -64,6 +64,13 @@ public class CmdDetail {
 
     @JsonIgnore
     private CmdPriority priority;
+
+    /**
+     * 注册时绑定的调用器，请求处理时直接调用，不再反射查找方法
+     * Invoker bound at registration, called directly without reflective lookup when handling requests
+     */
+    @JsonIgnore
+    private CmdInvoker invoker;
     @JsonIgnore
     public String getMethodName() {
         return MethodName;
@@ -144,6 +151,14 @@ public class CmdDetail {
     public void setPriority(CmdPriority priority) {
         this.priority = priority;
     }
+    @JsonIgnore
+    public CmdInvoker getInvoker() {
+        return invoker;
+    }
+    @JsonIgnore
+    public void setInvoker(CmdInvoker invoker) {
+        this.invoker = invoker;
+    }
 
     @Override
     public String toString() {
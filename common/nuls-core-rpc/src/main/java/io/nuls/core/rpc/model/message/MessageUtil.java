@@ -29,6 +29,7 @@ import io.nuls.core.rpc.info.Constants;
 import io.nuls.core.rpc.util.NulsDateUtils;
 import io.nuls.core.constant.ErrorCode;
 import io.nuls.core.model.DateUtils;
+import io.nuls.core.parse.JSONUtils;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -69,7 +70,7 @@ public class MessageUtil {
     public static NegotiateConnection defaultNegotiateConnection() {
         NegotiateConnection negotiateConnection = new NegotiateConnection();
         negotiateConnection.setAbbreviation(ConnectManager.LOCAL.getAbbreviation());
-        negotiateConnection.setProtocolVersion("0.1");
+        negotiateConnection.setProtocolVersion(Constants.PROTOCOL_VERSION_BINARY);
         negotiateConnection.setCompressionAlgorithm("zlib");
         negotiateConnection.setCompressionRate("0");
         return negotiateConnection;
@@ -180,6 +181,33 @@ public class MessageUtil {
         return response;
     }
 
+    /**
+     * 获取消息中的Request，二进制帧解码后已是Request对象，JSON帧解码后为Map
+     * Get the Request of a message, already typed when decoded from a binary frame, a Map when decoded from JSON
+     *
+     * @param message 消息 / message
+     * @return Request
+     */
+    public static Request getRequest(Message message) {
+        Object data = message.getMessageData();
+        if (data instanceof Request) {
+            return (Request) data;
+        }
+        return JSONUtils.map2pojo((Map) data, Request.class);
+    }
 
-
+    /**
+     * 获取消息中的Response，二进制帧解码后已是Response对象，JSON帧解码后为Map
+     * Get the Response of a message, already typed when decoded from a binary frame, a Map when decoded from JSON
+     *
+     * @param message 消息 / message
+     * @return Response
+     */
+    public static Response getResponse(Message message) {
+        Object data = message.getMessageData();
+        if (data instanceof Response) {
+            return (Response) data;
+        }
+        return JSONUtils.map2pojo((Map) data, Response.class);
+    }
 }
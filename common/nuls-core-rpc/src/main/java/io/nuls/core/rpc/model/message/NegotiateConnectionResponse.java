@@ -51,6 +51,13 @@ public class NegotiateConnectionResponse {
     @JsonProperty
     private String NegotiationComment;
 
+    /**
+     * 双方协商一致的协议版本，旧版本模块不返回该字段
+     * The protocol version both sides agreed on, absent from older modules
+     */
+    @JsonProperty
+    private String ProtocolVersion;
+
     @JsonIgnore
     public String getRequestID() {
         return RequestID;
@@ -80,4 +87,14 @@ public class NegotiateConnectionResponse {
     public void setNegotiationComment(String NegotiationComment) {
         this.NegotiationComment = NegotiationComment;
     }
+
+    @JsonIgnore
+    public String getProtocolVersion() {
+        return ProtocolVersion;
+    }
+
+    @JsonIgnore
+    public void setProtocolVersion(String ProtocolVersion) {
+        this.ProtocolVersion = ProtocolVersion;
+    }
 }
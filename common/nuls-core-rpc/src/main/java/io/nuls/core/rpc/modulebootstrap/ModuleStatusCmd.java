@@ -1,6 +1,5 @@
 package io.nuls.core.rpc.modulebootstrap;
 
-import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
 import io.nuls.core.log.Log;
 import io.nuls.core.parse.JSONUtils;
@@ -9,7 +8,9 @@ import io.nuls.core.rpc.info.Constants;
 import io.nuls.core.rpc.model.CmdAnnotation;
 import io.nuls.core.rpc.model.message.Response;
 
+import java.util.Collection;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * @Author: zhoulijun
@@ -19,9 +20,6 @@ import java.util.Map;
 @Component
 public class ModuleStatusCmd extends BaseCmd {
 
-    @Autowired
-    RpcModule rpcModule;
-
     @CmdAnnotation(
             scope = Constants.PRIVATE,
             cmd = "listenerDependenciesReady",
@@ -31,8 +29,12 @@ public class ModuleStatusCmd extends BaseCmd {
     public Response listenerDependenciesReady(Map<String, Object> map) {
         Log.info("listenerDependenciesReady : {}",map);
         Module module = JSONUtils.map2pojo(map, Module.class);
-        rpcModule.listenerDependenciesReady(module);
-        return success("ModuleReadyListener success " + rpcModule.moduleInfo());
+        //同一JVM中有多个模块时，只通知依赖该模块的模块
+        Collection<RpcModule> rpcModules = RpcModule.getLocalModules();
+        rpcModules.stream()
+                .filter(rpcModule -> rpcModules.size() == 1 || rpcModule.hasDependent(module))
+                .forEach(rpcModule -> rpcModule.listenerDependenciesReady(module));
+        return success("ModuleReadyListener success " + moduleNames(rpcModules));
     }
 
     @CmdAnnotation(
@@ -42,8 +44,10 @@ public class ModuleStatusCmd extends BaseCmd {
     public Response followModule(Map<String, Object> param) {
         Log.info("registerModuleDependencies : {}",param);
         Module module = JSONUtils.map2pojo(param, Module.class);
-        rpcModule.addFollower(module);
-        return success("ModuleDependenciesRegisterListener success " + rpcModule.moduleInfo());
+        //请求中不包含目标角色，同一JVM中的模块都登记该follower
+        Collection<RpcModule> rpcModules = RpcModule.getLocalModules();
+        rpcModules.forEach(rpcModule -> rpcModule.addFollower(module));
+        return success("ModuleDependenciesRegisterListener success " + moduleNames(rpcModules));
     }
 
     @CmdAnnotation(
@@ -51,7 +55,11 @@ public class ModuleStatusCmd extends BaseCmd {
             cmd = "connectReady", version = 1.0, minEvent = 1,
             description = "check module rpc is ready")
     public Response connectReady(Map<String, Object> param) {
-        return success(rpcModule.isReady());
+        return success(RpcModule.getLocalModules().stream().allMatch(RpcModule::isReady));
+    }
+
+    private static String moduleNames(Collection<RpcModule> rpcModules) {
+        return rpcModules.stream().map(rpcModule -> rpcModule.moduleInfo().toString()).collect(Collectors.joining(","));
     }
 
 }
@@ -1,7 +1,6 @@
 package io.nuls.core.rpc.modulebootstrap;
 
 import io.nuls.core.core.ioc.SpringLiteContext;
-import io.nuls.core.exception.NulsRuntimeException;
 import io.nuls.core.log.Log;
 import io.nuls.core.thread.ThreadUtils;
 
@@ -9,6 +8,8 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 
 /**
  * @Author: zhoulijun
@@ -33,13 +34,19 @@ public class NulsRpcModuleBootstrap {
         printLogo("/logo");
         Log.info("RUN MODULE:{}",System.getProperty("app.name"));
         SpringLiteContext.init(scanPackage, "io.nuls.core.rpc.modulebootstrap", "io.nuls.core.rpc.cmd", "io.nuls.base.protocol");
-        RpcModule module;
-        try {
-            module = SpringLiteContext.getBean(RpcModule.class);
-        } catch (NulsRuntimeException e) {
+        /*
+        类路径中有多个模块时，这些模块运行在同一JVM中，由第一个模块启动服务端口，模块之间的调用直接在进程内执行
+        With several modules on the classpath they run in one JVM, the first one starts the server
+        and calls between them are executed in-process
+         */
+        List<RpcModule> modules = SpringLiteContext.getBeanList(RpcModule.class);
+        if (modules.isEmpty()) {
             Log.error("加载RpcModule的实现类失败");
             return;
         }
+        modules.sort(Comparator.comparing(m -> m.moduleInfo().getName()));
+        RpcModule module = modules.get(0);
+        RpcModule.colocate(modules);
 
         String debug = "0";
         if (args.length > 1) {
@@ -79,6 +86,8 @@ public class NulsRpcModuleBootstrap {
             });
         }
         module.run(scanPackage, args[0],args);
+        modules.stream().skip(1).forEach(colocated ->
+                ThreadUtils.createAndRunThread(colocated.moduleInfo().getName() + "-start", () -> colocated.runColocated(args)));
     }
 
     public static void printLogo(String logoFile) {
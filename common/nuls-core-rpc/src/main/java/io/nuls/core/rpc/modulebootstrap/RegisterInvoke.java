@@ -8,8 +8,8 @@ import io.nuls.core.core.ioc.SpringLiteContext;
 import io.nuls.core.log.Log;
 import io.nuls.core.parse.MapUtils;
 
+import java.util.Collection;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * @Author: zhoulijun
@@ -18,22 +18,12 @@ import java.util.Set;
  */
 public class RegisterInvoke extends BaseInvoke {
 
-
-    Set<Module> dependenices;
-
-    Module module;
-
-    public RegisterInvoke(Module module, Set<Module> dependenices) {
-        this.dependenices = dependenices;
-        this.module = module;
-    }
-
     @Override
     public void callBack(Response response) {
         Map responseData = (Map) response.getResponseData();
         if (response.isSuccess()) {
-            RpcModule rpcModule = SpringLiteContext.getBean(RpcModule.class);
-            if (rpcModule.getDependencies().isEmpty()) {
+            Collection<RpcModule> rpcModules = RpcModule.getLocalModules();
+            if (rpcModules.stream().allMatch(rpcModule -> rpcModule.getDependencies().isEmpty())) {
                 Log.info("RMB:module rpc is ready");
                 return;
             }
@@ -51,24 +41,30 @@ public class RegisterInvoke extends BaseInvoke {
                 return;
             }
             Log.info("RMB:module rpc is ready");
-            dependMap.entrySet().forEach(obj -> {
-                Map.Entry<String, Map> entry = (Map.Entry<String, Map>) obj;
-                if (dependenices.stream().anyMatch(d -> d.getName().equals(entry.getKey()))) {
-                    if(rpcModule.isDependencieReady(entry.getKey())) {
-                        return ;
+            //同一JVM中的每个模块分别向其依赖的其他进程中的模块注册
+            rpcModules.forEach(rpcModule -> {
+                Module module = rpcModule.moduleInfo();
+                dependMap.entrySet().forEach(obj -> {
+                    Map.Entry<String, Map> entry = (Map.Entry<String, Map>) obj;
+                    if (ConnectManager.isLocalRole(entry.getKey())) {
+                        return;
                     }
-                    NotifySender notifySender = SpringLiteContext.getBean(NotifySender.class);
-                    notifySender.send("registerModuleDependent_" + entry.getKey(),10,() -> {
-                        Response cmdResp = null;
-                        try {
-                            cmdResp = ResponseMessageProcessor.requestAndResponse(entry.getKey(), "registerModuleDependencies", MapUtils.beanToLinkedMap(module));
-                            Log.debug("registerModuleDependent : {},result:{}", entry.getKey(),cmdResp);
-                            return cmdResp.isSuccess();
-                        } catch (Exception e) {
-                            Log.error("Calling remote interface failed. module:{} - interface:{} - message:{}", module, "registerModuleDependencies", e.getMessage());
-                            return false;
+                    if (rpcModule.getDependencies().stream().anyMatch(d -> d.getName().equals(entry.getKey()))) {
+                        if(rpcModule.isDependencieReady(entry.getKey())) {
+                            return ;
                         }
-                    });
+                        NotifySender notifySender = SpringLiteContext.getBean(NotifySender.class);
+                        notifySender.send("registerModuleDependent_" + module.getName() + "_" + entry.getKey(),10,() -> {
+                            Response cmdResp = null;
+                            try {
+                                cmdResp = ResponseMessageProcessor.requestAndResponse(entry.getKey(), "registerModuleDependencies", MapUtils.beanToLinkedMap(module));
+                                Log.debug("registerModuleDependent : {},result:{}", entry.getKey(),cmdResp);
+                                return cmdResp.isSuccess();
+                            } catch (Exception e) {
+                                Log.error("Calling remote interface failed. module:{} - interface:{} - message:{}", module, "registerModuleDependencies", e.getMessage());
+                                return false;
+                            }
+                        });
 
 //                    //是当前模块的依赖模块
 //                    Request request = MessageUtil.defaultRequest();
@@ -82,7 +78,8 @@ public class RegisterInvoke extends BaseInvoke {
 //                    } catch (Exception e) {
 //                        e.printStackTrace();
 //                    }
-                }
+                    }
+                });
             });
 
         }
@@ -7,8 +7,10 @@ import io.nuls.core.core.config.ConfigurationLoader;
 import io.nuls.core.core.ioc.SpringLiteContext;
 import io.nuls.core.exception.NulsException;
 import io.nuls.core.log.Log;
+import io.nuls.core.model.StringUtils;
 import io.nuls.core.parse.I18nUtils;
 import io.nuls.core.parse.MapUtils;
+import io.nuls.core.rpc.metrics.MetricsHttpServer;
 import io.nuls.core.rpc.model.ModuleE;
 import io.nuls.core.rpc.model.message.Response;
 import io.nuls.core.rpc.netty.bootstrap.NettyServer;
@@ -17,6 +19,7 @@ import io.nuls.core.rpc.netty.channel.manager.ConnectManager;
 import io.nuls.core.rpc.netty.processor.ResponseMessageProcessor;
 import io.nuls.core.thread.ThreadUtils;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
@@ -46,6 +49,15 @@ public abstract class RpcModule implements InitializingBean {
     private static final String LANGUAGE = "en";
     private static final String LANGUAGE_PATH =  "languages";
     protected static final String ROLE = "1.0";
+    private static final String METRICS_PORT_KEY = "rpcMetricsPort";
+    private static final String METRICS_HOST_KEY = "rpcMetricsHost";
+    private static final String DEFAULT_METRICS_HOST = "127.0.0.1";
+
+    /**
+     * 运行在当前JVM中的模块，key为模块名
+     * Modules running in this JVM, keyed by module name
+     */
+    private static final Map<String, RpcModule> LOCAL_MODULES = new ConcurrentHashMap<>();
 
     private Set<Module> dependencies;
 
@@ -119,24 +131,27 @@ public abstract class RpcModule implements InitializingBean {
             }
             Log.info("RMB:ModuleReadyListener :{}", module);
             tryRunModule();
-            ConnectData connectData = ConnectManager.getConnectDataByRole(module.getName());
-            connectData.addCloseEvent(() -> {
-                if (!ConnectManager.ROLE_CHANNEL_MAP.containsKey(module.getName())) {
-                    Log.warn("RMB:dependencie:{}模块触发连接断开事件", module);
-                    dependentReadyState.put(module, Boolean.FALSE);
-                    if(followerList.containsKey(module)){
-                        followerList.remove(module);
-                    }
-                    if (isRunning()) {
-                        state = this.onDependenciesLoss(module);
-                        if (state == null) {
-                            Log.error("onDependenciesReady return null state", new NullPointerException("onDependenciesReady return null state"));
-                            System.exit(0);
+            //同一JVM中的模块没有连接，不会断开
+            if (!ConnectManager.isLocalRole(module.getName())) {
+                ConnectData connectData = ConnectManager.getConnectDataByRole(module.getName());
+                connectData.addCloseEvent(() -> {
+                    if (!ConnectManager.ROLE_CHANNEL_MAP.containsKey(module.getName())) {
+                        Log.warn("RMB:dependencie:{}模块触发连接断开事件", module);
+                        dependentReadyState.put(module, Boolean.FALSE);
+                        if(followerList.containsKey(module)){
+                            followerList.remove(module);
+                        }
+                        if (isRunning()) {
+                            state = this.onDependenciesLoss(module);
+                            if (state == null) {
+                                Log.error("onDependenciesReady return null state", new NullPointerException("onDependenciesReady return null state"));
+                                System.exit(0);
+                            }
+                            Log.info("RMB:module state : {}", state);
                         }
-                        Log.info("RMB:module state : {}", state);
                     }
-                }
-            });
+                });
+            }
             this.onDependenciesReady(module);
         } catch (Exception e) {
             Log.error("",e.getMessage(),e);
@@ -157,19 +172,22 @@ public abstract class RpcModule implements InitializingBean {
                 if(dependentReadyState.containsKey(module)){
                     dependentReadyState.put(module, Boolean.FALSE);
                 }
-                try {
-                    //监听与follower的连接，如果断开后需要修改通知状态
-                    ConnectData connectData = ConnectManager.getConnectDataByRole(module.getName());
-                    connectData.addCloseEvent(() -> {
-                        if (!ConnectManager.ROLE_CHANNEL_MAP.containsKey(module.getName())) {
-                            Log.warn("RMB:follower:{}模块触发连接断开事件", module);
-                            //修改通知状态为未通知
-                            followerList.remove(module);
-                        }
-                    });
-                    Log.debug("绑定连接断开事件:{}",module.name);
-                } catch (Exception e) {
-                    Log.error("RMB:获取follower:{}模块连接发生异常.", module, e);
+                //同一JVM中的模块没有连接，不需要监听断开事件
+                if (!ConnectManager.isLocalRole(module.getName())) {
+                    try {
+                        //监听与follower的连接，如果断开后需要修改通知状态
+                        ConnectData connectData = ConnectManager.getConnectDataByRole(module.getName());
+                        connectData.addCloseEvent(() -> {
+                            if (!ConnectManager.ROLE_CHANNEL_MAP.containsKey(module.getName())) {
+                                Log.warn("RMB:follower:{}模块触发连接断开事件", module);
+                                //修改通知状态为未通知
+                                followerList.remove(module);
+                            }
+                        });
+                        Log.debug("绑定连接断开事件:{}",module.name);
+                    } catch (Exception e) {
+                        Log.error("RMB:获取follower:{}模块连接发生异常.", module, e);
+                    }
                 }
             }
         }
@@ -188,6 +206,12 @@ public abstract class RpcModule implements InitializingBean {
 //            if (followerList.get(module)) {
 //                return true;
 //            }
+            RpcModule localFollower = LOCAL_MODULES.get(module.getName());
+            if (localFollower != null) {
+                localFollower.listenerDependenciesReady(this.moduleInfo());
+                followerList.put(module, Boolean.TRUE);
+                return true;
+            }
             try {
                 Response cmdResp = ResponseMessageProcessor.requestAndResponse(module.getName(), "listenerDependenciesReady", MapUtils.beanToLinkedMap(this.moduleInfo()),1000L);
                 if (cmdResp.isSuccess()) {
@@ -211,13 +235,33 @@ public abstract class RpcModule implements InitializingBean {
         followerList.keySet().forEach(this::notifyFollowerReady);
     }
 
+    /**
+     * 登记运行在同一JVM中的模块，须在启动任一模块之前调用
+     * Register the modules running in this JVM, must be called before any of them is started
+     *
+     * @param modules 同一JVM中的全部模块 / All modules of this JVM
+     */
+    static void colocate(List<RpcModule> modules) {
+        modules.forEach(module -> LOCAL_MODULES.put(module.moduleInfo().getName(), module));
+    }
+
+    static RpcModule getLocalModule(String name) {
+        return LOCAL_MODULES.get(name);
+    }
+
+    static Collection<RpcModule> getLocalModules() {
+        return LOCAL_MODULES.values();
+    }
+
     /**
      * 启动模块
+     * 同一JVM中有多个模块时，由该模块启动服务端口并代表所有模块向service manager注册
      *
      * @param serviceManagerUrl
      */
     void run(String modulePackage, String serviceManagerUrl,String[] startArgs) {
         this.startArgs = startArgs;
+        LOCAL_MODULES.putIfAbsent(moduleInfo().getName(), this);
         //初始化依赖模块的ready状态
         this.getDependencies().forEach(d -> dependentReadyState.put(d, Boolean.FALSE));
         try {
@@ -225,32 +269,84 @@ public abstract class RpcModule implements InitializingBean {
             Set<String> scanCmdPackage = new TreeSet<>();
             scanCmdPackage.add("io.nuls.core.rpc.cmd");
             scanCmdPackage.add("io.nuls.base.protocol.cmd");
-            scanCmdPackage.addAll((getRpcCmdPackage() == null) ? Set.of(modulePackage) : getRpcCmdPackage());
+            LOCAL_MODULES.values().forEach(module -> scanCmdPackage.addAll((module.getRpcCmdPackage() == null) ? Set.of(modulePackage) : module.getRpcCmdPackage()));
             NettyServer server = NettyServer.getInstance(moduleInfo().getName(), moduleInfo().getName(), ModuleE.DOMAIN)
-                    .moduleRoles(new String[]{getRole()})
                     .moduleVersion(moduleInfo().getVersion())
                     .scanPackage(scanCmdPackage)
                     //注册管理模块状态的RPC接口ifc
                     .addCmdDetail(ModuleStatusCmd.class);
-            dependentReadyState.keySet().forEach(d -> server.dependencies(d.getName(), d.getVersion()));
+            //同一JVM中的模块之间直接调用，只需登记其角色，不需要向service manager声明依赖
+            LOCAL_MODULES.values().forEach(module -> {
+                server.moduleRoles(module.moduleInfo().getName(), new String[]{module.getRole()});
+                module.getDependencies().stream()
+                        .filter(d -> !LOCAL_MODULES.containsKey(d.getName()))
+                        .forEach(d -> server.dependencies(d.getName(), d.getVersion()));
+            });
+            if (LOCAL_MODULES.size() > 1) {
+                LOCAL_MODULES.keySet().forEach(ConnectManager::addLocalRole);
+            }
             // Get information from kernel
             ConnectManager.getConnectByUrl(serviceManagerUrl);
             Log.info("RMB:开始连接service manager:{}",serviceManagerUrl);
-            ResponseMessageProcessor.syncKernel(serviceManagerUrl, new RegisterInvoke(moduleInfo(), dependentReadyState.keySet()));
-            //模块进入ready状态的准备工作，如果条件未达到，等待10秒重新尝试
-            while (!doStart()) {
-                TimeUnit.SECONDS.sleep(10L);
-            }
-            Log.info("RMB:module is READY");
-            state = RpcModuleState.Ready;
-            this.notifyFollowerReady();
-            tryRunModule();
+            ResponseMessageProcessor.syncKernel(serviceManagerUrl, new RegisterInvoke());
+            startMetricsServer();
+            start();
         } catch (Exception e) {
             Log.error(moduleInfo().toString() + " initServer failed", e);
             System.exit(0);
         }
     }
 
+    /**
+     * 配置了rpcMetricsPort时启动Prometheus统计数据HTTP服务，默认只监听本机
+     * Start the Prometheus statistics endpoint if rpcMetricsPort is configured, listening on localhost by default
+     */
+    private void startMetricsServer() {
+        ConfigurationLoader configLoader = SpringLiteContext.getBean(ConfigurationLoader.class);
+        Optional<String> port = configLoader.getValueForOptional(METRICS_PORT_KEY);
+        if (port.isEmpty() || StringUtils.isBlank(port.get())) {
+            return;
+        }
+        String host = configLoader.getValueForOptional(METRICS_HOST_KEY).orElse(DEFAULT_METRICS_HOST);
+        try {
+            MetricsHttpServer.start(host, Integer.parseInt(port.get().trim()));
+        } catch (IOException | RuntimeException e) {
+            Log.error("rpc metrics endpoint start fail", e);
+        }
+    }
+
+    /**
+     * 启动与宿主模块运行在同一JVM中的模块，服务端口及service manager注册由宿主模块完成
+     * Start a module co-located with the host module, which owns the server and the service manager registration
+     */
+    void runColocated(String[] startArgs) {
+        this.startArgs = startArgs;
+        //初始化依赖模块的ready状态
+        this.getDependencies().forEach(d -> dependentReadyState.put(d, Boolean.FALSE));
+        try {
+            start();
+        } catch (Exception e) {
+            Log.error(moduleInfo().toString() + " start failed", e);
+            System.exit(0);
+        }
+    }
+
+    private void start() throws InterruptedException {
+        //依赖同一JVM中的模块时直接注册为其follower
+        getDependencies().stream()
+                .map(d -> LOCAL_MODULES.get(d.getName()))
+                .filter(Objects::nonNull)
+                .forEach(module -> module.addFollower(moduleInfo()));
+        //模块进入ready状态的准备工作，如果条件未达到，等待10秒重新尝试
+        while (!doStart()) {
+            TimeUnit.SECONDS.sleep(10L);
+        }
+        Log.info("RMB:module is READY");
+        state = RpcModuleState.Ready;
+        this.notifyFollowerReady();
+        tryRunModule();
+    }
+
     /**
      * 尝试启动模块
      * 如果所有依赖准备就绪就触发onDependenciesReady
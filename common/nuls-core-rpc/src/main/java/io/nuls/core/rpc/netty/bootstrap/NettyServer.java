@@ -6,7 +6,6 @@ import io.nuls.core.rpc.model.ModuleE;
 import io.nuls.core.rpc.netty.channel.manager.ConnectManager;
 import io.nuls.core.rpc.netty.thread.StartServerProcessor;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -50,7 +49,7 @@ public class NettyServer {
         connectionInformation.put(Constants.KEY_IP, HostInfo.getLocalIP());
         connectionInformation.put(Constants.KEY_PORT, String.valueOf(port));
         ConnectManager.LOCAL.setConnectionInformation(connectionInformation);
-        ConnectManager.LOCAL.setMethods(new ArrayList<>());
+        ConnectManager.clearLocalCmd();
         ConnectManager.LOCAL.setDependencies(new HashMap<>(8));
         ConnectManager.LOCAL.setModuleRoles(new HashMap<>(1));
         return new NettyServer();
@@ -1,33 +1,42 @@
 package io.nuls.core.rpc.netty.channel.manager;
 
-import io.netty.buffer.ByteBuf;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.util.AttributeKey;
 import io.nuls.core.core.ioc.ScanUtil;
 import io.nuls.core.core.ioc.SpringLiteContext;
 import io.nuls.core.log.Log;
 import io.nuls.core.model.StringUtils;
-import io.nuls.core.parse.JSONUtils;
 import io.nuls.core.rpc.info.Constants;
 import io.nuls.core.rpc.invoke.BaseInvoke;
+import io.nuls.core.rpc.metrics.RpcMetrics;
 import io.nuls.core.rpc.model.*;
 import io.nuls.core.rpc.model.message.Message;
+import io.nuls.core.rpc.model.message.MessageUtil;
 import io.nuls.core.rpc.model.message.Request;
 import io.nuls.core.rpc.model.message.Response;
 import io.nuls.core.rpc.netty.bootstrap.NettyClient;
 import io.nuls.core.rpc.netty.channel.ConnectData;
-import io.nuls.core.rpc.netty.processor.RequestMessageProcessor;
 import io.nuls.core.rpc.netty.thread.RequestByCountProcessor;
 import io.nuls.core.rpc.netty.thread.RequestByPeriodProcessor;
 import io.nuls.core.rpc.netty.thread.RequestOnlyProcessor;
 import io.nuls.core.rpc.netty.thread.ResponseAutoProcessor;
+import io.nuls.core.rpc.util.BinaryMessageCodec;
 import io.nuls.core.rpc.util.NulsDateUtils;
 import io.nuls.core.rpc.util.SerializeUtil;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -46,6 +55,9 @@ import java.util.stream.Collectors;
  */
 public class ConnectManager {
     private static Lock SUB_LOCK = new ReentrantLock();
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
     /**
      * 本模块是否可以启动服务（所依赖模块是否可以连接）
      * Can this module start the service? (Can the dependent modules be connected?)
@@ -58,6 +70,12 @@ public class ConnectManager {
      */
     public static final RegisterApi LOCAL = new RegisterApi();
 
+    /**
+     * 本模块接口索引，key为cmd，value为按版本升序排列的接口，更新时整体替换
+     * Index of local commands, key: cmd, value: its versions in ascending order, replaced as a whole on update
+     */
+    private static final Map<String, List<CmdDetail>> LOCAL_CMD_MAP = new ConcurrentHashMap<>();
+
     /**
      * 本模块各个CMD优先级
      * Each CMD priority of this module
@@ -94,6 +112,12 @@ public class ConnectManager {
      */
     public static final Map<Channel, ConnectData> CHANNEL_DATA_MAP = new ConcurrentHashMap<>();
 
+    /**
+     * 连接是否已协商使用二进制帧
+     * Whether the connection negotiated binary frames
+     */
+    private static final AttributeKey<Boolean> BINARY_FRAME = AttributeKey.valueOf("binaryFrame");
+
     /**
      * 角色与链接通道集合
      * KEY:ROLE
@@ -101,6 +125,12 @@ public class ConnectManager {
      */
     public static final Map<String, Channel> ROLE_CHANNEL_MAP = new ConcurrentHashMap<>();
 
+    /**
+     * 与本模块运行在同一JVM中的角色，调用这些角色的接口时直接在进程内执行
+     * Roles running in the same JVM as this module, their commands are invoked in-process
+     */
+    private static final Set<String> LOCAL_ROLE_SET = ConcurrentHashMap.newKeySet();
+
     /**
      * messageId对应链接通道对象，用于取消订阅的Request
      * Key：messageId, Value：链接通道
@@ -156,43 +186,21 @@ public class ConnectManager {
      * @return CmdDetail
      */
     public static CmdDetail getLocalInvokeCmd(String cmd, double minVersion) {
-
-        CmdDetail find = null;
-        for (CmdDetail cmdDetail : LOCAL.getMethods()) {
-            /*
-            cmd不一致，跳过
-            CMD inconsistency, skip
-             */
-            if (!cmdDetail.getMethodName().equals(cmd)) {
-                continue;
-            }
-
-            /*
-            大版本不一样，跳过
-            Big version is different, skip
-             */
-            if ((int) minVersion != (int) cmdDetail.getVersion()) {
-                continue;
-            }
-
-            /*
-            没有备选方法，则设置当前方法为备选方法
-            If there is no alternative method, set the current method as the alternative method
-             */
-            if (find == null) {
-                find = cmdDetail;
-                continue;
-            }
-
-            /*
-            如果当前方法版本更高，则设置当前方法为备选方法
-            If the current method version is higher, set the current method as an alternative method
-             */
-            if (cmdDetail.getVersion() > find.getVersion()) {
-                find = cmdDetail;
+        List<CmdDetail> versions = LOCAL_CMD_MAP.get(cmd);
+        if (versions == null) {
+            return null;
+        }
+        /*
+        大版本一致的方法中取版本最高的
+        The highest version among the methods with the same big version
+         */
+        for (int i = versions.size() - 1; i >= 0; i--) {
+            CmdDetail cmdDetail = versions.get(i);
+            if ((int) minVersion == (int) cmdDetail.getVersion()) {
+                return cmdDetail;
             }
         }
-        return find;
+        return null;
     }
 
 
@@ -204,22 +212,8 @@ public class ConnectManager {
      * @return CmdDetail
      */
     public static CmdDetail getLocalInvokeCmd(String cmd) {
-        CmdDetail find = null;
-        for (CmdDetail cmdDetail : LOCAL.getMethods()) {
-            if (!cmdDetail.getMethodName().equals(cmd)) {
-                continue;
-            }
-
-            if (find == null) {
-                find = cmdDetail;
-                continue;
-            }
-
-            if (cmdDetail.getVersion() > find.getVersion()) {
-                find = cmdDetail;
-            }
-        }
-        return find;
+        List<CmdDetail> versions = LOCAL_CMD_MAP.get(cmd);
+        return versions == null ? null : versions.get(versions.size() - 1);
     }
 
 
@@ -255,8 +249,7 @@ public class ConnectManager {
                 Repeated interfaces are registered only once
                  */
                 if (!isRegister(cmdDetail)) {
-                    LOCAL.getMethods().add(cmdDetail);
-                    RequestMessageProcessor.handlerMap.put(cmdDetail.getInvokeClass(), SpringLiteContext.getBeanByClass(cmdDetail.getInvokeClass()));
+                    registerLocalCmd(cmdDetail, method);
                     Log.debug("valid cmdDetail-" + cmdDetail);
                 } else {
                     throw new Exception(Constants.CMD_DUPLICATE + ":" + cmdDetail.getMethodName() + "-" + cmdDetail.getVersion());
@@ -278,8 +271,7 @@ public class ConnectManager {
                 Repeated interfaces are registered only once
                  */
             if (!isRegister(cmdDetail)) {
-                LOCAL.getMethods().add(cmdDetail);
-                RequestMessageProcessor.handlerMap.put(cmdDetail.getInvokeClass(), SpringLiteContext.getBeanByClass(cmdDetail.getInvokeClass()));
+                registerLocalCmd(cmdDetail, method);
             }
             ;
 //            else {
@@ -288,6 +280,72 @@ public class ConnectManager {
         }
     }
 
+    /**
+     * 清空本模块的接口
+     * Clear the commands of this module
+     */
+    public static void clearLocalCmd() {
+        LOCAL.setMethods(new ArrayList<>());
+        LOCAL_CMD_MAP.clear();
+    }
+
+    /**
+     * 登记本模块接口，并把接口方法绑定到接口实例上
+     * Register a local command and bind its method to the handler instance
+     */
+    private static void registerLocalCmd(CmdDetail cmdDetail, Method method) {
+        cmdDetail.setInvoker(bindInvoker(SpringLiteContext.getBeanByClass(cmdDetail.getInvokeClass()), method));
+        LOCAL.getMethods().add(cmdDetail);
+        LOCAL_CMD_MAP.compute(cmdDetail.getMethodName(), (cmd, versions) -> {
+            List<CmdDetail> newVersions = versions == null ? new ArrayList<>() : new ArrayList<>(versions);
+            newVersions.add(cmdDetail);
+            newVersions.sort(Comparator.comparingDouble(CmdDetail::getVersion));
+            return newVersions;
+        });
+    }
+
+    /**
+     * 生成直接调用接口方法的调用器，优先使用LambdaMetafactory生成的实现，无法生成时使用绑定的MethodHandle
+     * Create an invoker calling the command method directly, generated by LambdaMetafactory,
+     * or a bound MethodHandle if that is not possible
+     *
+     * @param handler 接口实例 / Handler instance
+     * @param method  接口方法 / Command method
+     * @return CmdInvoker, 接口实例不存在时返回null / null if the handler does not exist
+     */
+    private static CmdInvoker bindInvoker(Object handler, Method method) {
+        if (handler == null) {
+            return null;
+        }
+        MethodHandle target;
+        try {
+            target = LOOKUP.unreflect(method);
+        } catch (IllegalAccessException e) {
+            Log.error("cmd method not accessible: " + method, e);
+            return null;
+        }
+        try {
+            CallSite callSite = LambdaMetafactory.metafactory(LOOKUP, "invoke",
+                    MethodType.methodType(CmdInvoker.class, method.getDeclaringClass()),
+                    MethodType.methodType(Response.class, Map.class),
+                    target,
+                    MethodType.methodType(Response.class, Map.class));
+            return (CmdInvoker) callSite.getTarget().invoke(handler);
+        } catch (Throwable e) {
+            Log.debug("bind {} with MethodHandle: {}", method, e.getMessage());
+        }
+        MethodHandle bound = target.bindTo(handler).asType(MethodType.methodType(Response.class, Map.class));
+        return params -> {
+            try {
+                return (Response) bound.invokeExact(params);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new Exception(e);
+            }
+        };
+    }
+
     /**
      * 保存所有拥有CmdAnnotation注解的方法
      * Save all methods that have CmdAnnotation annotations
@@ -362,14 +420,16 @@ public class ConnectManager {
      * @return boolean
      */
     private static boolean isRegister(CmdDetail sourceCmdDetail) {
-        boolean exist = false;
-        for (CmdDetail cmdDetail : LOCAL.getMethods()) {
-            if (cmdDetail.getMethodName().equals(sourceCmdDetail.getMethodName()) && cmdDetail.getVersion() == sourceCmdDetail.getVersion()) {
-                exist = true;
-                break;
+        List<CmdDetail> versions = LOCAL_CMD_MAP.get(sourceCmdDetail.getMethodName());
+        if (versions == null) {
+            return false;
+        }
+        for (CmdDetail cmdDetail : versions) {
+            if (cmdDetail.getVersion() == sourceCmdDetail.getVersion()) {
+                return true;
             }
         }
-        return exist;
+        return false;
     }
 
     /**
@@ -426,7 +486,7 @@ public class ConnectManager {
      * @param message
      */
     public static void subscribeCountMinus(Message message) {
-        Request request = JSONUtils.map2pojo((Map) message.getMessageData(), Request.class);
+        Request request = MessageUtil.getRequest(message);
         for (Object method : request.getRequestMethods().keySet()) {
             String cmd = (String) method;
             subscribeCountMinus(cmd);
@@ -455,7 +515,7 @@ public class ConnectManager {
      * @param message
      */
     public static void subscribeCountAdd(Message message) {
-        Request request = JSONUtils.map2pojo((Map) message.getMessageData(), Request.class);
+        Request request = MessageUtil.getRequest(message);
         for (Object method : request.getRequestMethods().keySet()) {
             String cmd = (String) method;
             subscribeCountAdd(cmd);
@@ -491,7 +551,7 @@ public class ConnectManager {
      */
     public static void unsubscribeByEvent(Message message) {
         MESSAGE_TO_CHANNEL_MAP.remove(message);
-        Request request = JSONUtils.map2pojo((Map) message.getMessageData(), Request.class);
+        Request request = MessageUtil.getRequest(message);
         for (String method : request.getRequestMethods().keySet()) {
             if (CMD_SUBSCRIBE_MESSAGE_MAP.containsKey(method)) {
                 CMD_SUBSCRIBE_MESSAGE_MAP.get(method).remove(message);
@@ -521,7 +581,7 @@ public class ConnectManager {
                 String key = getSubscribeKey(message.getMessageID(), cmd);
                 if (connectData.getSubscribeInitCount().containsKey(key)) {
                     int initCount = connectData.getSubscribeInitCount().get(key);
-                    Request request = JSONUtils.map2pojo((Map) message.getMessageData(), Request.class);
+                    Request request = MessageUtil.getRequest(message);
                     long eventCount = Long.parseLong(request.getSubscriptionEventCounter());
                     if ((changeCount - initCount) % eventCount == 0) {
                         try {
@@ -601,6 +661,20 @@ public class ConnectManager {
         return "ws://" + channel.remoteAddress().getHostString() + ":" + channel.remoteAddress().getPort() + "/ws";
     }
 
+    /**
+     * 登记运行在当前JVM中的角色，远程连接信息指向本模块的服务端口，订阅类请求仍可通过该连接发送
+     * Register a role running in this JVM, its connection information points at the local server
+     * so subscriptions can still be sent over a connection
+     */
+    public static void addLocalRole(String role) {
+        LOCAL_ROLE_SET.add(role);
+        ROLE_MAP.put(role, LOCAL.getConnectionInformation());
+    }
+
+    public static boolean isLocalRole(String role) {
+        return LOCAL_ROLE_SET.contains(role);
+    }
+
     public static ConnectData getConnectDataByRole(String role) throws Exception {
         Channel channel = ROLE_CHANNEL_MAP.get(role);
         if (ROLE_CHANNEL_MAP.isEmpty() || channel == null) {
@@ -732,11 +806,32 @@ public class ConnectManager {
         }
     }
 
-    public static void sendMessage(Channel channel, ByteBuf message) {
-//        Log.debug("发送消息:{}",message);
+    /**
+     * 发送消息，已协商二进制协议的连接使用二进制帧，否则使用JSON文本帧
+     * Send a message, in a binary frame if the connection negotiated the binary protocol, otherwise in a JSON text frame
+     *
+     * @param channel 连接通道 / channel
+     * @param message 消息 / message
+     * @throws JsonProcessingException JSON序列化失败 / JSON serialization failed
+     */
+    public static void sendMessage(Channel channel, Message message) throws JsonProcessingException {
+        WebSocketFrame frame;
+        long start = System.nanoTime();
+        if (isBinaryFrame(channel)) {
+            frame = new BinaryWebSocketFrame(BinaryMessageCodec.encode(message));
+            RpcMetrics.recordSerialize(RpcMetrics.ENCODE_BINARY, System.nanoTime() - start);
+        } else {
+            frame = new TextWebSocketFrame(SerializeUtil.getBuffer(SerializeUtil.toJsonBytes(message)));
+            RpcMetrics.recordSerialize(RpcMetrics.ENCODE_JSON, System.nanoTime() - start);
+        }
+        RpcMetrics.bytesOut(channel, frame.content().readableBytes());
+        sendFrame(channel, frame);
+    }
+
+    private static void sendFrame(Channel channel, WebSocketFrame frame) {
         try {
             channel.eventLoop().execute(() -> {
-                ChannelFuture cf = channel.writeAndFlush(new TextWebSocketFrame(message));
+                ChannelFuture cf = channel.writeAndFlush(frame);
                 cf.addListener((ChannelFutureListener) future -> {
                     if (!future.isSuccess()) {
                         Log.error(future.cause());
@@ -744,10 +839,23 @@ public class ConnectManager {
                 });
             });
         } catch (Exception e) {
+            frame.release();
             Log.error(e);
         }
     }
 
+    /**
+     * 握手协商成功后，该连接后续消息使用二进制帧发送
+     * After a successful negotiation, subsequent messages of the connection are sent in binary frames
+     */
+    public static void enableBinaryFrame(Channel channel) {
+        channel.attr(BINARY_FRAME).set(Boolean.TRUE);
+    }
+
+    public static boolean isBinaryFrame(Channel channel) {
+        return Boolean.TRUE.equals(channel.attr(BINARY_FRAME).get());
+    }
+
 //    public static void sendMessage(Channel channel, String message) {
 ////        Log.debug("发送消息:{}",message);
 //        try {
@@ -768,7 +876,7 @@ public class ConnectManager {
 //    }
 
     public static void sendMessage(String moduleAbbr, Message message) throws Exception {
-        sendMessage(getConnectByRole(moduleAbbr), SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(message)));
+        sendMessage(getConnectByRole(moduleAbbr), message);
     }
 
     public static String getRoleByChannel(Channel channel){
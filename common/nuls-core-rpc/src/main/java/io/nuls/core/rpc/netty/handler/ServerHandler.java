@@ -4,21 +4,24 @@ import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
 import io.nuls.core.log.Log;
-import io.nuls.core.parse.JSONUtils;
 import io.nuls.core.rpc.info.Constants;
+import io.nuls.core.rpc.metrics.RpcMetrics;
 import io.nuls.core.rpc.model.CmdPriority;
 import io.nuls.core.rpc.model.RequestOnly;
 import io.nuls.core.rpc.model.message.Message;
 import io.nuls.core.rpc.model.message.MessageType;
+import io.nuls.core.rpc.model.message.MessageUtil;
 import io.nuls.core.rpc.model.message.Request;
 import io.nuls.core.rpc.netty.channel.ConnectData;
 import io.nuls.core.rpc.netty.channel.manager.ConnectManager;
 import io.nuls.core.rpc.netty.handler.message.TextMessageHandler;
+import io.nuls.core.rpc.util.SerializeUtil;
 import io.nuls.core.thread.commom.NulsThreadFactory;
 
-import java.util.Map;
 import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -42,12 +45,11 @@ public class ServerHandler extends SimpleChannelInboundHandler<Object> {
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, Object msg) throws Exception {
-        if (msg instanceof TextWebSocketFrame) {
-            TextWebSocketFrame txMsg = (TextWebSocketFrame) msg;
-            ByteBuf content = txMsg.content();
-            byte[] bytes = new byte[content.readableBytes()];
-            content.readBytes(bytes);
-            Message message = JSONUtils.byteArray2pojo(bytes, Message.class);
+        if (msg instanceof TextWebSocketFrame || msg instanceof BinaryWebSocketFrame) {
+            ByteBuf content = ((WebSocketFrame) msg).content();
+            int messageSize = content.readableBytes();
+            RpcMetrics.bytesIn(ctx.channel(), messageSize);
+            Message message = SerializeUtil.decodeMessage((WebSocketFrame) msg);
             MessageType messageType = MessageType.valueOf(message.getMessageType());
             int priority = CmdPriority.DEFAULT.getPriority();
             TextMessageHandler messageHandler = new TextMessageHandler((SocketChannel) ctx.channel(), message,priority);
@@ -57,7 +59,7 @@ public class ServerHandler extends SimpleChannelInboundHandler<Object> {
                 responseExecutorService.execute(messageHandler);
             }else{
                 if(messageType.equals(MessageType.Request)){
-                    Request request = JSONUtils.map2pojo((Map) message.getMessageData(), Request.class);
+                    Request request = MessageUtil.getRequest(message);
                     if(request.getRequestMethods().size() == 1){
                         for (String cmd:request.getRequestMethods().keySet()) {
                             if(ConnectManager.CMD_PRIORITY_MAP.containsKey(cmd)){
@@ -68,9 +70,8 @@ public class ServerHandler extends SimpleChannelInboundHandler<Object> {
                     messageHandler.setRequest(request);
                     requestExecutorService.execute(messageHandler);
                 }else if(messageType.equals(MessageType.RequestOnly)){
-                    Request request = JSONUtils.map2pojo((Map) message.getMessageData(), Request.class);
+                    Request request = MessageUtil.getRequest(message);
                     ConnectData connectData = ConnectManager.CHANNEL_DATA_MAP.get(ctx.channel());
-                    int messageSize = bytes.length;
                     if(!connectData.requestOnlyQueueReachLimit()){
                         connectData.getRequestOnlyQueue().offer(new RequestOnly(request, messageSize));
                         connectData.addRequestOnlyQueueMemSize(messageSize);
@@ -92,6 +93,7 @@ public class ServerHandler extends SimpleChannelInboundHandler<Object> {
 
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        RpcMetrics.channelClosed(ctx.channel());
         ConnectManager.disConnect((SocketChannel) ctx.channel());
     }
 
@@ -31,6 +31,7 @@ import io.nuls.core.rpc.netty.processor.RequestMessageProcessor;
 import io.nuls.core.rpc.info.Constants;
 import io.nuls.core.rpc.model.message.Message;
 import io.nuls.core.rpc.model.message.MessageType;
+import io.nuls.core.rpc.model.message.MessageUtil;
 import io.nuls.core.rpc.model.message.Request;
 import io.nuls.core.rpc.model.message.Response;
 import io.nuls.core.rpc.netty.channel.ConnectData;
@@ -38,7 +39,6 @@ import io.nuls.core.rpc.netty.channel.manager.ConnectManager;
 import io.nuls.core.rpc.netty.processor.container.RequestContainer;
 import io.nuls.core.rpc.netty.processor.container.ResponseContainer;
 import io.nuls.core.log.Log;
-import io.nuls.core.parse.JSONUtils;
 import io.nuls.core.rpc.util.NulsDateUtils;
 
 import java.util.Comparator;
@@ -149,6 +149,15 @@ public class TextMessageHandler implements Runnable, Comparable<TextMessageHandl
                     }
                     break;
                 case NegotiateConnectionResponse:
+                    /*
+                    对方同意使用二进制帧，后续消息改用二进制帧发送
+                    The peer agreed on binary frames, send subsequent messages in binary frames
+                     */
+                    Object protocolVersion = ((Map) message.getMessageData()).get("ProtocolVersion");
+                    if (Constants.PROTOCOL_VERSION_BINARY.equals(protocolVersion)) {
+                        ConnectManager.enableBinaryFrame(channel);
+                    }
+                    //fall through
                 case Ack:
                     ResponseContainer resContainer = RequestContainer.getResponseContainer(((Map<String, String>) message.getMessageData()).get("RequestID"));
                     if (resContainer != null && resContainer.getFuture() != null) {
@@ -156,7 +165,7 @@ public class TextMessageHandler implements Runnable, Comparable<TextMessageHandl
                     }
                     break;
                 case Response:
-                    Response response = JSONUtils.map2pojo((Map) message.getMessageData(), Response.class);
+                    Response response = MessageUtil.getResponse(message);
                     /*
                     Response：还要判断是否需要自动处理
                     Response: Determines whether automatic processing is required
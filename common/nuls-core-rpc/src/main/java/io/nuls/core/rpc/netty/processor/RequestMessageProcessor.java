@@ -6,22 +6,22 @@ import io.nuls.core.constant.CommonCodeConstanst;
 import io.nuls.core.log.Log;
 import io.nuls.core.model.StringUtils;
 import io.nuls.core.parse.JSONUtils;
-import io.nuls.core.rpc.cmd.BaseCmd;
 import io.nuls.core.rpc.info.Constants;
+import io.nuls.core.rpc.metrics.RpcMetrics;
 import io.nuls.core.rpc.model.CmdDetail;
+import io.nuls.core.rpc.model.CmdInvoker;
 import io.nuls.core.rpc.model.CmdParameter;
 import io.nuls.core.rpc.model.message.*;
 import io.nuls.core.rpc.netty.channel.ConnectData;
 import io.nuls.core.rpc.netty.channel.manager.ConnectManager;
+import io.nuls.core.rpc.util.BinaryMessageCodec;
 import io.nuls.core.rpc.util.NulsDateUtils;
-import io.nuls.core.rpc.util.SerializeUtil;
 
-import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import static io.nuls.core.rpc.info.Constants.CMD_NOT_FOUND;
 
@@ -33,8 +33,11 @@ import static io.nuls.core.rpc.info.Constants.CMD_NOT_FOUND;
  * 2019/2/25
  */
 public class RequestMessageProcessor {
-    public static final Map<String, Object> handlerMap = new HashMap<>();
-    public static final Map<String, Class<?>> classMap = new ConcurrentHashMap<>();
+    /**
+     * 接口执行超过该时间打印警告
+     * Commands running longer than this are logged as a warning
+     */
+    private static final long SLOW_INVOKE_NANOS = TimeUnit.SECONDS.toNanos(1);
 
     /**
      * 确认握手成功
@@ -44,17 +47,27 @@ public class RequestMessageProcessor {
      * @throws JsonProcessingException JSON解析错误 / JSON parsing error
      */
     public static void negotiateConnectionResponse(Channel channel, Message message) throws JsonProcessingException {
+        NegotiateConnection negotiateConnection = JSONUtils.map2pojo((Map) message.getMessageData(), NegotiateConnection.class);
+        boolean binary = Constants.PROTOCOL_VERSION_BINARY.equals(negotiateConnection.getProtocolVersion());
+
         NegotiateConnectionResponse negotiateConnectionResponse = new NegotiateConnectionResponse();
         negotiateConnectionResponse.setRequestID(message.getMessageID());
         negotiateConnectionResponse.setNegotiationStatus("1");
         negotiateConnectionResponse.setNegotiationComment("Connection true!");
+        negotiateConnectionResponse.setProtocolVersion(binary ? Constants.PROTOCOL_VERSION_BINARY : Constants.PROTOCOL_VERSION_JSON);
 
+        /*
+        握手响应本身仍以JSON文本帧发送，之后如双方都支持则切换为二进制帧
+        The handshake response itself is still a JSON text frame, switch to binary frames afterwards if both sides support it
+         */
         Message rspMsg = MessageUtil.basicMessage(MessageType.NegotiateConnectionResponse);
         rspMsg.setMessageData(negotiateConnectionResponse);
-        ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(rspMsg)));
+        ConnectManager.sendMessage(channel, rspMsg);
+        if (binary) {
+            ConnectManager.enableBinaryFrame(channel);
+        }
 
         //握手成功之后保存channel与角色的对应信息
-        NegotiateConnection negotiateConnection = JSONUtils.map2pojo((Map) message.getMessageData(), NegotiateConnection.class);
         ConnectManager.cacheConnect(negotiateConnection.getAbbreviation(), channel, false);
     }
 
@@ -72,7 +85,7 @@ public class RequestMessageProcessor {
         ack.setRequestId(messageId);
         Message rspMsg = MessageUtil.basicMessage(MessageType.Ack);
         rspMsg.setMessageData(ack);
-        ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(rspMsg)));
+        ConnectManager.sendMessage(channel, rspMsg);
     }
 
     /**
@@ -86,7 +99,7 @@ public class RequestMessageProcessor {
         Response response = MessageUtil.newFailResponse(messageId, "Service not started!");
         Message rspMsg = MessageUtil.basicMessage(MessageType.Response);
         rspMsg.setMessageData(response);
-        ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(rspMsg)));
+        ConnectManager.sendMessage(channel, rspMsg);
     }
 
     /**
@@ -187,7 +200,7 @@ public class RequestMessageProcessor {
                     response.setResponseErrorCode(CommonCodeConstanst.CMD_NOTFOUND.getCode());
                     Message rspMessage = MessageUtil.basicMessage(MessageType.Response);
                     rspMessage.setMessageData(response);
-                    ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(rspMessage)));
+                    ConnectManager.sendMessage(channel, rspMessage);
                     return;
                 }
 
@@ -201,12 +214,13 @@ public class RequestMessageProcessor {
                     response.setResponseErrorCode(CommonCodeConstanst.PARAMETER_ERROR.getCode());
                     Message rspMessage = MessageUtil.basicMessage(MessageType.Response);
                     rspMessage.setMessageData(response);
-                    ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(rspMessage)));
+                    ConnectManager.sendMessage(channel, rspMessage);
                     return;
                 }
 
-                Message rspMessage = execute(cmdDetail, params, messageId);
-                ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(rspMessage)));
+                Message rspMessage = MessageUtil.basicMessage(MessageType.Response);
+                rspMessage.setMessageData(execute(cmdDetail, params, messageId));
+                ConnectManager.sendMessage(channel, rspMessage);
 
                 /*
                 执行成功之后判断该接口是否被订阅过，如果被订阅则改变该接口触发次数
@@ -221,7 +235,7 @@ public class RequestMessageProcessor {
                 response.setResponseErrorCode(CommonCodeConstanst.SYS_UNKOWN_EXCEPTION.getCode());
                 Message rspMessage = MessageUtil.basicMessage(MessageType.Response);
                 rspMessage.setMessageData(response);
-                ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(rspMessage)));
+                ConnectManager.sendMessage(channel, rspMessage);
             }
         }
     }
@@ -266,7 +280,7 @@ public class RequestMessageProcessor {
                     Log.info("Parameter validation error!");
                     return;
                 }
-                invoke(cmdDetail.getInvokeClass(), cmdDetail.getInvokeMethod(), params);
+                invoke(cmdDetail, params);
             } catch (Exception e) {
                 Log.error(e);
             }
@@ -274,26 +288,64 @@ public class RequestMessageProcessor {
     }
 
     /**
-     * 调用本地方法，把结果封装为Message对象，通过Websocket返回
-     * Call the local method, encapsulate the result as a Message object, and return it through Websocket
+     * 在调用方线程中直接执行同一JVM内模块的接口，参数按引用传递，不经过序列化、网络及响应队列
+     * Call a command of a module co-located in this JVM on the caller's thread, parameters are passed by reference
+     * without serialization, network or response queue
+     *
+     * @param cmd       接口命令 / Command of the method
+     * @param params    接口参数 / Parameters of the method
+     * @param messageId 请求ID / The request ID
+     * @return Response 与远程调用返回的结构一致 / Same structure as the response of a remote call
+     */
+    public static Response callLocalCommand(String cmd, Map params, String messageId) {
+        Response response = MessageUtil.newResponse(messageId, Response.FAIL, "");
+        try {
+            CmdDetail cmdDetail = params == null || params.get(Constants.VERSION_KEY_STR) == null
+                    ? ConnectManager.getLocalInvokeCmd(cmd)
+                    : ConnectManager.getLocalInvokeCmd(cmd, Double.parseDouble(params.get(Constants.VERSION_KEY_STR).toString()));
+            if (cmdDetail == null) {
+                response.setResponseComment(Constants.CMD_NOT_FOUND + ":" + cmd + "," + (params != null ? params.get(Constants.VERSION_KEY_STR) : ""));
+                response.setResponseErrorCode(CommonCodeConstanst.CMD_NOTFOUND.getCode());
+                return response;
+            }
+            String validationString = paramsValidation(cmdDetail, params);
+            if (validationString != null) {
+                response.setResponseComment(validationString);
+                response.setResponseErrorCode(CommonCodeConstanst.PARAMETER_ERROR.getCode());
+                return response;
+            }
+            /*
+            返回值转换为与远程调用解码后一致的结构（POJO转为Map），byte[]按引用保留
+            Shape the result like a decoded remote response (POJOs become Maps), byte[] is kept by reference
+             */
+            Response localResponse = execute(cmdDetail, params, messageId);
+            localResponse.setResponseData(BinaryMessageCodec.normalize(localResponse.getResponseData()));
+            return localResponse;
+        } catch (Exception e) {
+            Log.error(e);
+            response.setResponseComment("Server-side processing failed!");
+            response.setResponseErrorCode(CommonCodeConstanst.SYS_UNKOWN_EXCEPTION.getCode());
+            return response;
+        }
+    }
+
+    /**
+     * 调用本地方法，把结果封装为Response对象
+     * Call the local method, encapsulate the result as a Response object
      *
      * @param cmdDetail CmdDetail
      * @param params    Map, {key, value}
      * @param messageId 原始消息ID / The origin message ID
-     * @return Message
+     * @return Response
      * @throws Exception 调用的方法返回的任何异常 / Any exception returned by the invoked method
      */
-    private static Message execute(CmdDetail cmdDetail, Map params, String messageId) throws Exception {
-        long startTimemillis = NulsDateUtils.getCurrentTimeMillis();
-        Response response = invoke(cmdDetail.getInvokeClass(), cmdDetail.getInvokeMethod(), params);
+    private static Response execute(CmdDetail cmdDetail, Map params, String messageId) throws Exception {
+        Response response = invoke(cmdDetail, params);
         response.setRequestID(messageId);
         Map<String, Object> responseData = new HashMap<>(1);
         responseData.put(cmdDetail.getMethodName(), response.getResponseData());
         response.setResponseData(responseData);
-        response.setResponseProcessingTime((NulsDateUtils.getCurrentTimeMillis() - startTimemillis) + "");
-        Message rspMessage = MessageUtil.basicMessage(MessageType.Response);
-        rspMessage.setMessageData(response);
-        return rspMessage;
+        return response;
     }
 
 
@@ -309,7 +361,7 @@ public class RequestMessageProcessor {
         rspMessage.setMessageData(realResponse);
         try {
             Log.debug("responseWithEventCount: " + JSONUtils.obj2json(rspMessage));
-            ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(rspMessage)));
+            ConnectManager.sendMessage(channel, rspMessage);
         } catch (JsonProcessingException e) {
             Log.error(e);
         }
@@ -495,33 +547,35 @@ public class RequestMessageProcessor {
 
     /**
      * Call local cmd.
-     * 1. If the interface is injected via @Autowired, the injected object is used
-     * 2. If the interface has no special annotations, construct a new object by reflection
+     * 通过注册时绑定的调用器直接调用接口方法，并记录处理时间
+     * Call the command method through the invoker bound at registration, and record the processing time
      *
-     * @param invokeClass  Class
-     * @param invokeMethod Method
-     * @param params       Parameters of remote method
+     * @param cmdDetail CmdDetail
+     * @param params    Parameters of remote method
      * @return Response
      * @throws Exception Any exceptions
      */
-    @SuppressWarnings("unchecked")
-    private static Response invoke(String invokeClass, String invokeMethod, Map params) throws Exception {
-        Class<?> clz = classMap.get(invokeClass);
-        if (clz == null) {
-            clz = Class.forName(invokeClass);
-            classMap.put(invokeClass, clz);
-        }
-        Method method = clz.getDeclaredMethod(invokeMethod, Map.class);
-        BaseCmd cmd = (BaseCmd) handlerMap.get(invokeClass);
-        if (cmd == null) {
+    private static Response invoke(CmdDetail cmdDetail, Map params) throws Exception {
+        CmdInvoker invoker = cmdDetail.getInvoker();
+        if (invoker == null) {
             return MessageUtil.newFailResponse("", CMD_NOT_FOUND);
         }
-        long start = System.currentTimeMillis();
-        Response response = (Response) method.invoke(cmd, params);
-        long use = System.currentTimeMillis() - start;
-        if (use > 1000) {
-            Log.warn(invokeMethod + " , use:{}ms", use);
+        RpcMetrics.handlerStart();
+        long start = System.nanoTime();
+        Response response = null;
+        try {
+            response = invoker.invoke(params);
+            return response;
+        } finally {
+            long use = System.nanoTime() - start;
+            RpcMetrics.handlerEnd();
+            RpcMetrics.recordHandler(cmdDetail.getMethodName(), use);
+            if (use > SLOW_INVOKE_NANOS) {
+                Log.warn(cmdDetail.getInvokeMethod() + " , use:{}ms", TimeUnit.NANOSECONDS.toMillis(use));
+            }
+            if (response != null) {
+                response.setResponseProcessingTime(String.valueOf(TimeUnit.NANOSECONDS.toMillis(use)));
+            }
         }
-        return response;
     }
 }
@@ -11,14 +11,18 @@ import io.nuls.core.parse.JSONUtils;
 import io.nuls.core.rpc.info.Constants;
 import io.nuls.core.rpc.invoke.BaseInvoke;
 import io.nuls.core.rpc.invoke.KernelInvoke;
+import io.nuls.core.rpc.metrics.RpcMetrics;
 import io.nuls.core.rpc.model.ModuleE;
 import io.nuls.core.rpc.model.message.*;
 import io.nuls.core.rpc.netty.channel.manager.ConnectManager;
 import io.nuls.core.rpc.netty.processor.container.RequestContainer;
 import io.nuls.core.rpc.netty.processor.container.ResponseContainer;
-import io.nuls.core.rpc.util.SerializeUtil;
+import io.nuls.core.thread.ThreadUtils;
+import io.nuls.core.thread.commom.NulsThreadFactory;
 
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 
 
@@ -33,6 +37,12 @@ public class ResponseMessageProcessor {
 
     private static final Long REGISTER_API_TIME_OUT = 180L * 1000L;
 
+    /**
+     * 处理发往同一JVM中模块的RequestOnly请求，与远程连接一样由独立线程处理，不阻塞调用方
+     * Handles RequestOnly requests to co-located modules on separate threads like a remote connection does
+     */
+    private static final ExecutorService LOCAL_REQUEST_ONLY_POOL = ThreadUtils.createThreadPool(2, Constants.QUEUE_SIZE, new NulsThreadFactory("LocalRequestOnly"));
+
     /**
      * 与已连接的模块握手
      * Shake hands with the core module (Manager)
@@ -55,7 +65,7 @@ public class ResponseMessageProcessor {
 
         ResponseContainer responseContainer = RequestContainer.putRequest(message.getMessageID());
 
-        ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(message)));
+        ConnectManager.sendMessage(channel, message);
 
         try {
             return responseContainer.getFuture().get(Constants.TIMEOUT_TIMEMILLIS, TimeUnit.MILLISECONDS) != null;
@@ -85,7 +95,7 @@ public class ResponseMessageProcessor {
 
         ResponseContainer responseContainer = RequestContainer.putRequest(message.getMessageID());
 
-        ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(message)));
+        ConnectManager.sendMessage(channel, message);
 
         try {
             return responseContainer.getFuture().get(Constants.TIMEOUT_TIMEMILLIS, TimeUnit.MILLISECONDS) != null;
@@ -138,7 +148,7 @@ public class ResponseMessageProcessor {
         发送请求
         Send request
         */
-        ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(message)));
+        ConnectManager.sendMessage(channel, message);
 
         /*
         获取返回的数据，放入本地变量
@@ -152,7 +162,7 @@ public class ResponseMessageProcessor {
         while (!response.isSuccess() && tryCount < Constants.TRY_COUNT) {
             Log.info("向核心注册消息发送失败第{}次",tryCount + 1);
             responseContainer = RequestContainer.putRequest(message.getMessageID());
-            ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(message)));
+            ConnectManager.sendMessage(channel, message);
             response = receiveResponse(responseContainer, REGISTER_API_TIME_OUT);
             tryCount++;
         }
@@ -188,16 +198,32 @@ public class ResponseMessageProcessor {
      *
      * @param role    远程方法所属的角色，The role of remote method
      * @param cmd     远程方法的命令，Command of the remote method
-     * @param params  远程方法所需的参数，Parameters of the remote method
+     * @param params  远程方法所需的参数，交易、区块等数据可直接传byte[]/ByteBuffer，接收方通过RPCUtil.decode(Object)读取
+     *                Parameters of the remote method, transactions and blocks may be passed as byte[]/ByteBuffer
+     *                and read with RPCUtil.decode(Object) on the receiving side
      * @param timeOut 超时时间, timeout millis
      * @return 远程方法的返回结果，Response of the remote method
      * @throws Exception 请求超时（timeOut），timeout (timeOut)
      */
     public static Response requestAndResponse(String role, String cmd, Map params, long timeOut) throws Exception {
-        Request request = MessageUtil.newRequest(cmd, params, Constants.BOOLEAN_FALSE, Constants.ZERO, Constants.ZERO);
-        request.setTimeOut(String.valueOf(timeOut));
-        ResponseContainer responseContainer = sendRequest(role, request);
-        return receiveResponse(responseContainer, timeOut);
+        /*
+        目标角色运行在同一JVM中时直接调用，不经过序列化与网络
+        Call directly without serialization and network if the target role runs in this JVM
+         */
+        RpcMetrics.clientStart(role);
+        long start = System.nanoTime();
+        try {
+            if (ConnectManager.isLocalRole(role)) {
+                return RequestMessageProcessor.callLocalCommand(cmd, params, Constants.nextSequence());
+            }
+            Request request = MessageUtil.newRequest(cmd, params, Constants.BOOLEAN_FALSE, Constants.ZERO, Constants.ZERO);
+            request.setTimeOut(String.valueOf(timeOut));
+            ResponseContainer responseContainer = sendRequest(role, request);
+            return receiveResponse(responseContainer, timeOut);
+        } finally {
+            RpcMetrics.clientEnd(role);
+            RpcMetrics.recordClient(cmd, System.nanoTime() - start);
+        }
     }
 
     /**
@@ -279,12 +305,27 @@ public class ResponseMessageProcessor {
     public static String requestOnly(String role, Request request)throws Exception{
         Message message = MessageUtil.basicMessage(MessageType.RequestOnly);
         message.setMessageData(request);
+        if (ConnectManager.isLocalRole(role)) {
+            try {
+                LOCAL_REQUEST_ONLY_POOL.execute(() -> {
+                    try {
+                        RequestMessageProcessor.callCommands(request.getRequestMethods());
+                    } catch (Exception e) {
+                        Log.error(e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                Log.info("当前请求堆积过多,等待请求处理");
+                return "0";
+            }
+            return message.getMessageID();
+        }
         Channel channel = ConnectManager.getConnectByRole(role);
         if(!channel.isWritable()){
             Log.info("当前请求堆积过多,等待请求处理");
             return "0";
         }
-        ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(message)));
+        ConnectManager.sendMessage(channel, message);
         return message.getMessageID();
     }
 
@@ -306,7 +347,7 @@ public class ResponseMessageProcessor {
 
         ResponseContainer responseContainer = RequestContainer.putRequest(message.getMessageID());
 
-        ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(message)));
+        ConnectManager.sendMessage(channel, message);
         if (ConnectManager.isPureDigital(request.getSubscriptionPeriod())
                 || ConnectManager.isPureDigital(request.getSubscriptionEventCounter())) {
             /*
@@ -342,7 +383,7 @@ public class ResponseMessageProcessor {
          */
         Channel channel = ConnectManager.MSG_ID_KEY_CHANNEL_MAP.get(messageId);
         if (channel != null) {
-            ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(message)));
+            ConnectManager.sendMessage(channel, message);
             Log.debug("取消订阅：" + JSONUtils.obj2json(message));
             ConnectManager.INVOKE_MAP.remove(messageId);
         }
@@ -0,0 +1,432 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.core.rpc.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.nuls.core.parse.JSONUtils;
+import io.nuls.core.rpc.model.message.Message;
+import io.nuls.core.rpc.model.message.MessageType;
+import io.nuls.core.rpc.model.message.Request;
+import io.nuls.core.rpc.model.message.Response;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 模块间RPC消息的二进制编解码器，用于握手协商成功后的BinaryWebSocketFrame
+ * Binary codec for inter-module RPC messages, used in BinaryWebSocketFrame once negotiated
+ * <p>
+ * Message/Request/Response按固定字段顺序写入，其余参数与返回值按类型标签编码，byte[]/ByteBuffer直接以原始字节传输，不做文本转换。
+ * 解码后Request/Response消息的MessageData直接为对应对象，其余消息类型为Map，与JSON解析结果保持一致。
+ * <p>
+ * Message/Request/Response are written in a fixed field order, params and response data are tagged values,
+ * and byte[]/ByteBuffer travel as raw bytes without text encoding. After decoding, the MessageData of Request/Response
+ * messages is the typed object, other message types carry a Map just like the JSON path.
+ */
+public class BinaryMessageCodec {
+
+    /**
+     * 二进制格式版本号
+     * Binary format version
+     */
+    public static final byte FORMAT_VERSION = 1;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_TRUE = 1;
+    private static final byte TAG_FALSE = 2;
+    private static final byte TAG_LONG = 3;
+    private static final byte TAG_DOUBLE = 4;
+    private static final byte TAG_STRING = 5;
+    private static final byte TAG_BYTES = 6;
+    private static final byte TAG_LIST = 7;
+    private static final byte TAG_MAP = 8;
+    private static final byte TAG_BIG_INTEGER = 9;
+    private static final byte TAG_BIG_DECIMAL = 10;
+
+    private static final int NULL_LENGTH = -1;
+
+    /**
+     * 将消息编码为二进制
+     * Encode message to binary
+     *
+     * @param message 消息 / message
+     * @return ByteBuf
+     */
+    public static ByteBuf encode(Message message) {
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeByte(FORMAT_VERSION);
+        writeString(buf, message.getMessageID());
+        writeString(buf, message.getTimestamp());
+        writeString(buf, message.getTimeZone());
+        writeString(buf, message.getMessageType());
+        Object data = message.getMessageData();
+        if (data instanceof Request) {
+            writeRequest(buf, (Request) data);
+        } else if (data instanceof Response) {
+            writeResponse(buf, (Response) data);
+        } else {
+            writeValue(buf, data);
+        }
+        return buf;
+    }
+
+    /**
+     * 从二进制解码消息
+     * Decode message from binary
+     *
+     * @param buf 二进制数据 / binary data
+     * @return Message
+     * @throws IOException 格式错误 / Malformed data
+     */
+    public static Message decode(ByteBuf buf) throws IOException {
+        try {
+            byte version = buf.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported binary message version:" + version);
+            }
+            Message message = new Message();
+            message.setMessageID(readString(buf));
+            message.setTimestamp(readString(buf));
+            message.setTimeZone(readString(buf));
+            message.setMessageType(readString(buf));
+            MessageType messageType = MessageType.valueOf(message.getMessageType());
+            if (messageType == MessageType.Request || messageType == MessageType.RequestOnly) {
+                message.setMessageData(readRequest(buf));
+            } else if (messageType == MessageType.Response) {
+                message.setMessageData(readResponse(buf));
+            } else {
+                message.setMessageData(readValue(buf));
+            }
+            return message;
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Malformed binary message", e);
+        }
+    }
+
+    /**
+     * 将值转换为经二进制编解码后得到的结构，POJO转为Map，整数与字节按解码规则还原，byte[]按引用保留
+     * Convert a value to the structure it would have after a binary round trip: POJOs become Maps, numbers and
+     * buffers follow the decoding rules, and byte[] is kept by reference
+     *
+     * @param value 原始值 / value
+     * @return 与远程调用一致的结构 / same structure as a remote call
+     */
+    public static Object normalize(Object value) {
+        if (value == null || value instanceof String || value instanceof Boolean || value instanceof Integer
+                || value instanceof Double || value instanceof BigDecimal || value instanceof byte[]) {
+            return value;
+        } else if (value instanceof Long || value instanceof Short || value instanceof Byte) {
+            long longValue = ((Number) value).longValue();
+            if (longValue >= Integer.MIN_VALUE && longValue <= Integer.MAX_VALUE) {
+                return (int) longValue;
+            }
+            return longValue;
+        } else if (value instanceof Float) {
+            return ((Float) value).doubleValue();
+        } else if (value instanceof BigInteger) {
+            BigInteger bigValue = (BigInteger) value;
+            if (bigValue.bitLength() < Integer.SIZE) {
+                return bigValue.intValue();
+            }
+            if (bigValue.bitLength() < Long.SIZE) {
+                return bigValue.longValue();
+            }
+            return bigValue;
+        } else if (value instanceof ByteBuffer) {
+            ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return bytes;
+        } else if (value instanceof Map) {
+            Map<?, ?> source = (Map<?, ?>) value;
+            Map<String, Object> map = new LinkedHashMap<>(source.size() * 4 / 3 + 1);
+            for (Map.Entry<?, ?> entry : source.entrySet()) {
+                map.put(String.valueOf(entry.getKey()), normalize(entry.getValue()));
+            }
+            return map;
+        } else if (value instanceof Collection) {
+            Collection<?> source = (Collection<?>) value;
+            List<Object> list = new ArrayList<>(source.size());
+            for (Object item : source) {
+                list.add(normalize(item));
+            }
+            return list;
+        } else if (value instanceof Object[]) {
+            return normalize(Arrays.asList((Object[]) value));
+        } else if (value instanceof CharSequence || value instanceof Character) {
+            return value.toString();
+        } else if (value instanceof Enum) {
+            return ((Enum<?>) value).name();
+        }
+        Object converted = JSONUtils.getInstance().convertValue(value, Object.class);
+        if (converted == null || converted.getClass() == value.getClass()) {
+            return value.toString();
+        }
+        return normalize(converted);
+    }
+
+    private static void writeRequest(ByteBuf buf, Request request) {
+        writeString(buf, request.getRequestAck());
+        writeString(buf, request.getSubscriptionEventCounter());
+        writeString(buf, request.getSubscriptionPeriod());
+        writeString(buf, request.getSubscriptionRange());
+        writeString(buf, request.getResponseMaxSize());
+        writeString(buf, request.getTimeOut());
+        writeValue(buf, request.getRequestMethods());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Request readRequest(ByteBuf buf) throws IOException {
+        Request request = new Request();
+        request.setRequestAck(readString(buf));
+        request.setSubscriptionEventCounter(readString(buf));
+        request.setSubscriptionPeriod(readString(buf));
+        request.setSubscriptionRange(readString(buf));
+        request.setResponseMaxSize(readString(buf));
+        request.setTimeOut(readString(buf));
+        request.setRequestMethods((Map<String, Object>) readValue(buf));
+        return request;
+    }
+
+    private static void writeResponse(ByteBuf buf, Response response) {
+        writeString(buf, response.getRequestID());
+        writeString(buf, response.getResponseProcessingTime());
+        writeVarLong(buf, response.getResponseStatus());
+        writeString(buf, response.getResponseComment());
+        writeString(buf, response.getResponseMaxSize());
+        writeString(buf, response.getResponseErrorCode());
+        writeValue(buf, response.getResponseData());
+    }
+
+    private static Response readResponse(ByteBuf buf) throws IOException {
+        Response response = new Response();
+        response.setRequestID(readString(buf));
+        response.setResponseProcessingTime(readString(buf));
+        response.setResponseStatus((int) readVarLong(buf));
+        response.setResponseComment(readString(buf));
+        response.setResponseMaxSize(readString(buf));
+        response.setResponseErrorCode(readString(buf));
+        response.setResponseData(readValue(buf));
+        return response;
+    }
+
+    /**
+     * 按类型标签写入任意值，无法识别的对象先经Jackson转为Map/List等基础结构
+     * Write a tagged value, unknown objects are first converted into Map/List etc. by Jackson
+     */
+    private static void writeValue(ByteBuf buf, Object value) {
+        if (value == null) {
+            buf.writeByte(TAG_NULL);
+        } else if (value instanceof String) {
+            buf.writeByte(TAG_STRING);
+            writeString(buf, (String) value);
+        } else if (value instanceof Boolean) {
+            buf.writeByte((Boolean) value ? TAG_TRUE : TAG_FALSE);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            buf.writeByte(TAG_LONG);
+            writeVarLong(buf, ((Number) value).longValue());
+        } else if (value instanceof BigDecimal) {
+            BigDecimal decimal = (BigDecimal) value;
+            buf.writeByte(TAG_BIG_DECIMAL);
+            writeBytes(buf, decimal.unscaledValue().toByteArray());
+            writeVarLong(buf, decimal.scale());
+        } else if (value instanceof Double || value instanceof Float) {
+            buf.writeByte(TAG_DOUBLE);
+            buf.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof BigInteger) {
+            buf.writeByte(TAG_BIG_INTEGER);
+            writeBytes(buf, ((BigInteger) value).toByteArray());
+        } else if (value instanceof byte[]) {
+            buf.writeByte(TAG_BYTES);
+            writeBytes(buf, (byte[]) value);
+        } else if (value instanceof ByteBuffer) {
+            ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+            buf.writeByte(TAG_BYTES);
+            writeVarLong(buf, buffer.remaining());
+            buf.writeBytes(buffer);
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            buf.writeByte(TAG_MAP);
+            writeVarLong(buf, map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeString(buf, String.valueOf(entry.getKey()));
+                writeValue(buf, entry.getValue());
+            }
+        } else if (value instanceof Collection) {
+            Collection<?> list = (Collection<?>) value;
+            buf.writeByte(TAG_LIST);
+            writeVarLong(buf, list.size());
+            for (Object item : list) {
+                writeValue(buf, item);
+            }
+        } else if (value instanceof Object[]) {
+            writeValue(buf, Arrays.asList((Object[]) value));
+        } else if (value instanceof CharSequence || value instanceof Character) {
+            buf.writeByte(TAG_STRING);
+            writeString(buf, value.toString());
+        } else if (value instanceof Enum) {
+            buf.writeByte(TAG_STRING);
+            writeString(buf, ((Enum<?>) value).name());
+        } else {
+            Object converted = JSONUtils.getInstance().convertValue(value, Object.class);
+            if (converted == null || converted.getClass() == value.getClass()) {
+                buf.writeByte(TAG_STRING);
+                writeString(buf, value.toString());
+            } else {
+                writeValue(buf, converted);
+            }
+        }
+    }
+
+    /**
+     * 读取类型标签值，整数在int范围内时还原为Integer，与Jackson解析结果保持一致
+     * Read a tagged value, integers within int range come back as Integer to match Jackson
+     */
+    private static Object readValue(ByteBuf buf) throws IOException {
+        byte tag = buf.readByte();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_TRUE:
+                return Boolean.TRUE;
+            case TAG_FALSE:
+                return Boolean.FALSE;
+            case TAG_LONG:
+                long longValue = readVarLong(buf);
+                if (longValue >= Integer.MIN_VALUE && longValue <= Integer.MAX_VALUE) {
+                    return (int) longValue;
+                }
+                return longValue;
+            case TAG_DOUBLE:
+                return buf.readDouble();
+            case TAG_STRING:
+                return readString(buf);
+            case TAG_BYTES:
+                return readBytes(buf);
+            case TAG_BIG_INTEGER:
+                BigInteger bigValue = new BigInteger(readBytes(buf));
+                if (bigValue.bitLength() < Integer.SIZE) {
+                    return bigValue.intValue();
+                }
+                if (bigValue.bitLength() < Long.SIZE) {
+                    return bigValue.longValue();
+                }
+                return bigValue;
+            case TAG_BIG_DECIMAL:
+                BigInteger unscaled = new BigInteger(readBytes(buf));
+                return new BigDecimal(unscaled, (int) readVarLong(buf));
+            case TAG_LIST:
+                int listSize = readSize(buf);
+                List<Object> list = new ArrayList<>(listSize);
+                for (int i = 0; i < listSize; i++) {
+                    list.add(readValue(buf));
+                }
+                return list;
+            case TAG_MAP:
+                int mapSize = readSize(buf);
+                Map<String, Object> map = new LinkedHashMap<>(mapSize * 4 / 3 + 1);
+                for (int i = 0; i < mapSize; i++) {
+                    String key = readString(buf);
+                    map.put(key, readValue(buf));
+                }
+                return map;
+            default:
+                throw new IOException("Unknown value tag:" + tag);
+        }
+    }
+
+    private static void writeString(ByteBuf buf, String value) {
+        if (value == null) {
+            writeVarLong(buf, NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(buf, bytes.length);
+        buf.writeBytes(bytes);
+    }
+
+    private static String readString(ByteBuf buf) throws IOException {
+        long length = readVarLong(buf);
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        int size = checkSize(buf, length);
+        String value = buf.toString(buf.readerIndex(), size, StandardCharsets.UTF_8);
+        buf.skipBytes(size);
+        return value;
+    }
+
+    private static void writeBytes(ByteBuf buf, byte[] bytes) {
+        writeVarLong(buf, bytes.length);
+        buf.writeBytes(bytes);
+    }
+
+    private static byte[] readBytes(ByteBuf buf) throws IOException {
+        byte[] bytes = new byte[readSize(buf)];
+        buf.readBytes(bytes);
+        return bytes;
+    }
+
+    private static int readSize(ByteBuf buf) throws IOException {
+        return checkSize(buf, readVarLong(buf));
+    }
+
+    private static int checkSize(ByteBuf buf, long size) throws IOException {
+        if (size < 0 || size > buf.readableBytes()) {
+            throw new IOException("Invalid length:" + size);
+        }
+        return (int) size;
+    }
+
+    /**
+     * ZigZag变长整数编码
+     * ZigZag variable length integer
+     */
+    private static void writeVarLong(ByteBuf buf, long value) {
+        long v = (value << 1) ^ (value >> 63);
+        while ((v & ~0x7FL) != 0) {
+            buf.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        buf.writeByte((int) v);
+    }
+
+    private static long readVarLong(ByteBuf buf) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte b = buf.readByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (v >>> 1) ^ -(v & 1);
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
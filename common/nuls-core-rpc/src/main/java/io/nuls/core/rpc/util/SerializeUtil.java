@@ -1,7 +1,20 @@
 package io.nuls.core.rpc.util;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.nuls.core.crypto.HexUtil;
+import io.nuls.core.parse.JSONUtils;
+import io.nuls.core.rpc.metrics.RpcMetrics;
+import io.nuls.core.rpc.model.message.Message;
+import io.nuls.core.rpc.model.message.Request;
+import io.nuls.core.rpc.model.message.Response;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
 
 public class SerializeUtil {
 
@@ -11,4 +24,120 @@ public class SerializeUtil {
         return byteBuf;
     }
 
+    /**
+     * 解析收到的WebSocket帧，二进制帧按二进制协议解码，文本帧按JSON解析
+     * Decode a received WebSocket frame, binary frames with the binary codec and text frames as JSON
+     */
+    public static Message decodeMessage(WebSocketFrame frame) throws IOException {
+        ByteBuf content = frame.content();
+        long start = System.nanoTime();
+        if (frame instanceof BinaryWebSocketFrame) {
+            Message message = BinaryMessageCodec.decode(content);
+            RpcMetrics.recordSerialize(RpcMetrics.DECODE_BINARY, System.nanoTime() - start);
+            return message;
+        }
+        byte[] bytes = new byte[content.readableBytes()];
+        content.readBytes(bytes);
+        Message message = JSONUtils.byteArray2pojo(bytes, Message.class);
+        RpcMetrics.recordSerialize(RpcMetrics.DECODE_JSON, System.nanoTime() - start);
+        return message;
+    }
+
+    /**
+     * 序列化为JSON文本帧内容，参数与返回值中的byte[]/ByteBuffer转换为十六进制字符串，与旧版本模块的约定保持一致
+     * Serialize into JSON text frame content, byte[]/ByteBuffer in params and response data become hex strings
+     * as older modules expect
+     */
+    @SuppressWarnings("unchecked")
+    public static byte[] toJsonBytes(Message message) throws JsonProcessingException {
+        Object data = message.getMessageData();
+        Message jsonMessage = message;
+        if (data instanceof Request) {
+            Request request = (Request) data;
+            Map<String, Object> methods = request.getRequestMethods();
+            Object hexMethods = bytesToHex(methods);
+            if (hexMethods != methods) {
+                Request copy = new Request();
+                copy.setRequestAck(request.getRequestAck());
+                copy.setSubscriptionEventCounter(request.getSubscriptionEventCounter());
+                copy.setSubscriptionPeriod(request.getSubscriptionPeriod());
+                copy.setSubscriptionRange(request.getSubscriptionRange());
+                copy.setResponseMaxSize(request.getResponseMaxSize());
+                copy.setTimeOut(request.getTimeOut());
+                copy.setRequestMethods((Map<String, Object>) hexMethods);
+                jsonMessage = copyMessage(message, copy);
+            }
+        } else if (data instanceof Response) {
+            Response response = (Response) data;
+            Object hexData = bytesToHex(response.getResponseData());
+            if (hexData != response.getResponseData()) {
+                Response copy = new Response();
+                copy.setRequestID(response.getRequestID());
+                copy.setResponseProcessingTime(response.getResponseProcessingTime());
+                copy.setResponseStatus(response.getResponseStatus());
+                copy.setResponseComment(response.getResponseComment());
+                copy.setResponseMaxSize(response.getResponseMaxSize());
+                copy.setResponseErrorCode(response.getResponseErrorCode());
+                copy.setResponseData(hexData);
+                jsonMessage = copyMessage(message, copy);
+            }
+        }
+        return JSONUtils.obj2ByteArray(jsonMessage);
+    }
+
+    private static Message copyMessage(Message message, Object data) {
+        Message copy = new Message();
+        copy.setMessageID(message.getMessageID());
+        copy.setTimestamp(message.getTimestamp());
+        copy.setTimeZone(message.getTimeZone());
+        copy.setMessageType(message.getMessageType());
+        copy.setMessageData(data);
+        return copy;
+    }
+
+    /**
+     * 遍历Map/List，将其中的byte[]/ByteBuffer替换为十六进制字符串，没有字节数据时返回原对象
+     * Walk Map/List and replace byte[]/ByteBuffer with hex strings, the original object is returned when there are none
+     */
+    private static Object bytesToHex(Object value) {
+        if (value instanceof byte[]) {
+            return HexUtil.encode((byte[]) value);
+        }
+        if (value instanceof ByteBuffer) {
+            ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return HexUtil.encode(bytes);
+        }
+        if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            Map<Object, Object> copy = null;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                Object item = bytesToHex(entry.getValue());
+                if (item != entry.getValue() && copy == null) {
+                    copy = new LinkedHashMap<>(map);
+                }
+                if (copy != null) {
+                    copy.put(entry.getKey(), item);
+                }
+            }
+            return copy == null ? value : copy;
+        }
+        if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            List<Object> copy = null;
+            for (int i = 0; i < list.size(); i++) {
+                Object item = bytesToHex(list.get(i));
+                if (item != list.get(i) && copy == null) {
+                    copy = new ArrayList<>(list);
+                }
+                if (copy != null) {
+                    copy.set(i, item);
+                }
+            }
+            return copy == null ? value : copy;
+        }
+        return value;
+    }
+
 }
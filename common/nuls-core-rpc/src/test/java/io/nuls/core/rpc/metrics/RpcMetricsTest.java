@@ -0,0 +1,54 @@
+package io.nuls.core.rpc.metrics;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class RpcMetricsTest {
+
+    @Before
+    public void reset() {
+        RpcMetrics.reset();
+    }
+
+    @Test
+    public void histogramTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(80));
+        }
+        histogram.record(TimeUnit.SECONDS.toNanos(20));
+        Assert.assertEquals(100, histogram.getCount());
+        Assert.assertEquals(TimeUnit.MICROSECONDS.toNanos(100), histogram.quantileNanos(0.5));
+        Assert.assertEquals(TimeUnit.MICROSECONDS.toNanos(100), histogram.quantileNanos(0.99));
+        Assert.assertEquals(TimeUnit.SECONDS.toNanos(20), histogram.quantileNanos(1));
+        long[] counts = histogram.cumulativeCounts();
+        Assert.assertEquals(0, counts[0]);
+        Assert.assertEquals(99, counts[1]);
+        Assert.assertEquals(100, counts[counts.length - 1]);
+    }
+
+    /**
+     * Prometheus文本中直方图累计计数与count一致
+     * Cumulative buckets in the Prometheus text agree with the count
+     */
+    @Test
+    public void prometheusTextTest() {
+        RpcMetrics.recordHandler("tx_save", TimeUnit.MILLISECONDS.toNanos(3));
+        RpcMetrics.recordHandler("tx_save", TimeUnit.MILLISECONDS.toNanos(30));
+        RpcMetrics.clientStart("tx");
+        String text = RpcMetrics.toPrometheusText();
+        Assert.assertTrue(text.contains("# TYPE nuls_rpc_handler_seconds histogram"));
+        Assert.assertTrue(text.contains("nuls_rpc_handler_seconds_bucket{cmd=\"tx_save\",le=\"0.005\"} 1"));
+        Assert.assertTrue(text.contains("nuls_rpc_handler_seconds_bucket{cmd=\"tx_save\",le=\"+Inf\"} 2"));
+        Assert.assertTrue(text.contains("nuls_rpc_handler_seconds_count{cmd=\"tx_save\"} 2"));
+        Assert.assertTrue(text.contains("nuls_rpc_client_in_flight{role=\"tx\"} 1"));
+        RpcMetrics.clientEnd("tx");
+
+        Map handler = (Map) RpcMetrics.snapshot().get("handler");
+        Assert.assertEquals(2L, ((Map) handler.get("tx_save")).get("count"));
+    }
+}
@@ -0,0 +1,118 @@
+package io.nuls.core.rpc.netty.processor;
+
+import io.nuls.core.constant.CommonCodeConstanst;
+import io.nuls.core.core.ioc.SpringLiteContext;
+import io.nuls.core.rpc.cmd.BaseCmd;
+import io.nuls.core.rpc.info.Constants;
+import io.nuls.core.rpc.model.CmdAnnotation;
+import io.nuls.core.rpc.model.CmdDetail;
+import io.nuls.core.rpc.model.message.Response;
+import io.nuls.core.rpc.netty.channel.manager.ConnectManager;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class LocalInvokeTest {
+
+    private static final String ROLE = "lt";
+
+    public static class EchoCmd extends BaseCmd {
+        @CmdAnnotation(cmd = "lt_echo", version = 1.0, description = "echo")
+        public Response echo(Map params) {
+            return success(params.get("value"));
+        }
+
+        @CmdAnnotation(cmd = "lt_dto", version = 1.0, description = "dto")
+        public Response dto(Map params) {
+            SimpleDto dto = new SimpleDto();
+            dto.setAddress("address");
+            dto.setHeight(5L);
+            return success(dto);
+        }
+    }
+
+    public static class SimpleDto {
+        private String address;
+        private long height;
+
+        public String getAddress() {
+            return address;
+        }
+
+        public void setAddress(String address) {
+            this.address = address;
+        }
+
+        public long getHeight() {
+            return height;
+        }
+
+        public void setHeight(long height) {
+            this.height = height;
+        }
+    }
+
+    @BeforeClass
+    public static void init() {
+        Map<String, String> connectionInformation = new HashMap<>(2);
+        connectionInformation.put(Constants.KEY_IP, "127.0.0.1");
+        connectionInformation.put(Constants.KEY_PORT, "0");
+        ConnectManager.LOCAL.setConnectionInformation(connectionInformation);
+        ConnectManager.clearLocalCmd();
+        SpringLiteContext.putBean("localInvokeTest$EchoCmd", new EchoCmd());
+        ConnectManager.addCmdDetail(EchoCmd.class);
+        ConnectManager.addLocalRole(ROLE);
+    }
+
+    /**
+     * 同一JVM中的调用直接执行，参数按引用传递，返回结构与远程调用一致
+     * In-process calls pass parameters by reference and return the same structure as a remote call
+     */
+    @Test
+    public void requestAndResponseTest() throws Exception {
+        byte[] value = new byte[]{1, 2, 3};
+        Map<String, Object> params = new HashMap<>();
+        params.put("value", value);
+        Response response = ResponseMessageProcessor.requestAndResponse(ROLE, "lt_echo", params);
+        Assert.assertTrue(response.isSuccess());
+        Assert.assertSame(value, ((Map) response.getResponseData()).get("lt_echo"));
+    }
+
+    /**
+     * 注册时已绑定调用器，按cmd+版本查找
+     * The invoker is bound at registration and looked up by cmd and version
+     */
+    @Test
+    public void bindInvokerTest() throws Exception {
+        CmdDetail cmdDetail = ConnectManager.getLocalInvokeCmd("lt_echo", 1.0);
+        Assert.assertNotNull(cmdDetail);
+        Assert.assertNotNull(cmdDetail.getInvoker());
+        Assert.assertNull(ConnectManager.getLocalInvokeCmd("lt_echo", 2.0));
+        Map<String, Object> params = new HashMap<>();
+        params.put("value", "v");
+        Assert.assertEquals("v", cmdDetail.getInvoker().invoke(params).getResponseData());
+    }
+
+    /**
+     * 返回DTO的接口在本地调用时也得到Map结构，与远程调用一致
+     * A DTO returned by a co-located command arrives as a Map, just like a remote call
+     */
+    @Test
+    public void dtoResponseTest() throws Exception {
+        Response response = ResponseMessageProcessor.requestAndResponse(ROLE, "lt_dto", new HashMap<>());
+        Assert.assertTrue(response.isSuccess());
+        Map data = (Map) ((Map) response.getResponseData()).get("lt_dto");
+        Assert.assertEquals("address", data.get("address"));
+        Assert.assertEquals(5, data.get("height"));
+    }
+
+    @Test
+    public void cmdNotFoundTest() throws Exception {
+        Response response = ResponseMessageProcessor.requestAndResponse(ROLE, "lt_missing", new HashMap<>());
+        Assert.assertFalse(response.isSuccess());
+        Assert.assertEquals(CommonCodeConstanst.CMD_NOTFOUND.getCode(), response.getResponseErrorCode());
+    }
+}
@@ -0,0 +1,128 @@
+package io.nuls.core.rpc.util;
+
+import io.netty.buffer.ByteBuf;
+import io.nuls.core.parse.JSONUtils;
+import io.nuls.core.rpc.model.message.*;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+
+public class BinaryMessageCodecTest {
+
+    @Test
+    public void requestTest() throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        params.put("chainId", 1);
+        params.put("height", 5000000000L);
+        params.put("amount", new BigInteger("123456789012345678901234567890"));
+        params.put("txList", Arrays.asList("a1b2", "c3d4"));
+        params.put("raw", new byte[]{0, 1, 2, (byte) 0xff});
+        params.put("flag", true);
+        params.put("empty", null);
+        Request request = MessageUtil.newRequest("tx_batchVerify", params, "0", "0", "0");
+        request.setTimeOut("6000");
+        Message message = MessageUtil.basicMessage(MessageType.Request);
+        message.setMessageData(request);
+
+        Message decoded = BinaryMessageCodec.decode(BinaryMessageCodec.encode(message));
+        Assert.assertEquals(message.getMessageID(), decoded.getMessageID());
+        Assert.assertEquals(message.getTimestamp(), decoded.getTimestamp());
+        Assert.assertEquals(MessageType.Request.name(), decoded.getMessageType());
+
+        Request decodedRequest = MessageUtil.getRequest(decoded);
+        Assert.assertEquals("6000", decodedRequest.getTimeOut());
+        Assert.assertEquals("0", decodedRequest.getRequestAck());
+        Map decodedParams = (Map) decodedRequest.getRequestMethods().get("tx_batchVerify");
+        Assert.assertEquals(1, decodedParams.get("chainId"));
+        Assert.assertEquals(5000000000L, decodedParams.get("height"));
+        Assert.assertEquals(params.get("amount"), decodedParams.get("amount"));
+        Assert.assertEquals(params.get("txList"), decodedParams.get("txList"));
+        Assert.assertArrayEquals((byte[]) params.get("raw"), (byte[]) decodedParams.get("raw"));
+        Assert.assertEquals(true, decodedParams.get("flag"));
+        Assert.assertTrue(decodedParams.containsKey("empty"));
+        Assert.assertNull(decodedParams.get("empty"));
+    }
+
+    @Test
+    public void responseTest() throws Exception {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("value", true);
+        data.put("rate", 0.5D);
+        Response response = MessageUtil.newFailResponse("12", "error");
+        response.setResponseErrorCode("tx_0001");
+        response.setResponseData(Collections.singletonMap("tx_batchVerify", data));
+        Message message = MessageUtil.basicMessage(MessageType.Response);
+        message.setMessageData(response);
+
+        Response decoded = MessageUtil.getResponse(BinaryMessageCodec.decode(BinaryMessageCodec.encode(message)));
+        Assert.assertEquals("12", decoded.getRequestID());
+        Assert.assertEquals(Response.FAIL, decoded.getResponseStatus());
+        Assert.assertEquals("error", decoded.getResponseComment());
+        Assert.assertEquals("tx_0001", decoded.getResponseErrorCode());
+        Assert.assertEquals(Collections.singletonMap("tx_batchVerify", data), decoded.getResponseData());
+    }
+
+    /**
+     * 非Request/Response消息与POJO参数解码后与JSON解析结果一致
+     * Other message types and POJO values decode to the same structure as the JSON path
+     */
+    @Test
+    public void sameAsJsonTest() throws Exception {
+        Ack ack = new Ack();
+        ack.setRequestId("99");
+        Message message = MessageUtil.basicMessage(MessageType.Ack);
+        message.setMessageData(ack);
+
+        Message fromJson = JSONUtils.byteArray2pojo(JSONUtils.obj2ByteArray(message), Message.class);
+        Message fromBinary = BinaryMessageCodec.decode(BinaryMessageCodec.encode(message));
+        Assert.assertEquals(fromJson.getMessageData(), fromBinary.getMessageData());
+    }
+
+    /**
+     * JSON帧中原始字节参数转为十六进制字符串，原消息不变
+     * Raw byte parameters become hex strings in JSON frames, the original message is untouched
+     */
+    @Test
+    public void jsonHexFallbackTest() throws Exception {
+        byte[] raw = new byte[]{0, 1, 2, (byte) 0xff};
+        Map<String, Object> params = new HashMap<>();
+        params.put("txList", Collections.singletonList(raw));
+        Message message = MessageUtil.basicMessage(MessageType.Request);
+        message.setMessageData(MessageUtil.newRequest("tx_save", params, "0", "0", "0"));
+
+        Message fromJson = JSONUtils.byteArray2pojo(SerializeUtil.toJsonBytes(message), Message.class);
+        Map decodedParams = (Map) MessageUtil.getRequest(fromJson).getRequestMethods().get("tx_save");
+        Assert.assertEquals(Collections.singletonList("000102ff"), decodedParams.get("txList"));
+        Assert.assertSame(raw, ((List) params.get("txList")).get(0));
+    }
+
+    /**
+     * 高精度BigDecimal编解码后数值与精度不变
+     * High-precision BigDecimal values survive a round trip without losing digits or scale
+     */
+    @Test
+    public void bigDecimalTest() throws Exception {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("amount", new BigDecimal("12345678901234567890.123456789012345678"));
+        data.put("rate", new BigDecimal("-0.000000000000000000000001"));
+        data.put("scaled", new BigDecimal("1E+30"));
+        Response response = MessageUtil.newSuccessResponse("1");
+        response.setResponseData(data);
+        Message message = MessageUtil.basicMessage(MessageType.Response);
+        message.setMessageData(response);
+
+        Response decoded = MessageUtil.getResponse(BinaryMessageCodec.decode(BinaryMessageCodec.encode(message)));
+        Assert.assertEquals(data, decoded.getResponseData());
+    }
+
+    @Test(expected = java.io.IOException.class)
+    public void malformedTest() throws Exception {
+        Message message = MessageUtil.basicMessage(MessageType.Response);
+        message.setMessageData(MessageUtil.newSuccessResponse("1"));
+        ByteBuf buf = BinaryMessageCodec.encode(message);
+        BinaryMessageCodec.decode(buf.slice(0, buf.readableBytes() - 2));
+    }
+}
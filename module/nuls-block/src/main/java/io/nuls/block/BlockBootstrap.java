@@ -10,9 +10,11 @@ import io.nuls.block.manager.ContextManager;
 import io.nuls.block.model.BlockConfig;
 import io.nuls.block.thread.BlockSynchronizer;
 import io.nuls.block.thread.monitor.*;
+import io.nuls.block.utils.CompactBlockRelay;
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
 import io.nuls.core.log.Log;
+import io.nuls.core.rockdb.model.TableProfile;
 import io.nuls.core.rockdb.service.RocksDBService;
 import io.nuls.core.rpc.info.HostInfo;
 import io.nuls.core.rpc.model.ModuleE;
@@ -106,10 +108,11 @@ public class BlockBootstrap extends RpcModule {
     private void initDb() throws Exception {
         //读取配置文件,数据存储根目录,初始化打开该目录下所有表连接并放入缓存
         RocksDBService.init(blockConfig.getDataFolder());
-        RocksDBService.createTable(CHAIN_LATEST_HEIGHT);
+        RocksDBService.createTable(CHAIN_LATEST_HEIGHT, TableProfile.HOT);
         RocksDBService.createTable(CHAIN_PARAMETERS);
         RocksDBService.createTable(PROTOCOL_CONFIG);
         RocksDBService.createTable(ROLLBACK_HEIGHT);
+        RocksDBService.createTable(BLOCK_ARCHIVE_PRUNED);
     }
 
     /**
@@ -173,6 +176,16 @@ public class BlockBootstrap extends RpcModule {
             //开启节点数量监控线程
             ScheduledThreadPoolExecutor nodesExecutor = ThreadUtils.createScheduledThreadPool(1, new NulsThreadFactory("nodes-monitor"));
             nodesExecutor.scheduleWithFixedDelay(NodesMonitor.getInstance(), 0, blockConfig.getNodesMonitorInterval(), TimeUnit.MILLISECONDS);
+            //开启紧凑区块能力广播线程
+            if (CompactBlockRelay.isEnabled()) {
+                ScheduledThreadPoolExecutor compactExecutor = ThreadUtils.createScheduledThreadPool(1, new NulsThreadFactory("compact-block-announcer"));
+                compactExecutor.scheduleWithFixedDelay(CompactBlockAnnouncer.getInstance(), 0, blockConfig.getCompactBlockAnnounceInterval(), TimeUnit.MILLISECONDS);
+            }
+            //开启区块归档线程
+            if (blockConfig.isBlockArchive()) {
+                ScheduledThreadPoolExecutor archiveExecutor = ThreadUtils.createScheduledThreadPool(1, new NulsThreadFactory("block-archive-monitor"));
+                archiveExecutor.scheduleWithFixedDelay(BlockArchiveMonitor.getInstance(), 0, blockConfig.getArchiveMonitorInterval(), TimeUnit.MILLISECONDS);
+            }
             started = true;
         }
         return RpcModuleState.Running;
@@ -70,6 +70,26 @@ public interface CommandConstant {
      * 批量交易消息
      */
     String TXGROUP_MESSAGE = "txs";
+    /**
+     * 紧凑区块消息
+     */
+    String COMPACT_BLOCK_MESSAGE = "cBlock";
+    /**
+     * 按紧凑区块中的交易序号批量获取交易
+     */
+    String GET_COMPACT_TXGROUP_MESSAGE = "getTxsIdx";
+    /**
+     * 声明本节点支持接收紧凑区块
+     */
+    String SEND_COMPACT_MESSAGE = "sendCmpct";
+    /**
+     * 批量下载某个高度区间内的区块头, 用于确认可信检查点的祖先区块
+     */
+    String GET_HEADERS_MESSAGE = "getHeaders";
+    /**
+     * 区块头列表消息
+     */
+    String HEADERS_MESSAGE = "headers";
 
     //普通服务对应的RPC命令
     /**
@@ -116,6 +136,10 @@ public interface CommandConstant {
      * 根据区块HASH获取区块
      */
     String GET_BLOCK_BY_HASH = "getBlockByHash";
+    /**
+     * 根据交易HASH从区块归档文件获取交易
+     */
+    String GET_ARCHIVED_TX = "getArchivedTx";
     /**
      * 获取最新若干区块头
      */
@@ -60,6 +60,14 @@ public interface Constant {
      * 分叉链、孤儿链区块数据库前缀
      */
     String CACHED_BLOCK = "cached_block_";
+    /**
+     * 归档区块中交易hash与位置的索引
+     */
+    String BLOCK_ARCHIVE_TX = "block_archive_tx_";
+    /**
+     * 已精简区块头记录的链, 标记后归档文件不可关闭
+     */
+    String BLOCK_ARCHIVE_PRUNED = "block_archive_pruned";
 
     /**
      * 工作状态
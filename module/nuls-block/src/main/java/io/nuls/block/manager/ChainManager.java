@@ -27,16 +27,19 @@ package io.nuls.block.manager;
 import io.nuls.base.protocol.ProtocolLoader;
 import io.nuls.block.rpc.call.TransactionCall;
 import io.nuls.block.service.BlockService;
+import io.nuls.block.storage.BlockArchiveService;
 import io.nuls.block.utils.ConfigLoader;
 import io.nuls.block.utils.LoggerUtil;
 import io.nuls.core.constant.TxType;
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
 import io.nuls.core.log.logback.NulsLogger;
+import io.nuls.core.rockdb.model.TableProfile;
 import io.nuls.core.rockdb.service.RocksDBService;
 
 import java.util.List;
 
+import static io.nuls.block.BlockBootstrap.blockConfig;
 import static io.nuls.block.constant.Constant.*;
 
 /**
@@ -51,6 +54,8 @@ public class ChainManager {
 
     @Autowired
     private BlockService service;
+    @Autowired
+    private BlockArchiveService archiveService;
 
     public void initChain() throws Exception {
         //加载配置
@@ -58,6 +63,7 @@ public class ChainManager {
         List<Integer> chainIds = ContextManager.CHAIN_ID_LIST;
         for (Integer chainId : chainIds) {
             initTable(chainId);
+            archiveService.init(chainId);
             ProtocolLoader.load(chainId);
         }
     }
@@ -99,12 +105,15 @@ public class ChainManager {
     private void initTable(int chainId) {
         NulsLogger logger = ContextManager.getContext(chainId).getLogger();
         try {
-            RocksDBService.createTable(BLOCK_HEADER + chainId);
-            RocksDBService.createTable(BLOCK_HEADER_INDEX + chainId);
+            RocksDBService.createTable(BLOCK_HEADER + chainId, TableProfile.POINT_LOOKUP);
+            RocksDBService.createTable(BLOCK_HEADER_INDEX + chainId, TableProfile.SEQUENTIAL);
             if (RocksDBService.existTable(CACHED_BLOCK + chainId)) {
                 RocksDBService.destroyTable(CACHED_BLOCK + chainId);
             }
             RocksDBService.createTable(CACHED_BLOCK + chainId);
+            if (blockConfig.isBlockArchive()) {
+                RocksDBService.createTable(BLOCK_ARCHIVE_TX + chainId, TableProfile.POINT_LOOKUP);
+            }
         } catch (Exception e) {
             logger.error(e);
         }
@@ -0,0 +1,101 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.block.message;
+
+import io.nuls.base.basic.NulsByteBuffer;
+import io.nuls.base.basic.NulsOutputStreamBuffer;
+import io.nuls.base.data.BaseBusinessMessage;
+import io.nuls.base.data.BlockHeader;
+import io.nuls.base.data.NulsHash;
+import io.nuls.core.basic.VarInt;
+import io.nuls.core.exception.NulsException;
+import io.nuls.core.parse.SerializeUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 区块头列表, 回复{@link HeightRangeMessage}的区块头下载请求, 区块头按高度顺序排列
+ */
+public class HeadersMessage extends BaseBusinessMessage {
+
+    /**
+     * 请求消息的hash
+     */
+    private NulsHash requestHash;
+    private List<BlockHeader> headerList;
+
+    public HeadersMessage() {
+    }
+
+    public HeadersMessage(NulsHash requestHash, List<BlockHeader> headerList) {
+        this.requestHash = requestHash;
+        this.headerList = headerList;
+    }
+
+    public NulsHash getRequestHash() {
+        return requestHash;
+    }
+
+    public void setRequestHash(NulsHash requestHash) {
+        this.requestHash = requestHash;
+    }
+
+    public List<BlockHeader> getHeaderList() {
+        return headerList;
+    }
+
+    public void setHeaderList(List<BlockHeader> headerList) {
+        this.headerList = headerList;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        size += NulsHash.HASH_LENGTH;
+        size += VarInt.sizeOf(headerList.size());
+        for (BlockHeader header : headerList) {
+            size += SerializeUtils.sizeOfNulsData(header);
+        }
+        return size;
+    }
+
+    @Override
+    public void serializeToStream(NulsOutputStreamBuffer stream) throws IOException {
+        stream.write(requestHash.getBytes());
+        stream.writeVarInt(headerList.size());
+        for (BlockHeader header : headerList) {
+            stream.writeNulsData(header);
+        }
+    }
+
+    @Override
+    public void parse(NulsByteBuffer byteBuffer) throws NulsException {
+        this.requestHash = byteBuffer.readHash();
+        long count = byteBuffer.readVarInt();
+        this.headerList = new ArrayList<>((int) Math.min(count, 1024));
+        for (int i = 0; i < count; i++) {
+            this.headerList.add(byteBuffer.readNulsData(new BlockHeader()));
+        }
+    }
+
+}
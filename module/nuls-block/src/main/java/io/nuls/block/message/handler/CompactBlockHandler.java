@@ -0,0 +1,101 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.block.message.handler;
+
+import io.nuls.base.RPCUtil;
+import io.nuls.base.data.BlockHeader;
+import io.nuls.base.data.CompactBlock;
+import io.nuls.base.data.NulsHash;
+import io.nuls.base.protocol.MessageProcessor;
+import io.nuls.block.constant.BlockForwardEnum;
+import io.nuls.block.constant.StatusEnum;
+import io.nuls.block.manager.ContextManager;
+import io.nuls.block.message.CompactBlockMessage;
+import io.nuls.block.model.ChainContext;
+import io.nuls.block.model.ChainParameters;
+import io.nuls.block.rpc.call.NetworkCall;
+import io.nuls.block.utils.BlockUtil;
+import io.nuls.block.utils.CompactBlockRelay;
+import io.nuls.block.utils.SmallBlockCacher;
+import io.nuls.core.core.annotation.Component;
+import io.nuls.core.log.logback.NulsLogger;
+import io.nuls.core.rpc.util.NulsDateUtils;
+
+import static io.nuls.block.constant.BlockForwardEnum.EMPTY;
+import static io.nuls.block.constant.BlockForwardEnum.ERROR;
+import static io.nuls.block.constant.CommandConstant.COMPACT_BLOCK_MESSAGE;
+
+/**
+ * 处理收到的{@link CompactBlockMessage},与{@link SmallBlockHandler}相同的检查后按短ID重建区块
+ */
+@Component("CompactBlockHandlerV1")
+public class CompactBlockHandler implements MessageProcessor {
+
+    @Override
+    public String getCmd() {
+        return COMPACT_BLOCK_MESSAGE;
+    }
+
+    @Override
+    public void process(int chainId, String nodeId, String msgStr) {
+        process(chainId, nodeId, RPCUtil.decode(msgStr));
+    }
+
+    @Override
+    public void process(int chainId, String nodeId, byte[] msgBytes) {
+        ChainContext context = ContextManager.getContext(chainId);
+        CompactBlockMessage message = RPCUtil.getInstance(msgBytes, CompactBlockMessage.class);
+        if (message == null) {
+            return;
+        }
+        NulsLogger logger = context.getLogger();
+        CompactBlock compactBlock = message.getCompactBlock();
+        if (null == compactBlock) {
+            logger.warn("recieved a null compactBlock!");
+            return;
+        }
+        BlockHeader header = compactBlock.getHeader();
+        NulsHash blockHash = header.getHash();
+        //阻止恶意节点提前出块,拒绝接收未来一定时间外的区块
+        ChainParameters parameters = context.getParameters();
+        int validBlockInterval = parameters.getValidBlockInterval();
+        long currentTime = NulsDateUtils.getCurrentTimeMillis();
+        if (header.getTime() * 1000 > (currentTime + validBlockInterval)) {
+            logger.error("header.getTime()-" + header.getTime() + ", currentTime-" + currentTime + ", validBlockInterval-" + validBlockInterval);
+            return;
+        }
+        context.getCachedHashHeightMap().put(blockHash, header.getHeight());
+        NetworkCall.setHashAndHeight(chainId, blockHash, header.getHeight(), nodeId);
+        if (context.getStatus().equals(StatusEnum.SYNCHRONIZING)) {
+            return;
+        }
+        //已完成、已出错或正在补齐交易的区块都不再处理
+        BlockForwardEnum status = SmallBlockCacher.getStatus(chainId, blockHash);
+        if (!EMPTY.equals(status)) {
+            return;
+        }
+        if (!BlockUtil.headerVerify(chainId, header)) {
+            logger.info("recieve error CompactBlockMessage from " + nodeId);
+            SmallBlockCacher.setStatus(chainId, blockHash, ERROR);
+            return;
+        }
+        CompactBlockRelay.receive(chainId, nodeId, compactBlock);
+    }
+}
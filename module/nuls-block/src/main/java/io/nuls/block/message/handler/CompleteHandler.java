@@ -25,7 +25,9 @@ import io.nuls.base.protocol.MessageProcessor;
 import io.nuls.block.constant.NodeEnum;
 import io.nuls.block.manager.ContextManager;
 import io.nuls.block.message.CompleteMessage;
+import io.nuls.block.model.BlockDownloaderParams;
 import io.nuls.block.model.ChainContext;
+import io.nuls.block.model.DownloadWindow;
 import io.nuls.block.model.Node;
 import io.nuls.core.core.annotation.Component;
 import io.nuls.core.log.logback.NulsLogger;
@@ -56,11 +58,21 @@ public class CompleteHandler implements MessageProcessor {
         ChainContext context = ContextManager.getContext(chainId);
         NulsLogger logger = context.getLogger();
         logger.debug("recieve " + message + " from node-" + nodeId);
-        if(null == context.getDownloaderParams()){
+        BlockDownloaderParams downloaderParams = context.getDownloaderParams();
+        if(null == downloaderParams){
             return;
         }
-        Node node = context.getDownloaderParams().getNodeMap().get(nodeId);
-        node.adjustCredit(message.isSuccess());
-        node.setNodeEnum(NodeEnum.IDLE);
+        DownloadWindow window = downloaderParams.windowFinished(nodeId, message.getRequestHash(), message.isSuccess());
+        if (window == null) {
+            Node node = downloaderParams.getNodeMap().get(nodeId);
+            if (node == null) {
+                return;
+            }
+            node.adjustCredit(message.isSuccess());
+            if (node.getOutstanding() == 0 && !node.getNodeEnum().equals(NodeEnum.TIMEOUT)) {
+                node.setNodeEnum(NodeEnum.IDLE);
+            }
+        }
+        context.signalSyncProgress();
     }
 }
@@ -0,0 +1,85 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.block.message.handler;
+
+import io.nuls.base.RPCUtil;
+import io.nuls.base.data.NulsHash;
+import io.nuls.base.data.Transaction;
+import io.nuls.base.protocol.MessageProcessor;
+import io.nuls.block.message.IndexListMessage;
+import io.nuls.block.message.TxGroupMessage;
+import io.nuls.block.model.CachedSmallBlock;
+import io.nuls.block.rpc.call.NetworkCall;
+import io.nuls.block.rpc.call.TransactionCall;
+import io.nuls.block.utils.SmallBlockCacher;
+import io.nuls.core.core.annotation.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static io.nuls.block.constant.CommandConstant.GET_COMPACT_TXGROUP_MESSAGE;
+import static io.nuls.block.constant.CommandConstant.TXGROUP_MESSAGE;
+
+/**
+ * 处理收到的{@link IndexListMessage},按序号返回本节点广播过的区块中的交易
+ */
+@Component("GetCompactTxGroupHandlerV1")
+public class GetCompactTxGroupHandler implements MessageProcessor {
+
+    @Override
+    public String getCmd() {
+        return GET_COMPACT_TXGROUP_MESSAGE;
+    }
+
+    @Override
+    public void process(int chainId, String nodeId, String msgStr) {
+        IndexListMessage message = RPCUtil.getInstanceRpcStr(msgStr, IndexListMessage.class);
+        if (message == null) {
+            return;
+        }
+        NulsHash blockHash = message.getBlockHash();
+        CachedSmallBlock cachedSmallBlock = SmallBlockCacher.getCachedSmallBlock(chainId, blockHash);
+        if (cachedSmallBlock == null) {
+            return;
+        }
+        List<NulsHash> txHashList = cachedSmallBlock.getSmallBlock().getTxHashList();
+        Map<NulsHash, Transaction> txMap = cachedSmallBlock.getTxMap();
+        List<Transaction> transactions = new ArrayList<>();
+        List<NulsHash> uncachedHashList = new ArrayList<>();
+        for (Integer index : message.getIndexList()) {
+            if (index < 0 || index >= txHashList.size()) {
+                return;
+            }
+            NulsHash hash = txHashList.get(index);
+            Transaction tx = txMap.get(hash);
+            if (tx == null) {
+                uncachedHashList.add(hash);
+            } else {
+                transactions.add(tx);
+            }
+        }
+        transactions.addAll(TransactionCall.getTransactions(chainId, uncachedHashList, true));
+        if (transactions.isEmpty()) {
+            return;
+        }
+        NetworkCall.sendToNode(chainId, new TxGroupMessage(blockHash, transactions), nodeId, TXGROUP_MESSAGE);
+    }
+}
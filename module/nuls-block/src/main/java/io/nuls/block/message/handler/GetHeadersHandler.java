@@ -0,0 +1,86 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.block.message.handler;
+
+import io.nuls.base.RPCUtil;
+import io.nuls.base.data.BlockHeader;
+import io.nuls.base.data.NulsHash;
+import io.nuls.base.protocol.MessageProcessor;
+import io.nuls.block.manager.ContextManager;
+import io.nuls.block.message.HeadersMessage;
+import io.nuls.block.message.HeightRangeMessage;
+import io.nuls.block.rpc.call.NetworkCall;
+import io.nuls.block.service.BlockService;
+import io.nuls.block.utils.AssumeValid;
+import io.nuls.core.core.annotation.Autowired;
+import io.nuls.core.core.annotation.Component;
+import io.nuls.core.log.logback.NulsLogger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.nuls.block.constant.CommandConstant.GET_HEADERS_MESSAGE;
+import static io.nuls.block.constant.CommandConstant.HEADERS_MESSAGE;
+
+/**
+ * 处理收到的区块头下载请求{@link HeightRangeMessage},回复{@link HeadersMessage}
+ */
+@Component("GetHeadersHandlerV1")
+public class GetHeadersHandler implements MessageProcessor {
+
+    @Autowired
+    private BlockService service;
+
+    @Override
+    public String getCmd() {
+        return GET_HEADERS_MESSAGE;
+    }
+
+    @Override
+    public void process(int chainId, String nodeId, String msgStr) {
+        HeightRangeMessage message = RPCUtil.getInstanceRpcStr(msgStr, HeightRangeMessage.class);
+        if (message == null) {
+            return;
+        }
+        NulsLogger logger = ContextManager.getContext(chainId).getLogger();
+        long startHeight = message.getStartHeight();
+        long endHeight = message.getEndHeight();
+        if (startHeight < 0L || startHeight > endHeight || endHeight - startHeight >= AssumeValid.HEADERS_BATCH) {
+            logger.error("PARAMETER_ERROR");
+            return;
+        }
+        try {
+            NulsHash requestHash = NulsHash.calcHash(message.serialize());
+            //本地缺少的区块头不再继续, 请求方按数量判断
+            List<BlockHeader> headerList = new ArrayList<>((int) (endHeight - startHeight + 1));
+            for (long height = startHeight; height <= endHeight; height++) {
+                BlockHeader header = service.getBlockHeader(chainId, height);
+                if (header == null) {
+                    break;
+                }
+                headerList.add(header);
+            }
+            NetworkCall.sendToNode(chainId, new HeadersMessage(requestHash, headerList), nodeId, HEADERS_MESSAGE);
+        } catch (Exception e) {
+            logger.error("error occur when send headers", e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.block.message.handler;
+
+import io.nuls.base.RPCUtil;
+import io.nuls.base.protocol.MessageProcessor;
+import io.nuls.block.message.SendCompactMessage;
+import io.nuls.block.utils.CompactBlockRelay;
+import io.nuls.core.core.annotation.Component;
+
+import static io.nuls.block.constant.CommandConstant.SEND_COMPACT_MESSAGE;
+
+/**
+ * 处理收到的{@link SendCompactMessage},记录支持紧凑区块的节点
+ */
+@Component("SendCompactHandlerV1")
+public class SendCompactHandler implements MessageProcessor {
+
+    @Override
+    public String getCmd() {
+        return SEND_COMPACT_MESSAGE;
+    }
+
+    @Override
+    public void process(int chainId, String nodeId, String msgStr) {
+        SendCompactMessage message = RPCUtil.getInstanceRpcStr(msgStr, SendCompactMessage.class);
+        if (message == null || message.getVersion() != CompactBlockRelay.VERSION || !CompactBlockRelay.isEnabled()) {
+            return;
+        }
+        CompactBlockRelay.register(chainId, nodeId);
+    }
+}
@@ -30,6 +30,7 @@ import io.nuls.block.model.CachedSmallBlock;
 import io.nuls.block.service.BlockService;
 import io.nuls.block.thread.monitor.TxGroupRequestor;
 import io.nuls.block.utils.BlockUtil;
+import io.nuls.block.utils.CompactBlockRelay;
 import io.nuls.block.utils.SmallBlockCacher;
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
@@ -62,7 +63,12 @@ public class TxGroupHandler implements MessageProcessor {
 
     @Override
     public void process(int chainId, String nodeId, String msgStr) {
-        TxGroupMessage message = RPCUtil.getInstanceRpcStr(msgStr, TxGroupMessage.class);
+        process(chainId, nodeId, RPCUtil.decode(msgStr));
+    }
+
+    @Override
+    public void process(int chainId, String nodeId, byte[] msgBytes) {
+        TxGroupMessage message = RPCUtil.getInstance(msgBytes, TxGroupMessage.class);
         if (message == null) {
             return;
         }
@@ -81,6 +87,10 @@ public class TxGroupHandler implements MessageProcessor {
         }
         //2.已收到部分区块,还缺失交易信息,收到的应该就是缺失的交易信息
         if (BlockForwardEnum.INCOMPLETE.equals(status)) {
+            //以紧凑区块方式等待的交易按短ID放回原位
+            if (CompactBlockRelay.fill(chainId, nodeId, blockHash, transactions)) {
+                return;
+            }
             CachedSmallBlock cachedSmallBlock = SmallBlockCacher.getCachedSmallBlock(chainId, blockHash);
             if (cachedSmallBlock == null) {
                 return;
@@ -75,6 +75,71 @@ public class BlockConfig extends ChainParameters implements ModuleConfig {
      */
     private int rollbackHeight;
 
+    /**
+     * 区块同步时提前预验证的区块数, 0表示不预验证
+     */
+    private int syncPreVerifyDepth = 16;
+
+    /**
+     * 紧凑区块能力广播间隔, 0表示不使用紧凑区块
+     */
+    private int compactBlockAnnounceInterval = 60000;
+
+    /**
+     * 区块头缓存字节数上限
+     */
+    private int headerCacheBytes = 33554432;
+
+    /**
+     * 完整区块缓存字节数上限
+     */
+    private int blockCacheBytes = 67108864;
+
+    /**
+     * 区块同步时单个节点最多同时承担的下载窗口数
+     */
+    private int syncMaxWindowsPerNode = 4;
+
+    /**
+     * 区块同步时单个下载窗口的目标耗时(毫秒), 按节点实测速度换算成窗口字节数
+     */
+    private int syncWindowMillis = 2000;
+
+    /**
+     * 阻塞同步的滞后下载窗口向其他节点发出对冲请求前的最短等待时间(毫秒)
+     */
+    private int syncHedgeMillis = 3000;
+
+    /**
+     * 可信检查点高度, 同步时该高度及之前的区块跳过签名与模块验证, 0表示不使用
+     */
+    private long assumeValidHeight;
+
+    /**
+     * 可信检查点区块hash
+     */
+    private String assumeValidHash;
+
+    /**
+     * 是否将已不可回滚的区块归档到追加写入的区块文件
+     */
+    private boolean blockArchive;
+
+    /**
+     * 单个归档区块文件的最大字节数
+     */
+    private long archiveSegmentBytes;
+
+    /**
+     * 区块归档线程运行间隔
+     */
+    private int archiveMonitorInterval;
+
+    /**
+     * 归档后把数据库中的区块头记录精简为高度, 开启后强制归档, 且精简过的链不能再关闭归档
+     */
+    private boolean archivePrune;
+
     public int getNodesMonitorInterval() {
         return nodesMonitorInterval;
     }
@@ -174,4 +239,108 @@ public class BlockConfig extends ChainParameters implements ModuleConfig {
     public void setRollbackHeight(int rollbackHeight) {
         this.rollbackHeight = rollbackHeight;
     }
+
+    public int getSyncPreVerifyDepth() {
+        return syncPreVerifyDepth;
+    }
+
+    public void setSyncPreVerifyDepth(int syncPreVerifyDepth) {
+        this.syncPreVerifyDepth = syncPreVerifyDepth;
+    }
+
+    public int getCompactBlockAnnounceInterval() {
+        return compactBlockAnnounceInterval;
+    }
+
+    public void setCompactBlockAnnounceInterval(int compactBlockAnnounceInterval) {
+        this.compactBlockAnnounceInterval = compactBlockAnnounceInterval;
+    }
+
+    public int getHeaderCacheBytes() {
+        return headerCacheBytes;
+    }
+
+    public void setHeaderCacheBytes(int headerCacheBytes) {
+        this.headerCacheBytes = headerCacheBytes;
+    }
+
+    public int getBlockCacheBytes() {
+        return blockCacheBytes;
+    }
+
+    public void setBlockCacheBytes(int blockCacheBytes) {
+        this.blockCacheBytes = blockCacheBytes;
+    }
+
+    public int getSyncMaxWindowsPerNode() {
+        return syncMaxWindowsPerNode;
+    }
+
+    public void setSyncMaxWindowsPerNode(int syncMaxWindowsPerNode) {
+        this.syncMaxWindowsPerNode = syncMaxWindowsPerNode;
+    }
+
+    public int getSyncWindowMillis() {
+        return syncWindowMillis;
+    }
+
+    public void setSyncWindowMillis(int syncWindowMillis) {
+        this.syncWindowMillis = syncWindowMillis;
+    }
+
+    public int getSyncHedgeMillis() {
+        return syncHedgeMillis;
+    }
+
+    public void setSyncHedgeMillis(int syncHedgeMillis) {
+        this.syncHedgeMillis = syncHedgeMillis;
+    }
+
+    public long getAssumeValidHeight() {
+        return assumeValidHeight;
+    }
+
+    public void setAssumeValidHeight(long assumeValidHeight) {
+        this.assumeValidHeight = assumeValidHeight;
+    }
+
+    public String getAssumeValidHash() {
+        return assumeValidHash;
+    }
+
+    public void setAssumeValidHash(String assumeValidHash) {
+        this.assumeValidHash = assumeValidHash;
+    }
+
+    public boolean isBlockArchive() {
+        return blockArchive || archivePrune;
+    }
+
+    public void setBlockArchive(boolean blockArchive) {
+        this.blockArchive = blockArchive;
+    }
+
+    public long getArchiveSegmentBytes() {
+        return archiveSegmentBytes;
+    }
+
+    public void setArchiveSegmentBytes(long archiveSegmentBytes) {
+        this.archiveSegmentBytes = archiveSegmentBytes;
+    }
+
+    public int getArchiveMonitorInterval() {
+        return archiveMonitorInterval;
+    }
+
+    public void setArchiveMonitorInterval(int archiveMonitorInterval) {
+        this.archiveMonitorInterval = archiveMonitorInterval;
+    }
+
+    public boolean isArchivePrune() {
+        return archivePrune;
+    }
+
+    public void setArchivePrune(boolean archivePrune) {
+        this.archivePrune = archivePrune;
+    }
 }
@@ -24,6 +24,7 @@ import io.nuls.base.data.NulsHash;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 一次区块下载过程中用到的参数
@@ -62,6 +63,45 @@ public class BlockDownloaderParams {
      * 网络上可用节点数>=nodes.size()
      */
     private int availableNodesCount;
+    /**
+     * 未完成的下载窗口, key为节点ID+请求hash
+     */
+    private final Map<String, DownloadWindow> windows = new ConcurrentHashMap<>();
+    /**
+     * 已下载区块平均字节数的指数加权平均, 用于按字节数确定下载窗口大小
+     */
+    private volatile long avgBlockSize;
+
+    /**
+     * 记录下载窗口内到达的区块
+     */
+    public void blockReceived(String nodeId, NulsHash requestHash, int size) {
+        DownloadWindow window = windows.get(DownloadWindow.key(nodeId, requestHash));
+        if (window != null) {
+            window.blockReceived(size, System.currentTimeMillis());
+        }
+        long avg = avgBlockSize;
+        avgBlockSize = avg == 0 ? size : avg + (size - avg) / 8;
+    }
+
+    /**
+     * 下载窗口结束, 返回null表示不是本次同步发出的请求
+     */
+    public DownloadWindow windowFinished(String nodeId, NulsHash requestHash, boolean success) {
+        DownloadWindow window = windows.remove(DownloadWindow.key(nodeId, requestHash));
+        if (window != null) {
+            window.getNode().windowFinished(window, success, System.currentTimeMillis());
+        }
+        return window;
+    }
+
+    public Map<String, DownloadWindow> getWindows() {
+        return windows;
+    }
+
+    public long getAvgBlockSize() {
+        return avgBlockSize;
+    }
 
     public Map<String, Node> getNodeMap() {
         return nodeMap;
@@ -0,0 +1,72 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.block.model;
+
+import io.nuls.base.data.CompactBlock;
+import io.nuls.base.data.Transaction;
+
+import java.util.Map;
+
+/**
+ * 等待补齐交易的紧凑区块
+ * A compact block waiting for its missing transactions
+ */
+public class CachedCompactBlock {
+
+    private CompactBlock compactBlock;
+
+    /**
+     * 按区块顺序排列的交易,缺失的位置为null
+     */
+    private Transaction[] txs;
+
+    /**
+     * 缺失交易的短ID与其在区块中的序号
+     */
+    private Map<Long, Integer> missingIndexes;
+
+    /**
+     * 来自哪个节点
+     */
+    private String nodeId;
+
+    public CachedCompactBlock(CompactBlock compactBlock, Transaction[] txs, Map<Long, Integer> missingIndexes, String nodeId) {
+        this.compactBlock = compactBlock;
+        this.txs = txs;
+        this.missingIndexes = missingIndexes;
+        this.nodeId = nodeId;
+    }
+
+    public CompactBlock getCompactBlock() {
+        return compactBlock;
+    }
+
+    public Transaction[] getTxs() {
+        return txs;
+    }
+
+    public Map<Long, Integer> getMissingIndexes() {
+        return missingIndexes;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+}
@@ -27,6 +27,10 @@ import io.nuls.base.data.NulsHash;
 import io.nuls.block.constant.StatusEnum;
 import io.nuls.block.manager.BlockChainManager;
 import io.nuls.block.thread.monitor.TxGroupRequestor;
+import io.nuls.block.utils.AssumeValid;
+import io.nuls.block.utils.BlockCacher;
+import io.nuls.block.utils.BlockCommitCoordinator;
+import io.nuls.block.utils.CompactBlockRelay;
 import io.nuls.block.utils.LoggerUtil;
 import io.nuls.block.utils.SingleBlockCacher;
 import io.nuls.block.utils.SmallBlockCacher;
@@ -35,7 +39,10 @@ import io.nuls.core.model.CollectionUtils;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.StampedLock;
 
 /**
@@ -127,6 +134,16 @@ public class ChainContext {
      */
     private Map<Long, Block> blockMap = new ConcurrentHashMap<>(100);
 
+    /**
+     * 同步区块到达通知
+     */
+    private final ReentrantLock blockArrivedLock = new ReentrantLock();
+    private final Condition blockArrived = blockArrivedLock.newCondition();
+    /**
+     * 同步缓存腾出空间或下载窗口结束的通知, 用于下载线程的流量控制
+     */
+    private final Condition syncProgress = blockArrivedLock.newCondition();
+
     /**
      * 孤儿区块关联的节点,维护孤儿区块时优先从这些节点下载
      */
@@ -148,6 +165,83 @@ public class ChainContext {
         this.blockMap = blockMap;
     }
 
+    /**
+     * 放入同步区块缓存, 并唤醒等待的区块消费线程
+     * Put a downloaded block into the sync cache and wake up the consumer
+     *
+     * @return 该高度之前没有缓存区块
+     */
+    public boolean putSyncBlock(long height, Block block) {
+        boolean absent = blockMap.put(height, block) == null;
+        blockArrivedLock.lock();
+        try {
+            blockArrived.signalAll();
+        } finally {
+            blockArrivedLock.unlock();
+        }
+        return absent;
+    }
+
+    /**
+     * 等待指定高度的同步区块到达, 最多等待timeout毫秒
+     * Wait up to timeout milliseconds for the sync block at the given height
+     *
+     * @return 区块已到达
+     */
+    public boolean awaitSyncBlock(long height, long timeout) throws InterruptedException {
+        long nanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+        blockArrivedLock.lock();
+        try {
+            while (!blockMap.containsKey(height)) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = blockArrived.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            blockArrivedLock.unlock();
+        }
+    }
+
+    /**
+     * 从同步区块缓存中取出区块, 释放其占用的缓存字节数并唤醒等待的下载线程
+     * Take a block out of the sync cache, release its bytes and wake up the downloader
+     */
+    public Block takeSyncBlock(long height) {
+        Block block = blockMap.remove(height);
+        if (block != null) {
+            cachedBlockSize.addAndGet(-block.size());
+            signalSyncProgress();
+        }
+        return block;
+    }
+
+    /**
+     * 唤醒等待同步进展的下载线程
+     */
+    public void signalSyncProgress() {
+        blockArrivedLock.lock();
+        try {
+            syncProgress.signalAll();
+        } finally {
+            blockArrivedLock.unlock();
+        }
+    }
+
+    /**
+     * 等待同步进展(缓存释放或下载窗口结束), 最多等待timeout毫秒
+     * Wait up to timeout milliseconds for the sync cache to drain or a download window to finish
+     */
+    public void awaitSyncProgress(long timeout) throws InterruptedException {
+        blockArrivedLock.lock();
+        try {
+            syncProgress.await(timeout, TimeUnit.MILLISECONDS);
+        } finally {
+            blockArrivedLock.unlock();
+        }
+    }
+
     public BlockDownloaderParams getDownloaderParams() {
         return downloaderParams;
     }
@@ -291,6 +385,10 @@ public class ChainContext {
         lock = new StampedLock();
         //各类缓存初始化
         SmallBlockCacher.init(chainId);
+        CompactBlockRelay.init(chainId);
+        BlockCacher.init(chainId);
+        BlockCommitCoordinator.init(chainId);
+        AssumeValid.init(chainId);
         SingleBlockCacher.init(chainId);
         BlockChainManager.init(chainId);
         TxGroupRequestor.init(chainId);
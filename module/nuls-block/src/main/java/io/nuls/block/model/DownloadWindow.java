@@ -0,0 +1,137 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.block.model;
+
+import io.nuls.base.data.NulsHash;
+
+/**
+ * 向某个节点发出的一次批量下载请求(下载窗口)
+ * One outstanding batch download request sent to a node
+ */
+public class DownloadWindow {
+
+    /**
+     * 请求消息hash, 对方返回的BlockMessage与CompleteMessage都携带该hash
+     */
+    private final NulsHash requestHash;
+    private final Node node;
+    private final long startHeight;
+    private final long endHeight;
+    /**
+     * 请求发送时间
+     */
+    private final long sendTime;
+    /**
+     * 是否为对滞后区间的对冲请求, 对冲请求不再被对冲
+     */
+    private final boolean hedge;
+    /**
+     * 收到第一个区块的时间
+     */
+    private volatile long firstBlockTime;
+    private volatile long receivedBytes;
+    private volatile int receivedBlocks;
+    /**
+     * 该窗口已经被对冲过
+     */
+    private volatile boolean hedged;
+
+    public DownloadWindow(NulsHash requestHash, Node node, long startHeight, long endHeight, long sendTime, boolean hedge) {
+        this.requestHash = requestHash;
+        this.node = node;
+        this.startHeight = startHeight;
+        this.endHeight = endHeight;
+        this.sendTime = sendTime;
+        this.hedge = hedge;
+        this.hedged = hedge;
+    }
+
+    /**
+     * 窗口内的区块到达
+     */
+    public synchronized void blockReceived(int size, long now) {
+        if (firstBlockTime == 0) {
+            firstBlockTime = now;
+        }
+        receivedBytes += size;
+        receivedBlocks++;
+    }
+
+    public boolean contains(long height) {
+        return startHeight <= height && height <= endHeight;
+    }
+
+    public int size() {
+        return (int) (endHeight - startHeight + 1);
+    }
+
+    public static String key(String nodeId, NulsHash requestHash) {
+        return nodeId + requestHash.toHex();
+    }
+
+    public String key() {
+        return key(node.getId(), requestHash);
+    }
+
+    public NulsHash getRequestHash() {
+        return requestHash;
+    }
+
+    public Node getNode() {
+        return node;
+    }
+
+    public long getStartHeight() {
+        return startHeight;
+    }
+
+    public long getEndHeight() {
+        return endHeight;
+    }
+
+    public long getSendTime() {
+        return sendTime;
+    }
+
+    public boolean isHedge() {
+        return hedge;
+    }
+
+    public long getFirstBlockTime() {
+        return firstBlockTime;
+    }
+
+    public long getReceivedBytes() {
+        return receivedBytes;
+    }
+
+    public int getReceivedBlocks() {
+        return receivedBlocks;
+    }
+
+    public boolean isHedged() {
+        return hedged;
+    }
+
+    public void setHedged(boolean hedged) {
+        this.hedged = hedged;
+    }
+}
@@ -71,6 +71,64 @@ public class Node {
      * 节点状态
      */
     private NodeEnum nodeEnum;
+    /**
+     * 实测下载速度(字节/秒)的指数加权平均, 0表示尚未测量
+     */
+    private volatile double bytesPerSecond;
+    /**
+     * 实测请求到首个区块到达的延迟(毫秒)的指数加权平均
+     */
+    private volatile double latency;
+    /**
+     * 未完成的下载窗口数
+     */
+    private int outstanding;
+
+    /**
+     * 测量值的平滑系数
+     */
+    private static final double EWMA_ALPHA = 0.3;
+
+    /**
+     * 向该节点发出一个下载窗口
+     */
+    public synchronized void windowStarted(DownloadWindow window) {
+        outstanding++;
+        nodeEnum = NodeEnum.WORKING;
+        startTime = window.getSendTime();
+        startHeight = window.getStartHeight();
+        endHeight = window.getEndHeight();
+    }
+
+    /**
+     * 下载窗口结束(完成、失败或超时), 更新速度与延迟的测量值
+     * A download window finished, fold its measurements into the node statistics
+     */
+    public synchronized void windowFinished(DownloadWindow window, boolean success, long now) {
+        outstanding = Math.max(0, outstanding - 1);
+        if (success && window.getReceivedBytes() > 0) {
+            double rate = window.getReceivedBytes() * 1000.0 / Math.max(1, now - window.getSendTime());
+            bytesPerSecond = bytesPerSecond == 0 ? rate : bytesPerSecond + EWMA_ALPHA * (rate - bytesPerSecond);
+            long firstLatency = window.getFirstBlockTime() - window.getSendTime();
+            latency = latency == 0 ? firstLatency : latency + EWMA_ALPHA * (firstLatency - latency);
+        }
+        adjustCredit(success);
+        if (outstanding == 0 && !nodeEnum.equals(NodeEnum.TIMEOUT)) {
+            nodeEnum = NodeEnum.IDLE;
+        }
+    }
+
+    public double getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    public double getLatency() {
+        return latency;
+    }
+
+    public synchronized int getOutstanding() {
+        return outstanding;
+    }
 
     public long getStartHeight() {
         return startHeight;
@@ -177,6 +235,8 @@ public class Node {
                 .add("height=" + height)
                 .add("hash=" + hash)
                 .add("credit=" + credit)
+                .add("bytesPerSecond=" + (long) bytesPerSecond)
+                .add("latency=" + (long) latency)
                 .add("nodeEnum=" + nodeEnum)
                 .toString();
     }
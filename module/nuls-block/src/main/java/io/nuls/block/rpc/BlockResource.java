@@ -25,11 +25,15 @@ import io.nuls.base.basic.NulsByteBuffer;
 import io.nuls.base.data.Block;
 import io.nuls.base.data.BlockHeader;
 import io.nuls.base.data.NulsHash;
+import io.nuls.base.data.Transaction;
 import io.nuls.base.data.po.BlockHeaderPo;
 import io.nuls.block.constant.BlockErrorCode;
 import io.nuls.block.manager.ContextManager;
 import io.nuls.block.model.ChainContext;
 import io.nuls.block.service.BlockService;
+import io.nuls.block.storage.BlockArchiveService;
+import io.nuls.block.utils.AssumeValid;
+import io.nuls.block.utils.BlockCacher;
 import io.nuls.block.utils.SmallBlockCacher;
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
@@ -59,6 +63,8 @@ import static io.nuls.block.utils.LoggerUtil.COMMON_LOG;
 public class BlockResource extends BaseCmd {
     @Autowired
     private BlockService service;
+    @Autowired
+    private BlockArchiveService archiveService;
 
     /**
      * 获取最新主链高度
@@ -66,13 +72,19 @@ public class BlockResource extends BaseCmd {
      * @param map
      * @return
      */
-    @CmdAnnotation(cmd = INFO, version = 1.0, description = "returns network node height and local node height")
+    @CmdAnnotation(cmd = INFO, version = 1.0, description = "returns network node height, local node height and block cache hit/miss counts")
     @Parameters({
             @Parameter(parameterName = "chainId", requestType = @TypeDescriptor(value = int.class), parameterDes = "链ID")
     })
-    @ResponseData(name = "返回值", description = "返回一个Map对象，包含两个属性", responseType = @TypeDescriptor(value = Map.class, mapKeys = {
+    @ResponseData(name = "返回值", description = "返回一个Map对象，包含区块高度与缓存命中统计", responseType = @TypeDescriptor(value = Map.class, mapKeys = {
             @Key(name = "networkHeight", valueType = Long.class, description = "网络节点最新区块高度"),
-            @Key(name = "localHeight", valueType = Long.class, description = "本地节点最新区块高度")})
+            @Key(name = "localHeight", valueType = Long.class, description = "本地节点最新区块高度"),
+            @Key(name = "headerCacheHit", valueType = Long.class, description = "区块头缓存命中次数"),
+            @Key(name = "headerCacheMiss", valueType = Long.class, description = "区块头缓存未命中次数"),
+            @Key(name = "blockCacheHit", valueType = Long.class, description = "完整区块缓存命中次数"),
+            @Key(name = "blockCacheMiss", valueType = Long.class, description = "完整区块缓存未命中次数"),
+            @Key(name = "assumeValidBlocks", valueType = Long.class, description = "跳过签名与模块验证的同步区块数, 配置了可信检查点时返回"),
+            @Key(name = "assumeValidSavedMillis", valueType = Long.class, description = "按完整验证平均耗时估算的节省时间(毫秒), 配置了可信检查点时返回")})
     )
     public Response info(Map map) {
         int chainId = Integer.parseInt(map.get(Constants.CHAIN_ID).toString());
@@ -83,6 +95,8 @@ public class BlockResource extends BaseCmd {
         }
         responseData.put("networkHeight", context.getNetworkHeight());
         responseData.put("localHeight", context.getLatestHeight());
+        responseData.putAll(BlockCacher.stats(chainId));
+        responseData.putAll(AssumeValid.stats(chainId));
         return success(responseData);
     }
 
@@ -576,6 +590,39 @@ public class BlockResource extends BaseCmd {
         }
     }
 
+    /**
+     * 根据交易hash从区块归档文件获取交易
+     *
+     * @param map
+     * @return
+     */
+    @CmdAnnotation(cmd = GET_ARCHIVED_TX, version = 1.0, description = "get a transaction from the block archive by hash")
+    @Parameters({
+            @Parameter(parameterName = "chainId", requestType = @TypeDescriptor(value = int.class), parameterDes = "链ID"),
+            @Parameter(parameterName = "hash", requestType = @TypeDescriptor(value = String.class), parameterDes = "交易hash")
+    })
+    @ResponseData(name = "返回值", description = "返回交易序列化后的HEX字符串, 未归档时为空", responseType = @TypeDescriptor(value = String.class))
+    public Response getArchivedTx(Map map) {
+        try {
+            int chainId = Integer.parseInt(map.get(Constants.CHAIN_ID).toString());
+            ChainContext context = ContextManager.getContext(chainId);
+            if (context == null) {
+                return success();
+            }
+            NulsHash hash = NulsHash.fromHex(map.get("hash").toString());
+            Transaction tx = archiveService.getTransaction(chainId, hash);
+            Map<String, String> responseData = new HashMap<>(2);
+            if (tx == null) {
+                return success(responseData);
+            }
+            responseData.put("value", RPCUtil.encode(tx.serialize()));
+            return success(responseData);
+        } catch (Exception e) {
+            COMMON_LOG.error("", e);
+            return failed(e.getMessage());
+        }
+    }
+
     /**
      * 接收新打包区块
      * 1.保存区块
@@ -62,6 +62,19 @@ public class ConsensusCall {
      * @return
      */
     public static Result verify(int chainId, Block block, int download) {
+        return verify(chainId, block, download, false);
+    }
+
+    /**
+     * 共识验证
+     *
+     * @param chainId     链Id/chain id
+     * @param block
+     * @param download    0区块下载中,1接收到最新区块
+     * @param assumeValid 区块位于可信检查点之前, 跳过签名与模块统一验证器
+     * @return
+     */
+    public static Result verify(int chainId, Block block, int download, boolean assumeValid) {
         NulsLogger logger = ContextManager.getContext(chainId).getLogger();
         try {
             Map<String, Object> params = new HashMap<>(5);
@@ -69,6 +82,9 @@ public class ConsensusCall {
             params.put(Constants.CHAIN_ID, chainId);
             params.put("download", download);
             params.put("block", RPCUtil.encode(block.serialize()));
+            if (assumeValid) {
+                params.put("assumeValid", true);
+            }
             Response response = ResponseMessageProcessor.requestAndResponse(ModuleE.CS.abbr, "cs_validBlock", params, 10 * 60 * 1000);
             if (response.isSuccess()) {
                 Map responseData = (Map) response.getResponseData();
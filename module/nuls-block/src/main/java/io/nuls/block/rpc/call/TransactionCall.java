@@ -22,12 +22,14 @@ package io.nuls.block.rpc.call;
 
 import io.nuls.base.RPCUtil;
 import io.nuls.base.basic.NulsByteBuffer;
+import io.nuls.base.data.CompactBlock;
 import io.nuls.base.data.NulsHash;
 import io.nuls.base.data.Transaction;
 import io.nuls.base.data.po.BlockHeaderPo;
 import io.nuls.block.manager.ContextManager;
 import io.nuls.block.utils.BlockUtil;
 import io.nuls.core.log.logback.NulsLogger;
+import io.nuls.core.parse.SerializeUtils;
 import io.nuls.core.rpc.info.Constants;
 import io.nuls.core.rpc.model.ModuleE;
 import io.nuls.core.rpc.model.message.Response;
@@ -123,9 +125,10 @@ public class TransactionCall {
             Map<String, Object> params = new HashMap<>(2);
 //            params.put(Constants.VERSION_KEY_STR, "1.0");
             params.put(Constants.CHAIN_ID, chainId);
-            List<String> txList = new ArrayList<>();
+            //交易以原始字节传输, 不再转为十六进制字符串
+            List<byte[]> txList = new ArrayList<>();
             for (Transaction transaction : txs) {
-                txList.add(RPCUtil.encode(transaction.serialize()));
+                txList.add(transaction.serialize());
             }
             params.put("txList", txList);
             params.put("blockHeader", RPCUtil.encode(BlockUtil.fromBlockHeaderPo(blockHeaderPo).serialize()));
@@ -262,6 +265,55 @@ public class TransactionCall {
         return transactions;
     }
 
+    /**
+     * 按紧凑区块的短ID批量获取未确认交易,同一短ID可能返回多笔交易
+     *
+     * @param chainId   链Id/chain id
+     * @param blockHash 区块hash
+     * @param nonce     短ID的盐
+     * @param shortIds  待查询的短ID
+     * @return
+     */
+    public static List<Transaction> getTransactionsByShortIds(int chainId, NulsHash blockHash, long nonce, List<Long> shortIds) {
+        if (shortIds == null || shortIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        ArrayList<Transaction> transactions = new ArrayList<>();
+        NulsLogger logger = ContextManager.getContext(chainId).getLogger();
+        try {
+            byte[] shortIdBytes = new byte[shortIds.size() * CompactBlock.SHORT_ID_LENGTH];
+            for (int i = 0; i < shortIds.size(); i++) {
+                System.arraycopy(SerializeUtils.uint48ToBytes(shortIds.get(i)), 0, shortIdBytes, i * CompactBlock.SHORT_ID_LENGTH, CompactBlock.SHORT_ID_LENGTH);
+            }
+            Map<String, Object> params = new HashMap<>(4);
+            params.put(Constants.CHAIN_ID, chainId);
+            params.put("blockHash", blockHash.toHex());
+            params.put("nonce", nonce);
+            //短ID以原始字节传输
+            params.put("shortIds", shortIdBytes);
+            Response response = ResponseMessageProcessor.requestAndResponse(ModuleE.TX.abbr, "tx_getBlockTxsByShortIds", params);
+            if (response.isSuccess()) {
+                Map responseData = (Map) response.getResponseData();
+                Map map = (Map) responseData.get("tx_getBlockTxsByShortIds");
+                List<byte[]> txList = RPCUtil.decodeList(map.get("txList"));
+                if (txList == null || txList.isEmpty()) {
+                    return Collections.emptyList();
+                }
+                for (byte[] txBytes : txList) {
+                    Transaction transaction = new Transaction();
+                    transaction.parse(new NulsByteBuffer(txBytes));
+                    transactions.add(transaction);
+                }
+            } else {
+                return Collections.emptyList();
+            }
+        } catch (Exception e) {
+            logger.error("", e);
+            return Collections.emptyList();
+        }
+        return transactions;
+    }
+
     /**
      * 获取单个交易
      *
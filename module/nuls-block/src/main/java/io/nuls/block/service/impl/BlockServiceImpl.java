@@ -24,20 +24,28 @@ import io.nuls.base.RPCUtil;
 import io.nuls.base.data.*;
 import io.nuls.base.data.po.BlockHeaderPo;
 import io.nuls.block.constant.BlockErrorCode;
+import io.nuls.block.constant.StatusEnum;
 import io.nuls.block.manager.BlockChainManager;
 import io.nuls.block.manager.ContextManager;
+import io.nuls.block.message.CompactBlockMessage;
 import io.nuls.block.message.HashMessage;
 import io.nuls.block.message.SmallBlockMessage;
+import io.nuls.block.model.CachedSmallBlock;
 import io.nuls.block.model.Chain;
 import io.nuls.block.model.ChainContext;
 import io.nuls.block.model.ChainParameters;
 import io.nuls.block.model.GenesisBlock;
 import io.nuls.block.rpc.call.*;
 import io.nuls.block.service.BlockService;
+import io.nuls.block.storage.BlockArchiveService;
 import io.nuls.block.storage.BlockStorageService;
 import io.nuls.block.storage.ChainStorageService;
+import io.nuls.block.utils.AssumeValid;
+import io.nuls.block.utils.BlockCacher;
+import io.nuls.block.utils.BlockCommitCoordinator;
 import io.nuls.block.utils.BlockUtil;
 import io.nuls.block.utils.ChainGenerator;
+import io.nuls.block.utils.CompactBlockRelay;
 import io.nuls.block.utils.LoggerUtil;
 import io.nuls.block.utils.SmallBlockCacher;
 import io.nuls.core.basic.Result;
@@ -61,6 +69,7 @@ import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.locks.StampedLock;
 
 import static io.nuls.base.data.BlockHeader.BLOCK_HEADER_COMPARATOR;
@@ -91,6 +100,8 @@ public class BlockServiceImpl implements BlockService {
     private BlockStorageService blockStorageService;
     @Autowired
     private ChainStorageService chainStorageService;
+    @Autowired
+    private BlockArchiveService blockArchiveService;
 
     @Override
     public Block getGenesisBlock(int chainId) {
@@ -223,6 +234,10 @@ public class BlockServiceImpl implements BlockService {
 
     @Override
     public Block getBlock(int chainId, NulsHash hash) {
+        Block cached = BlockCacher.getBlock(chainId, hash);
+        if (cached != null) {
+            return cached;
+        }
         NulsLogger logger = ContextManager.getContext(chainId).getLogger();
         try {
             Block block = new Block();
@@ -231,9 +246,14 @@ public class BlockServiceImpl implements BlockService {
                 logger.warn("hash-" + hash + " block not exists");
                 return null;
             }
+            Block archived = blockArchiveService.getBlock(chainId, blockHeaderPo.getHeight());
+            if (archived != null && hash.equals(archived.getHeader().getHash())) {
+                return archived;
+            }
             block.setHeader(BlockUtil.fromBlockHeaderPo(blockHeaderPo));
             List<Transaction> transactions = TransactionCall.getConfirmedTransactions(chainId, blockHeaderPo.getTxHashList(), 10 * 1000);
             block.setTxs(transactions);
+            cacheBlock(chainId, blockHeaderPo, block);
             return block;
         } catch (Exception e) {
             logger.error("", e);
@@ -243,6 +263,14 @@ public class BlockServiceImpl implements BlockService {
 
     @Override
     public Block getBlock(int chainId, long height) {
+        Block cached = BlockCacher.getBlock(chainId, height);
+        if (cached != null) {
+            return cached;
+        }
+        Block archived = blockArchiveService.getBlock(chainId, height);
+        if (archived != null) {
+            return archived;
+        }
         NulsLogger logger = ContextManager.getContext(chainId).getLogger();
         try {
             long l = System.nanoTime();
@@ -257,6 +285,7 @@ public class BlockServiceImpl implements BlockService {
                 return null;
             }
             block.setTxs(transactions);
+            cacheBlock(chainId, blockHeaderPo, block);
 //            logger.debug("get block time-" + (System.nanoTime() - l) + ", height-" + height);
             return block;
         } catch (Exception e) {
@@ -265,6 +294,15 @@ public class BlockServiceImpl implements BlockService {
         }
     }
 
+    /**
+     * 只缓存已完整保存且交易齐全的区块
+     */
+    private void cacheBlock(int chainId, BlockHeaderPo blockHeaderPo, Block block) {
+        if (blockHeaderPo.isComplete() && block.getTxs().size() == blockHeaderPo.getTxCount()) {
+            BlockCacher.putBlock(chainId, block);
+        }
+    }
+
     @Override
     public List<Block> getBlock(int chainId, long startHeight, long endHeight) {
         NulsLogger logger = ContextManager.getContext(chainId).getLogger();
@@ -337,65 +375,15 @@ public class BlockServiceImpl implements BlockService {
                 return false;
             }
 
-            //3.保存区块头, 保存交易
+            //3.保存区块头, 保存交易, 通知共识模块与协议升级模块, 完全保存, 失败时已回滚
             BlockHeaderPo blockHeaderPo = BlockUtil.toBlockHeaderPo(block);
-            boolean headerSave;
-            boolean txSave = false;
-            if (!(headerSave = blockStorageService.save(chainId, blockHeaderPo)) || !(txSave = TransactionCall.save(chainId, blockHeaderPo, block.getTxs(), localInit, (List) result.getData()))) {
-                if (headerSave && !TransactionCall.rollback(chainId, blockHeaderPo)) {
-                    throw new NulsRuntimeException(BlockErrorCode.TX_ROLLBACK_ERROR);
-                }
-                if (!blockStorageService.remove(chainId, height)) {
-                    throw new NulsRuntimeException(BlockErrorCode.HEADER_REMOVE_ERROR);
-                }
-                if (!blockStorageService.setLatestHeight(chainId, height - 1)) {
-                    throw new NulsRuntimeException(BlockErrorCode.UPDATE_HEIGHT_ERROR);
-                }
-                logger.error("headerSave-" + headerSave + ", txsSave-" + txSave + ", height-" + height + ", hash-" + hash);
-                return false;
-            }
-            //4.通知共识模块
-            boolean csNotice = ConsensusCall.saveNotice(chainId, header, localInit);
-            if (!csNotice) {
-                if (!TransactionCall.rollback(chainId, blockHeaderPo)) {
-                    throw new NulsRuntimeException(BlockErrorCode.TX_ROLLBACK_ERROR);
-                }
-                if (!blockStorageService.remove(chainId, height)) {
-                    throw new NulsRuntimeException(BlockErrorCode.HEADER_REMOVE_ERROR);
-                }
-                if (!blockStorageService.setLatestHeight(chainId, height - 1)) {
-                    throw new NulsRuntimeException(BlockErrorCode.UPDATE_HEIGHT_ERROR);
-                }
-                logger.error("consensus notice fail! height-" + height);
+            if (!BlockCommitCoordinator.commit(chainId, block, blockHeaderPo, localInit, (List) result.getData())) {
                 return false;
             }
+            //4.通知交易模块与跨链模块最新高度, 同步过程中不等待通知完成
+            BlockCommitCoordinator.heightNotice(chainId, header, !StatusEnum.SYNCHRONIZING.equals(context.getStatus()));
 
-            //5.通知协议升级模块,完全保存,更新标记
-            blockHeaderPo.setComplete(true);
-            if (!ProtocolCall.saveNotice(chainId, header) || !blockStorageService.save(chainId, blockHeaderPo)) {
-                if (!ConsensusCall.rollbackNotice(chainId, height)) {
-                    throw new NulsRuntimeException(BlockErrorCode.CS_ROLLBACK_ERROR);
-                }
-                if (!TransactionCall.rollback(chainId, blockHeaderPo)) {
-                    throw new NulsRuntimeException(BlockErrorCode.TX_ROLLBACK_ERROR);
-                }
-                if (!blockStorageService.remove(chainId, height)) {
-                    throw new NulsRuntimeException(BlockErrorCode.HEADER_REMOVE_ERROR);
-                }
-                if (!blockStorageService.setLatestHeight(chainId, height - 1)) {
-                    throw new NulsRuntimeException(BlockErrorCode.UPDATE_HEIGHT_ERROR);
-                }
-                logger.error("ProtocolCall saveNotice fail! height-" + height);
-                return false;
-            }
-            try {
-                TransactionCall.heightNotice(chainId, height);
-                CrossChainCall.heightNotice(chainId, height, RPCUtil.encode(block.getHeader().serialize()));
-            } catch (Exception e) {
-                LoggerUtil.COMMON_LOG.error(e);
-            }
-
-            //6.如果不是第一次启动,则更新主链属性
+            //5.如果不是第一次启动,则更新主链属性
             if (!localInit) {
                 context.setLatestBlock(block);
                 Chain masterChain = BlockChainManager.getMasterChain(chainId);
@@ -415,6 +403,7 @@ public class BlockServiceImpl implements BlockService {
             response.setResponseData(sss);
             ConnectManager.eventTrigger(LATEST_HEIGHT, response);
             context.setNetworkHeight(height);
+            BlockCacher.putBlock(chainId, block);
             long elapsedNanos = System.nanoTime() - startTime;
             logger.info("save block success, time-" + (elapsedNanos / 1000000) + "ms, height-" + height + ", txCount-" + blockHeaderPo.getTxCount() + ", hash-" + hash + ", size-" + block.size());
             return true;
@@ -447,7 +436,18 @@ public class BlockServiceImpl implements BlockService {
             l = lock.writeLock();
         }
         try {
+            BlockCommitCoordinator.flush(chainId);
+            //已归档的区块先恢复完整的区块头记录, 再截断归档文件
+            if (height < blockArchiveService.getArchivedCount(chainId) && !blockStorageService.save(chainId, blockHeaderPo)) {
+                logger.error("restore archived block header fail! height-" + height);
+                return false;
+            }
+            if (!blockArchiveService.truncate(chainId, height)) {
+                logger.error("truncate block archive fail! height-" + height);
+                return false;
+            }
             BlockHeader blockHeader = BlockUtil.fromBlockHeaderPo(blockHeaderPo);
+            BlockCacher.removeBlock(chainId, blockHeader.getHash());
             blockHeaderPo.setComplete(false);
             if (!blockStorageService.save(chainId, blockHeaderPo) || !ProtocolCall.rollbackNotice(chainId, blockHeader)) {
                 logger.error("ProtocolCall rollbackNotice fail! height-" + height);
@@ -569,9 +569,20 @@ public class BlockServiceImpl implements BlockService {
     @Override
     public boolean broadcastBlock(int chainId, Block block) {
         NulsLogger logger = ContextManager.getContext(chainId).getLogger();
+        SmallBlock smallBlock = BlockUtil.getSmallBlock(chainId, block);
         SmallBlockMessage message = new SmallBlockMessage();
-        message.setSmallBlock(BlockUtil.getSmallBlock(chainId, block));
-        boolean broadcast = NetworkCall.broadcast(chainId, message, SMALL_BLOCK_MESSAGE);
+        message.setSmallBlock(smallBlock);
+        //声明过支持紧凑区块的节点收到短ID区块,其余节点仍收到小区块
+        String compactPeers = CompactBlockRelay.getPeers(chainId);
+        if (compactPeers != null) {
+            //缓存小区块,用于响应按序号请求交易
+            Map<NulsHash, Transaction> txMap = new HashMap<>(block.getTxs().size() * 2);
+            block.getTxs().forEach(e -> txMap.put(e.getHash(), e));
+            SmallBlockCacher.cacheSmallBlock(chainId, new CachedSmallBlock(null, smallBlock, txMap, null));
+            CompactBlockMessage compactMessage = new CompactBlockMessage(CompactBlock.of(smallBlock, ThreadLocalRandom.current().nextLong()));
+            NetworkCall.sendToNode(chainId, compactMessage, compactPeers, COMPACT_BLOCK_MESSAGE);
+        }
+        boolean broadcast = NetworkCall.broadcast(chainId, message, compactPeers, SMALL_BLOCK_MESSAGE);
         logger.debug("hash-" + block.getHeader().getHash() + ", broadcast-" + broadcast);
         return broadcast;
     }
@@ -597,18 +608,27 @@ public class BlockServiceImpl implements BlockService {
             }
         }
 
+        //可信检查点验证
+        if (!AssumeValid.checkpointVerify(chainId, header)) {
+            return Result.getFailed(BlockErrorCode.BLOCK_VERIFY_ERROR);
+        }
         //分叉验证
         boolean forkVerify = BlockUtil.forkVerify(chainId, block);
         if (!forkVerify) {
 //            logger.debug("forkVerify-" + forkVerify);
             return Result.getFailed(BlockErrorCode.BLOCK_VERIFY_ERROR);
         }
-        //共识验证
-        Result consensusVerify = ConsensusCall.verify(chainId, block, download);
+        //共识验证, 同步中可信检查点之前的区块跳过签名与模块验证
+        long verifyStart = System.nanoTime();
+        boolean assumeValid = download == 0 && AssumeValid.isAssumed(chainId, header);
+        Result consensusVerify = ConsensusCall.verify(chainId, block, download, assumeValid);
         if (consensusVerify.isFailed()) {
             logger.error("consensusVerify-" + consensusVerify);
             return Result.getFailed(BlockErrorCode.BLOCK_VERIFY_ERROR);
         }
+        if (download == 0) {
+            AssumeValid.record(chainId, assumeValid, System.nanoTime() - verifyStart);
+        }
         return consensusVerify;
     }
 
@@ -0,0 +1,104 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.block.storage;
+
+import io.nuls.base.data.Block;
+import io.nuls.base.data.NulsHash;
+import io.nuls.base.data.Transaction;
+
+import java.util.List;
+
+/**
+ * 已不可回滚区块的归档存储服务, 区块顺序追加到分段文件, 按高度或交易hash直接从文件读取
+ * Archive store for blocks beyond the rollback window
+ */
+public interface BlockArchiveService {
+
+    /**
+     * 打开指定链的归档文件
+     * 已精简区块头记录的链必须能打开归档文件, 否则无法读取区块头, 此时抛出异常拒绝启动
+     *
+     * @param chainId 链Id/chain id
+     * @throws Exception 已精简的链未开启归档或归档文件打开失败
+     */
+    void init(int chainId) throws Exception;
+
+    /**
+     * 标记该链的区块头记录已精简, 需在精简前持久化
+     *
+     * @param chainId 链Id/chain id
+     * @return
+     */
+    boolean markPruned(int chainId);
+
+    /**
+     * 该链是否有区块头记录已精简
+     *
+     * @param chainId 链Id/chain id
+     * @return
+     */
+    boolean isPruned(int chainId);
+
+    /**
+     * 查询已归档区块数, 即下一个待归档的高度
+     *
+     * @param chainId 链Id/chain id
+     * @return
+     */
+    long getArchivedCount(int chainId);
+
+    /**
+     * 按高度顺序归档一批区块, 区块数据与交易索引都落盘后才返回
+     *
+     * @param chainId 链Id/chain id
+     * @param blocks  高度连续的区块
+     * @return
+     */
+    boolean archive(int chainId, List<Block> blocks);
+
+    /**
+     * 从归档文件读取区块
+     *
+     * @param chainId 链Id/chain id
+     * @param height
+     * @return 未归档返回null
+     */
+    Block getBlock(int chainId, long height);
+
+    /**
+     * 根据交易hash从归档文件读取交易
+     *
+     * @param chainId 链Id/chain id
+     * @param hash
+     * @return 未归档返回null
+     */
+    Transaction getTransaction(int chainId, NulsHash hash);
+
+    /**
+     * 回滚时截断归档文件, 只保留height之前的区块
+     *
+     * @param chainId 链Id/chain id
+     * @param height
+     * @return
+     */
+    boolean truncate(int chainId, long height);
+
+}
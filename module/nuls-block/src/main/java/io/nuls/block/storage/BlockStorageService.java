@@ -83,6 +83,17 @@ public interface BlockStorageService {
      */
     boolean remove(int chainId, long height);
 
+    /**
+     * 已归档并落盘的区块, 区块头记录只保留高度, 区块头与交易hash列表改从归档文件读取
+     * 精简前先持久化标记, 之后该链不能关闭归档
+     *
+     * @param chainId     链Id/chain id
+     * @param startHeight
+     * @param endHeight
+     * @return
+     */
+    boolean prune(int chainId, long startHeight, long endHeight);
+
     /**
      * 根据链ID销毁数据库文件
      *
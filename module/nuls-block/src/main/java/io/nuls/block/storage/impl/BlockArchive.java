@@ -0,0 +1,230 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.block.storage.impl;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * 追加写入的区块归档文件
+ * 区块按高度顺序写入分段文件blocks-xxxxx.dat, height.idx通过内存映射保存每个高度对应的(分段, 偏移, 长度)
+ * 索引文件头部的数量只在{@link #flush()}时更新, 启动时据此截掉未刷盘的尾部数据
+ * Append-only block archive. Blocks are appended by height into segment files, a memory-mapped height.idx
+ * records (segment, offset, length) for each height. The count in the index header is only advanced by {@link #flush()},
+ * anything written after the last flush is truncated on open.
+ */
+public class BlockArchive implements Closeable {
+
+    private static final int HEADER_SIZE = 16;
+    private static final int ENTRY_SIZE = 16;
+    private static final int INITIAL_ENTRIES = 1 << 16;
+
+    private final File dir;
+    private final long segmentBytes;
+    private final FileChannel indexChannel;
+    private MappedByteBuffer index;
+    /**
+     * 已归档区块数, 即下一个待归档的高度
+     */
+    private long count;
+    private int segment;
+    private long segmentSize;
+    private FileChannel segmentChannel;
+    /**
+     * 分段文件的只读映射, 供读取使用
+     */
+    private final Map<Integer, MappedByteBuffer> segments = new HashMap<>();
+
+    public BlockArchive(File dir, long segmentBytes) throws IOException {
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("can't create archive folder " + dir);
+        }
+        this.dir = dir;
+        this.segmentBytes = Math.min(Math.max(segmentBytes, 1), Integer.MAX_VALUE);
+        this.indexChannel = FileChannel.open(new File(dir, "height.idx").toPath(), CREATE, READ, WRITE);
+        long size = Math.max(indexChannel.size(), HEADER_SIZE + (long) ENTRY_SIZE * INITIAL_ENTRIES);
+        this.index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        this.count = index.getLong(0);
+        long lastSegmentSize = 0;
+        if (count > 0) {
+            int pos = entryPos(count - 1);
+            segment = index.getInt(pos);
+            lastSegmentSize = index.getLong(pos + 4) + index.getInt(pos + 12);
+        }
+        openSegment(segment, lastSegmentSize);
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * 追加一个区块, 高度必须连续
+     *
+     * @param height 区块高度
+     * @param bytes  序列化后的区块
+     */
+    public synchronized void append(long height, byte[] bytes) throws IOException {
+        if (height != count) {
+            throw new IllegalArgumentException("archive expects height " + count + " but got " + height);
+        }
+        if (segmentSize > 0 && segmentSize + bytes.length > segmentBytes) {
+            segmentChannel.force(false);
+            openSegment(segment + 1, 0);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            segmentChannel.write(buffer);
+        }
+        ensureCapacity(count + 1);
+        int pos = entryPos(count);
+        index.putInt(pos, segment);
+        index.putLong(pos + 4, segmentSize);
+        index.putInt(pos + 12, bytes.length);
+        segmentSize += bytes.length;
+        count++;
+    }
+
+    /**
+     * 先落盘区块数据, 再落盘索引及数量
+     */
+    public synchronized void flush() throws IOException {
+        segmentChannel.force(false);
+        index.putLong(0, count);
+        index.force();
+    }
+
+    /**
+     * 在锁内从映射的分段文件复制出指定高度的区块, 映射只在锁内访问, 截断分段文件时不会有读取方仍在使用旧映射
+     *
+     * @param height 区块高度
+     * @return 未归档返回null
+     */
+    public synchronized ByteBuffer get(long height) throws IOException {
+        if (height < 0 || height >= count) {
+            return null;
+        }
+        int pos = entryPos(height);
+        int s = index.getInt(pos);
+        int offset = (int) index.getLong(pos + 4);
+        int length = index.getInt(pos + 12);
+        MappedByteBuffer map = segments.get(s);
+        if (map == null || map.capacity() < offset + length) {
+            try (FileChannel channel = FileChannel.open(segmentFile(s).toPath(), READ)) {
+                map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            segments.put(s, map);
+        }
+        byte[] bytes = new byte[length];
+        ByteBuffer view = map.duplicate();
+        view.position(offset);
+        view.get(bytes);
+        return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+    }
+
+    /**
+     * 截断到指定高度, 只保留height之前的区块
+     * 先丢弃被截断分段的映射再截断文件; 索引文件只增不减, 映射始终有效
+     *
+     * @param height 截断后的区块数
+     */
+    public synchronized void truncate(long height) throws IOException {
+        if (height >= count) {
+            return;
+        }
+        count = Math.max(height, 0);
+        index.putLong(0, count);
+        index.force();
+        int s = 0;
+        long size = 0;
+        if (count > 0) {
+            int pos = entryPos(count - 1);
+            s = index.getInt(pos);
+            size = index.getLong(pos + 4) + index.getInt(pos + 12);
+        }
+        int from = s;
+        //映射只在锁内访问, 丢弃后不再被读取, 之后才截断或删除对应的分段文件
+        segments.keySet().removeIf(k -> k >= from);
+        openSegment(s, size);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        segmentChannel.close();
+        indexChannel.close();
+        segments.clear();
+    }
+
+    /**
+     * 打开待写入的分段文件并截掉size之后的数据, 删除其后的分段
+     */
+    private void openSegment(int s, long size) throws IOException {
+        if (segmentChannel != null) {
+            segmentChannel.close();
+        }
+        segmentChannel = FileChannel.open(segmentFile(s).toPath(), CREATE, READ, WRITE);
+        if (segmentChannel.size() > size) {
+            segmentChannel.truncate(size);
+        }
+        segmentChannel.position(size);
+        segment = s;
+        segmentSize = size;
+        for (int next = s + 1; segmentFile(next).exists(); next++) {
+            if (!segmentFile(next).delete()) {
+                throw new IOException("can't delete archive segment " + segmentFile(next));
+            }
+        }
+    }
+
+    private void ensureCapacity(long entries) throws IOException {
+        long need = HEADER_SIZE + (long) ENTRY_SIZE * entries;
+        long size = index.capacity();
+        if (need <= size) {
+            return;
+        }
+        while (size < need) {
+            size <<= 1;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("archive index is full");
+        }
+        index.force();
+        index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private int entryPos(long height) {
+        return (int) (HEADER_SIZE + ENTRY_SIZE * height);
+    }
+
+    private File segmentFile(int s) {
+        return new File(dir, String.format("blocks-%05d.dat", s));
+    }
+
+}
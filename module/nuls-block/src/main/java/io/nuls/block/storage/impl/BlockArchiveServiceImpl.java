@@ -0,0 +1,203 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.block.storage.impl;
+
+import io.nuls.base.basic.NulsByteBuffer;
+import io.nuls.base.data.Block;
+import io.nuls.base.data.NulsHash;
+import io.nuls.base.data.Transaction;
+import io.nuls.block.storage.BlockArchiveService;
+import io.nuls.core.core.annotation.Component;
+import io.nuls.core.model.ByteUtils;
+import io.nuls.core.rockdb.service.RocksDBService;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static io.nuls.block.BlockBootstrap.blockConfig;
+import static io.nuls.block.constant.Constant.BLOCK_ARCHIVE_PRUNED;
+import static io.nuls.block.constant.Constant.BLOCK_ARCHIVE_TX;
+import static io.nuls.block.utils.LoggerUtil.COMMON_LOG;
+
+/**
+ * 区块归档存储服务实现类
+ * 交易索引保存在RocksDB, 值为(高度, 区块内偏移, 长度), 读取时用归档数量及交易hash校验, 截断后无需清理索引
+ */
+@Component
+public class BlockArchiveServiceImpl implements BlockArchiveService {
+
+    private static final int TX_LOCATION_SIZE = 16;
+
+    private final Map<Integer, BlockArchive> archives = new ConcurrentHashMap<>();
+
+    @Override
+    public void init(int chainId) throws Exception {
+        boolean pruned = isPruned(chainId);
+        if (!blockConfig.isBlockArchive()) {
+            if (pruned) {
+                throw new Exception("block headers of chain-" + chainId + " were pruned into the archive, blockArchive can't be disabled");
+            }
+            return;
+        }
+        if (archives.containsKey(chainId)) {
+            return;
+        }
+        try {
+            File dir = new File(blockConfig.getDataFolder() + File.separator + "archive" + File.separator + chainId);
+            archives.put(chainId, new BlockArchive(dir, blockConfig.getArchiveSegmentBytes()));
+        } catch (Exception e) {
+            COMMON_LOG.error("open block archive fail, chainId-" + chainId, e);
+            //精简过的区块头只能从归档文件还原, 打不开时不能继续运行
+            if (pruned || blockConfig.isArchivePrune()) {
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public boolean markPruned(int chainId) {
+        try {
+            return isPruned(chainId) || RocksDBService.put(BLOCK_ARCHIVE_PRUNED, ByteUtils.intToBytes(chainId), new byte[]{1});
+        } catch (Exception e) {
+            COMMON_LOG.error("mark block archive pruned fail, chainId-" + chainId, e);
+            return false;
+        }
+    }
+
+    @Override
+    public boolean isPruned(int chainId) {
+        return RocksDBService.get(BLOCK_ARCHIVE_PRUNED, ByteUtils.intToBytes(chainId)) != null;
+    }
+
+    @Override
+    public long getArchivedCount(int chainId) {
+        BlockArchive archive = archives.get(chainId);
+        return archive == null ? 0 : archive.getCount();
+    }
+
+    @Override
+    public boolean archive(int chainId, List<Block> blocks) {
+        BlockArchive archive = archives.get(chainId);
+        if (archive == null || blocks.isEmpty()) {
+            return false;
+        }
+        long start = archive.getCount();
+        try {
+            Map<byte[], byte[]> locations = new HashMap<>();
+            for (Block block : blocks) {
+                long height = block.getHeader().getHeight();
+                archive.append(height, block.serialize());
+                int offset = block.getHeader().size();
+                for (Transaction tx : block.getTxs()) {
+                    int size = tx.size();
+                    ByteBuffer location = ByteBuffer.allocate(TX_LOCATION_SIZE);
+                    location.putLong(height).putInt(offset).putInt(size);
+                    locations.put(tx.getHash().getBytes(), location.array());
+                    offset += size;
+                }
+            }
+            //先写交易索引再推进归档数量, 中途失败时超出数量的索引会被忽略
+            if (!RocksDBService.batchPut(BLOCK_ARCHIVE_TX + chainId, locations)) {
+                archive.truncate(start);
+                return false;
+            }
+            archive.flush();
+            return true;
+        } catch (Exception e) {
+            COMMON_LOG.error("archive block fail, chainId-" + chainId, e);
+            truncate(chainId, start);
+            return false;
+        }
+    }
+
+    @Override
+    public Block getBlock(int chainId, long height) {
+        BlockArchive archive = archives.get(chainId);
+        if (archive == null) {
+            return null;
+        }
+        try {
+            ByteBuffer buffer = archive.get(height);
+            if (buffer == null) {
+                return null;
+            }
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            Block block = new Block();
+            block.parse(new NulsByteBuffer(bytes));
+            return block;
+        } catch (Exception e) {
+            COMMON_LOG.error("read archived block fail, height-" + height, e);
+            return null;
+        }
+    }
+
+    @Override
+    public Transaction getTransaction(int chainId, NulsHash hash) {
+        BlockArchive archive = archives.get(chainId);
+        if (archive == null) {
+            return null;
+        }
+        try {
+            byte[] value = RocksDBService.get(BLOCK_ARCHIVE_TX + chainId, hash.getBytes());
+            if (value == null || value.length != TX_LOCATION_SIZE) {
+                return null;
+            }
+            ByteBuffer location = ByteBuffer.wrap(value);
+            long height = location.getLong();
+            int offset = location.getInt();
+            int size = location.getInt();
+            ByteBuffer buffer = archive.get(height);
+            if (buffer == null || offset + size > buffer.remaining()) {
+                return null;
+            }
+            byte[] bytes = new byte[size];
+            buffer.position(offset);
+            buffer.get(bytes);
+            Transaction tx = new Transaction();
+            tx.parse(new NulsByteBuffer(bytes));
+            return hash.equals(tx.getHash()) ? tx : null;
+        } catch (Exception e) {
+            COMMON_LOG.error("read archived transaction fail, hash-" + hash, e);
+            return null;
+        }
+    }
+
+    @Override
+    public boolean truncate(int chainId, long height) {
+        BlockArchive archive = archives.get(chainId);
+        if (archive == null) {
+            return true;
+        }
+        try {
+            archive.truncate(height);
+            return true;
+        } catch (Exception e) {
+            COMMON_LOG.error("truncate block archive fail, height-" + height, e);
+            return false;
+        }
+    }
+
+}
@@ -21,19 +21,25 @@
 package io.nuls.block.storage.impl;
 
 import io.nuls.base.basic.NulsByteBuffer;
+import io.nuls.base.data.Block;
 import io.nuls.base.data.BlockHeader;
 import io.nuls.base.data.NulsHash;
 import io.nuls.base.data.po.BlockHeaderPo;
+import io.nuls.block.storage.BlockArchiveService;
 import io.nuls.block.storage.BlockStorageService;
+import io.nuls.block.utils.BlockCacher;
+import io.nuls.block.utils.BlockUtil;
+import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
-import io.nuls.core.exception.NulsException;
 import io.nuls.core.model.ByteUtils;
 import io.nuls.core.parse.SerializeUtils;
 import io.nuls.core.rockdb.service.RocksDBService;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static io.nuls.base.data.BlockHeader.BLOCK_HEADER_COMPARATOR;
 import static io.nuls.block.constant.Constant.*;
@@ -41,6 +47,7 @@ import static io.nuls.block.utils.LoggerUtil.COMMON_LOG;
 
 /**
  * 区块存储服务实现类
+ * 已归档区块的区块头记录只保存8字节高度, 读取时从归档文件还原{@link BlockHeaderPo}
  *
  * @author captain
  * @version 1.0
@@ -49,13 +56,27 @@ import static io.nuls.block.utils.LoggerUtil.COMMON_LOG;
 @Component
 public class BlockStorageServiceImpl implements BlockStorageService {
 
+    /**
+     * 已归档区块的区块头记录长度, 只有高度
+     */
+    private static final int PRUNED_SIZE = 8;
+
+    @Autowired
+    private BlockArchiveService blockArchiveService;
+
     @Override
     public boolean save(int chainId, BlockHeaderPo blockHeader) {
         byte[] height = SerializeUtils.uint64ToByteArray(blockHeader.getHeight());
         try {
             byte[] hash = blockHeader.getHash().getBytes();
+            byte[] bytes = blockHeader.serialize();
             boolean b1 = RocksDBService.put(BLOCK_HEADER_INDEX + chainId, height, hash);
-            boolean b2 = RocksDBService.put(BLOCK_HEADER + chainId, hash, blockHeader.serialize());
+            boolean b2 = RocksDBService.put(BLOCK_HEADER + chainId, hash, bytes);
+            if (b1 && b2) {
+                BlockCacher.putHeader(chainId, blockHeader.getHash(), bytes, blockHeader.getHeight());
+            } else {
+                BlockCacher.removeHeader(chainId, blockHeader.getHeight(), blockHeader.getHash());
+            }
             return b1 && b2;
         } catch (Exception e) {
             COMMON_LOG.error("", e);
@@ -65,6 +86,10 @@ public class BlockStorageServiceImpl implements BlockStorageService {
 
     @Override
     public BlockHeaderPo query(int chainId, long height) {
+        BlockHeaderPo cached = BlockCacher.getHeader(chainId, height);
+        if (cached != null) {
+            return cached;
+        }
         try {
             byte[] key = SerializeUtils.uint64ToByteArray(height);
             byte[] hash = RocksDBService.get(BLOCK_HEADER_INDEX + chainId, key);
@@ -75,9 +100,7 @@ public class BlockStorageServiceImpl implements BlockStorageService {
             if (bytes == null) {
                 return null;
             }
-            BlockHeaderPo blockHeader = new BlockHeaderPo();
-            blockHeader.parse(new NulsByteBuffer(bytes));
-            return blockHeader;
+            return parse(chainId, bytes);
         } catch (Exception e) {
             COMMON_LOG.error("", e);
             return null;
@@ -86,14 +109,16 @@ public class BlockStorageServiceImpl implements BlockStorageService {
 
     @Override
     public BlockHeaderPo query(int chainId, NulsHash hash) {
+        BlockHeaderPo cached = BlockCacher.getHeader(chainId, hash);
+        if (cached != null) {
+            return cached;
+        }
         try {
             byte[] bytes = RocksDBService.get(BLOCK_HEADER + chainId, hash.getBytes());
             if (bytes == null) {
                 return null;
             }
-            BlockHeaderPo blockHeader = new BlockHeaderPo();
-            blockHeader.parse(new NulsByteBuffer(bytes));
-            return blockHeader;
+            return parse(chainId, bytes);
         } catch (Exception e) {
             COMMON_LOG.error("", e);
             return null;
@@ -114,8 +139,16 @@ public class BlockStorageServiceImpl implements BlockStorageService {
         for (byte[] bytes : valueList) {
             BlockHeader header = new BlockHeader();
             try {
-                header.parse(new NulsByteBuffer(bytes));
-            } catch (NulsException e) {
+                if (bytes.length == PRUNED_SIZE) {
+                    BlockHeaderPo po = parse(chainId, bytes);
+                    if (po == null) {
+                        return Collections.emptyList();
+                    }
+                    header = BlockUtil.fromBlockHeaderPo(po);
+                } else {
+                    header.parse(new NulsByteBuffer(bytes));
+                }
+            } catch (Exception e) {
                 COMMON_LOG.error("ChainStorageServiceImpl-batch-query-fail", e);
                 return Collections.emptyList();
             }
@@ -129,6 +162,7 @@ public class BlockStorageServiceImpl implements BlockStorageService {
     public boolean remove(int chainId, long height) {
         try {
             byte[] hash = RocksDBService.get(BLOCK_HEADER_INDEX + chainId, SerializeUtils.uint64ToByteArray(height));
+            BlockCacher.removeHeader(chainId, height, hash == null ? null : new NulsHash(hash));
             boolean b1 = RocksDBService.delete(BLOCK_HEADER_INDEX + chainId, SerializeUtils.uint64ToByteArray(height));
             boolean b2 = RocksDBService.delete(BLOCK_HEADER + chainId, hash);
             return b1 && b2;
@@ -138,6 +172,28 @@ public class BlockStorageServiceImpl implements BlockStorageService {
         }
     }
 
+    @Override
+    public boolean prune(int chainId, long startHeight, long endHeight) {
+        //先持久化标记, 之后启动时必须能打开归档文件
+        if (!blockArchiveService.markPruned(chainId)) {
+            return false;
+        }
+        try {
+            Map<byte[], byte[]> records = new HashMap<>();
+            for (long height = startHeight; height <= endHeight; height++) {
+                byte[] hash = RocksDBService.get(BLOCK_HEADER_INDEX + chainId, SerializeUtils.uint64ToByteArray(height));
+                if (hash == null) {
+                    return false;
+                }
+                records.put(hash, SerializeUtils.uint64ToByteArray(height));
+            }
+            return RocksDBService.batchPut(BLOCK_HEADER + chainId, records);
+        } catch (Exception e) {
+            COMMON_LOG.error("", e);
+            return false;
+        }
+    }
+
     @Override
     public boolean destroy(int chainId) {
         try {
@@ -167,4 +223,26 @@ public class BlockStorageServiceImpl implements BlockStorageService {
         }
     }
 
+    /**
+     * 解析区块头记录, 已归档区块从归档文件还原, 缓存中保存完整的记录
+     */
+    private BlockHeaderPo parse(int chainId, byte[] bytes) throws Exception {
+        if (bytes.length == PRUNED_SIZE) {
+            long height = SerializeUtils.readUint64(bytes, 0);
+            Block block = blockArchiveService.getBlock(chainId, height);
+            if (block == null) {
+                COMMON_LOG.error("archived block not found, height-" + height);
+                return null;
+            }
+            BlockHeaderPo blockHeader = BlockUtil.toBlockHeaderPo(block);
+            blockHeader.setComplete(true);
+            BlockCacher.putHeader(chainId, blockHeader.getHash(), blockHeader.serialize(), height);
+            return blockHeader;
+        }
+        BlockHeaderPo blockHeader = new BlockHeaderPo();
+        blockHeader.parse(new NulsByteBuffer(bytes));
+        BlockCacher.putHeader(chainId, blockHeader.getHash(), bytes, blockHeader.getHeight());
+        return blockHeader;
+    }
+
 }
@@ -24,21 +24,28 @@ import io.nuls.base.data.Block;
 import io.nuls.block.constant.BlockErrorCode;
 import io.nuls.block.constant.NodeEnum;
 import io.nuls.block.manager.ContextManager;
+import io.nuls.block.model.BlockConfig;
 import io.nuls.block.model.BlockDownloaderParams;
 import io.nuls.block.model.ChainContext;
+import io.nuls.block.model.DownloadWindow;
 import io.nuls.block.model.Node;
 import io.nuls.block.service.BlockService;
+import io.nuls.block.utils.BlockPreVerifier;
 import io.nuls.block.utils.BlockUtil;
 import io.nuls.core.core.ioc.SpringLiteContext;
 import io.nuls.core.exception.NulsException;
 import io.nuls.core.log.logback.NulsLogger;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 /**
  * 消费共享队列中的区块
+ * 后续区块的无状态验证提前在工作线程中进行, 只有依赖链状态的保存过程串行执行
+ * Stateless verification of the following blocks runs ahead on worker threads, only the state dependent commit is serial
  *
  * @author captain
  * @version 1.0
@@ -46,12 +53,20 @@ import java.util.concurrent.Callable;
  */
 public class BlockConsumer implements Callable<Boolean> {
 
+    /**
+     * 同步速度统计间隔
+     */
+    private static final long STAT_INTERVAL_NANOS = 10_000_000_000L;
+
     private int chainId;
     private BlockService blockService;
+    private int preVerifyDepth;
+    private Map<Long, PreVerify> preVerifyFutures = new HashMap<>();
 
     BlockConsumer(int chainId) {
         this.chainId = chainId;
         this.blockService = SpringLiteContext.getBean(BlockService.class);
+        this.preVerifyDepth = SpringLiteContext.getBean(BlockConfig.class).getSyncPreVerifyDepth();
     }
 
     @Override
@@ -62,13 +77,21 @@ public class BlockConsumer implements Callable<Boolean> {
         long pendingHeight = params.getLocalLatestHeight() + 1;
         NulsLogger logger = context.getLogger();
         Block block;
-        logger.info("BlockConsumer start work");
+        logger.info("BlockConsumer start work, preVerifyDepth-" + preVerifyDepth);
+        long statStart = System.nanoTime();
+        long statHeight = pendingHeight;
         try {
             long begin = System.nanoTime();
             while (pendingHeight <= netLatestHeight && context.isNeedSyn()) {
-                block = context.getBlockMap().remove(pendingHeight);
+                preVerifyAhead(context, pendingHeight, netLatestHeight);
+                block = context.takeSyncBlock(pendingHeight);
                 if (block != null) {
                     begin = System.nanoTime();
+                    if (!preVerified(pendingHeight, block)) {
+                        logger.error("Downloaded block pre-verification failed, height-" + pendingHeight + ", hash-" + block.getHeader().getHash());
+                        context.setNeedSyn(false);
+                        return false;
+                    }
                     boolean saveBlock = blockService.saveBlock(chainId, block, true);
                     if (!saveBlock) {
                         logger.error("An exception occurred while saving the downloaded block, height-" + pendingHeight + ", hash-" + block.getHeader().getHash());
@@ -76,15 +99,21 @@ public class BlockConsumer implements Callable<Boolean> {
                         return false;
                     }
                     pendingHeight++;
-                    context.getCachedBlockSize().addAndGet(-block.size());
+                    long elapsed = System.nanoTime() - statStart;
+                    if (elapsed >= STAT_INTERVAL_NANOS) {
+                        logger.info("Block syn speed:" + (pendingHeight - statHeight) * 1000000000L / elapsed + " blocks/s, height-" + (pendingHeight - 1)
+                                + ", netLatestHeight-" + netLatestHeight + ", preVerified-" + preVerifyFutures.size());
+                        statStart = System.nanoTime();
+                        statHeight = pendingHeight;
+                    }
                     continue;
                 }
-                Thread.sleep(10);
+                //等待区块到达
+                context.awaitSyncBlock(pendingHeight, 100);
                 long end = System.nanoTime();
                 //超过10秒没有高度更新
                 if ((end - begin) / 1000000 > 5000) {
-                    updateNodeStatus(context);
-                    punishNode(pendingHeight, params.getNodes(), context);
+                    punishNode(pendingHeight, params, context);
                     retryDownload(pendingHeight, context);
                     begin = System.nanoTime();
                 }
@@ -95,27 +124,58 @@ public class BlockConsumer implements Callable<Boolean> {
             logger.error("BlockConsumer stop work abnormally", e);
             context.setNeedSyn(false);
             return false;
+        } finally {
+            preVerifyFutures.values().forEach(preVerify -> preVerify.future.cancel(false));
+            preVerifyFutures.clear();
         }
     }
 
-    private void punishNode(long pendingHeight, List<Node> nodes, ChainContext context) {
-        for (Node node : nodes) {
-            if (node.getStartHeight() <= pendingHeight && pendingHeight <= node.getEndHeight()) {
-                context.getLogger().error("download block from {} failed! failed height {}", node.getId(), pendingHeight);
-                node.adjustCredit(false);
-                return;
+    /**
+     * 对后续已下载的区块提前做与状态无关的验证
+     * Start the context-free verification of the following downloaded blocks
+     */
+    private void preVerifyAhead(ChainContext context, long pendingHeight, long netLatestHeight) {
+        if (preVerifyDepth <= 0) {
+            return;
+        }
+        preVerifyFutures.keySet().removeIf(height -> height < pendingHeight);
+        long maxHeight = Math.min(pendingHeight + preVerifyDepth, netLatestHeight);
+        for (long height = pendingHeight; height <= maxHeight; height++) {
+            Block block = context.getBlockMap().get(height);
+            if (block == null) {
+                continue;
+            }
+            PreVerify preVerify = preVerifyFutures.get(height);
+            if (preVerify == null || preVerify.block != block) {
+                preVerifyFutures.put(height, new PreVerify(block, BlockPreVerifier.submit(chainId, block)));
             }
         }
     }
 
-    private void updateNodeStatus(ChainContext context) {
-        List<Node> nodes = context.getDownloaderParams().getNodes();
-        for (Node node : nodes) {
-            if (node.getNodeEnum().equals(NodeEnum.WORKING) && (System.currentTimeMillis() - node.getStartTime() > 60000)) {
+    /**
+     * 获取预验证结果, 没有预验证过的区块(如重新下载的区块)在当前线程验证
+     */
+    private boolean preVerified(long height, Block block) throws Exception {
+        if (preVerifyDepth <= 0) {
+            return true;
+        }
+        PreVerify preVerify = preVerifyFutures.remove(height);
+        if (preVerify == null || preVerify.block != block) {
+            return BlockPreVerifier.verify(chainId, block);
+        }
+        return preVerify.future.get();
+    }
+
+    /**
+     * 惩罚负责该高度的下载窗口所在的节点, 超时窗口由下载线程回收
+     */
+    private void punishNode(long pendingHeight, BlockDownloaderParams params, ChainContext context) {
+        for (DownloadWindow window : params.getWindows().values()) {
+            if (window.contains(pendingHeight)) {
+                Node node = window.getNode();
+                context.getLogger().error("download block from {} failed! failed height {}", node.getId(), pendingHeight);
                 node.adjustCredit(false);
-                if (!node.getNodeEnum().equals(NodeEnum.TIMEOUT)) {
-                    node.setNodeEnum(NodeEnum.IDLE);
-                }
+                return;
             }
         }
     }
@@ -139,8 +199,9 @@ public class BlockConsumer implements Callable<Boolean> {
             if (block != null) {
                 context.getLogger().info("retryDownload, get block from " + node.getId() + " success, height-" + height);
                 download = true;
-                context.getBlockMap().put(height, block);
-                context.getCachedBlockSize().addAndGet(block.size());
+                if (context.putSyncBlock(height, block)) {
+                    context.getCachedBlockSize().addAndGet(block.size());
+                }
                 break;
             } else {
                 node.adjustCredit(false);
@@ -152,4 +213,14 @@ public class BlockConsumer implements Callable<Boolean> {
         }
     }
 
+    private static class PreVerify {
+        private final Block block;
+        private final Future<Boolean> future;
+
+        private PreVerify(Block block, Future<Boolean> future) {
+            this.block = block;
+            this.future = future;
+        }
+    }
+
 }
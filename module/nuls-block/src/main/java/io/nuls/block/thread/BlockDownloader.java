@@ -22,15 +22,19 @@
 
 package io.nuls.block.thread;
 
+import io.nuls.base.data.NulsHash;
 import io.nuls.block.constant.BlockErrorCode;
 import io.nuls.block.constant.NodeEnum;
 import io.nuls.block.manager.ContextManager;
 import io.nuls.block.message.HeightRangeMessage;
+import io.nuls.block.model.BlockConfig;
 import io.nuls.block.model.BlockDownloaderParams;
 import io.nuls.block.model.ChainContext;
 import io.nuls.block.model.ChainParameters;
+import io.nuls.block.model.DownloadWindow;
 import io.nuls.block.model.Node;
 import io.nuls.block.rpc.call.NetworkCall;
+import io.nuls.core.core.ioc.SpringLiteContext;
 import io.nuls.core.exception.NulsRuntimeException;
 import io.nuls.core.log.logback.NulsLogger;
 
@@ -42,6 +46,10 @@ import static io.nuls.block.constant.CommandConstant.GET_BLOCKS_BY_HEIGHT_MESSAG
 
 /**
  * 区块下载管理器
+ * 按实测的节点下载速度分配下载窗口: 快的节点同时承担多个窗口, 窗口大小按字节数确定,
+ * 阻塞同步进度的滞后窗口向其他节点发出对冲请求, 缓存的区块字节数超过上限时等待消费线程的通知而不是休眠
+ * Assigns download windows by measured peer throughput: fast peers keep several windows outstanding, windows are sized in bytes,
+ * a stalled window blocking the commit is hedged to another peer, and a full cache waits for the consumer's signal instead of sleeping
  *
  * @author captain
  * @version 1.0
@@ -49,13 +57,42 @@ import static io.nuls.block.constant.CommandConstant.GET_BLOCKS_BY_HEIGHT_MESSAG
  */
 public class BlockDownloader implements Callable<Boolean> {
 
+    /**
+     * 下载窗口超时时间
+     */
+    private static final long WINDOW_TIMEOUT = 60000L;
+    /**
+     * 还没有区块大小样本时假定的区块字节数
+     */
+    static final long DEFAULT_BLOCK_SIZE = 10240L;
+    /**
+     * 没有进展时的最长等待时间
+     */
+    private static final long WAIT_INTERVAL = 100L;
+
     /**
      * 链ID
      */
     private int chainId;
+    /**
+     * 单个节点最多同时承担的下载窗口数
+     */
+    private int maxWindowsPerNode;
+    /**
+     * 单个下载窗口的目标耗时, 用于按节点速度确定窗口字节数
+     */
+    private long windowMillis;
+    /**
+     * 滞后窗口发出对冲请求前的最短等待时间
+     */
+    private long hedgeMillis;
 
     BlockDownloader(int chainId) {
         this.chainId = chainId;
+        BlockConfig blockConfig = SpringLiteContext.getBean(BlockConfig.class);
+        this.maxWindowsPerNode = Math.max(1, blockConfig.getSyncMaxWindowsPerNode());
+        this.windowMillis = blockConfig.getSyncWindowMillis();
+        this.hedgeMillis = blockConfig.getSyncHedgeMillis();
     }
 
     @Override
@@ -72,43 +109,33 @@ public class BlockDownloader implements Callable<Boolean> {
             long cachedBlockSizeLimit = chainParameters.getCachedBlockSizeLimit();
             int downloadNumber = chainParameters.getDownloadNumber();
             AtomicInteger cachedBlockSize = context.getCachedBlockSize();
-            long limit = context.getParameters().getCachedBlockSizeLimit() * 80 / 100;
-            while (startHeight <= netLatestHeight && context.isNeedSyn()) {
-                int cachedSize = cachedBlockSize.get();
-                while (cachedSize > cachedBlockSizeLimit) {
-                    logger.info("BlockDownloader wait! cached block:" + context.getBlockMap().size() + ", total block size:" + cachedSize);
-                    nodes.forEach(e -> e.setCredit(20));
-                    Thread.sleep(3000L);
-                    cachedSize = cachedBlockSize.get();
-                    if (!context.isNeedSyn()) {
-                        return false;
-                    }
+            //所有区块都已请求后继续运行, 负责超时与对冲, 直到消费线程保存完最后一个区块
+            while (context.isNeedSyn() && context.getLatestHeight() < netLatestHeight) {
+                long now = System.currentTimeMillis();
+                expireWindows(downloaderParams, now, logger);
+                hedge(context, downloaderParams, now);
+                if (startHeight > netLatestHeight) {
+                    context.awaitSyncProgress(WAIT_INTERVAL);
+                    continue;
                 }
-                //下载的区块字节数达到缓存阈值的80%时，降慢下载速度
-                if (cachedSize > limit) {
-                    nodes.forEach(e -> e.setCredit(e.getCredit() / 2));
+                //已缓存与在途的区块字节数超过上限时, 等待消费线程腾出空间
+                long pendingBytes = cachedBlockSize.get() + inflightBytes(downloaderParams);
+                if (pendingBytes > cachedBlockSizeLimit) {
+                    logger.debug("BlockDownloader wait! cached block:" + context.getBlockMap().size() + ", pending block size:" + pendingBytes);
+                    context.awaitSyncProgress(WAIT_INTERVAL);
+                    continue;
                 }
-                Node node = getNode(nodes);
+                Node node = getNode(nodes, maxWindowsPerNode, null);
                 if (node == null) {
-                    Thread.sleep(100L);
+                    context.awaitSyncProgress(WAIT_INTERVAL);
                     continue;
                 }
-                int credit = node.getCredit();
-                int size = downloadNumber * credit / 100;
-                size = size <= 0 ? 1 : size;
+                int size = windowSize(node, downloaderParams.getAvgBlockSize(), windowMillis, downloadNumber);
                 if (startHeight + size > netLatestHeight) {
                     size = (int) (netLatestHeight - startHeight + 1);
                 }
                 long endHeight = startHeight + size - 1;
-                //组装批量获取区块消息
-                HeightRangeMessage message = new HeightRangeMessage(startHeight, endHeight);
-                //发送消息给目标节点
-                boolean b = NetworkCall.sendToNode(chainId, message, node.getId(), GET_BLOCKS_BY_HEIGHT_MESSAGE);
-                if (b) {
-                    node.setNodeEnum(NodeEnum.WORKING);
-                    node.setStartTime(System.currentTimeMillis());
-                    node.setStartHeight(startHeight);
-                    node.setEndHeight(endHeight);
+                if (request(downloaderParams, node, startHeight, endHeight, false, now)) {
                     startHeight += size;
                 } else {
                     logger.error("BlockDownloader sendToNode failed!");
@@ -122,20 +149,149 @@ public class BlockDownloader implements Callable<Boolean> {
         return context.isNeedSyn();
     }
 
-    private Node getNode(List<Node> nodes) {
+    /**
+     * 向节点发出一个下载窗口
+     */
+    private boolean request(BlockDownloaderParams params, Node node, long startHeight, long endHeight, boolean hedge, long now) {
+        //组装批量获取区块消息
+        HeightRangeMessage message = new HeightRangeMessage(startHeight, endHeight);
+        NulsHash requestHash = message.getMsgHash();
+        DownloadWindow window = new DownloadWindow(requestHash, node, startHeight, endHeight, now, hedge);
+        //先登记窗口, 避免响应先于登记到达
+        params.getWindows().put(window.key(), window);
+        node.windowStarted(window);
+        //发送消息给目标节点
+        boolean b = NetworkCall.sendToNode(chainId, message, node.getId(), GET_BLOCKS_BY_HEIGHT_MESSAGE);
+        if (!b) {
+            params.windowFinished(node.getId(), requestHash, false);
+        }
+        return b;
+    }
+
+    /**
+     * 超时的下载窗口按失败处理, 释放节点
+     */
+    private void expireWindows(BlockDownloaderParams params, long now, NulsLogger logger) {
+        for (DownloadWindow window : params.getWindows().values()) {
+            if (now - window.getSendTime() > WINDOW_TIMEOUT) {
+                logger.warn("download window timeout, node-" + window.getNode().getId() + ", " + window.getStartHeight() + "-" + window.getEndHeight());
+                params.windowFinished(window.getNode().getId(), window.getRequestHash(), false);
+            }
+        }
+    }
+
+    /**
+     * 消费线程等待的区块所在窗口明显慢于该节点的预期时, 把剩余区间向其他节点再请求一次
+     * Re-request the rest of the window holding the next block to commit from another peer when it lags behind its expected time
+     */
+    private void hedge(ChainContext context, BlockDownloaderParams params, long now) {
+        long nextHeight = context.getLatestHeight() + 1;
+        if (context.getBlockMap().containsKey(nextHeight)) {
+            return;
+        }
+        for (DownloadWindow window : params.getWindows().values()) {
+            if (window.isHedged() || !window.contains(nextHeight)) {
+                continue;
+            }
+            long expected = expectedMillis(window.getNode(), window.size(), params.getAvgBlockSize());
+            if (now - window.getSendTime() < Math.max(hedgeMillis, expected * 2)) {
+                continue;
+            }
+            Node node = getNode(params.getNodes(), maxWindowsPerNode, window.getNode());
+            if (node == null) {
+                return;
+            }
+            window.setHedged(true);
+            context.getLogger().info("hedge download window of node-" + window.getNode().getId() + " to node-" + node.getId() + ", " + nextHeight + "-" + window.getEndHeight());
+            request(params, node, nextHeight, window.getEndHeight(), true, now);
+            return;
+        }
+    }
+
+    /**
+     * 在途窗口尚未到达的区块预计占用的字节数
+     */
+    private static long inflightBytes(BlockDownloaderParams params) {
+        long avgBlockSize = blockSize(params.getAvgBlockSize());
+        long bytes = 0;
+        for (DownloadWindow window : params.getWindows().values()) {
+            bytes += Math.max(0, window.size() - window.getReceivedBlocks()) * avgBlockSize;
+        }
+        return bytes;
+    }
+
+    private static long blockSize(long avgBlockSize) {
+        return avgBlockSize > 0 ? avgBlockSize : DEFAULT_BLOCK_SIZE;
+    }
+
+    /**
+     * 按节点实测速度预计下载指定数量区块的耗时, 未测量过的节点返回0
+     */
+    static long expectedMillis(Node node, int blocks, long avgBlockSize) {
+        double rate = node.getBytesPerSecond();
+        if (rate <= 0) {
+            return 0;
+        }
+        return (long) (node.getLatency() + blocks * blockSize(avgBlockSize) * 1000 / rate);
+    }
+
+    /**
+     * 按节点实测速度确定窗口的区块数, 使窗口耗时约为windowMillis, 不超过对方允许的单次下载数量
+     * 未测量过的节点沿用按信用值确定的大小
+     */
+    static int windowSize(Node node, long avgBlockSize, long windowMillis, int downloadNumber) {
+        double rate = node.getBytesPerSecond();
+        long size;
+        if (rate <= 0) {
+            size = (long) downloadNumber * node.getCredit() / 100;
+        } else {
+            size = (long) (rate * windowMillis / 1000 / blockSize(avgBlockSize));
+        }
+        return (int) Math.max(1, Math.min(size, downloadNumber));
+    }
+
+    /**
+     * 节点可同时承担的下载窗口数, 与该节点相对最快节点的速度成正比, 未测量过的节点只分配一个窗口
+     */
+    static int allowedWindows(Node node, double bestRate, int maxWindowsPerNode) {
+        double rate = node.getBytesPerSecond();
+        if (rate <= 0 || bestRate <= 0) {
+            return 1;
+        }
+        return 1 + (int) ((maxWindowsPerNode - 1) * Math.min(1, rate / bestRate));
+    }
+
+    /**
+     * 选择还能承担窗口的节点, 优先测量未测量过的空闲节点, 其次选择速度最快的节点
+     *
+     * @param exclude 不选择的节点
+     */
+    static Node getNode(List<Node> nodes, int maxWindowsPerNode, Node exclude) {
         int count = 0;
+        double bestRate = 0;
+        for (Node node : nodes) {
+            bestRate = Math.max(bestRate, node.getBytesPerSecond());
+        }
+        Node selected = null;
         for (Node node : nodes) {
-            if (node.getNodeEnum().equals(NodeEnum.IDLE)) {
-                return node;
-            }
             if (node.getNodeEnum().equals(NodeEnum.TIMEOUT)) {
                 count++;
+                continue;
+            }
+            if (node.equals(exclude) || node.getOutstanding() >= allowedWindows(node, bestRate, maxWindowsPerNode)) {
+                continue;
+            }
+            if (node.getBytesPerSecond() <= 0) {
+                return node;
+            }
+            if (selected == null || node.getBytesPerSecond() > selected.getBytesPerSecond()) {
+                selected = node;
             }
         }
         if (count == nodes.size()) {
             throw new NulsRuntimeException(BlockErrorCode.BLOCK_SYN_ERROR);
         }
-        return null;
+        return selected;
     }
 
 }
@@ -37,6 +37,7 @@ import io.nuls.block.rpc.call.TransactionCall;
 import io.nuls.block.service.BlockService;
 import io.nuls.block.storage.BlockStorageService;
 import io.nuls.block.storage.RollbackStorageService;
+import io.nuls.block.utils.AssumeValid;
 import io.nuls.block.utils.BlockUtil;
 import io.nuls.block.utils.ChainGenerator;
 import io.nuls.core.core.ioc.SpringLiteContext;
@@ -287,6 +288,8 @@ public class BlockSynchronizer implements Runnable {
         context.setNetworkHeight(netLatestHeight);
         long startHeight = downloaderParams.getLocalLatestHeight() + 1;
         long total = netLatestHeight - startHeight + 1;
+        //向同步节点确认可信检查点
+        AssumeValid.confirm(chainId, downloaderParams.getNodes(), downloaderParams.getLocalLatestHeight(), downloaderParams.getLocalLatestHash(), netLatestHeight);
         long start = System.currentTimeMillis();
         //5.开启区块下载器BlockDownloader
         BlockDownloader downloader = new BlockDownloader(chainId);
@@ -300,6 +303,10 @@ public class BlockSynchronizer implements Runnable {
         long end = System.currentTimeMillis();
         if (success) {
             logger.info("Block syn complete, total download:" + total + ", total time:" + (end - start) + ", average time:" + (end - start) / total);
+            Map<String, Long> assumeValidStats = AssumeValid.stats(chainId);
+            if (!assumeValidStats.isEmpty()) {
+                logger.info("assume-valid stats:" + assumeValidStats);
+            }
             if (checkIsNewest(context)) {
                 //要测试分叉链切换或者孤儿链,放开下面语句,概率会加大
 //                if (true) {
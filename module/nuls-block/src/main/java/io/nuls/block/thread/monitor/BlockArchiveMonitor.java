@@ -0,0 +1,92 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.block.thread.monitor;
+
+import io.nuls.base.data.Block;
+import io.nuls.block.constant.StatusEnum;
+import io.nuls.block.model.ChainContext;
+import io.nuls.block.service.BlockService;
+import io.nuls.block.storage.BlockArchiveService;
+import io.nuls.block.storage.BlockStorageService;
+import io.nuls.core.core.ioc.SpringLiteContext;
+import io.nuls.core.log.logback.NulsLogger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.nuls.block.BlockBootstrap.blockConfig;
+
+/**
+ * 将已超出最大回滚高度的区块顺序写入归档文件
+ * 开启archivePrune时, 每批归档落盘后, 数据库中这些区块的区块头记录只保留高度, 区块头与交易hash列表改从归档文件读取
+ */
+public class BlockArchiveMonitor extends BaseMonitor {
+
+    /**
+     * 每批归档的区块数, 每批落盘一次
+     */
+    private static final int BATCH_SIZE = 1000;
+
+    private BlockService blockService;
+
+    private BlockArchiveService archiveService;
+
+    private BlockStorageService blockStorageService;
+
+    private static final BlockArchiveMonitor INSTANCE = new BlockArchiveMonitor();
+
+    public static BlockArchiveMonitor getInstance() {
+        return INSTANCE;
+    }
+
+    private BlockArchiveMonitor() {
+        blockService = SpringLiteContext.getBean(BlockService.class);
+        archiveService = SpringLiteContext.getBean(BlockArchiveService.class);
+        blockStorageService = SpringLiteContext.getBean(BlockStorageService.class);
+    }
+
+    @Override
+    protected void process(int chainId, ChainContext context, NulsLogger commonLog) {
+        long target = context.getLatestHeight() - context.getParameters().getMaxRollback();
+        long count = archiveService.getArchivedCount(chainId);
+        while (count <= target && context.getStatus().equals(StatusEnum.RUNNING)) {
+            long end = Math.min(target, count + BATCH_SIZE - 1);
+            List<Block> blocks = new ArrayList<>();
+            for (long height = count; height <= end; height++) {
+                Block block = blockService.getBlock(chainId, height);
+                if (block == null) {
+                    break;
+                }
+                blocks.add(block);
+            }
+            if (blocks.isEmpty() || !archiveService.archive(chainId, blocks)) {
+                commonLog.warn("archive block fail, height-" + count);
+                return;
+            }
+            //归档已落盘, 精简数据库中的区块头记录; 失败时记录保持完整, 不影响读取
+            if (blockConfig.isArchivePrune() && !blockStorageService.prune(chainId, count, count + blocks.size() - 1)) {
+                commonLog.warn("prune archived block headers fail, height-" + count);
+            }
+            count = archiveService.getArchivedCount(chainId);
+        }
+    }
+
+}
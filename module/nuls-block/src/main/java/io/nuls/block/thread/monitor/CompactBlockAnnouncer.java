@@ -0,0 +1,50 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.block.thread.monitor;
+
+import io.nuls.block.message.SendCompactMessage;
+import io.nuls.block.model.ChainContext;
+import io.nuls.block.rpc.call.NetworkCall;
+import io.nuls.block.utils.CompactBlockRelay;
+import io.nuls.core.log.logback.NulsLogger;
+
+import static io.nuls.block.constant.CommandConstant.SEND_COMPACT_MESSAGE;
+
+/**
+ * 定期向所有节点声明本节点支持紧凑区块,新连接的节点在下一个周期内即可收到
+ */
+public class CompactBlockAnnouncer extends BaseMonitor {
+
+    private static final CompactBlockAnnouncer INSTANCE = new CompactBlockAnnouncer();
+
+    public static CompactBlockAnnouncer getInstance() {
+        return INSTANCE;
+    }
+
+    private CompactBlockAnnouncer() {
+        super();
+    }
+
+    @Override
+    protected void process(int chainId, ChainContext context, NulsLogger commonLog) {
+        NetworkCall.broadcast(chainId, new SendCompactMessage(CompactBlockRelay.VERSION), SEND_COMPACT_MESSAGE);
+    }
+
+}
@@ -0,0 +1,342 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.block.utils;
+
+import io.nuls.base.cache.DataCacher;
+import io.nuls.base.data.BlockHeader;
+import io.nuls.base.data.NulsHash;
+import io.nuls.block.manager.ContextManager;
+import io.nuls.block.message.HeadersMessage;
+import io.nuls.block.message.HeightRangeMessage;
+import io.nuls.block.model.ChainContext;
+import io.nuls.block.model.Node;
+import io.nuls.block.rpc.call.NetworkCall;
+import io.nuls.core.log.logback.NulsLogger;
+import io.nuls.core.model.StringUtils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.nuls.block.BlockBootstrap.blockConfig;
+import static io.nuls.block.constant.CommandConstant.GET_HEADERS_MESSAGE;
+
+/**
+ * 可信检查点(assume-valid)
+ * 同步时, 检查点的祖先区块跳过区块签名、交易签名与模块统一验证器, 仍然执行账本验证、智能合约并保存状态,
+ * 区块hash链接与梅克尔hash照常验证.
+ * 祖先关系在下载区块前确认: 检查点须由多个同步节点一致确认, 再下载本地高度到检查点的区块头,
+ * 逐个校验hash链接并以检查点hash结尾; 只有hash与该链上同高度区块头一致的区块才跳过验证.
+ * <p>
+ * Assume-valid checkpoint. During sync the ancestors of the checkpoint skip the block signature, tx signatures
+ * and the module validators; ledger checks and contracts still run and state is applied, hash links and merkle roots
+ * are verified as usual. Ancestry is established before the download: several sync peers must agree on the checkpoint,
+ * then the headers from the local tip up to the checkpoint are downloaded and their hash links checked up to the
+ * checkpoint hash. Only a block whose hash matches the linked header at its height skips verification.
+ */
+public class AssumeValid {
+
+    /**
+     * 单次下载的区块头数量上限
+     */
+    public static final int HEADERS_BATCH = 1000;
+
+    /**
+     * 确认检查点需要一致的同步节点数, 同步节点较少时需全部一致, 且至少两个
+     */
+    static final int CONFIRM_NODES = 3;
+
+    /**
+     * 链接的区块头数量上限, 每个区块头只保留32字节hash; 检查点之前更早的区块完整验证
+     */
+    static final int MAX_LINKED_HEADERS = 1_000_000;
+
+    private static Map<Integer, Checkpoint> checkpointMap = new ConcurrentHashMap<>();
+
+    /**
+     * 区块头下载请求-区块头缓存
+     */
+    private static Map<Integer, DataCacher<List<BlockHeader>>> headersCacher = new ConcurrentHashMap<>();
+
+    /**
+     * 同步开始前向多个同步节点确认检查点, 并下载链接到检查点的区块头, 成功后本次同步中这些区块跳过签名与模块验证
+     * Confirm the checkpoint with several sync peers and link the headers up to it before a download
+     *
+     * @param chainId         链Id/chain id
+     * @param nodes           同步节点
+     * @param localHeight     本地最新高度
+     * @param localHash       本地最新区块hash
+     * @param netLatestHeight 网络最新高度
+     */
+    public static void confirm(int chainId, List<Node> nodes, long localHeight, NulsHash localHash, long netLatestHeight) {
+        Checkpoint checkpoint = checkpointMap.get(chainId);
+        if (checkpoint == null) {
+            return;
+        }
+        checkpoint.linked = null;
+        if (localHeight >= checkpoint.height || netLatestHeight < checkpoint.height) {
+            return;
+        }
+        NulsLogger logger = ContextManager.getContext(chainId).getLogger();
+        //1.多个同步节点一致确认检查点, 任一节点不一致时不使用检查点
+        int required = Math.min(CONFIRM_NODES, nodes.size());
+        if (required < 2) {
+            logger.warn("assume-valid checkpoint needs at least 2 sync nodes, verify all blocks");
+            return;
+        }
+        List<Node> agreed = new ArrayList<>(CONFIRM_NODES);
+        for (Node node : nodes) {
+            List<BlockHeader> headers = downloadHeaders(chainId, node.getId(), checkpoint.height, checkpoint.height);
+            if (headers == null || headers.size() != 1) {
+                continue;
+            }
+            NulsHash hash = headers.get(0).getHash();
+            if (!checkpoint.hash.equals(hash)) {
+                logger.warn("assume-valid checkpoint differs from node-" + node.getId() + ", height-" + checkpoint.height + ", hash-" + hash + ", verify all blocks");
+                return;
+            }
+            agreed.add(node);
+            if (agreed.size() >= CONFIRM_NODES) {
+                break;
+            }
+        }
+        if (agreed.size() < required) {
+            logger.warn("assume-valid checkpoint confirmed by " + agreed.size() + " nodes, " + required + " required, verify all blocks");
+            return;
+        }
+        //2.下载区块头, 校验hash链接一直到检查点
+        long start = Math.max(localHeight + 1, checkpoint.height - MAX_LINKED_HEADERS + 1);
+        LinkedHeaders linked = new LinkedHeaders(start, (int) (checkpoint.height - start + 1));
+        //从本地最新区块开始时首个区块头须链接到本地区块, 否则由提交时的分叉验证保证
+        NulsHash preHash = start == localHeight + 1 ? localHash : null;
+        for (long from = start; from <= checkpoint.height; from += HEADERS_BATCH) {
+            long to = Math.min(from + HEADERS_BATCH - 1, checkpoint.height);
+            List<BlockHeader> headers = null;
+            long batch = (from - start) / HEADERS_BATCH;
+            for (int i = 0; i < agreed.size() && headers == null; i++) {
+                Node node = agreed.get((int) ((batch + i) % agreed.size()));
+                List<BlockHeader> list = downloadHeaders(chainId, node.getId(), from, to);
+                if (list != null && list.size() == to - from + 1) {
+                    headers = list;
+                }
+            }
+            if (headers == null) {
+                logger.warn("assume-valid headers can not be downloaded, height-" + from + "~" + to + ", verify all blocks");
+                return;
+            }
+            preHash = linked.append(preHash, headers);
+            if (preHash == null) {
+                logger.warn("assume-valid headers are not linked, height-" + from + "~" + to + ", verify all blocks");
+                return;
+            }
+        }
+        if (!checkpoint.hash.equals(preHash)) {
+            logger.warn("assume-valid headers do not lead to the checkpoint, hash-" + preHash + ", verify all blocks");
+            return;
+        }
+        checkpoint.linked = linked;
+        logger.info("assume-valid checkpoint confirmed by " + agreed.size() + " nodes, linked height-" + start + "~" + checkpoint.height + ", hash-" + checkpoint.hash);
+    }
+
+    /**
+     * 该同步区块是否跳过签名与模块验证, 区块hash须与链接到检查点的同高度区块头一致
+     */
+    public static boolean isAssumed(int chainId, BlockHeader header) {
+        Checkpoint checkpoint = checkpointMap.get(chainId);
+        if (checkpoint == null) {
+            return false;
+        }
+        LinkedHeaders linked = checkpoint.linked;
+        return linked != null && linked.contains(header);
+    }
+
+    /**
+     * 已确认检查点时, 检查点高度的区块hash必须与检查点一致
+     */
+    public static boolean checkpointVerify(int chainId, BlockHeader header) {
+        Checkpoint checkpoint = checkpointMap.get(chainId);
+        if (checkpoint == null || checkpoint.linked == null || header.getHeight() != checkpoint.height) {
+            return true;
+        }
+        if (checkpoint.hash.equals(header.getHash())) {
+            return true;
+        }
+        ContextManager.getContext(chainId).getLogger().error("assume-valid checkpoint mismatch! height-" + header.getHeight() + ", hash-" + header.getHash() + ", checkpoint-" + checkpoint.hash);
+        return false;
+    }
+
+    /**
+     * 收到区块头列表
+     */
+    public static void receiveHeaders(int chainId, HeadersMessage message) {
+        DataCacher<List<BlockHeader>> cacher = headersCacher.get(chainId);
+        if (cacher == null || message.getRequestHash() == null) {
+            return;
+        }
+        cacher.complete(message.getRequestHash(), message.getHeaderList());
+    }
+
+    /**
+     * 从节点下载某个高度区间内的区块头, 不支持该消息的节点超时后返回null
+     */
+    private static List<BlockHeader> downloadHeaders(int chainId, String nodeId, long startHeight, long endHeight) {
+        ChainContext context = ContextManager.getContext(chainId);
+        NulsLogger logger = context.getLogger();
+        HeightRangeMessage message = new HeightRangeMessage(startHeight, endHeight);
+        NulsHash requestHash;
+        try {
+            requestHash = NulsHash.calcHash(message.serialize());
+        } catch (Exception e) {
+            logger.error("", e);
+            return null;
+        }
+        DataCacher<List<BlockHeader>> cacher = headersCacher.get(chainId);
+        Future<List<BlockHeader>> future = cacher.addFuture(requestHash);
+        if (!NetworkCall.sendToNode(chainId, message, nodeId, GET_HEADERS_MESSAGE)) {
+            cacher.removeFuture(requestHash);
+            return null;
+        }
+        try {
+            return future.get(context.getParameters().getSingleDownloadTimeout(), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            logger.warn("get headers from " + nodeId + " fail!, height-" + startHeight + "~" + endHeight);
+            return null;
+        } finally {
+            cacher.removeFuture(requestHash);
+        }
+    }
+
+    /**
+     * 记录同步区块的验证耗时
+     */
+    public static void record(int chainId, boolean assumed, long nanos) {
+        Checkpoint checkpoint = checkpointMap.get(chainId);
+        if (checkpoint == null) {
+            return;
+        }
+        if (assumed) {
+            checkpoint.assumedBlocks.increment();
+            checkpoint.assumedNanos.add(nanos);
+        } else {
+            checkpoint.verifiedBlocks.increment();
+            checkpoint.verifiedNanos.add(nanos);
+        }
+    }
+
+    /**
+     * 验证耗时统计, 节省时间按完整验证的平均耗时估算
+     */
+    public static Map<String, Long> stats(int chainId) {
+        Map<String, Long> stats = new HashMap<>(8);
+        Checkpoint checkpoint = checkpointMap.get(chainId);
+        if (checkpoint == null) {
+            return stats;
+        }
+        long assumedBlocks = checkpoint.assumedBlocks.sum();
+        long assumedNanos = checkpoint.assumedNanos.sum();
+        long verifiedBlocks = checkpoint.verifiedBlocks.sum();
+        long verifiedNanos = checkpoint.verifiedNanos.sum();
+        long savedNanos = 0;
+        if (verifiedBlocks > 0) {
+            savedNanos = Math.max(0, verifiedNanos / verifiedBlocks * assumedBlocks - assumedNanos);
+        }
+        stats.put("assumeValidHeight", checkpoint.height);
+        stats.put("assumeValidBlocks", assumedBlocks);
+        stats.put("assumeValidVerifyMillis", TimeUnit.NANOSECONDS.toMillis(assumedNanos));
+        stats.put("fullVerifyBlocks", verifiedBlocks);
+        stats.put("fullVerifyMillis", TimeUnit.NANOSECONDS.toMillis(verifiedNanos));
+        stats.put("assumeValidSavedMillis", TimeUnit.NANOSECONDS.toMillis(savedNanos));
+        return stats;
+    }
+
+    public static void init(int chainId) {
+        headersCacher.put(chainId, new DataCacher<>());
+        if (chainId != blockConfig.getChainId() || blockConfig.getAssumeValidHeight() <= 0 || StringUtils.isBlank(blockConfig.getAssumeValidHash())) {
+            return;
+        }
+        checkpointMap.put(chainId, new Checkpoint(blockConfig.getAssumeValidHeight(), NulsHash.fromHex(blockConfig.getAssumeValidHash())));
+    }
+
+    private static class Checkpoint {
+        private final long height;
+        private final NulsHash hash;
+        private volatile LinkedHeaders linked;
+        private final LongAdder assumedBlocks = new LongAdder();
+        private final LongAdder assumedNanos = new LongAdder();
+        private final LongAdder verifiedBlocks = new LongAdder();
+        private final LongAdder verifiedNanos = new LongAdder();
+
+        private Checkpoint(long height, NulsHash hash) {
+            this.height = height;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * 链接到检查点的区块头, 只保存各高度的区块hash
+     * Headers linked up to the checkpoint, only the hash of each height is kept
+     */
+    static class LinkedHeaders {
+        private final long start;
+        private final byte[] hashes;
+        private int count;
+
+        LinkedHeaders(long start, int size) {
+            this.start = start;
+            this.hashes = new byte[size * NulsHash.HASH_LENGTH];
+        }
+
+        /**
+         * 追加高度连续的区块头, 每个区块头的preHash须等于前一个区块hash
+         *
+         * @param preHash 前一个区块hash, 为null时不校验首个区块头
+         * @param headers 区块头
+         * @return 最后一个区块hash, 高度或hash不衔接时返回null
+         */
+        NulsHash append(NulsHash preHash, List<BlockHeader> headers) {
+            for (BlockHeader header : headers) {
+                if (count * NulsHash.HASH_LENGTH >= hashes.length || header.getHeight() != start + count) {
+                    return null;
+                }
+                if (preHash != null && !preHash.equals(header.getPreHash())) {
+                    return null;
+                }
+                NulsHash hash = header.getHash();
+                System.arraycopy(hash.getBytes(), 0, hashes, count * NulsHash.HASH_LENGTH, NulsHash.HASH_LENGTH);
+                count++;
+                preHash = hash;
+            }
+            return preHash;
+        }
+
+        boolean contains(BlockHeader header) {
+            long index = header.getHeight() - start;
+            if (index < 0 || index >= count) {
+                return false;
+            }
+            int from = (int) index * NulsHash.HASH_LENGTH;
+            return Arrays.equals(hashes, from, from + NulsHash.HASH_LENGTH, header.getHash().getBytes(), 0, NulsHash.HASH_LENGTH);
+        }
+    }
+
+}
@@ -0,0 +1,285 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.block.utils;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.nuls.base.basic.NulsByteBuffer;
+import io.nuls.base.data.Block;
+import io.nuls.base.data.NulsHash;
+import io.nuls.base.data.po.BlockHeaderPo;
+import io.nuls.core.exception.NulsException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.nuls.block.BlockBootstrap.blockConfig;
+import static io.nuls.block.utils.LoggerUtil.COMMON_LOG;
+
+/**
+ * 最近区块头与完整区块的内存缓存,按字节数限制大小,淘汰最久未访问的条目
+ * 1.区块头按hash缓存序列化后的{@link BlockHeaderPo},另有高度到hash的索引,随存储写入同步更新,删除时失效
+ * 2.完整区块在保存成功或从存储组装后缓存,回滚时失效
+ * 取出的对象都是副本,调用方修改不会影响缓存
+ *
+ * Byte-bounded LRU caches of recent block headers and full blocks. Headers are kept serialized by hash with a
+ * height index and follow every storage write and delete; full blocks are cached after save or assembly and
+ * invalidated on rollback. Callers always get copies.
+ */
+public class BlockCacher {
+
+    /**
+     * 高度到hash索引的最大条目数
+     */
+    private static final int HEIGHT_INDEX_SIZE = 100000;
+
+    private static Map<Integer, Cache<NulsHash, byte[]>> headerCacheMap = new ConcurrentHashMap<>();
+
+    private static Map<Integer, Cache<Long, NulsHash>> heightIndexMap = new ConcurrentHashMap<>();
+
+    private static Map<Integer, Cache<NulsHash, Block>> blockCacheMap = new ConcurrentHashMap<>();
+
+    private static Map<Integer, Stats> statsMap = new ConcurrentHashMap<>();
+
+    /**
+     * 命中统计,按高度查询时索引未命中也计为未命中
+     */
+    private static class Stats {
+        private final LongAdder headerHit = new LongAdder();
+        private final LongAdder headerMiss = new LongAdder();
+        private final LongAdder blockHit = new LongAdder();
+        private final LongAdder blockMiss = new LongAdder();
+    }
+
+    /**
+     * 缓存区块头
+     *
+     * @param chainId     链Id/chain id
+     * @param hash        区块hash
+     * @param headerBytes 序列化后的BlockHeaderPo
+     * @param height      区块高度
+     */
+    public static void putHeader(int chainId, NulsHash hash, byte[] headerBytes, long height) {
+        Cache<NulsHash, byte[]> headerCache = headerCacheMap.get(chainId);
+        if (headerCache == null) {
+            return;
+        }
+        headerCache.put(hash, headerBytes);
+        heightIndexMap.get(chainId).put(height, hash);
+    }
+
+    /**
+     * 根据hash获取缓存的区块头,未命中返回null
+     *
+     * @param chainId 链Id/chain id
+     * @param hash    区块hash
+     * @return
+     */
+    public static BlockHeaderPo getHeader(int chainId, NulsHash hash) {
+        Cache<NulsHash, byte[]> headerCache = headerCacheMap.get(chainId);
+        if (headerCache == null) {
+            return null;
+        }
+        byte[] bytes = headerCache.getIfPresent(hash);
+        Stats stats = statsMap.get(chainId);
+        if (bytes == null) {
+            stats.headerMiss.increment();
+            return null;
+        }
+        stats.headerHit.increment();
+        return parse(bytes);
+    }
+
+    /**
+     * 根据高度获取缓存的区块头,未命中返回null
+     *
+     * @param chainId 链Id/chain id
+     * @param height  区块高度
+     * @return
+     */
+    public static BlockHeaderPo getHeader(int chainId, long height) {
+        Cache<Long, NulsHash> heightIndex = heightIndexMap.get(chainId);
+        if (heightIndex == null) {
+            return null;
+        }
+        NulsHash hash = heightIndex.getIfPresent(height);
+        if (hash == null) {
+            statsMap.get(chainId).headerMiss.increment();
+            return null;
+        }
+        return getHeader(chainId, hash);
+    }
+
+    /**
+     * 区块头从存储中删除时同步失效,对应的完整区块一并失效
+     *
+     * @param chainId 链Id/chain id
+     * @param height  区块高度
+     * @param hash    存储中该高度的区块hash,可为null
+     */
+    public static void removeHeader(int chainId, long height, NulsHash hash) {
+        Cache<Long, NulsHash> heightIndex = heightIndexMap.get(chainId);
+        if (heightIndex == null) {
+            return;
+        }
+        NulsHash indexed = heightIndex.getIfPresent(height);
+        heightIndex.invalidate(height);
+        invalidate(chainId, indexed);
+        invalidate(chainId, hash);
+    }
+
+    private static void invalidate(int chainId, NulsHash hash) {
+        if (hash != null) {
+            headerCacheMap.get(chainId).invalidate(hash);
+            blockCacheMap.get(chainId).invalidate(hash);
+        }
+    }
+
+    /**
+     * 缓存完整区块
+     *
+     * @param chainId 链Id/chain id
+     * @param block   区块
+     */
+    public static void putBlock(int chainId, Block block) {
+        Cache<NulsHash, Block> blockCache = blockCacheMap.get(chainId);
+        if (blockCache == null) {
+            return;
+        }
+        blockCache.put(block.getHeader().getHash(), copy(block));
+    }
+
+    /**
+     * 根据hash获取缓存的完整区块,未命中返回null
+     *
+     * @param chainId 链Id/chain id
+     * @param hash    区块hash
+     * @return
+     */
+    public static Block getBlock(int chainId, NulsHash hash) {
+        Cache<NulsHash, Block> blockCache = blockCacheMap.get(chainId);
+        if (blockCache == null) {
+            return null;
+        }
+        Block block = blockCache.getIfPresent(hash);
+        Stats stats = statsMap.get(chainId);
+        if (block == null) {
+            stats.blockMiss.increment();
+            return null;
+        }
+        stats.blockHit.increment();
+        return copy(block);
+    }
+
+    /**
+     * 根据高度获取缓存的完整区块,未命中返回null
+     *
+     * @param chainId 链Id/chain id
+     * @param height  区块高度
+     * @return
+     */
+    public static Block getBlock(int chainId, long height) {
+        Cache<Long, NulsHash> heightIndex = heightIndexMap.get(chainId);
+        if (heightIndex == null) {
+            return null;
+        }
+        NulsHash hash = heightIndex.getIfPresent(height);
+        if (hash == null) {
+            statsMap.get(chainId).blockMiss.increment();
+            return null;
+        }
+        return getBlock(chainId, hash);
+    }
+
+    /**
+     * 回滚区块时使完整区块失效
+     *
+     * @param chainId 链Id/chain id
+     * @param hash    区块hash
+     */
+    public static void removeBlock(int chainId, NulsHash hash) {
+        Cache<NulsHash, Block> blockCache = blockCacheMap.get(chainId);
+        if (blockCache != null) {
+            blockCache.invalidate(hash);
+        }
+    }
+
+    /**
+     * 缓存命中统计
+     *
+     * @param chainId 链Id/chain id
+     * @return headerHit、headerMiss、blockHit、blockMiss
+     */
+    public static Map<String, Long> stats(int chainId) {
+        Map<String, Long> result = new HashMap<>(4);
+        Stats stats = statsMap.get(chainId);
+        if (stats == null) {
+            return result;
+        }
+        result.put("headerCacheHit", stats.headerHit.sum());
+        result.put("headerCacheMiss", stats.headerMiss.sum());
+        result.put("blockCacheHit", stats.blockHit.sum());
+        result.put("blockCacheMiss", stats.blockMiss.sum());
+        return result;
+    }
+
+    private static BlockHeaderPo parse(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        BlockHeaderPo po = new BlockHeaderPo();
+        try {
+            po.parse(new NulsByteBuffer(bytes));
+        } catch (NulsException e) {
+            COMMON_LOG.error("", e);
+            return null;
+        }
+        return po;
+    }
+
+    private static Block copy(Block block) {
+        Block copy = new Block();
+        copy.setHeader(block.getHeader());
+        copy.setTxs(new ArrayList<>(block.getTxs()));
+        return copy;
+    }
+
+    /**
+     * 缓存初始化
+     *
+     * @param chainId 链Id/chain id
+     */
+    public static void init(int chainId) {
+        headerCacheMap.put(chainId, CacheBuilder.newBuilder()
+                .maximumWeight(blockConfig.getHeaderCacheBytes())
+                .weigher((NulsHash hash, byte[] bytes) -> bytes.length)
+                .build());
+        heightIndexMap.put(chainId, CacheBuilder.newBuilder().maximumSize(HEIGHT_INDEX_SIZE).build());
+        blockCacheMap.put(chainId, CacheBuilder.newBuilder()
+                .maximumWeight(blockConfig.getBlockCacheBytes())
+                .weigher((NulsHash hash, Block block) -> block.size())
+                .build());
+        statsMap.put(chainId, new Stats());
+    }
+
+}
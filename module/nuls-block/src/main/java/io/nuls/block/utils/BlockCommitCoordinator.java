@@ -0,0 +1,235 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.block.utils;
+
+import io.nuls.base.RPCUtil;
+import io.nuls.base.data.Block;
+import io.nuls.base.data.BlockHeader;
+import io.nuls.base.data.po.BlockHeaderPo;
+import io.nuls.block.constant.BlockErrorCode;
+import io.nuls.block.manager.ContextManager;
+import io.nuls.block.rpc.call.ConsensusCall;
+import io.nuls.block.rpc.call.CrossChainCall;
+import io.nuls.block.rpc.call.ProtocolCall;
+import io.nuls.block.rpc.call.TransactionCall;
+import io.nuls.block.storage.BlockStorageService;
+import io.nuls.core.core.ioc.SpringLiteContext;
+import io.nuls.core.exception.NulsRuntimeException;
+import io.nuls.core.log.logback.NulsLogger;
+import io.nuls.core.thread.ThreadUtils;
+import io.nuls.core.thread.commom.NulsThreadFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 区块提交协调器, 把保存区块时对各模块的通知按依赖关系分阶段并行发出
+ * Block commit coordinator, issues the per-module notifications of a block commit concurrently in dependent phases
+ * <p>
+ * 准备阶段: 保存未完成的区块头, 成功后交易模块保存交易;
+ * 通知阶段: 共识模块、协议升级模块;
+ * 提交阶段: 标记区块头完全保存.
+ * 任一阶段失败时回滚之前已成功的参与者, 与串行执行时的回滚结果一致.
+ * 交易模块与跨链模块的高度通知在提交后按顺序发出, 同步过程中连续区块的交易模块高度通知合并为一次.
+ * <p>
+ * Prepare: save the incomplete header, then the transactions once the header is saved. Notify: consensus and protocol upgrade. Commit: mark the header complete.
+ * A failed phase rolls back every participant that already succeeded. Height notices go out in order after the commit,
+ * during sync the transaction module only receives the latest of consecutive heights.
+ */
+public class BlockCommitCoordinator {
+
+    /**
+     * 并行执行各阶段参与者的线程池, 第一个参与者在调用线程中执行
+     */
+    private static final ExecutorService commitPool = ThreadUtils.createThreadPool(4, 0, new NulsThreadFactory("block-commit"));
+
+    /**
+     * 每条链按顺序发送高度通知的线程
+     */
+    private static Map<Integer, ExecutorService> notifierMap = new ConcurrentHashMap<>();
+
+    /**
+     * 每条链最近一次提交的高度通知
+     */
+    private static Map<Integer, AtomicLong> noticeHeightMap = new ConcurrentHashMap<>();
+
+    /**
+     * 提交区块, 失败时已回滚所有参与者
+     *
+     * @param chainId       链Id/chain id
+     * @param block         待保存区块
+     * @param blockHeaderPo 待保存区块头
+     * @param localInit     是否本地启动时加载区块
+     * @param contractList  智能合约执行结果
+     * @return 是否提交成功
+     */
+    public static boolean commit(int chainId, Block block, BlockHeaderPo blockHeaderPo, boolean localInit, List contractList) {
+        BlockStorageService blockStorageService = SpringLiteContext.getBean(BlockStorageService.class);
+        NulsLogger logger = ContextManager.getContext(chainId).getLogger();
+        BlockHeader header = block.getHeader();
+        long height = header.getHeight();
+        //1.保存区块头, 成功后保存交易
+        boolean headerSave = blockStorageService.save(chainId, blockHeaderPo);
+        boolean txsSave = headerSave && TransactionCall.save(chainId, blockHeaderPo, block.getTxs(), localInit, contractList);
+        if (!headerSave || !txsSave) {
+            //交易保存失败或超时时交易模块可能已经处理了该区块, 只要发起过保存就回滚
+            if (headerSave && !TransactionCall.rollback(chainId, blockHeaderPo)) {
+                throw new NulsRuntimeException(BlockErrorCode.TX_ROLLBACK_ERROR);
+            }
+            removeHeader(blockStorageService, chainId, height);
+            logger.error("headerSave-" + headerSave + ", txsSave-" + txsSave + ", height-" + height + ", hash-" + header.getHash());
+            return false;
+        }
+        //2.通知共识模块, 通知协议升级模块
+        List<Callable<Boolean>> notify = new ArrayList<>(2);
+        notify.add(() -> ConsensusCall.saveNotice(chainId, header, localInit));
+        notify.add(() -> ProtocolCall.saveNotice(chainId, header));
+        boolean[] notified = runAll(logger, notify);
+        //3.完全保存,更新标记
+        boolean complete = false;
+        if (notified[0] && notified[1]) {
+            blockHeaderPo.setComplete(true);
+            complete = blockStorageService.save(chainId, blockHeaderPo);
+        }
+        if (!complete) {
+            if (notified[1] && !ProtocolCall.rollbackNotice(chainId, header)) {
+                throw new NulsRuntimeException(BlockErrorCode.PU_ROLLBACK_ERROR);
+            }
+            if (notified[0] && !ConsensusCall.rollbackNotice(chainId, height)) {
+                throw new NulsRuntimeException(BlockErrorCode.CS_ROLLBACK_ERROR);
+            }
+            if (!TransactionCall.rollback(chainId, blockHeaderPo)) {
+                throw new NulsRuntimeException(BlockErrorCode.TX_ROLLBACK_ERROR);
+            }
+            removeHeader(blockStorageService, chainId, height);
+            logger.error("csNotice-" + notified[0] + ", puNotice-" + notified[1] + ", complete-" + complete + ", height-" + height);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 向交易模块、跨链模块发送最新高度通知
+     *
+     * @param wait 是否等待通知完成, 同步过程中不等待, 交易模块只收到连续高度中的最新高度
+     */
+    public static void heightNotice(int chainId, BlockHeader header, boolean wait) {
+        NulsLogger logger = ContextManager.getContext(chainId).getLogger();
+        long height = header.getHeight();
+        String headerHex;
+        try {
+            headerHex = RPCUtil.encode(header.serialize());
+        } catch (Exception e) {
+            logger.error("", e);
+            return;
+        }
+        AtomicLong noticeHeight = noticeHeightMap.get(chainId);
+        noticeHeight.set(height);
+        Future<?> future = notifierMap.get(chainId).submit(() -> {
+            List<Callable<Boolean>> notices = new ArrayList<>(2);
+            notices.add(() -> {
+                CrossChainCall.heightNotice(chainId, height, headerHex);
+                return true;
+            });
+            //后面已有更高的高度排队时, 跳过交易模块的本次通知
+            if (noticeHeight.get() == height) {
+                notices.add(() -> TransactionCall.heightNotice(chainId, height));
+            }
+            runAll(logger, notices);
+        });
+        if (wait) {
+            await(logger, future);
+        }
+    }
+
+    /**
+     * 等待已提交的高度通知全部发出, 回滚区块前调用, 避免回滚后收到过期的高度
+     */
+    public static void flush(int chainId) {
+        await(ContextManager.getContext(chainId).getLogger(), notifierMap.get(chainId).submit(() -> {
+        }));
+    }
+
+    /**
+     * 并行执行参与者, 返回各参与者是否成功, 异常视为失败
+     */
+    static boolean[] runAll(NulsLogger logger, List<Callable<Boolean>> participants) {
+        boolean[] results = new boolean[participants.size()];
+        List<Future<Boolean>> futures = new ArrayList<>(participants.size());
+        for (int i = 1; i < participants.size(); i++) {
+            futures.add(commitPool.submit(participants.get(i)));
+        }
+        try {
+            results[0] = Boolean.TRUE.equals(participants.get(0).call());
+        } catch (Exception e) {
+            logger.error("", e);
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            results[i + 1] = Boolean.TRUE.equals(await(logger, futures.get(i)));
+        }
+        return results;
+    }
+
+    /**
+     * 等待结果, 不响应中断, 保证回滚前所有参与者都已返回
+     */
+    private static <T> T await(NulsLogger logger, Future<T> future) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    logger.error("", e.getCause());
+                    return null;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void removeHeader(BlockStorageService blockStorageService, int chainId, long height) {
+        if (!blockStorageService.remove(chainId, height)) {
+            throw new NulsRuntimeException(BlockErrorCode.HEADER_REMOVE_ERROR);
+        }
+        if (!blockStorageService.setLatestHeight(chainId, height - 1)) {
+            throw new NulsRuntimeException(BlockErrorCode.UPDATE_HEIGHT_ERROR);
+        }
+    }
+
+    public static void init(int chainId) {
+        notifierMap.computeIfAbsent(chainId, id -> ThreadUtils.createThreadPool(1, 0, new NulsThreadFactory("block-notifier-" + id)));
+        noticeHeightMap.computeIfAbsent(chainId, id -> new AtomicLong(-1));
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.block.utils;
+
+import io.nuls.base.data.Block;
+import io.nuls.base.data.BlockHeader;
+import io.nuls.base.data.NulsHash;
+import io.nuls.base.signture.BlockSignature;
+import io.nuls.base.signture.SignatureVerifier;
+import io.nuls.block.manager.ContextManager;
+import io.nuls.core.log.logback.NulsLogger;
+import io.nuls.core.rpc.model.ModuleE;
+import io.nuls.core.rpc.netty.channel.manager.ConnectManager;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Future;
+
+/**
+ * 区块同步时, 提前在工作线程中完成与链状态无关的验证
+ * Context-free block verification that runs ahead of the serial commit during sync
+ * <p>
+ * 包括基础信息、交易hash、交易重复、梅克尔hash、区块签名; 交易模块在同一进程中时,
+ * 同时预验证交易签名, 结果进入签名缓存, 后续交易模块验证时直接命中.
+ * <p>
+ * Covers the basic checks, tx hashes, duplicate txs, merkle hash and the block signature; when the
+ * transaction module runs in the same process the tx signatures are verified too, so its later
+ * checks hit the signature cache.
+ */
+public class BlockPreVerifier {
+
+    /**
+     * 提交到签名验证线程池
+     * Submit the verification to the signature verifier pool
+     */
+    public static Future<Boolean> submit(int chainId, Block block) {
+        return SignatureVerifier.submit(() -> verify(chainId, block));
+    }
+
+    public static boolean verify(int chainId, Block block) {
+        NulsLogger logger = ContextManager.getContext(chainId).getLogger();
+        if (!BlockUtil.basicVerify(chainId, block)) {
+            return false;
+        }
+        BlockHeader header = block.getHeader();
+        List<NulsHash> txHashList = block.getTxHashList();
+        if (txHashList.size() != block.getTxs().size()) {
+            logger.error("preVerify fail, null transaction! height-" + header.getHeight());
+            return false;
+        }
+        Set<NulsHash> hashSet = new HashSet<>(txHashList);
+        if (hashSet.size() != txHashList.size()) {
+            logger.error("preVerify fail, duplicate transaction! height-" + header.getHeight());
+            return false;
+        }
+        if (!header.getMerkleHash().equals(NulsHash.calcMerkleHash(txHashList))) {
+            logger.error("preVerify fail, merkle hash error! height-" + header.getHeight());
+            return false;
+        }
+        //可信检查点之前的区块不验证签名
+        if (AssumeValid.isAssumed(chainId, header)) {
+            return true;
+        }
+        BlockSignature signature = header.getBlockSignature();
+        if (null == signature || signature.verifySignature(header.getHash()).isFailed()) {
+            logger.error("preVerify fail, block signature error! height-" + header.getHeight());
+            return false;
+        }
+        if (ConnectManager.isLocalRole(ModuleE.TX.abbr)) {
+            SignatureVerifier.preVerify(block.getTxs());
+        }
+        return true;
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.block.utils;
+
+import com.google.common.hash.HashFunction;
+import io.nuls.base.data.*;
+import io.nuls.block.manager.ContextManager;
+import io.nuls.block.message.HashMessage;
+import io.nuls.block.message.IndexListMessage;
+import io.nuls.block.model.CachedCompactBlock;
+import io.nuls.block.model.CachedSmallBlock;
+import io.nuls.block.model.ChainParameters;
+import io.nuls.block.rpc.call.NetworkCall;
+import io.nuls.block.rpc.call.TransactionCall;
+import io.nuls.block.service.BlockService;
+import io.nuls.block.thread.monitor.TxGroupRequestor;
+import io.nuls.core.core.annotation.Autowired;
+import io.nuls.core.core.annotation.Component;
+import io.nuls.core.log.logback.NulsLogger;
+import io.nuls.core.model.CollectionUtils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static io.nuls.block.BlockBootstrap.blockConfig;
+import static io.nuls.block.constant.BlockForwardEnum.*;
+import static io.nuls.block.constant.CommandConstant.GET_COMPACT_TXGROUP_MESSAGE;
+import static io.nuls.block.constant.CommandConstant.GET_SMALL_BLOCK_MESSAGE;
+
+/**
+ * 紧凑区块的协商与重建
+ * 1.记录声明过支持紧凑区块的节点,超过三个广播周期未再声明则视为不支持
+ * 2.用未确认交易按短ID重建区块,缺失的交易按序号向源节点请求
+ * 3.区块内短ID碰撞、重建结果与merkle不符时,退回向源节点请求{@link SmallBlock}
+ *
+ * Negotiation and reconstruction of compact blocks: peers that announced support are remembered for three
+ * announce intervals, blocks are rebuilt from unconfirmed txs by short id, missing txs are requested by index,
+ * and a collision or merkle mismatch falls back to requesting the legacy {@link SmallBlock}.
+ */
+@Component
+public class CompactBlockRelay {
+
+    /**
+     * 当前紧凑区块版本
+     */
+    public static final int VERSION = 1;
+
+    @Autowired
+    private static BlockService service;
+
+    /**
+     * 支持紧凑区块的节点及其最近一次声明时间
+     */
+    private static Map<Integer, Map<String, Long>> peerMap = new ConcurrentHashMap<>();
+
+    /**
+     * 等待补齐交易的紧凑区块
+     */
+    private static Map<Integer, Map<NulsHash, CachedCompactBlock>> compactBlockCacheMap = new ConcurrentHashMap<>();
+
+    public static boolean isEnabled() {
+        return blockConfig.getCompactBlockAnnounceInterval() > 0;
+    }
+
+    /**
+     * 记录支持紧凑区块的节点
+     *
+     * @param chainId 链Id/chain id
+     * @param nodeId  节点
+     */
+    public static void register(int chainId, String nodeId) {
+        peerMap.get(chainId).put(nodeId, System.currentTimeMillis());
+    }
+
+    /**
+     * 获取当前支持紧凑区块的节点,逗号拼接,没有时返回null
+     *
+     * @param chainId 链Id/chain id
+     * @return
+     */
+    public static String getPeers(int chainId) {
+        if (!isEnabled()) {
+            return null;
+        }
+        long expireTime = System.currentTimeMillis() - 3L * blockConfig.getCompactBlockAnnounceInterval();
+        Map<String, Long> peers = peerMap.get(chainId);
+        peers.values().removeIf(time -> time < expireTime);
+        if (peers.isEmpty()) {
+            return null;
+        }
+        return String.join(",", peers.keySet());
+    }
+
+    /**
+     * 用未确认交易重建收到的紧凑区块
+     *
+     * @param chainId      链Id/chain id
+     * @param nodeId       源节点
+     * @param compactBlock 紧凑区块
+     */
+    public static void receive(int chainId, String nodeId, CompactBlock compactBlock) {
+        NulsLogger logger = ContextManager.getContext(chainId).getLogger();
+        BlockHeader header = compactBlock.getHeader();
+        NulsHash blockHash = header.getHash();
+        long[] shortIdList = compactBlock.getShortIdList();
+        HashFunction hasher = compactBlock.shortIdHasher();
+        Map<Long, Integer> indexes = new HashMap<>(shortIdList.length * 2);
+        for (int i = 0; i < shortIdList.length; i++) {
+            if (indexes.put(shortIdList[i], i) != null) {
+                logger.info("short id collision in compact block, height-" + header.getHeight() + ", request smallBlock");
+                fallback(chainId, blockHash, nodeId);
+                return;
+            }
+        }
+        Transaction[] txs = new Transaction[shortIdList.length];
+        //系统交易随区块完整携带
+        for (Transaction tx : compactBlock.getSystemTxList()) {
+            Integer index = indexes.get(CompactBlock.shortTxId(hasher, tx.getHash()));
+            if (index == null) {
+                logger.info("system tx not in compact block, height-" + header.getHeight() + ", request smallBlock");
+                fallback(chainId, blockHash, nodeId);
+                return;
+            }
+            txs[index] = tx;
+        }
+        List<Long> wanted = new ArrayList<>(shortIdList.length);
+        for (int i = 0; i < shortIdList.length; i++) {
+            if (txs[i] == null) {
+                wanted.add(shortIdList[i]);
+            }
+        }
+        //未确认交易中同一短ID命中多笔交易时无法区分,按缺失处理
+        Set<Integer> ambiguous = new HashSet<>();
+        for (Transaction tx : TransactionCall.getTransactionsByShortIds(chainId, blockHash, compactBlock.getNonce(), wanted)) {
+            Integer index = indexes.get(CompactBlock.shortTxId(hasher, tx.getHash()));
+            if (index == null || ambiguous.contains(index)) {
+                continue;
+            }
+            if (txs[index] != null && !txs[index].getHash().equals(tx.getHash())) {
+                txs[index] = null;
+                ambiguous.add(index);
+                continue;
+            }
+            txs[index] = tx;
+        }
+        Map<Long, Integer> missingIndexes = new HashMap<>();
+        for (int i = 0; i < txs.length; i++) {
+            if (txs[i] == null) {
+                missingIndexes.put(shortIdList[i], i);
+            }
+        }
+        if (missingIndexes.isEmpty()) {
+            complete(chainId, nodeId, compactBlock, txs);
+            return;
+        }
+        logger.debug("block height:" + header.getHeight() + ", total tx count:" + header.getTxCount() + " , get compact group tx of " + missingIndexes.size());
+        compactBlockCacheMap.get(chainId).put(blockHash, new CachedCompactBlock(compactBlock, txs, missingIndexes, nodeId));
+        SmallBlockCacher.setStatus(chainId, blockHash, INCOMPLETE);
+        List<Integer> indexList = new ArrayList<>(missingIndexes.values());
+        Collections.sort(indexList);
+        NetworkCall.sendToNode(chainId, new IndexListMessage(blockHash, indexList), nodeId, GET_COMPACT_TXGROUP_MESSAGE);
+    }
+
+    /**
+     * 用收到的交易补齐等待中的紧凑区块
+     *
+     * @param chainId      链Id/chain id
+     * @param nodeId       源节点
+     * @param blockHash    区块hash
+     * @param transactions 收到的交易
+     * @return 该区块是否以紧凑区块方式等待交易
+     */
+    public static boolean fill(int chainId, String nodeId, NulsHash blockHash, List<Transaction> transactions) {
+        CachedCompactBlock cached = compactBlockCacheMap.get(chainId).remove(blockHash);
+        if (cached == null) {
+            return false;
+        }
+        CompactBlock compactBlock = cached.getCompactBlock();
+        HashFunction hasher = compactBlock.shortIdHasher();
+        Map<Long, Integer> missingIndexes = cached.getMissingIndexes();
+        Transaction[] txs = cached.getTxs();
+        for (Transaction tx : transactions) {
+            Integer index = missingIndexes.remove(CompactBlock.shortTxId(hasher, tx.getHash()));
+            if (index != null) {
+                txs[index] = tx;
+            }
+        }
+        if (!missingIndexes.isEmpty()) {
+            ContextManager.getContext(chainId).getLogger().info("compact group tx incomplete, height-" + compactBlock.getHeader().getHeight() + ", request smallBlock");
+            fallback(chainId, blockHash, cached.getNodeId());
+            return true;
+        }
+        complete(chainId, nodeId, compactBlock, txs);
+        return true;
+    }
+
+    /**
+     * 交易齐全后校验merkle并按普通小区块流程保存
+     */
+    private static void complete(int chainId, String nodeId, CompactBlock compactBlock, Transaction[] txs) {
+        BlockHeader header = compactBlock.getHeader();
+        NulsHash blockHash = header.getHash();
+        ArrayList<NulsHash> txHashList = new ArrayList<>(txs.length);
+        Map<NulsHash, Transaction> txMap = new HashMap<>(txs.length * 2);
+        for (Transaction tx : txs) {
+            txHashList.add(tx.getHash());
+            txMap.put(tx.getHash(), tx);
+        }
+        //48位短ID仍可能与未确认交易碰撞,merkle不符时退回完整hash列表
+        if (!header.getMerkleHash().equals(NulsHash.calcMerkleHash(txHashList))) {
+            ContextManager.getContext(chainId).getLogger().info("compact block merkle mismatch, height-" + header.getHeight() + ", request smallBlock");
+            fallback(chainId, blockHash, nodeId);
+            return;
+        }
+        SmallBlock smallBlock = new SmallBlock();
+        smallBlock.setHeader(header);
+        smallBlock.setTxHashList(txHashList);
+        compactBlock.getSystemTxList().forEach(smallBlock::addSystemTx);
+        SmallBlockCacher.cacheSmallBlock(chainId, new CachedSmallBlock(null, smallBlock, txMap, nodeId));
+        SmallBlockCacher.setStatus(chainId, blockHash, COMPLETE);
+        TxGroupRequestor.removeTask(chainId, blockHash);
+        Block block = BlockUtil.assemblyBlock(header, txMap, txHashList);
+        block.setNodeId(nodeId);
+        boolean b = service.saveBlock(chainId, block, 1, true, false, true);
+        if (!b) {
+            SmallBlockCacher.setStatus(chainId, blockHash, ERROR);
+        }
+    }
+
+    /**
+     * 向源节点请求完整hash列表的小区块
+     */
+    private static void fallback(int chainId, NulsHash blockHash, String nodeId) {
+        compactBlockCacheMap.get(chainId).remove(blockHash);
+        SmallBlockCacher.setStatus(chainId, blockHash, EMPTY);
+        NetworkCall.sendToNode(chainId, new HashMessage(blockHash), nodeId, GET_SMALL_BLOCK_MESSAGE);
+    }
+
+    /**
+     * 缓存初始化
+     *
+     * @param chainId 链Id/chain id
+     */
+    public static void init(int chainId) {
+        ChainParameters parameters = ContextManager.getContext(chainId).getParameters();
+        peerMap.put(chainId, new ConcurrentHashMap<>());
+        compactBlockCacheMap.put(chainId, CollectionUtils.getSynSizedMap(parameters.getSmallBlockCache()));
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.block.storage;
+
+import io.nuls.block.storage.impl.BlockArchive;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+
+public class BlockArchiveTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("archive").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    private static byte[] block(long height) {
+        byte[] bytes = new byte[10 + (int) height];
+        bytes[0] = (byte) height;
+        return bytes;
+    }
+
+    private static void assertBlock(BlockArchive archive, long height) throws IOException {
+        ByteBuffer buffer = archive.get(height);
+        Assert.assertNotNull(buffer);
+        Assert.assertEquals(10 + height, buffer.remaining());
+        Assert.assertEquals((byte) height, buffer.get(0));
+    }
+
+    /**
+     * 跨分段追加与读取, 截断后可继续追加
+     * Append and read across segments, keep appending after truncate
+     */
+    @Test
+    public void appendAndTruncate() throws IOException {
+        try (BlockArchive archive = new BlockArchive(dir, 64)) {
+            for (long height = 0; height < 20; height++) {
+                archive.append(height, block(height));
+            }
+            Assert.assertEquals(20, archive.getCount());
+            for (long height = 0; height < 20; height++) {
+                assertBlock(archive, height);
+            }
+            Assert.assertNull(archive.get(20));
+            archive.truncate(7);
+            Assert.assertEquals(7, archive.getCount());
+            Assert.assertNull(archive.get(7));
+            archive.append(7, block(7));
+            assertBlock(archive, 7);
+        }
+    }
+
+    /**
+     * 读取结果不引用映射, 分段文件截断后仍可读取
+     * Read results do not reference the mapping and stay readable after the segment is truncated
+     */
+    @Test
+    public void readAfterTruncate() throws IOException {
+        try (BlockArchive archive = new BlockArchive(dir, 1024)) {
+            for (long height = 0; height < 10; height++) {
+                archive.append(height, block(height));
+            }
+            archive.flush();
+            ByteBuffer buffer = archive.get(9);
+            archive.truncate(5);
+            Assert.assertEquals(19, buffer.remaining());
+            Assert.assertEquals((byte) 9, buffer.get(0));
+            Assert.assertEquals(0, buffer.get(18));
+        }
+    }
+
+    /**
+     * 重新打开时丢弃最后一次刷盘之后写入的区块
+     * Reopening drops blocks appended after the last flush
+     */
+    @Test
+    public void recover() throws IOException {
+        BlockArchive archive = new BlockArchive(dir, 64);
+        for (long height = 0; height < 10; height++) {
+            archive.append(height, block(height));
+        }
+        archive.flush();
+        for (long height = 10; height < 15; height++) {
+            archive.append(height, block(height));
+        }
+        //模拟未刷盘即退出
+        BlockArchive reopened = new BlockArchive(dir, 64);
+        Assert.assertEquals(10, reopened.getCount());
+        for (long height = 0; height < 10; height++) {
+            assertBlock(reopened, height);
+        }
+        reopened.append(10, block(10));
+        assertBlock(reopened, 10);
+        reopened.close();
+    }
+
+}
@@ -20,9 +20,16 @@
 
 package io.nuls.block.thread;
 
+import io.nuls.base.data.NulsHash;
+import io.nuls.block.constant.NodeEnum;
+import io.nuls.block.model.DownloadWindow;
+import io.nuls.block.model.Node;
 import org.junit.Test;
 
+import java.util.List;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 public class BlockDownloaderTest {
 
@@ -65,4 +72,54 @@ public class BlockDownloaderTest {
 
         int size = 20 * 100 / 120;
     }
-}
\ No newline at end of file
+
+    private static Node node(String id, int bytesPerSecond) {
+        Node node = new Node();
+        node.setId(id);
+        node.setNodeEnum(NodeEnum.IDLE);
+        if (bytesPerSecond > 0) {
+            DownloadWindow window = new DownloadWindow(NulsHash.calcHash(id.getBytes()), node, 1, 10, 0, false);
+            node.windowStarted(window);
+            window.blockReceived(bytesPerSecond, 100);
+            node.windowFinished(window, true, 1000);
+        }
+        return node;
+    }
+
+    @Test
+    public void measureNode() {
+        Node node = node("a", 50000);
+        assertEquals(50000, (long) node.getBytesPerSecond());
+        assertEquals(100, (long) node.getLatency());
+        assertEquals(0, node.getOutstanding());
+        assertEquals(NodeEnum.IDLE, node.getNodeEnum());
+    }
+
+    @Test
+    public void windowSize() {
+        //未测量的节点按信用值确定窗口大小
+        assertEquals(5, BlockDownloader.windowSize(node("a", 0), 1000, 2000, 10));
+        //2秒内可下载100个区块, 受单次下载数量上限限制
+        assertEquals(10, BlockDownloader.windowSize(node("b", 50000), 1000, 2000, 10));
+        assertEquals(4, BlockDownloader.windowSize(node("c", 2000), 1000, 2000, 10));
+        assertEquals(1, BlockDownloader.windowSize(node("d", 100), 1000, 2000, 10));
+    }
+
+    @Test
+    public void selectNode() {
+        Node slow = node("slow", 1000);
+        Node fast = node("fast", 8000);
+        List<Node> nodes = List.of(slow, fast);
+        assertEquals(4, BlockDownloader.allowedWindows(fast, 8000, 4));
+        assertEquals(1, BlockDownloader.allowedWindows(slow, 8000, 4));
+        //快的节点同时承担多个窗口, 用满后才分配给慢的节点
+        for (int i = 0; i < 4; i++) {
+            Node selected = BlockDownloader.getNode(nodes, 4, null);
+            assertSame(fast, selected);
+            selected.windowStarted(new DownloadWindow(NulsHash.calcHash(new byte[]{(byte) i}), selected, i, i, 0, false));
+        }
+        assertSame(slow, BlockDownloader.getNode(nodes, 4, null));
+        //对冲请求不发给原节点
+        assertSame(slow, BlockDownloader.getNode(List.of(fast, slow), 4, fast));
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.block.utils;
+
+import io.nuls.base.data.BlockHeader;
+import io.nuls.base.data.NulsHash;
+import io.nuls.block.BlockBootstrap;
+import io.nuls.block.model.BlockConfig;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class AssumeValidTest {
+
+    private static final int CHAIN_ID = 1;
+
+    @BeforeClass
+    public static void init() {
+        BlockConfig config = new BlockConfig();
+        config.setChainId(CHAIN_ID);
+        config.setAssumeValidHeight(100);
+        config.setAssumeValidHash(NulsHash.calcHash(new byte[]{1}).toHex());
+        BlockBootstrap.blockConfig = config;
+        AssumeValid.init(CHAIN_ID);
+        //未配置检查点的链
+        AssumeValid.init(CHAIN_ID + 1);
+    }
+
+    /**
+     * 未经同步节点确认的检查点不跳过任何验证
+     * An unconfirmed checkpoint skips nothing
+     */
+    @Test
+    public void unconfirmed() {
+        BlockHeader header = header(100, NulsHash.calcHash(new byte[]{2}));
+        Assert.assertFalse(AssumeValid.isAssumed(CHAIN_ID, header(50, header.getPreHash())));
+        Assert.assertFalse(AssumeValid.isAssumed(CHAIN_ID + 1, header(50, header.getPreHash())));
+        Assert.assertTrue(AssumeValid.checkpointVerify(CHAIN_ID, header));
+        Assert.assertTrue(AssumeValid.stats(CHAIN_ID + 1).isEmpty());
+    }
+
+    /**
+     * 节省时间按完整验证的平均耗时估算
+     * Savings are estimated from the average full verification time
+     */
+    @Test
+    public void stats() {
+        AssumeValid.record(CHAIN_ID, true, 1_000_000L);
+        AssumeValid.record(CHAIN_ID, true, 1_000_000L);
+        AssumeValid.record(CHAIN_ID, false, 11_000_000L);
+        Map<String, Long> stats = AssumeValid.stats(CHAIN_ID);
+        Assert.assertEquals(100L, (long) stats.get("assumeValidHeight"));
+        Assert.assertEquals(2L, (long) stats.get("assumeValidBlocks"));
+        Assert.assertEquals(1L, (long) stats.get("fullVerifyBlocks"));
+        Assert.assertEquals(20L, (long) stats.get("assumeValidSavedMillis"));
+    }
+
+    /**
+     * 只有hash链接连续的区块头被接受, 只有同高度hash一致的区块头被视为已链接
+     * Only headers with continuous hash links are accepted, only a header matching the linked hash at its height is contained
+     */
+    @Test
+    public void linkedHeaders() {
+        NulsHash localHash = NulsHash.calcHash(new byte[]{3});
+        List<BlockHeader> headers = new ArrayList<>();
+        NulsHash preHash = localHash;
+        for (long height = 11; height <= 15; height++) {
+            BlockHeader header = header(height, preHash);
+            headers.add(header);
+            preHash = header.getHash();
+        }
+        AssumeValid.LinkedHeaders linked = new AssumeValid.LinkedHeaders(11, 5);
+        Assert.assertEquals(headers.get(1).getHash(), linked.append(localHash, headers.subList(0, 2)));
+        Assert.assertEquals(preHash, linked.append(headers.get(1).getHash(), headers.subList(2, 5)));
+        for (BlockHeader header : headers) {
+            Assert.assertTrue(linked.contains(header));
+        }
+        //同高度的分叉区块与范围外的区块不在链上
+        Assert.assertFalse(linked.contains(header(13, localHash)));
+        Assert.assertFalse(linked.contains(header(16, preHash)));
+        Assert.assertFalse(linked.contains(header(10, localHash)));
+
+        //hash链接断开
+        AssumeValid.LinkedHeaders broken = new AssumeValid.LinkedHeaders(11, 5);
+        List<BlockHeader> forked = new ArrayList<>(headers);
+        forked.set(2, header(13, localHash));
+        Assert.assertNull(broken.append(localHash, forked));
+        //高度不连续
+        AssumeValid.LinkedHeaders gap = new AssumeValid.LinkedHeaders(11, 5);
+        Assert.assertNull(gap.append(localHash, headers.subList(1, 5)));
+    }
+
+    private static BlockHeader header(long height, NulsHash preHash) {
+        BlockHeader header = new BlockHeader();
+        header.setHeight(height);
+        header.setPreHash(preHash);
+        header.setMerkleHash(NulsHash.calcHash(new byte[]{4}));
+        header.setTime(height);
+        header.setExtend(new byte[0]);
+        return header;
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.block.utils;
+
+import io.nuls.base.data.Block;
+import io.nuls.base.data.BlockHeader;
+import io.nuls.base.data.NulsHash;
+import io.nuls.base.data.NulsSignData;
+import io.nuls.base.data.po.BlockHeaderPo;
+import io.nuls.base.signture.BlockSignature;
+import io.nuls.block.BlockBootstrap;
+import io.nuls.block.model.BlockConfig;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+public class BlockCacherTest {
+
+    private static final int CHAIN_ID = 1;
+
+    @BeforeClass
+    public static void init() {
+        BlockBootstrap.blockConfig = new BlockConfig();
+        BlockCacher.init(CHAIN_ID);
+    }
+
+    private static Block block(long height) {
+        BlockHeader header = new BlockHeader();
+        header.setPreHash(new NulsHash(new byte[NulsHash.HASH_LENGTH]));
+        header.setMerkleHash(new NulsHash(new byte[NulsHash.HASH_LENGTH]));
+        header.setTime(1560000000L + height);
+        header.setHeight(height);
+        header.setTxCount(0);
+        header.setExtend(new byte[]{1, 2, 3});
+        BlockSignature signature = new BlockSignature();
+        signature.setPublicKey(new byte[33]);
+        NulsSignData signData = new NulsSignData();
+        signData.setSignBytes(new byte[64]);
+        signature.setSignData(signData);
+        header.setBlockSignature(signature);
+        Block block = new Block();
+        block.setHeader(header);
+        block.setTxs(new ArrayList<>());
+        return block;
+    }
+
+    /**
+     * 区块头按高度和hash都能命中,取出的是副本,删除后失效
+     * Headers hit by height and hash, come back as copies and disappear on remove
+     */
+    @Test
+    public void headerTest() throws Exception {
+        BlockHeaderPo po = BlockUtil.toBlockHeaderPo(block(10));
+        NulsHash hash = po.getHash();
+        Assert.assertNull(BlockCacher.getHeader(CHAIN_ID, 10L));
+        BlockCacher.putHeader(CHAIN_ID, hash, po.serialize(), 10);
+
+        BlockHeaderPo byHeight = BlockCacher.getHeader(CHAIN_ID, 10L);
+        Assert.assertEquals(hash, byHeight.getHash());
+        byHeight.setComplete(true);
+        Assert.assertFalse(BlockCacher.getHeader(CHAIN_ID, hash).isComplete());
+
+        BlockCacher.removeHeader(CHAIN_ID, 10, hash);
+        Assert.assertNull(BlockCacher.getHeader(CHAIN_ID, 10L));
+        Assert.assertNull(BlockCacher.getHeader(CHAIN_ID, hash));
+    }
+
+    /**
+     * 完整区块回滚后失效,命中统计随查询累加
+     * Full blocks are dropped on rollback and lookups are counted
+     */
+    @Test
+    public void blockTest() throws Exception {
+        Block block = block(20);
+        NulsHash hash = block.getHeader().getHash();
+        BlockCacher.putHeader(CHAIN_ID, hash, BlockUtil.toBlockHeaderPo(block).serialize(), 20);
+        BlockCacher.putBlock(CHAIN_ID, block);
+        Map<String, Long> before = BlockCacher.stats(CHAIN_ID);
+
+        Block cached = BlockCacher.getBlock(CHAIN_ID, 20L);
+        Assert.assertNotSame(block, cached);
+        Assert.assertEquals(hash, cached.getHeader().getHash());
+
+        BlockCacher.removeBlock(CHAIN_ID, hash);
+        Assert.assertNull(BlockCacher.getBlock(CHAIN_ID, hash));
+
+        Map<String, Long> after = BlockCacher.stats(CHAIN_ID);
+        Assert.assertEquals(before.get("blockCacheHit") + 1, (long) after.get("blockCacheHit"));
+        Assert.assertEquals(before.get("blockCacheMiss") + 1, (long) after.get("blockCacheMiss"));
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.block.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class BlockCommitCoordinatorTest {
+
+    @Test
+    public void runAll() {
+        List<Callable<Boolean>> participants = List.of(
+                () -> true,
+                () -> false,
+                () -> {
+                    throw new IllegalStateException("notice failed");
+                },
+                () -> null);
+        boolean[] results = BlockCommitCoordinator.runAll(LoggerUtil.COMMON_LOG, participants);
+        Assert.assertArrayEquals(new boolean[]{true, false, false, false}, results);
+    }
+
+    @Test
+    public void runConcurrently() {
+        //两个参与者互相等待, 只有并行执行时才能都成功
+        CountDownLatch latch = new CountDownLatch(2);
+        Callable<Boolean> participant = () -> {
+            latch.countDown();
+            return latch.await(5, TimeUnit.SECONDS);
+        };
+        boolean[] results = BlockCommitCoordinator.runAll(LoggerUtil.COMMON_LOG, List.of(participant, participant));
+        Assert.assertArrayEquals(new boolean[]{true, true}, results);
+    }
+
+}
@@ -11,6 +11,10 @@ public class ValidBlockDTO {
     private int chainId;
     private int download;
     private String block;
+    /**
+     * 区块位于可信检查点之前, 跳过签名验证
+     */
+    private boolean assumeValid;
 
     public int getChainId() {
         return chainId;
@@ -35,4 +39,12 @@ public class ValidBlockDTO {
     public void setBlock(String block) {
         this.block = block;
     }
+
+    public boolean isAssumeValid() {
+        return assumeValid;
+    }
+
+    public void setAssumeValid(boolean assumeValid) {
+        this.assumeValid = assumeValid;
+    }
 }
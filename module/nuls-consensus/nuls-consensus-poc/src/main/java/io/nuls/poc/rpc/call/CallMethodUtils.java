@@ -428,20 +428,25 @@ public class CallMethodUtils {
      *
      * @param chainId      链Id/chain id
      * @param transactions
+     * @param assumeValid  区块位于可信检查点之前, 交易模块跳过签名与模块统一验证器
      * @return
      */
-    public static Response verify(int chainId, List<Transaction> transactions, BlockHeader header, BlockHeader lastHeader, NulsLogger logger) {
+    public static Response verify(int chainId, List<Transaction> transactions, BlockHeader header, BlockHeader lastHeader, boolean assumeValid, NulsLogger logger) {
         try {
             Map<String, Object> params = new HashMap<>(2);
             params.put(Constants.CHAIN_ID, chainId);
-            List<String> txList = new ArrayList<>();
+            //交易以原始字节传输, 不再转为十六进制字符串
+            List<byte[]> txList = new ArrayList<>();
             for (Transaction transaction : transactions) {
-                txList.add(RPCUtil.encode(transaction.serialize()));
+                txList.add(transaction.serialize());
             }
             params.put("txList", txList);
             BlockExtendsData lastData = lastHeader.getExtendsData();
             params.put("preStateRoot", RPCUtil.encode(lastData.getStateRoot()));
             params.put("blockHeader", RPCUtil.encode(header.serialize()));
+            if (assumeValid) {
+                params.put("assumeValid", true);
+            }
             return ResponseMessageProcessor.requestAndResponse(ModuleE.TX.abbr, "tx_batchVerify", params, 10 * 60 * 1000);
         } catch (Exception e) {
             logger.error("", e);
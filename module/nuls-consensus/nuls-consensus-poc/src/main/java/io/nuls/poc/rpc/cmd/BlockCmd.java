@@ -44,6 +44,7 @@ public class BlockCmd extends BaseCmd {
     @Parameter(parameterName = "chainId", requestType = @TypeDescriptor(value = int.class), parameterDes = "链id")
     @Parameter(parameterName = "download", requestType = @TypeDescriptor(value = int.class), parameterDes = "区块状态")
     @Parameter(parameterName = "block", parameterType = "String", parameterDes = "区块信息")
+    @Parameter(parameterName = "assumeValid", requestType = @TypeDescriptor(value = boolean.class), parameterDes = "区块位于可信检查点之前, 跳过签名验证", canNull = true)
     @ResponseData(name = "返回值", description = "返回一个Map", responseType = @TypeDescriptor(value = Map.class, mapKeys = {
             @Key(name = "value",valueType = Boolean.class, description = "验证结果")
     }))
@@ -160,8 +160,8 @@ public class BlockServiceImpl implements BlockService {
         try {
             Block block = new Block();
             block.parse(new NulsByteBuffer(RPCUtil.decode(blockHex)));
-            blockValidator.validate(isDownload, chain, block);
-            Response response = CallMethodUtils.verify(chainId, block.getTxs(), block.getHeader(), chain.getNewestHeader(), chain.getLogger());
+            blockValidator.validate(isDownload, chain, block, dto.isAssumeValid());
+            Response response = CallMethodUtils.verify(chainId, block.getTxs(), block.getHeader(), chain.getNewestHeader(), dto.isAssumeValid(), chain.getLogger());
             if (response.isSuccess()) {
                 Map responseData = (Map) response.getResponseData();
                 Map v = (Map) responseData.get("tx_batchVerify");
@@ -90,10 +90,6 @@ public class AgentStorageServiceImpl implements AgentStorageService{
 
     @Override
     public int size(int chainID) {
-        List<byte[]> keyList = RocksDBService.keyList(ConsensusConstant.DB_NAME_CONSENSUS_AGENT+chainID);
-        if(keyList != null){
-            return keyList.size();
-        }
-        return 0;
+        return RocksDBService.count(ConsensusConstant.DB_NAME_CONSENSUS_AGENT+chainID);
     }
 }
@@ -1,7 +1,6 @@
 package io.nuls.poc.storage.impl;
 
 import io.nuls.core.core.annotation.Component;
-import io.nuls.core.rockdb.model.Entry;
 import io.nuls.core.rockdb.service.RocksDBService;
 import io.nuls.poc.constant.ConsensusConstant;
 import io.nuls.poc.model.bo.config.ConfigBean;
@@ -12,7 +11,6 @@ import io.nuls.core.model.ObjectUtils;
 import io.nuls.core.log.Log;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -58,14 +56,14 @@ public class ConfigServiceImpl implements ConfigService {
     @Override
     public Map<Integer, ConfigBean> getList() {
         try {
-            List<Entry<byte[], byte[]>> list = RocksDBService.entryList(ConsensusConstant.DB_NAME_CONSUME_CONGIF);
             Map<Integer, ConfigBean> configBeanMap = new HashMap<>(ConsensusConstant.INIT_CAPACITY);
-            for (Entry<byte[], byte[]>entry:list) {
-                int key = ByteUtils.bytesToInt(entry.getKey());
+            RocksDBService.forEach(ConsensusConstant.DB_NAME_CONSUME_CONGIF, (key, value) -> {
+                int chainId = ByteUtils.bytesToInt(key);
                 ConfigBean configBean = new ConfigBean();
-                configBean.parse(entry.getValue(),0);
-                configBeanMap.put(key,configBean);
-            }
+                configBean.parse(value,0);
+                configBeanMap.put(chainId,configBean);
+                return true;
+            });
             return configBeanMap;
         }catch (Exception e){
             Log.error(e);
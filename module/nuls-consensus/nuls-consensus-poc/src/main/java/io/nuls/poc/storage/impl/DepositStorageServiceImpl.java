@@ -89,10 +89,6 @@ public class DepositStorageServiceImpl implements DepositStorageService {
 
     @Override
     public int size(int chainID) {
-        List<byte[]> keyList = RocksDBService.keyList(ConsensusConstant.DB_NAME_CONSENSUS_DEPOSIT + chainID);
-        if (keyList != null) {
-            return keyList.size();
-        }
-        return 0;
+        return RocksDBService.count(ConsensusConstant.DB_NAME_CONSENSUS_DEPOSIT + chainID);
     }
 }
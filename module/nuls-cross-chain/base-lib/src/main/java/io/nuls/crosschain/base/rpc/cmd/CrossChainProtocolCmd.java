@@ -34,12 +34,12 @@ public class CrossChainProtocolCmd extends BaseCmd {
     @CmdAnnotation(cmd = CommandConstant.GET_OTHER_CTX_MESSAGE, version = 1.0, description = "跨链节点向本节点获取完整交易/Cross-chain nodes obtain complete transactions from their own nodes")
     @Parameter(parameterName = "chainId", requestType = @TypeDescriptor(value = int.class), parameterDes = "链ID")
     @Parameter(parameterName = "nodeId", parameterType = "String", parameterDes = "节点IP")
-    @Parameter(parameterName = "messageBody", parameterType = "String", parameterDes = "消息体")
+    @Parameter(parameterName = "messageBody", parameterType = "Object", parameterDes = "消息体, 原始字节或十六进制字符串")
     @ResponseData(description = "无特定返回值，没有错误即成功")
     public Response getOtherCtx(Map<String,Object> params){
         int chainId = Integer.parseInt(params.get("chainId").toString());
         String nodeId = params.get("nodeId").toString();
-        byte[] decode = RPCUtil.decode(params.get("messageBody").toString());
+        byte[] decode = RPCUtil.decode(params.get("messageBody"));
         GetOtherCtxMessage message = new GetOtherCtxMessage();
         try {
             message.parse(new NulsByteBuffer(decode));
@@ -56,12 +56,12 @@ public class CrossChainProtocolCmd extends BaseCmd {
     @CmdAnnotation(cmd = CommandConstant.GET_CTX_STATE_MESSAGE, version = 1.0, description = "获取跨链交易处理状态/Getting the state of cross-chain transaction processing")
     @Parameter(parameterName = "chainId", requestType = @TypeDescriptor(value = int.class), parameterDes = "链ID")
     @Parameter(parameterName = "nodeId", parameterType = "String", parameterDes = "节点IP")
-    @Parameter(parameterName = "messageBody", parameterType = "String", parameterDes = "消息体")
+    @Parameter(parameterName = "messageBody", parameterType = "Object", parameterDes = "消息体, 原始字节或十六进制字符串")
     @ResponseData(description = "无特定返回值，没有错误即成功")
     public Response getCtxState(Map<String,Object> params){
         int chainId = Integer.parseInt(params.get("chainId").toString());
         String nodeId = params.get("nodeId").toString();
-        byte[] decode = RPCUtil.decode(params.get("messageBody").toString());
+        byte[] decode = RPCUtil.decode(params.get("messageBody"));
         GetCtxStateMessage message = new GetCtxStateMessage();
         try {
             message.parse(new NulsByteBuffer(decode));
@@ -78,12 +78,12 @@ public class CrossChainProtocolCmd extends BaseCmd {
     @CmdAnnotation(cmd = CommandConstant.CTX_STATE_MESSAGE, version = 1.0, description = "跨链交易处理状态消息/receive cross transaction state")
     @Parameter(parameterName = "chainId", requestType = @TypeDescriptor(value = int.class), parameterDes = "链ID")
     @Parameter(parameterName = "nodeId", parameterType = "String", parameterDes = "节点IP")
-    @Parameter(parameterName = "messageBody", parameterType = "String", parameterDes = "消息体")
+    @Parameter(parameterName = "messageBody", parameterType = "Object", parameterDes = "消息体, 原始字节或十六进制字符串")
     @ResponseData(description = "无特定返回值，没有错误即成功")
     public Response recvCtxState(Map<String,Object> params){
         int chainId = Integer.parseInt(params.get("chainId").toString());
         String nodeId = params.get("nodeId").toString();
-        byte[] decode = RPCUtil.decode(params.get("messageBody").toString());
+        byte[] decode = RPCUtil.decode(params.get("messageBody"));
         CtxStateMessage message = new CtxStateMessage();
         try {
             message.parse(new NulsByteBuffer(decode));
@@ -100,12 +100,12 @@ public class CrossChainProtocolCmd extends BaseCmd {
     @CmdAnnotation(cmd = CommandConstant.GET_CIRCULLAT_MESSAGE, version = 1.0, description = "查询本链资产信息消息/get chain circulation")
     @Parameter(parameterName = "chainId", requestType = @TypeDescriptor(value = int.class), parameterDes = "链ID")
     @Parameter(parameterName = "nodeId", parameterType = "String", parameterDes = "节点IP")
-    @Parameter(parameterName = "messageBody", parameterType = "String", parameterDes = "消息体")
+    @Parameter(parameterName = "messageBody", parameterType = "Object", parameterDes = "消息体, 原始字节或十六进制字符串")
     @ResponseData(description = "无特定返回值，没有错误即成功")
     public Response getCirculat(Map<String,Object> params){
         int chainId = Integer.parseInt(params.get("chainId").toString());
         String nodeId = params.get("nodeId").toString();
-        byte[] decode = RPCUtil.decode(params.get("messageBody").toString());
+        byte[] decode = RPCUtil.decode(params.get("messageBody"));
         GetCirculationMessage message = new GetCirculationMessage();
         try {
             message.parse(new NulsByteBuffer(decode));
@@ -123,12 +123,12 @@ public class CrossChainProtocolCmd extends BaseCmd {
     @CmdAnnotation(cmd = CommandConstant.NEW_OTHER_CTX_MESSAGE, version = 1.0, description = "接收跨链节点广播的完整交易/Receiving Complete Transactions for Cross-Chain Node Broadcasting")
     @Parameter(parameterName = "chainId", requestType = @TypeDescriptor(value = int.class), parameterDes = "链ID")
     @Parameter(parameterName = "nodeId", parameterType = "String", parameterDes = "节点IP")
-    @Parameter(parameterName = "messageBody", parameterType = "String", parameterDes = "消息体")
+    @Parameter(parameterName = "messageBody", parameterType = "Object", parameterDes = "消息体, 原始字节或十六进制字符串")
     @ResponseData(description = "无特定返回值，没有错误即成功")
     public Response recvOtherCtx(Map<String,Object> params){
         int chainId = Integer.parseInt(params.get("chainId").toString());
         String nodeId = params.get("nodeId").toString();
-        byte[] decode = RPCUtil.decode(params.get("messageBody").toString());
+        byte[] decode = RPCUtil.decode(params.get("messageBody"));
         NewOtherCtxMessage message = new NewOtherCtxMessage();
         try {
             message.parse(new NulsByteBuffer(decode));
@@ -146,12 +146,12 @@ public class CrossChainProtocolCmd extends BaseCmd {
     @CmdAnnotation(cmd = CommandConstant.BROAD_CTX_HASH_MESSAGE, version = 1.0, description = "接收跨链节点广播的交易Hash/Transaction Hash receiving cross-link node broadcasting")
     @Parameter(parameterName = "chainId", requestType = @TypeDescriptor(value = int.class), parameterDes = "链ID")
     @Parameter(parameterName = "nodeId", parameterType = "String", parameterDes = "节点IP")
-    @Parameter(parameterName = "messageBody", parameterType = "String", parameterDes = "消息体")
+    @Parameter(parameterName = "messageBody", parameterType = "Object", parameterDes = "消息体, 原始字节或十六进制字符串")
     @ResponseData(description = "无特定返回值，没有错误即成功")
     public Response recvCtxHash(Map<String,Object> params){
         int chainId = Integer.parseInt(params.get("chainId").toString());
         String nodeId = params.get("nodeId").toString();
-        byte[] decode = RPCUtil.decode(params.get("messageBody").toString());
+        byte[] decode = RPCUtil.decode(params.get("messageBody"));
         BroadCtxHashMessage message = new BroadCtxHashMessage();
         try {
             message.parse(new NulsByteBuffer(decode));
@@ -168,12 +168,12 @@ public class CrossChainProtocolCmd extends BaseCmd {
     @CmdAnnotation(cmd = CommandConstant.BROAD_CTX_SIGN_MESSAGE, version = 1.0, description = "接收链内节点广播的交易签名/Transaction signature for broadcasting in receiving chain")
     @Parameter(parameterName = "chainId", requestType = @TypeDescriptor(value = int.class), parameterDes = "链ID")
     @Parameter(parameterName = "nodeId", parameterType = "String", parameterDes = "节点IP")
-    @Parameter(parameterName = "messageBody", parameterType = "String", parameterDes = "消息体")
+    @Parameter(parameterName = "messageBody", parameterType = "Object", parameterDes = "消息体, 原始字节或十六进制字符串")
     @ResponseData(description = "无特定返回值，没有错误即成功")
     public Response recvCtxSign(Map<String,Object> params){
         int chainId = Integer.parseInt(params.get("chainId").toString());
         String nodeId = params.get("nodeId").toString();
-        byte[] decode = RPCUtil.decode(params.get("messageBody").toString());
+        byte[] decode = RPCUtil.decode(params.get("messageBody"));
         BroadCtxSignMessage message = new BroadCtxSignMessage();
         try {
             message.parse(new NulsByteBuffer(decode));
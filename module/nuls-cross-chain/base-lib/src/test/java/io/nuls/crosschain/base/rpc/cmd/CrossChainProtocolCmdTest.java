@@ -0,0 +1,87 @@
+package io.nuls.crosschain.base.rpc.cmd;
+
+import io.nuls.base.RPCUtil;
+import io.nuls.base.data.NulsHash;
+import io.nuls.core.rpc.model.message.Response;
+import io.nuls.crosschain.base.message.*;
+import io.nuls.crosschain.base.service.ProtocolService;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Map;
+
+public class CrossChainProtocolCmdTest {
+
+    private CrossChainProtocolCmd cmd;
+
+    private GetOtherCtxMessage received;
+
+    @Before
+    public void setUp() throws Exception {
+        cmd = new CrossChainProtocolCmd();
+        Field field = CrossChainProtocolCmd.class.getDeclaredField("service");
+        field.setAccessible(true);
+        field.set(cmd, new ProtocolService() {
+            @Override
+            public void getOtherCtx(int chainId, String nodeId, GetOtherCtxMessage messageBody) {
+                received = messageBody;
+            }
+
+            @Override
+            public void getCtxState(int chainId, String nodeId, GetCtxStateMessage messageBody) {
+            }
+
+            @Override
+            public void receiveCtxState(int chainId, String nodeId, CtxStateMessage messageBody) {
+            }
+
+            @Override
+            public void getCirculation(int chainId, String nodeId, GetCirculationMessage messageBody) {
+            }
+
+            @Override
+            public void receiveOtherCtx(int chainId, String nodeId, NewOtherCtxMessage messageBody) {
+            }
+
+            @Override
+            public void receiveCtxHash(int chainId, String nodeId, BroadCtxHashMessage messageBody) {
+            }
+
+            @Override
+            public void receiveCtxSign(int chainId, String nodeId, BroadCtxSignMessage messageBody) {
+            }
+        });
+    }
+
+    /**
+     * 二进制通道转发的原始字节与JSON通道的十六进制字符串都能解析出同一消息
+     * The raw bytes forwarded over the binary channel and the hex string of the JSON channel parse to the same message
+     */
+    @Test
+    public void messageBodyTest() throws Exception {
+        GetOtherCtxMessage message = new GetOtherCtxMessage();
+        message.setRequestHash(NulsHash.calcHash(new byte[]{1, 2, 3}));
+        byte[] bytes = message.serialize();
+
+        Response response = cmd.getOtherCtx(params(bytes));
+        Assert.assertTrue(response.isSuccess());
+        Assert.assertEquals(message.getRequestHash(), received.getRequestHash());
+
+        received = null;
+        response = cmd.getOtherCtx(params(RPCUtil.encode(bytes)));
+        Assert.assertTrue(response.isSuccess());
+        Assert.assertEquals(message.getRequestHash(), received.getRequestHash());
+    }
+
+    private static Map<String, Object> params(Object messageBody) {
+        Map<String, Object> params = new HashMap<>(4);
+        params.put("chainId", 1);
+        params.put("nodeId", "127.0.0.1:8002");
+        params.put("messageBody", messageBody);
+        return params;
+    }
+
+}
@@ -118,12 +118,12 @@ public class MainNetCmd extends BaseCmd {
     @CmdAnnotation(cmd = CommandConstant.CIRCULATION_MESSAGE, version = 1.0, description = "接收其他链节点发送的资产信息/Receiving asset information sent by other link nodes")
     @Parameter(parameterName = "chainId", requestType = @TypeDescriptor(value = int.class), parameterDes = "链ID")
     @Parameter(parameterName = "nodeId", parameterType = "String", parameterDes = "节点IP")
-    @Parameter(parameterName = "messageBody", parameterType = "String", parameterDes = "消息体")
+    @Parameter(parameterName = "messageBody", parameterType = "Object", parameterDes = "消息体, 原始字节或十六进制字符串")
     @ResponseData(description = "无特定返回值，没有错误即成功")
     public Response recvCirculat(Map<String,Object> params){
         int chainId = Integer.parseInt(params.get("chainId").toString());
         String nodeId = params.get("nodeId").toString();
-        byte[] decode = RPCUtil.decode(params.get("messageBody").toString());
+        byte[] decode = RPCUtil.decode(params.get("messageBody"));
         CirculationMessage message = new CirculationMessage();
         try {
             message.parse(new NulsByteBuffer(decode));
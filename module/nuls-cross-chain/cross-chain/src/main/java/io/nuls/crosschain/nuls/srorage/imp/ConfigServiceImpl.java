@@ -3,7 +3,6 @@ package io.nuls.crosschain.nuls.srorage.imp;
 import io.nuls.core.core.annotation.Component;
 import io.nuls.crosschain.nuls.model.bo.config.ConfigBean;
 import io.nuls.crosschain.nuls.srorage.ConfigService;
-import io.nuls.core.rockdb.model.Entry;
 import io.nuls.core.rockdb.service.RocksDBService;
 import io.nuls.core.core.annotation.Service;
 import io.nuls.core.log.Log;
@@ -12,7 +11,6 @@ import io.nuls.core.model.ObjectUtils;
 import static io.nuls.crosschain.nuls.constant.NulsCrossChainConstant.*;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -58,14 +56,14 @@ public class ConfigServiceImpl implements ConfigService {
     @Override
     public Map<Integer, ConfigBean> getList() {
         try {
-            List<Entry<byte[], byte[]>> list = RocksDBService.entryList(DB_NAME_CONSUME_CONGIF);
             Map<Integer, ConfigBean> configBeanMap = new HashMap<>(INIT_CAPACITY);
-            for (Entry<byte[], byte[]>entry:list) {
-                int key = ByteUtils.bytesToInt(entry.getKey());
+            RocksDBService.forEach(DB_NAME_CONSUME_CONGIF, (key, value) -> {
+                int chainId = ByteUtils.bytesToInt(key);
                 ConfigBean configBean = new ConfigBean();
-                configBean.parse(entry.getValue(),0);
-                configBeanMap.put(key,configBean);
-            }
+                configBean.parse(value,0);
+                configBeanMap.put(chainId,configBean);
+                return true;
+            });
             return configBeanMap;
         }catch (Exception e){
             Log.error(e);
@@ -4,7 +4,6 @@ import io.nuls.base.data.NulsHash;
 import io.nuls.base.data.Transaction;
 import io.nuls.core.core.annotation.Component;
 import io.nuls.core.log.Log;
-import io.nuls.core.rockdb.model.Entry;
 import io.nuls.core.rockdb.service.RocksDBService;
 import io.nuls.crosschain.nuls.constant.NulsCrossChainConstant;
 import io.nuls.crosschain.nuls.srorage.ConvertCtxService;
@@ -69,13 +68,13 @@ public class ConvertCtxServiceImpl implements ConvertCtxService {
     @Override
     public List<Transaction> getList(int chainID){
         try {
-            List<Entry<byte[], byte[]>> list = RocksDBService.entryList(NulsCrossChainConstant.DB_NAME_CONVERT_CTX+chainID);
             List<Transaction> txList = new ArrayList<>();
-            for (Entry<byte[], byte[]> entry:list) {
+            RocksDBService.forEach(NulsCrossChainConstant.DB_NAME_CONVERT_CTX+chainID, (key, value) -> {
                 Transaction tx = new Transaction();
-                tx.parse(entry.getValue(),0);
+                tx.parse(value,0);
                 txList.add(tx);
-            }
+                return true;
+            });
             return txList;
         }catch (Exception e){
             Log.error(e);
@@ -3,7 +3,6 @@ package io.nuls.crosschain.nuls.srorage.imp;
 import io.nuls.base.data.NulsHash;
 import io.nuls.core.core.annotation.Component;
 import io.nuls.core.log.Log;
-import io.nuls.core.rockdb.model.Entry;
 import io.nuls.core.rockdb.service.RocksDBService;
 import io.nuls.crosschain.nuls.constant.NulsCrossChainConstant;
 import io.nuls.crosschain.nuls.srorage.ConvertHashService;
@@ -66,12 +65,12 @@ public class ConvertHashServiceImpl implements ConvertHashService {
     @Override
     public List<NulsHash> getList(int chainID){
         try {
-            List<Entry<byte[], byte[]>> list = RocksDBService.entryList(NulsCrossChainConstant.DB_NAME_CONVERT_HASH_CTX+chainID);
             List<NulsHash> hashList = new ArrayList<>();
-            for (Entry<byte[], byte[]> entry:list) {
-                NulsHash localHash = new NulsHash(entry.getValue());
+            RocksDBService.forEach(NulsCrossChainConstant.DB_NAME_CONVERT_HASH_CTX+chainID, (key, value) -> {
+                NulsHash localHash = new NulsHash(value);
                 hashList.add(localHash);
-            }
+                return true;
+            });
             return hashList;
         }catch (Exception e){
             Log.error(e);
@@ -3,14 +3,12 @@ package io.nuls.crosschain.nuls.srorage.imp;
 import io.nuls.core.core.annotation.Component;
 import io.nuls.core.log.Log;
 import io.nuls.core.model.ByteUtils;
-import io.nuls.core.rockdb.model.Entry;
 import io.nuls.core.rockdb.service.RocksDBService;
 import io.nuls.crosschain.nuls.constant.NulsCrossChainConstant;
 import io.nuls.crosschain.nuls.model.po.VerifierChangeSendFailPO;
 import io.nuls.crosschain.nuls.srorage.CrossChangeBroadFailService;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 @Component
@@ -63,13 +61,13 @@ public class CrossChangeBroadFailServiceImpl implements CrossChangeBroadFailServ
     @Override
     public Map<Long, VerifierChangeSendFailPO> getList(int chainID) {
         try {
-            List<Entry<byte[], byte[]>> list = RocksDBService.entryList(NulsCrossChainConstant.DB_NAME_CROSS_CHANGE_FAILED+chainID);
             Map<Long, VerifierChangeSendFailPO> poMap = new HashMap<>(NulsCrossChainConstant.INIT_CAPACITY_16);
-            for (Entry<byte[], byte[]> entry:list) {
+            RocksDBService.forEach(NulsCrossChainConstant.DB_NAME_CROSS_CHANGE_FAILED+chainID, (key, value) -> {
                 VerifierChangeSendFailPO po = new VerifierChangeSendFailPO();
-                po.parse(entry.getValue(),0);
-                poMap.put(ByteUtils.byteToLong(entry.getKey()), po);
-            }
+                po.parse(value,0);
+                poMap.put(ByteUtils.byteToLong(key), po);
+                return true;
+            });
             return poMap;
         }catch (Exception e){
             Log.error(e);
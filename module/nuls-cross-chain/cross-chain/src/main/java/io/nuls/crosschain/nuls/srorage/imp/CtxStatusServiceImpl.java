@@ -3,7 +3,6 @@ package io.nuls.crosschain.nuls.srorage.imp;
 import io.nuls.base.data.NulsHash;
 import io.nuls.core.core.annotation.Component;
 import io.nuls.core.log.Log;
-import io.nuls.core.rockdb.model.Entry;
 import io.nuls.core.rockdb.service.RocksDBService;
 import io.nuls.crosschain.nuls.constant.NulsCrossChainConstant;
 import io.nuls.crosschain.nuls.model.po.CtxStatusPO;
@@ -69,13 +68,13 @@ public class CtxStatusServiceImpl implements CtxStatusService {
     @Override
     public List<CtxStatusPO> getList(int chainID){
         try {
-            List<Entry<byte[], byte[]>> list = RocksDBService.entryList(NulsCrossChainConstant.DB_NAME_CTX_STATUS+chainID);
             List<CtxStatusPO> txList = new ArrayList<>();
-            for (Entry<byte[], byte[]> entry:list) {
+            RocksDBService.forEach(NulsCrossChainConstant.DB_NAME_CTX_STATUS+chainID, (key, value) -> {
                 CtxStatusPO tx = new CtxStatusPO();
-                tx.parse(entry.getValue(),0);
+                tx.parse(value,0);
                 txList.add(tx);
-            }
+                return true;
+            });
             return txList;
         }catch (Exception e){
             Log.error(e);
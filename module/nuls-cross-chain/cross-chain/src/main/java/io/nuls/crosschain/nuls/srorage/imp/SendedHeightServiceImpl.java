@@ -4,7 +4,6 @@ import io.nuls.core.core.annotation.Component;
 import io.nuls.crosschain.nuls.constant.NulsCrossChainConstant;
 import io.nuls.crosschain.nuls.model.po.SendCtxHashPO;
 import io.nuls.crosschain.nuls.srorage.SendedHeightService;
-import io.nuls.core.rockdb.model.Entry;
 import io.nuls.core.rockdb.service.RocksDBService;
 import io.nuls.core.log.Log;
 import io.nuls.core.model.ByteUtils;
@@ -70,13 +69,13 @@ public class SendedHeightServiceImpl implements SendedHeightService {
     @Override
     public Map<Long, SendCtxHashPO> getList(int chainID) {
         try {
-            List<Entry<byte[], byte[]>> list = RocksDBService.entryList(NulsCrossChainConstant.DB_NAME_SENDED_HEIGHT+chainID);
             Map<Long, SendCtxHashPO> poMap = new HashMap<>(NulsCrossChainConstant.INIT_CAPACITY_16);
-            for (Entry<byte[], byte[]> entry:list) {
+            RocksDBService.forEach(NulsCrossChainConstant.DB_NAME_SENDED_HEIGHT+chainID, (key, value) -> {
                 SendCtxHashPO po = new SendCtxHashPO();
-                po.parse(entry.getValue(),0);
-                poMap.put(ByteUtils.byteToLong(entry.getKey()), po);
-            }
+                po.parse(value,0);
+                poMap.put(ByteUtils.byteToLong(key), po);
+                return true;
+            });
             return poMap;
         }catch (Exception e){
             Log.error(e);
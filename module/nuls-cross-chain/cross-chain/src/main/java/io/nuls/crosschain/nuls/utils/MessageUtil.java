@@ -7,12 +7,12 @@ import io.nuls.base.data.NulsHash;
 import io.nuls.base.data.Transaction;
 import io.nuls.base.signture.P2PHKSignature;
 import io.nuls.base.signture.SignatureUtil;
+import io.nuls.base.signture.SignatureVerifier;
 import io.nuls.base.signture.TransactionSignature;
 import io.nuls.core.constant.TxStatusEnum;
 import io.nuls.core.constant.TxType;
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
-import io.nuls.core.crypto.ECKey;
 import io.nuls.core.crypto.HexUtil;
 import io.nuls.core.exception.NulsException;
 import io.nuls.core.model.BigIntegerUtils;
@@ -102,7 +102,7 @@ public class MessageUtil {
                 convertCtx = convertCtxService.get(hash, handleChainId);
             }
             //验证签名是否正确，如果是跨链转账交易，这签名对应的主网协议签名
-            if (!ECKey.verify(convertCtx.getHash().getBytes(), p2PHKSignature.getSignData().getSignBytes(), p2PHKSignature.getPublicKey())) {
+            if (!SignatureVerifier.verify(convertCtx.getHash().getBytes(), p2PHKSignature.getSignData().getSignBytes(), p2PHKSignature.getPublicKey())) {
                 chain.getLogger().info("签名验证错误，hash:{},签名:{}\n\n", hashHex, signHex);
                 return;
             }
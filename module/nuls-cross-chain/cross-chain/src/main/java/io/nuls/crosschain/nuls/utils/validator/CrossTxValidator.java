@@ -5,9 +5,9 @@ import io.nuls.base.basic.TransactionFeeCalculator;
 import io.nuls.base.data.*;
 import io.nuls.base.signture.P2PHKSignature;
 import io.nuls.base.signture.SignatureUtil;
+import io.nuls.base.signture.SignatureVerifier;
 import io.nuls.base.signture.TransactionSignature;
 import io.nuls.core.constant.TxType;
-import io.nuls.core.crypto.ECKey;
 import io.nuls.core.model.ArraysTool;
 import io.nuls.core.model.ByteUtils;
 import io.nuls.core.model.StringUtils;
@@ -109,7 +109,7 @@ public class CrossTxValidator {
                 boolean verifyResult = false;
                 byte[] txHashByte = tx.getHash().getBytes();
                 for (P2PHKSignature signature : transactionSignature.getP2PHKSignatures()){
-                    if (!ECKey.verify(txHashByte, signature.getSignData().getSignBytes(), signature.getPublicKey())) {
+                    if (!SignatureVerifier.verify(txHashByte, signature.getSignData().getSignBytes(), signature.getPublicKey())) {
                         chain.getLogger().error("Signature verification failed");
                         throw new NulsException(new Exception("Transaction signature error !"));
                     }
@@ -23,6 +23,14 @@ public class LedgerConfig implements ModuleConfig {
     private int assetRegDestroyAmount = 200;
     private int decimals = 8;
     private String  symbol;
+    /**
+     * 每条链确认账户状态缓存的字节预算
+     */
+    private long accountCacheBytes = 64L * 1024 * 1024;
+    /**
+     * 区块并行校验的差分模式: 同时执行串行校验并比对结果, 以串行结果为准
+     */
+    private boolean blockValidateDifferential = false;
 
     public String getBlackHolePublicKey() {
         return blackHolePublicKey;
@@ -117,4 +125,20 @@ public class LedgerConfig implements ModuleConfig {
     public void setSymbol(String symbol) {
         this.symbol = symbol;
     }
+
+    public long getAccountCacheBytes() {
+        return accountCacheBytes;
+    }
+
+    public void setAccountCacheBytes(long accountCacheBytes) {
+        this.accountCacheBytes = accountCacheBytes;
+    }
+
+    public boolean isBlockValidateDifferential() {
+        return blockValidateDifferential;
+    }
+
+    public void setBlockValidateDifferential(boolean blockValidateDifferential) {
+        this.blockValidateDifferential = blockValidateDifferential;
+    }
 }
@@ -73,6 +73,14 @@ public class LedgerConstant {
      * 缓存的账户区块数量
      */
     public static final int CACHE_ACCOUNT_BLOCK = 1000;
+    /**
+     * 输出确认账户状态缓存统计的区块间隔
+     */
+    public static final int ACCOUNT_CACHE_STATS_INTERVAL = 1000;
+    /**
+     * 区块交易数达到该值时按账户冲突分组并行校验
+     */
+    public static final int PARALLEL_VALIDATE_MIN_TXS = 64;
     /**
      * 缓存同步统计数据的区块信息
      */
@@ -87,6 +95,10 @@ public class LedgerConstant {
     }
 
     public static final int NONCE_LENGHT = 8;
+    /**
+     * 账本数据库key格式版本, 1为二进制定长key
+     */
+    public static final int LEDGER_KEY_VERSION = 1;
     public static String DEFAULT_ENCODING = "UTF-8";
     /**
      * 未确认交易的过期时间-s，配置加载会重置该值
@@ -32,16 +32,19 @@ import io.nuls.core.rockdb.service.RocksDBService;
 import io.nuls.core.rpc.model.ModuleE;
 import io.nuls.ledger.config.LedgerConfig;
 import io.nuls.ledger.constant.LedgerConstant;
+import io.nuls.ledger.model.ChainHeight;
 import io.nuls.ledger.model.LedgerChain;
 import io.nuls.ledger.service.AssetRegMngService;
 import io.nuls.ledger.service.BlockDataService;
 import io.nuls.ledger.storage.Repository;
+import io.nuls.ledger.storage.impl.LedgerKeyMigration;
 import io.nuls.ledger.storage.impl.LgBlockSyncRepositoryImpl;
 import io.nuls.ledger.storage.impl.RepositoryImpl;
 import io.nuls.ledger.utils.LoggerUtil;
 
 import java.io.File;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -80,6 +83,7 @@ public class LedgerChainManager {
         //建立数据库
         SpringLiteContext.getBean(RepositoryImpl.class).initChainDb(chainId);
         SpringLiteContext.getBean(LgBlockSyncRepositoryImpl.class).initChainDb(chainId);
+        SpringLiteContext.getBean(LedgerKeyMigration.class).migrate(chainId);
         chainMap.put(chainId, ledgerChain);
     }
 
@@ -107,10 +111,25 @@ public class LedgerChainManager {
      * 确认的高度是x,则进行x高度的数据恢复处理
      */
     private void initLedgerDatas() throws Exception {
+        migrateLedgerKeys();
         blockDataService.initBlockDatas();
         assetRegMngService.initDBAssetsIdMap();
     }
 
+    /**
+     * 旧版本字符串key一次性迁移为二进制key, 需在数据恢复处理前完成
+     */
+    private void migrateLedgerKeys() throws Exception {
+        List<ChainHeight> list = blockDataService.getChainsBlockHeight();
+        if (null == list) {
+            return;
+        }
+        LedgerKeyMigration migration = SpringLiteContext.getBean(LedgerKeyMigration.class);
+        for (ChainHeight chainHeight : list) {
+            migration.migrate(chainHeight.getChainId());
+        }
+    }
+
     /**
      * 初始化数据库
      */
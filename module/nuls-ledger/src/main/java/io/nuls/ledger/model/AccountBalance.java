@@ -39,6 +39,10 @@ import java.util.List;
 public class AccountBalance {
     private AccountState nowAccountState;
     private AccountStateSnapshot preAccountState;
+    /**
+     * 账户状态数据库key
+     */
+    private byte[] accountKey;
 
 
     public AccountState getNowAccountState() {
@@ -57,6 +61,14 @@ public class AccountBalance {
         this.preAccountState = preAccountState;
     }
 
+    public byte[] getAccountKey() {
+        return accountKey;
+    }
+
+    public void setAccountKey(byte[] accountKey) {
+        this.accountKey = accountKey;
+    }
+
     public AccountBalance(AccountState nowAccountState, AccountStateSnapshot preAccountState) {
         this.nowAccountState = nowAccountState;
         this.preAccountState = preAccountState;
@@ -39,7 +39,9 @@ import io.nuls.ledger.model.po.sub.FreezeLockTimeState;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * 1.用户地址资产账号对应的账本信息
@@ -69,15 +71,20 @@ public class AccountState extends BaseNulsData {
 
 
     /**
-     * 账户冻结的资产(高度冻结)
+     * 账户冻结的资产(高度冻结), 按解锁高度升序
      */
     private List<FreezeHeightState> freezeHeightStates = new ArrayList<>();
 
     /**
-     * 账户冻结的资产(时间冻结)
+     * 账户冻结的资产(时间冻结), 按解锁时间升序, 永久锁定(负值)在最前
      */
     private List<FreezeLockTimeState> freezeLockTimeStates = new ArrayList<>();
 
+    /**
+     * 冻结总额缓存, 冻结列表变化时置空, 不参与序列化
+     */
+    private transient BigInteger freezeTotal;
+
     public AccountState() {
         super();
     }
@@ -157,6 +164,143 @@ public class AccountState extends BaseNulsData {
                 throw new NulsException(e);
             }
         }
+        //早期数据只在解冻计算时排序, 读取时保证有序
+        if (!isSortedByHeight(freezeHeightStates)) {
+            freezeHeightStates.sort(Comparator.comparingLong(FreezeHeightState::getHeight));
+        }
+        if (!isSortedByLockTime(freezeLockTimeStates)) {
+            freezeLockTimeStates.sort(Comparator.comparingLong(FreezeLockTimeState::getLockTime));
+        }
+        this.freezeTotal = null;
+    }
+
+    private static boolean isSortedByHeight(List<FreezeHeightState> list) {
+        for (int i = 1; i < list.size(); i++) {
+            if (list.get(i - 1).getHeight() > list.get(i).getHeight()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSortedByLockTime(List<FreezeLockTimeState> list) {
+        for (int i = 1; i < list.size(); i++) {
+            if (list.get(i - 1).getLockTime() > list.get(i).getLockTime()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 第一个解锁高度大于height的位置
+     */
+    private int heightUpperBound(long height) {
+        int low = 0;
+        int high = freezeHeightStates.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (freezeHeightStates.get(mid).getHeight() <= height) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 第一个解锁时间大于lockTime的位置
+     */
+    private int lockTimeUpperBound(long lockTime) {
+        int low = 0;
+        int high = freezeLockTimeStates.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (freezeLockTimeStates.get(mid).getLockTime() <= lockTime) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 按解锁高度有序插入, 相同高度保持加入顺序
+     */
+    public void addFreezeHeightState(FreezeHeightState heightState) {
+        freezeHeightStates.add(heightUpperBound(heightState.getHeight()), heightState);
+        freezeTotal = null;
+    }
+
+    /**
+     * 按解锁时间有序插入, 相同时间保持加入顺序
+     */
+    public void addFreezeLockTimeState(FreezeLockTimeState lockTimeState) {
+        freezeLockTimeStates.add(lockTimeUpperBound(lockTimeState.getLockTime()), lockTimeState);
+        freezeTotal = null;
+    }
+
+    public void removeFreezeHeightState(FreezeHeightState heightState) {
+        freezeHeightStates.remove(heightState);
+        freezeTotal = null;
+    }
+
+    public void removeFreezeLockTimeState(FreezeLockTimeState lockTimeState) {
+        freezeLockTimeStates.remove(lockTimeState);
+        freezeTotal = null;
+    }
+
+    /**
+     * 释放解锁高度不大于nowHeight的高度锁, 只处理有序列表的到期前缀
+     *
+     * @param nowHeight 当前确认高度
+     * @return 释放的金额
+     */
+    public BigInteger releaseFreezeHeight(long nowHeight) {
+        return release(freezeHeightStates.subList(0, heightUpperBound(nowHeight)), FreezeHeightState::getAmount);
+    }
+
+    /**
+     * 释放到期的时间锁, 永久锁定不释放
+     *
+     * @param nowTime      当前时间(秒)
+     * @param nowTimeMl    当前时间(毫秒)
+     * @param includeMlTime 是否释放以毫秒表示的时间锁
+     * @return 释放的金额
+     */
+    public BigInteger releaseFreezeLockTime(long nowTime, long nowTimeMl, boolean includeMlTime) {
+        BigInteger amount = BigInteger.ZERO;
+        if (includeMlTime) {
+            //毫秒时间锁都大于秒时间锁, 位于列表末段
+            int mlStart = lockTimeUpperBound(LedgerConstant.LOCKED_ML_TIME_VALUE);
+            int mlEnd = lockTimeUpperBound(nowTimeMl);
+            if (mlEnd > mlStart) {
+                amount = amount.add(release(freezeLockTimeStates.subList(mlStart, mlEnd), FreezeLockTimeState::getAmount));
+            }
+        }
+        int start = lockTimeUpperBound(-1);
+        int end = lockTimeUpperBound(nowTime);
+        if (end > start) {
+            amount = amount.add(release(freezeLockTimeStates.subList(start, end), FreezeLockTimeState::getAmount));
+        }
+        return amount;
+    }
+
+    private <T> BigInteger release(List<T> expired, Function<T, BigInteger> amountGetter) {
+        BigInteger amount = BigInteger.ZERO;
+        if (expired.isEmpty()) {
+            return amount;
+        }
+        for (T state : expired) {
+            amount = amount.add(amountGetter.apply(state));
+        }
+        expired.clear();
+        if (null != freezeTotal) {
+            freezeTotal = freezeTotal.subtract(amount);
+        }
+        return amount;
     }
 
     @Override
@@ -185,6 +329,9 @@ public class AccountState extends BaseNulsData {
      * @return
      */
     public BigInteger getFreezeTotal() {
+        if (null != freezeTotal) {
+            return freezeTotal;
+        }
         BigInteger freeze = BigInteger.ZERO;
         for (FreezeHeightState heightState : freezeHeightStates) {
             freeze = freeze.add(heightState.getAmount());
@@ -193,6 +340,7 @@ public class AccountState extends BaseNulsData {
         for (FreezeLockTimeState lockTimeState : freezeLockTimeStates) {
             freeze = freeze.add(lockTimeState.getAmount());
         }
+        freezeTotal = freeze;
         return freeze;
     }
 
@@ -209,6 +357,7 @@ public class AccountState extends BaseNulsData {
         List<FreezeLockTimeState> lockTimeStateArrayList = new ArrayList<>();
         lockTimeStateArrayList.addAll(this.getFreezeLockTimeStates());
         orgAccountState.setFreezeLockTimeStates(lockTimeStateArrayList);
+        orgAccountState.freezeTotal = this.freezeTotal;
         return orgAccountState;
     }
 
@@ -250,6 +399,7 @@ public class AccountState extends BaseNulsData {
 
     public void setFreezeHeightStates(List<FreezeHeightState> freezeHeightStates) {
         this.freezeHeightStates = freezeHeightStates;
+        this.freezeTotal = null;
     }
 
     public List<FreezeLockTimeState> getFreezeLockTimeStates() {
@@ -258,6 +408,7 @@ public class AccountState extends BaseNulsData {
 
     public void setFreezeLockTimeStates(List<FreezeLockTimeState> freezeLockTimeStates) {
         this.freezeLockTimeStates = freezeLockTimeStates;
+        this.freezeTotal = null;
     }
 
     public boolean timeAllow() {
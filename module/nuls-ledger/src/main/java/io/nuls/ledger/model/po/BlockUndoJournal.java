@@ -0,0 +1,86 @@
+/*-
+ * ⁣⁣
+ * MIT License
+ * ⁣⁣
+ * Copyright (C) 2017 - 2018 nuls.io
+ * ⁣⁣
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ⁣⁣
+ */
+package io.nuls.ledger.model.po;
+
+import io.nuls.base.basic.NulsByteBuffer;
+import io.nuls.base.basic.NulsOutputStreamBuffer;
+import io.nuls.base.data.BaseNulsData;
+import io.nuls.core.exception.NulsException;
+import io.nuls.core.parse.SerializeUtils;
+import io.nuls.ledger.model.po.sub.AccountStateSnapshot;
+import io.nuls.ledger.model.po.sub.AccountStateUndo;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 区块回滚日志, 记录区块中每个变动账户被修改字段在区块前的值
+ * 替代保存完整账户快照的BlockSnapshotAccounts
+ *
+ * Per-block undo journal holding only the changed fields of each touched account.
+ */
+public class BlockUndoJournal extends BaseNulsData {
+
+    private List<AccountStateUndo> undos = new ArrayList<>();
+
+    public BlockUndoJournal() {
+        super();
+    }
+
+    public void add(AccountStateSnapshot pre, AccountState now) throws IOException {
+        undos.add(new AccountStateUndo(pre, now));
+    }
+
+    public List<AccountStateUndo> getUndos() {
+        return undos;
+    }
+
+    @Override
+    protected void serializeToStream(NulsOutputStreamBuffer stream) throws IOException {
+        stream.writeUint32(undos.size());
+        for (AccountStateUndo undo : undos) {
+            stream.writeNulsData(undo);
+        }
+    }
+
+    @Override
+    public void parse(NulsByteBuffer byteBuffer) throws NulsException {
+        int count = (int) byteBuffer.readUint32();
+        for (int i = 0; i < count; i++) {
+            undos.add(byteBuffer.readNulsData(new AccountStateUndo()));
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = SerializeUtils.sizeOfUint32();
+        for (AccountStateUndo undo : undos) {
+            size += SerializeUtils.sizeOfNulsData(undo);
+        }
+        return size;
+    }
+}
@@ -0,0 +1,275 @@
+/*-
+ * ⁣⁣
+ * MIT License
+ * ⁣⁣
+ * Copyright (C) 2017 - 2018 nuls.io
+ * ⁣⁣
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ⁣⁣
+ */
+package io.nuls.ledger.model.po.sub;
+
+import io.nuls.base.basic.AddressTool;
+import io.nuls.base.basic.NulsByteBuffer;
+import io.nuls.base.basic.NulsOutputStreamBuffer;
+import io.nuls.base.data.BaseNulsData;
+import io.nuls.core.exception.NulsException;
+import io.nuls.core.parse.SerializeUtils;
+import io.nuls.ledger.constant.LedgerConstant;
+import io.nuls.ledger.model.po.AccountState;
+import io.nuls.ledger.utils.LedgerUtil;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 区块回滚日志中的单个账户记录, 只保存区块中发生变化的字段在区块前的值
+ * 回滚时以账户当前状态为基础覆盖这些字段, 未变化的字段前后一致, 因此重复回滚结果不变
+ * Undo record of one account: the pre-block values of the fields the block changed.
+ */
+public class AccountStateUndo extends BaseNulsData {
+
+    private static final int NONCE = 1;
+    private static final int LATEST_UNFREEZE_TIME = 1 << 1;
+    private static final int TOTAL_FROM = 1 << 2;
+    private static final int TOTAL_TO = 1 << 3;
+    private static final int FREEZE_HEIGHT = 1 << 4;
+    private static final int FREEZE_LOCK_TIME = 1 << 5;
+
+    /**
+     * 原始地址字节
+     */
+    private byte[] address;
+
+    private int addressChainId;
+
+    private int assetChainId;
+
+    private int assetId;
+
+    /**
+     * 变化字段的标记
+     */
+    private int mask;
+
+    /**
+     * 区块前的账户状态, 只有mask标记的字段有效
+     */
+    private AccountState preState = new AccountState();
+
+    /**
+     * 区块中对应账户的所有nonce值集合
+     */
+    private List<AmountNonce> nonces = new ArrayList<>();
+
+    public AccountStateUndo() {
+        super();
+    }
+
+    public AccountStateUndo(AccountStateSnapshot pre, AccountState now) throws IOException {
+        this.address = AddressTool.getAddressByRealAddr(pre.getAddress());
+        this.addressChainId = pre.getAddressChainId();
+        this.assetChainId = pre.getAssetChainId();
+        this.assetId = pre.getAssetId();
+        this.preState = pre.getAccountState();
+        this.nonces = pre.getNonces();
+        if (!Arrays.equals(preState.getNonce(), now.getNonce())) {
+            mask |= NONCE;
+        }
+        if (preState.getLatestUnFreezeTime() != now.getLatestUnFreezeTime()) {
+            mask |= LATEST_UNFREEZE_TIME;
+        }
+        if (!preState.getTotalFromAmount().equals(now.getTotalFromAmount())) {
+            mask |= TOTAL_FROM;
+        }
+        if (!preState.getTotalToAmount().equals(now.getTotalToAmount())) {
+            mask |= TOTAL_TO;
+        }
+        if (!sameStates(preState.getFreezeHeightStates(), now.getFreezeHeightStates())) {
+            mask |= FREEZE_HEIGHT;
+        }
+        if (!sameStates(preState.getFreezeLockTimeStates(), now.getFreezeLockTimeStates())) {
+            mask |= FREEZE_LOCK_TIME;
+        }
+    }
+
+    private static boolean sameStates(List<? extends BaseNulsData> a, List<? extends BaseNulsData> b) throws IOException {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (a.get(i) != b.get(i) && !Arrays.equals(a.get(i).serialize(), b.get(i).serialize())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 以账户当前状态为基础还原区块前的快照
+     *
+     * @param current 账户当前状态, 不会被修改
+     * @return
+     */
+    public AccountStateSnapshot toSnapshot(AccountState current) {
+        AccountState state = current.deepClone();
+        if ((mask & NONCE) != 0) {
+            state.setNonce(preState.getNonce());
+        }
+        if ((mask & LATEST_UNFREEZE_TIME) != 0) {
+            state.setLatestUnFreezeTime(preState.getLatestUnFreezeTime());
+        }
+        if ((mask & TOTAL_FROM) != 0) {
+            state.setTotalFromAmount(preState.getTotalFromAmount());
+        }
+        if ((mask & TOTAL_TO) != 0) {
+            state.setTotalToAmount(preState.getTotalToAmount());
+        }
+        if ((mask & FREEZE_HEIGHT) != 0) {
+            state.setFreezeHeightStates(new ArrayList<>(preState.getFreezeHeightStates()));
+        }
+        if ((mask & FREEZE_LOCK_TIME) != 0) {
+            state.setFreezeLockTimeStates(new ArrayList<>(preState.getFreezeLockTimeStates()));
+        }
+        AccountStateSnapshot snapshot = new AccountStateSnapshot(addressChainId, assetChainId, assetId, getAddressStr(), state);
+        snapshot.setNonces(nonces);
+        return snapshot;
+    }
+
+    public String getAccountKey() {
+        return LedgerUtil.getKeyStr(getAddressStr(), assetChainId, assetId);
+    }
+
+    public String getAddressStr() {
+        return AddressTool.getStringAddressNoPrefix(address);
+    }
+
+    @Override
+    protected void serializeToStream(NulsOutputStreamBuffer stream) throws IOException {
+        stream.writeBytesWithLength(address);
+        stream.writeUint16(addressChainId);
+        stream.writeUint16(assetChainId);
+        stream.writeUint16(assetId);
+        stream.writeByte((byte) mask);
+        if ((mask & NONCE) != 0) {
+            stream.write(preState.getNonce());
+        }
+        if ((mask & LATEST_UNFREEZE_TIME) != 0) {
+            stream.writeUint32(preState.getLatestUnFreezeTime());
+        }
+        if ((mask & TOTAL_FROM) != 0) {
+            stream.writeBigInteger(preState.getTotalFromAmount());
+        }
+        if ((mask & TOTAL_TO) != 0) {
+            stream.writeBigInteger(preState.getTotalToAmount());
+        }
+        if ((mask & FREEZE_HEIGHT) != 0) {
+            stream.writeUint32(preState.getFreezeHeightStates().size());
+            for (FreezeHeightState heightState : preState.getFreezeHeightStates()) {
+                stream.writeNulsData(heightState);
+            }
+        }
+        if ((mask & FREEZE_LOCK_TIME) != 0) {
+            stream.writeUint32(preState.getFreezeLockTimeStates().size());
+            for (FreezeLockTimeState lockTimeState : preState.getFreezeLockTimeStates()) {
+                stream.writeNulsData(lockTimeState);
+            }
+        }
+        stream.writeUint16(nonces.size());
+        for (AmountNonce nonce : nonces) {
+            stream.writeNulsData(nonce);
+        }
+    }
+
+    @Override
+    public void parse(NulsByteBuffer byteBuffer) throws NulsException {
+        this.address = byteBuffer.readByLengthByte();
+        this.addressChainId = byteBuffer.readUint16();
+        this.assetChainId = byteBuffer.readUint16();
+        this.assetId = byteBuffer.readUint16();
+        this.mask = byteBuffer.readByte();
+        if ((mask & NONCE) != 0) {
+            preState.setNonce(byteBuffer.readBytes(LedgerConstant.NONCE_LENGHT));
+        }
+        if ((mask & LATEST_UNFREEZE_TIME) != 0) {
+            preState.setLatestUnFreezeTime(byteBuffer.readUint32());
+        }
+        if ((mask & TOTAL_FROM) != 0) {
+            preState.setTotalFromAmount(byteBuffer.readBigInteger());
+        }
+        if ((mask & TOTAL_TO) != 0) {
+            preState.setTotalToAmount(byteBuffer.readBigInteger());
+        }
+        if ((mask & FREEZE_HEIGHT) != 0) {
+            int count = (int) byteBuffer.readUint32();
+            for (int i = 0; i < count; i++) {
+                preState.getFreezeHeightStates().add(byteBuffer.readNulsData(new FreezeHeightState()));
+            }
+        }
+        if ((mask & FREEZE_LOCK_TIME) != 0) {
+            int count = (int) byteBuffer.readUint32();
+            for (int i = 0; i < count; i++) {
+                preState.getFreezeLockTimeStates().add(byteBuffer.readNulsData(new FreezeLockTimeState()));
+            }
+        }
+        int nonceCount = byteBuffer.readUint16();
+        for (int i = 0; i < nonceCount; i++) {
+            nonces.add(byteBuffer.readNulsData(new AmountNonce()));
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = SerializeUtils.sizeOfBytes(address);
+        size += SerializeUtils.sizeOfUint16() * 3;
+        size += 1;
+        if ((mask & NONCE) != 0) {
+            size += LedgerConstant.NONCE_LENGHT;
+        }
+        if ((mask & LATEST_UNFREEZE_TIME) != 0) {
+            size += SerializeUtils.sizeOfUint32();
+        }
+        if ((mask & TOTAL_FROM) != 0) {
+            size += SerializeUtils.sizeOfBigInteger();
+        }
+        if ((mask & TOTAL_TO) != 0) {
+            size += SerializeUtils.sizeOfBigInteger();
+        }
+        if ((mask & FREEZE_HEIGHT) != 0) {
+            size += SerializeUtils.sizeOfUint32();
+            for (FreezeHeightState heightState : preState.getFreezeHeightStates()) {
+                size += SerializeUtils.sizeOfNulsData(heightState);
+            }
+        }
+        if ((mask & FREEZE_LOCK_TIME) != 0) {
+            size += SerializeUtils.sizeOfUint32();
+            for (FreezeLockTimeState lockTimeState : preState.getFreezeLockTimeStates()) {
+                size += SerializeUtils.sizeOfNulsData(lockTimeState);
+            }
+        }
+        size += SerializeUtils.sizeOfUint16();
+        for (AmountNonce nonce : nonces) {
+            size += SerializeUtils.sizeOfNulsData(nonce);
+        }
+        return size;
+    }
+
+}
@@ -58,9 +58,12 @@ public class BaseLedgerCmd extends BaseCmd {
         return true;
     }
 
-    Response parseTxs(List<String> txStrList, List<Transaction> txList, int chainId) {
-        for (String txStr : txStrList) {
-            Transaction tx = RPCUtil.getInstanceRpcStr(txStr, Transaction.class);
+    /**
+     * 解析交易列表，元素可以是十六进制字符串或二进制通道传来的原始byte[]
+     */
+    Response parseTxs(List<?> txDataList, List<Transaction> txList, int chainId) {
+        for (Object txData : txDataList) {
+            Transaction tx = RPCUtil.getInstanceRpcData(txData, Transaction.class);
             if (null == tx) {
                 return failed(LedgerErrorCode.TX_IS_WRONG);
             } else {
@@ -95,7 +95,7 @@ public interface TransactionService {
      * @return
      * @throws Exception
      */
-    boolean fromNonceExist(int addressChainId, String accountNonceKey) throws Exception;
+    boolean fromNonceExist(int addressChainId, byte[] accountNonceKey) throws Exception;
 
     /**
      *是否已存在hash
@@ -104,5 +104,5 @@ public interface TransactionService {
      * @return
      * @throws Exception
      */
-    boolean hadTxExist(int addressChainId, String hash) throws Exception;
+    boolean hadTxExist(int addressChainId, byte[] hash) throws Exception;
 }
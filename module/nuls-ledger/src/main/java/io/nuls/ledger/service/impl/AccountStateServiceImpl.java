@@ -40,6 +40,7 @@ import io.nuls.ledger.service.FreezeStateService;
 import io.nuls.ledger.service.UnconfirmedStateService;
 import io.nuls.ledger.storage.Repository;
 import io.nuls.ledger.storage.UnconfirmedRepository;
+import io.nuls.ledger.utils.LedgerKeyUtil;
 import io.nuls.ledger.utils.LedgerUtil;
 
 import java.math.BigInteger;
@@ -73,7 +74,7 @@ public class AccountStateServiceImpl implements AccountStateService {
         for (AccountStateSnapshot accountStateSnapshot : preAccountStates) {
             String assetKey = LedgerUtil.getKeyStr(accountStateSnapshot.getAddress(),
                     accountStateSnapshot.getAssetChainId(), accountStateSnapshot.getAssetId());
-            accountStates.put(assetKey.getBytes(LedgerConstant.DEFAULT_ENCODING), accountStateSnapshot.getAccountState().serialize());
+            accountStates.put(LedgerKeyUtil.getAccountKey(accountStateSnapshot.getAddress(), accountStateSnapshot.getAssetChainId(), accountStateSnapshot.getAssetId()), accountStateSnapshot.getAccountState().serialize());
             accountStatesMem.put(assetKey, accountStateSnapshot.getAccountState());
             //获取当前数据库值
             Map<String, TxUnconfirmed> unconfirmedNonces = new HashMap<>(64);
@@ -112,13 +113,8 @@ public class AccountStateServiceImpl implements AccountStateService {
      */
     @Override
     public AccountState getAccountState(String address, int addressChainId, int assetChainId, int assetId) {
-        //尝试缓存获取
-        AccountState accountState = repository.getAccountStateByMemory(addressChainId, LedgerUtil.getKeyStr(address, assetChainId, assetId));
-        if (null != accountState) {
-            return accountState;
-        }
-        byte[] key = LedgerUtil.getKey(address, assetChainId, assetId);
-        accountState = repository.getAccountState(addressChainId, key);
+        //只读访问直接使用缓存快照,不复制
+        AccountState accountState = repository.getAccountStateSnapshot(addressChainId, LedgerUtil.getKeyStr(address, assetChainId, assetId));
         if (null == accountState) {
             accountState = new AccountState(LedgerConstant.getInitNonceByte());
         }
@@ -43,6 +43,7 @@ import io.nuls.ledger.service.AssetRegMngService;
 import io.nuls.ledger.service.ChainAssetsService;
 import io.nuls.ledger.storage.AssetRegMngRepository;
 import io.nuls.ledger.storage.Repository;
+import io.nuls.ledger.utils.LedgerKeyUtil;
 import io.nuls.ledger.utils.LedgerUtil;
 import io.nuls.ledger.utils.LoggerUtil;
 
@@ -180,12 +181,11 @@ public class AssetRegMngServiceImpl implements AssetRegMngService {
             assets.put(ByteUtils.intToBytes(ledgerAsset.getAssetId()), ledgerAsset.serialize());
             hashMap.put(HexUtil.decode(ledgerAsset.getTxHash()), ByteUtils.intToBytes(ledgerAsset.getAssetId()));
             String address = LedgerUtil.getRealAddressStr(ledgerAsset.getAssetOwnerAddress());
-            String key = LedgerUtil.getKeyStr(address, chainId, assetId);
             AccountState accountState = new AccountState();
             long decimal = (long) Math.pow(10, Integer.valueOf(ledgerAsset.getDecimalPlace()));
             BigInteger amount = ledgerAsset.getInitNumber().multiply(BigInteger.valueOf(decimal));
             accountState.setTotalToAmount(amount);
-            accountStatesMap.put(key.getBytes(LedgerConstant.DEFAULT_ENCODING), accountState.serialize());
+            accountStatesMap.put(LedgerKeyUtil.getAccountKey(ledgerAsset.getAssetOwnerAddress(), chainId, assetId), accountState.serialize());
             LedgerUtil.dealAssetAddressIndex(assetAddressIndex, chainId, ledgerAsset.getAssetId(), address);
         }
         assetRegMngRepository.batchSaveLedgerAssetReg(chainId, assets, hashMap);
@@ -211,7 +211,7 @@ public class AssetRegMngServiceImpl implements AssetRegMngService {
             String address = LedgerUtil.getRealAddressStr(ledgerAsset.getAssetOwnerAddress());
             String key = LedgerUtil.getKeyStr(address, chainId, assetId);
             delMap.put(key, new AccountState());
-            delKeys.add(key.getBytes(LedgerConstant.DEFAULT_ENCODING));
+            delKeys.add(LedgerKeyUtil.getAccountKey(ledgerAsset.getAssetOwnerAddress(), chainId, assetId));
         }
         repository.clearAccountStateMem(chainId, delMap);
         assetRegMngRepository.batchRollBackLedgerAssetReg(chainId, list);
@@ -41,6 +41,7 @@ import io.nuls.ledger.service.ChainAssetsService;
 import io.nuls.ledger.service.TransactionService;
 import io.nuls.ledger.storage.LgBlockSyncRepository;
 import io.nuls.ledger.storage.Repository;
+import io.nuls.ledger.utils.LedgerKeyUtil;
 import io.nuls.ledger.utils.CoinDataUtil;
 import io.nuls.ledger.utils.LedgerUtil;
 import io.nuls.ledger.utils.LoggerUtil;
@@ -136,7 +137,7 @@ public class BlockDataServiceImpl implements BlockDataService {
             byte[] nonce8Bytes = LedgerUtil.getNonceByTx(transaction);
             String txHash = transaction.getHash().toHex();
             blockSnapshotTxs.addHash(txHash);
-            saveHashMap.put(ByteUtils.toBytes(txHash, LedgerConstant.DEFAULT_ENCODING), ByteUtils.longToBytes(height));
+            saveHashMap.put(transaction.getHash().getBytes(), ByteUtils.longToBytes(height));
             //从缓存校验交易
             CoinData coinData = CoinDataUtil.parseCoinData(transaction.getCoinData());
             if (null == coinData) {
@@ -154,7 +155,7 @@ public class BlockDataServiceImpl implements BlockDataService {
                     String nonce8Str = LedgerUtil.getNonceEncode(nonce8Bytes);
                     String addressNonce = LedgerUtil.getAccountNoncesStrKey(address, from.getAssetsChainId(), from.getAssetsId(), nonce8Str);
                     blockSnapshotTxs.addNonce(addressNonce);
-                    ledgerNonce.put(ByteUtils.toBytes(addressNonce, LedgerConstant.DEFAULT_ENCODING), ByteUtils.intToBytes(1));
+                    ledgerNonce.put(LedgerKeyUtil.getNonceKey(from.getAddress(), from.getAssetsChainId(), from.getAssetsId(), nonce8Bytes), ByteUtils.intToBytes(1));
                 }
             }
             List<CoinTo> tos = coinData.getTo();
@@ -25,11 +25,9 @@
  */
 package io.nuls.ledger.service.impl;
 
-import io.nuls.base.protocol.ProtocolGroupManager;
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
 import io.nuls.core.rpc.util.NulsDateUtils;
-import io.nuls.ledger.constant.LedgerConstant;
 import io.nuls.ledger.model.po.AccountState;
 import io.nuls.ledger.model.po.sub.FreezeHeightState;
 import io.nuls.ledger.model.po.sub.FreezeLockTimeState;
@@ -38,7 +36,6 @@ import io.nuls.ledger.storage.Repository;
 import io.nuls.ledger.utils.LedgerUtil;
 
 import java.math.BigInteger;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -51,75 +48,6 @@ public class FreezeStateServiceImpl implements FreezeStateService {
     @Autowired
     Repository repository;
 
-    private BigInteger unFreezeLockTimeState(List<FreezeLockTimeState> timeList, AccountState accountState) {
-        long nowTime = NulsDateUtils.getCurrentTimeSeconds();
-        long nowTimeMl = NulsDateUtils.getCurrentTimeMillis();
-        //可移除的时间锁列表
-        List<FreezeLockTimeState> timeRemove = new ArrayList<>();
-        timeList.sort((x, y) -> Long.compare(x.getLockTime(), y.getLockTime()));
-        for (FreezeLockTimeState freezeLockTimeState : timeList) {
-            if (freezeLockTimeState.getLockTime() <= nowTime) {
-                //永久锁定的,继续处理
-                if (LedgerUtil.isPermanentLock(freezeLockTimeState.getLockTime())) {
-                    continue;
-                }
-                timeRemove.add(freezeLockTimeState);
-            }
-        }
-        BigInteger addToAmount = BigInteger.ZERO;
-        for (FreezeLockTimeState freezeLockTimeState : timeRemove) {
-            timeList.remove(freezeLockTimeState);
-            addToAmount = addToAmount.add(freezeLockTimeState.getAmount());
-        }
-        return addToAmount;
-    }
-
-    private BigInteger unFreezeLockTimeStateV2(List<FreezeLockTimeState> timeList, AccountState accountState) {
-        long nowTime = NulsDateUtils.getCurrentTimeSeconds();
-        long nowTimeMl = NulsDateUtils.getCurrentTimeMillis();
-        //可移除的时间锁列表
-        List<FreezeLockTimeState> timeRemove = new ArrayList<>();
-        timeList.sort((x, y) -> Long.compare(x.getLockTime(), y.getLockTime()));
-        for (FreezeLockTimeState freezeLockTimeState : timeList) {
-            if ((freezeLockTimeState.getLockTime() <= nowTime) || (freezeLockTimeState.getLockTime() > LedgerConstant.LOCKED_ML_TIME_VALUE && freezeLockTimeState.getLockTime() <= nowTimeMl)) {
-                //永久锁定的,继续处理
-                if (LedgerUtil.isPermanentLock(freezeLockTimeState.getLockTime())) {
-                    continue;
-                }
-                timeRemove.add(freezeLockTimeState);
-            }
-        }
-        BigInteger addToAmount = BigInteger.ZERO;
-        for (FreezeLockTimeState freezeLockTimeState : timeRemove) {
-            timeList.remove(freezeLockTimeState);
-            addToAmount = addToAmount.add(freezeLockTimeState.getAmount());
-        }
-        return addToAmount;
-    }
-
-    private BigInteger unFreezeLockHeightState(int addressChainId, List<FreezeHeightState> heightList, AccountState accountState) {
-        //此处高度可以做个时间缓存
-        long nowHeight = repository.getBlockHeight(addressChainId);
-        //可移除的高度锁列表
-        List<FreezeHeightState> heightRemove = new ArrayList<>();
-        heightList.sort((x, y) -> Long.compare(x.getHeight(), y.getHeight()));
-        for (FreezeHeightState freezeHeightState : heightList) {
-            if (freezeHeightState.getHeight() <= nowHeight) {
-                //时间到期，进行解锁
-                heightRemove.add(freezeHeightState);
-            } else {
-                //因为正序排列，所以可以跳出
-                break;
-            }
-        }
-        BigInteger addToAmount = BigInteger.ZERO;
-        for (FreezeHeightState freezeHeightState : heightRemove) {
-            heightList.remove(freezeHeightState);
-            addToAmount = addToAmount.add(freezeHeightState.getAmount());
-        }
-        return addToAmount;
-    }
-
     /**
      * 释放账户的锁定记录
      *
@@ -134,14 +62,16 @@ public class FreezeStateServiceImpl implements FreezeStateService {
         if (timeList.size() == 0 && heightList.size() == 0) {
             return true;
         }
+        //冻结列表按解锁时间/高度有序, 只释放到期的前缀
         BigInteger addTimeAmount = BigInteger.ZERO;
-        if (LedgerUtil.getVersion(addressChainId) >1) {
-            addTimeAmount = unFreezeLockTimeStateV2(timeList, accountState);
-        } else {
-            addTimeAmount = unFreezeLockTimeState(timeList, accountState);
+        if (timeList.size() > 0) {
+            addTimeAmount = accountState.releaseFreezeLockTime(NulsDateUtils.getCurrentTimeSeconds(), NulsDateUtils.getCurrentTimeMillis(),
+                    LedgerUtil.getVersion(addressChainId) > 1);
+        }
+        BigInteger addHeightAmount = BigInteger.ZERO;
+        if (heightList.size() > 0) {
+            addHeightAmount = accountState.releaseFreezeHeight(repository.getBlockHeight(addressChainId));
         }
-
-        BigInteger addHeightAmount = unFreezeLockHeightState(addressChainId, heightList, accountState);
         accountState.addTotalToAmount(addTimeAmount);
         accountState.addTotalToAmount(addHeightAmount);
         return true;
@@ -28,6 +28,7 @@ package io.nuls.ledger.service.impl;
 import io.nuls.base.data.*;
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
+import io.nuls.core.model.ByteArrayWrapper;
 import io.nuls.core.rpc.util.NulsDateUtils;
 import io.nuls.ledger.constant.LedgerConstant;
 import io.nuls.ledger.constant.LedgerErrorCode;
@@ -36,6 +37,7 @@ import io.nuls.ledger.model.Uncfd2CfdKey;
 import io.nuls.ledger.model.ValidateResult;
 import io.nuls.ledger.model.po.AccountState;
 import io.nuls.ledger.model.po.BlockSnapshotAccounts;
+import io.nuls.ledger.model.po.BlockUndoJournal;
 import io.nuls.ledger.model.po.TxUnconfirmed;
 import io.nuls.ledger.model.po.sub.AccountStateSnapshot;
 import io.nuls.ledger.model.po.sub.AmountNonce;
@@ -45,6 +47,7 @@ import io.nuls.ledger.service.processor.LockedTransactionProcessor;
 import io.nuls.ledger.storage.LgBlockSyncRepository;
 import io.nuls.ledger.storage.Repository;
 import io.nuls.ledger.utils.CoinDataUtil;
+import io.nuls.ledger.utils.LedgerKeyUtil;
 import io.nuls.ledger.utils.LedgerUtil;
 import io.nuls.ledger.utils.LockerUtil;
 import io.nuls.ledger.utils.LoggerUtil;
@@ -86,11 +89,11 @@ public class TransactionServiceImpl implements TransactionService {
     /**
      * 缓存一个区块的nonce值
      */
-    private Map<String, Integer> ledgerNonce = new ConcurrentHashMap<String, Integer>(5120);
+    private Map<ByteArrayWrapper, Integer> ledgerNonce = new ConcurrentHashMap<>(5120);
     /**
      * 缓存一个区块的hash值
      */
-    private Map<String, Integer> ledgerHash = new ConcurrentHashMap<>(5120);
+    private Map<ByteArrayWrapper, Integer> ledgerHash = new ConcurrentHashMap<>(5120);
 
 
     /**
@@ -110,23 +113,33 @@ public class TransactionServiceImpl implements TransactionService {
         if (!coinDataValidator.validateTxAmount(coinData, transaction.getType())) {
             return ValidateResult.getResult(LedgerErrorCode.TX_AMOUNT_INVALIDATE, new String[]{transaction.getHash().toHex()});
         }
-        /*未确认交易的校验*/
-        Map<String, TxUnconfirmed> accountsMap = new ConcurrentHashMap<>(8);
-        byte[] txNonce = LedgerUtil.getNonceByTx(transaction);
-        ValidateResult validateResult = coinDataValidator.analysisCoinData(addressChainId, transaction, accountsMap, txNonce);
-        if (!validateResult.isSuccess()) {
-            return validateResult;
+        //只锁定交易涉及的from账户,不同账户的未确认交易可并行处理
+        Set<String> accountKeys = new HashSet<>();
+        for (CoinFrom from : coinData.getFrom()) {
+            accountKeys.add(LedgerUtil.getKeyStr(LedgerUtil.getRealAddressStr(from.getAddress()), from.getAssetsChainId(), from.getAssetsId()));
         }
-        Set keys = accountsMap.keySet();
-        Iterator<String> it = keys.iterator();
-        while (it.hasNext()) {
-            TxUnconfirmed txUnconfirmed = accountsMap.get(it.next());
-            ValidateResult updateResult = unconfirmedStateService.updateUnconfirmedTx(transaction.getHash().toHex(), addressChainId, txNonce, txUnconfirmed);
-            if (!updateResult.isSuccess()) {
-                return updateResult;
+        int[] stripes = LockerUtil.lockAccounts(accountKeys);
+        try {
+            /*未确认交易的校验*/
+            Map<String, TxUnconfirmed> accountsMap = new ConcurrentHashMap<>(8);
+            byte[] txNonce = LedgerUtil.getNonceByTx(transaction);
+            ValidateResult validateResult = coinDataValidator.analysisCoinData(addressChainId, transaction, accountsMap, txNonce);
+            if (!validateResult.isSuccess()) {
+                return validateResult;
+            }
+            Set keys = accountsMap.keySet();
+            Iterator<String> it = keys.iterator();
+            while (it.hasNext()) {
+                TxUnconfirmed txUnconfirmed = accountsMap.get(it.next());
+                ValidateResult updateResult = unconfirmedStateService.updateUnconfirmedTx(transaction.getHash().toHex(), addressChainId, txNonce, txUnconfirmed);
+                if (!updateResult.isSuccess()) {
+                    return updateResult;
+                }
             }
+            return ValidateResult.getSuccess();
+        } finally {
+            LockerUtil.unlockAccounts(stripes);
         }
-        return ValidateResult.getSuccess();
     }
 
 
@@ -137,7 +150,7 @@ public class TransactionServiceImpl implements TransactionService {
             byte[] nonce8Bytes = LedgerUtil.getNonceByTx(transaction);
             String nonce8Str = LedgerUtil.getNonceEncode(nonce8Bytes);
             String txHash = transaction.getHash().toHex();
-            ledgerHash.put(txHash, 1);
+            ledgerHash.put(new ByteArrayWrapper(transaction.getHash().getBytes()), 1);
             //从缓存校验交易
             CoinData coinData = CoinDataUtil.parseCoinData(transaction.getCoinData());
             if (null == coinData) {
@@ -180,7 +193,7 @@ public class TransactionServiceImpl implements TransactionService {
                     }
                     //非解锁交易处理
                     process = commontTransactionProcessor.processFromCoinData(from, nonce8Bytes, accountBalance.getNowAccountState());
-                    ledgerNonce.put(LedgerUtil.getAccountNoncesStrKey(address, from.getAssetsChainId(), from.getAssetsId(), nonce8Str), 1);
+                    ledgerNonce.put(new ByteArrayWrapper(LedgerKeyUtil.getNonceKey(from.getAddress(), from.getAssetsChainId(), from.getAssetsId(), nonce8Bytes)), 1);
                 } else {
                     process = lockedTransactionProcessor.processCoinData(from, nonce8Bytes, txHash, accountBalance.getNowAccountState(), transaction.getTime(), address, true);
                 }
@@ -235,7 +248,7 @@ public class TransactionServiceImpl implements TransactionService {
     public boolean confirmBlockProcess(int addressChainId, List<Transaction> txList, long blockHeight) {
         try {
             cleanBlockCommitTempDatas();
-            LockerUtil.LEDGER_LOCKER.lock();
+            LockerUtil.LEDGER_LOCKER.writeLock().lock();
             long currentDbHeight = repository.getBlockHeight(addressChainId);
             if ((blockHeight - currentDbHeight) != 1) {
                 //高度不一致，数据出问题了
@@ -246,8 +259,9 @@ public class TransactionServiceImpl implements TransactionService {
             //批量交易按交易进行账户的金额处理，再按区块为原子性进行提交,updateAccounts用于账户计算缓存，最后统一处理
             Map<String, AccountBalance> updateAccounts = new HashMap<>(accountMapSize);
             Map<String, AccountState> updateMemAccounts = new HashMap<>(accountMapSize);
-            //整体区块备份
+            //整体区块备份, 回滚日志只记录变动字段
             BlockSnapshotAccounts blockSnapshotAccounts = new BlockSnapshotAccounts();
+            BlockUndoJournal undoJournal = new BlockUndoJournal();
             Map<byte[], byte[]> accountStatesMap = new HashMap<>(accountMapSize);
             List<Uncfd2CfdKey> delUncfd2CfdKeys = new ArrayList<>();
             Map<String, Integer> clearUncfs = new HashMap<>(txList.size());
@@ -263,7 +277,8 @@ public class TransactionServiceImpl implements TransactionService {
                     blockSnapshotAccounts.addAccountState(entry.getValue().getPreAccountState());
                     freezeStateService.recalculateFreeze(addressChainId, entry.getValue().getNowAccountState());
                     entry.getValue().getNowAccountState().setLatestUnFreezeTime(NulsDateUtils.getCurrentTimeSeconds());
-                    accountStatesMap.put(entry.getKey().getBytes(LedgerConstant.DEFAULT_ENCODING), entry.getValue().getNowAccountState().serialize());
+                    undoJournal.add(entry.getValue().getPreAccountState(), entry.getValue().getNowAccountState());
+                    accountStatesMap.put(entry.getValue().getAccountKey(), entry.getValue().getNowAccountState().serialize());
                     updateMemAccounts.put(entry.getKey(), entry.getValue().getNowAccountState());
                 }
             } catch (Exception e) {
@@ -274,41 +289,40 @@ public class TransactionServiceImpl implements TransactionService {
             }
             //提交整体数据
             try {
-                //备份历史
-                repository.saveBlockSnapshot(addressChainId, blockHeight, blockSnapshotAccounts);
                 //更新链下资产种类，及资产地址集合数据。
                 chainAssetsService.updateChainAssets(addressChainId, assetAddressIndex);
-                //更新账本
-                if (accountStatesMap.size() > 0) {
-                    repository.batchUpdateAccountState(addressChainId, accountStatesMap, updateMemAccounts);
-                }
+                //回滚日志、账本、确认高度一起提交,并删除过期的回滚日志
+                repository.commitBlock(addressChainId, blockHeight, undoJournal, accountStatesMap, updateMemAccounts);
+            } catch (Exception e) {
+                //需要回滚数据
+                cleanBlockCommitTempDatas();
+                logger(addressChainId).error(e);
+                LoggerUtil.logger(addressChainId).error("confirmBlockProcess  error! go rollBackBlock!addrChainId={},height={}", addressChainId, blockHeight);
+                rollBackBlock(addressChainId, blockSnapshotAccounts.getAccounts(), blockHeight);
+                return false;
+            }
+            //区块已提交,未确认数据的清理失败不影响确认结果
+            try {
                 for (Map.Entry<String, Integer> entry : clearUncfs.entrySet()) {
                     //进行收到网络其他节点的交易，刷新本地未确认数据处理
                     unconfirmedStateService.clearAccountUnconfirmed(addressChainId, entry.getKey());
                 }
                 //删除跃迁的未确认交易
                 unconfirmedStateService.batchDeleteUnconfirmedTx(addressChainId, delUncfd2CfdKeys);
-                //删除过期缓存数据
-                if (blockHeight > LedgerConstant.CACHE_ACCOUNT_BLOCK) {
-                    repository.delBlockSnapshot(addressChainId, (blockHeight - LedgerConstant.CACHE_ACCOUNT_BLOCK));
+                if (blockHeight % LedgerConstant.ACCOUNT_CACHE_STATS_INTERVAL == 0) {
+                    logger(addressChainId).info("account cache stats height={},{}", blockHeight, repository.getAccountCacheStats(addressChainId));
                 }
             } catch (Exception e) {
-                //需要回滚数据
-                cleanBlockCommitTempDatas();
+                logger(addressChainId).error("confirmBlockProcess clear unconfirmed error,height={}", blockHeight);
                 logger(addressChainId).error(e);
-                LoggerUtil.logger(addressChainId).error("confirmBlockProcess  error! go rollBackBlock!addrChainId={},height={}", addressChainId, blockHeight);
-                rollBackBlock(addressChainId, blockSnapshotAccounts.getAccounts(), blockHeight);
-                return false;
             }
-            //完全提交,存储当前高度。
-            repository.saveOrUpdateBlockHeight(addressChainId, blockHeight);
             return true;
         } catch (Exception e) {
             LoggerUtil.logger(addressChainId).error("confirmBlockProcess error", e);
             cleanBlockCommitTempDatas();
             return false;
         } finally {
-            LockerUtil.LEDGER_LOCKER.unlock();
+            LockerUtil.LEDGER_LOCKER.writeLock().unlock();
 
         }
 
@@ -324,6 +338,7 @@ public class TransactionServiceImpl implements TransactionService {
             AccountState accountState = accountStateService.getAccountStateReCal(address, addressChainId, assetChainId, assetId);
             AccountStateSnapshot bakAccountState = new AccountStateSnapshot(addressChainId, assetChainId, assetId, address, accountState.deepClone());
             accountBalance = new AccountBalance(accountState, bakAccountState);
+            accountBalance.setAccountKey(LedgerKeyUtil.getAccountKey(coin.getAddress(), assetChainId, assetId));
             updateAccounts.put(key, accountBalance);
         }
         return accountBalance;
@@ -355,7 +370,7 @@ public class TransactionServiceImpl implements TransactionService {
     @Override
     public boolean rollBackConfirmTxs(int addressChainId, long blockHeight, List<Transaction> txs) {
         try {
-            LockerUtil.LEDGER_LOCKER.lock();
+            LockerUtil.LEDGER_LOCKER.writeLock().lock();
             cleanBlockCommitTempDatas();
             long currentDbHeight = repository.getBlockHeight(addressChainId);
             if ((blockHeight - currentDbHeight) == 1) {
@@ -380,18 +395,17 @@ public class TransactionServiceImpl implements TransactionService {
             repository.delBlockSnapshot(addressChainId, blockHeight);
             //回滚nonce缓存信息
             txs.forEach(tx -> {
-                String txHash = tx.getHash().toHex();
                 //从缓存校验交易
                 CoinData coinData = CoinDataUtil.parseCoinData(tx.getCoinData());
                 //删除备份的hash
                 try {
-                    lgBlockSyncRepository.deleteAccountHash(addressChainId, txHash);
+                    lgBlockSyncRepository.deleteAccountHash(addressChainId, tx.getHash().getBytes());
                 } catch (Exception e) {
                     LoggerUtil.logger(addressChainId).error(e);
                 }
                 if (null != coinData) {
                     //更新账户状态
-                    String nonce8BytesStr = LedgerUtil.getNonceEncodeByTx(tx);
+                    byte[] nonce8Bytes = LedgerUtil.getNonceByTx(tx);
                     List<CoinFrom> froms = coinData.getFrom();
                     for (CoinFrom from : froms) {
                         if (LedgerUtil.isNotLocalChainAccount(addressChainId, from.getAddress())) {
@@ -400,7 +414,7 @@ public class TransactionServiceImpl implements TransactionService {
                         if (from.getLocked() == 0) {
                             try {
                                 //删除备份的花费nonce值。
-                                lgBlockSyncRepository.deleteAccountNonces(addressChainId, LedgerUtil.getAccountNoncesStrKey(LedgerUtil.getRealAddressStr(from.getAddress()), from.getAssetsChainId(), from.getAssetsId(), nonce8BytesStr));
+                                lgBlockSyncRepository.deleteAccountNonces(addressChainId, LedgerKeyUtil.getNonceKey(from.getAddress(), from.getAssetsChainId(), from.getAssetsId(), nonce8Bytes));
                             } catch (Exception e) {
                                 LoggerUtil.logger(addressChainId).error(e);
                             }
@@ -413,7 +427,7 @@ public class TransactionServiceImpl implements TransactionService {
             repository.saveOrUpdateBlockHeight(addressChainId, blockHeight);
             return false;
         } finally {
-            LockerUtil.LEDGER_LOCKER.unlock();
+            LockerUtil.LEDGER_LOCKER.writeLock().unlock();
         }
         return true;
     }
@@ -443,7 +457,12 @@ public class TransactionServiceImpl implements TransactionService {
             int assetChainId = from.getAssetsChainId();
             int assetId = from.getAssetsId();
             String assetKey = LedgerUtil.getKeyStr(address, assetChainId, assetId);
-            return unconfirmedStateService.rollUnconfirmedTx(addressChainId, assetKey, txHash);
+            int[] stripes = LockerUtil.lockAccounts(Collections.singleton(assetKey));
+            try {
+                return unconfirmedStateService.rollUnconfirmedTx(addressChainId, assetKey, txHash);
+            } finally {
+                LockerUtil.unlockAccounts(stripes);
+            }
         }
         return true;
     }
@@ -459,14 +478,14 @@ public class TransactionServiceImpl implements TransactionService {
     }
 
     @Override
-    public boolean fromNonceExist(int addressChainId, String accountNonceKey) throws Exception {
-        return ledgerNonce.containsKey(accountNonceKey);
+    public boolean fromNonceExist(int addressChainId, byte[] accountNonceKey) throws Exception {
+        return ledgerNonce.containsKey(new ByteArrayWrapper(accountNonceKey));
 //        return (lgBlockSyncRepository.existAccountNonce(addressChainId, accountNonceKey));
     }
 
     @Override
-    public boolean hadTxExist(int addressChainId, String hash) throws Exception {
-        return ledgerHash.containsKey(hash);
+    public boolean hadTxExist(int addressChainId, byte[] hash) throws Exception {
+        return ledgerHash.containsKey(new ByteArrayWrapper(hash));
 //        return (lgBlockSyncRepository.existAccountHash(addressChainId, hash));
     }
 
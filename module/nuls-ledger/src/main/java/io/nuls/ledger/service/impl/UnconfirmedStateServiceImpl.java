@@ -211,11 +211,11 @@ public class UnconfirmedStateServiceImpl implements UnconfirmedStateService {
     @Override
     public void clearAllAccountUnconfirmed(int addressChainId) throws Exception {
         //账户处理锁
-        LockerUtil.UNCONFIRMED_SYNC_LOCKER.lock();
+        LockerUtil.LEDGER_LOCKER.writeLock().lock();
         try {
             unconfirmedRepository.clearAllMemUnconfirmedTxs(addressChainId);
         } finally {
-            LockerUtil.UNCONFIRMED_SYNC_LOCKER.unlock();
+            LockerUtil.LEDGER_LOCKER.writeLock().unlock();
         }
 
     }
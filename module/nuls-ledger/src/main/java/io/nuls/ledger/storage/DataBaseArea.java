@@ -46,11 +46,21 @@ public interface DataBaseArea {
 
     String TB_LEDGER_ACCOUNT_BLOCK_SNAPSHOT = "account_block_snapshot";
 
+    /**
+     *   按区块高度存账户变动字段的回滚日志
+     */
+    String TB_LEDGER_ACCOUNT_BLOCK_UNDO = "account_block_undo";
+
     /**
      *   存区块当前确认的高度
      */
     String TB_LEDGER_BLOCK_HEIGHT = "chain_block_height";
 
+    /**
+     *   存各链数据库key格式版本
+     */
+    String TB_LEDGER_KEY_VERSION = "ledger_key_version";
+
 
     /**
      *   存区块当前确认的高度
@@ -82,7 +82,7 @@ public interface LgBlockSyncRepository {
      * @param accountNonceKey
      * @throws Exception
      */
-    void deleteAccountNonces(int chainId, String accountNonceKey) throws Exception;
+    void deleteAccountNonces(int chainId, byte[] accountNonceKey) throws Exception;
 
     /**
      * 判断账号的nonce是否已被使用
@@ -92,7 +92,7 @@ public interface LgBlockSyncRepository {
      * @return
      * @throws Exception
      */
-    boolean existAccountNonce(int chainId, String accountNonceKey) throws Exception;
+    boolean existAccountNonce(int chainId, byte[] accountNonceKey) throws Exception;
 
 
     /**
@@ -125,7 +125,7 @@ public interface LgBlockSyncRepository {
      * @param hash
      * @throws Exception
      */
-    void deleteAccountHash(int chainId, String hash) throws Exception;
+    void deleteAccountHash(int chainId, byte[] hash) throws Exception;
 
     /**
      * 判断账号的hash是否已被使用
@@ -135,7 +135,7 @@ public interface LgBlockSyncRepository {
      * @return
      * @throws Exception
      */
-    boolean existAccountHash(int chainId, String hash) throws Exception;
+    boolean existAccountHash(int chainId, byte[] hash) throws Exception;
 
     /**
      * 初始化数据表
@@ -29,6 +29,7 @@ import io.nuls.core.exception.NulsException;
 import io.nuls.ledger.model.ChainHeight;
 import io.nuls.ledger.model.po.AccountState;
 import io.nuls.ledger.model.po.BlockSnapshotAccounts;
+import io.nuls.ledger.model.po.BlockUndoJournal;
 
 import java.util.List;
 import java.util.Map;
@@ -60,6 +61,16 @@ public interface Repository {
      */
     AccountState getAccountStateByMemory(int chainId, String key);
 
+    /**
+     * 获取确认账户状态的共享快照, 缓存未命中时从数据库读取并回填, 返回对象不可修改
+     * Read-only shared snapshot of a confirmed account state
+     *
+     * @param chainId
+     * @param key
+     * @return 账户不存在时返回null
+     */
+    AccountState getAccountStateSnapshot(int chainId, String key);
+
     /**
      * 批量更新账号账本信息
      * batch update Account ledger Information
@@ -71,6 +82,14 @@ public interface Repository {
     void batchUpdateAccountState(int addressChainId, Map<byte[], byte[]> accountStateMap,Map<String, AccountState> accountStateMemMap) throws Exception;
     void clearAccountStateMem(int addressChainId, Map<String, AccountState> accountStateMemMap) throws Exception;
 
+    /**
+     * 确认账户状态缓存的命中率等统计
+     *
+     * @param chainId
+     * @return
+     */
+    Map<String, Object> getAccountCacheStats(int chainId);
+
     /**
      * 删除区块快照
      *
@@ -81,14 +100,18 @@ public interface Repository {
     void delBlockSnapshot(int chainId, long height) throws Exception;
 
     /**
-     * 存储区块快照
+     * 提交区块: 回滚日志、账户状态、确认高度在同一个批次中写入, 并清理过期的回滚日志
+     * 同一批次需要列族模式(dbColumnFamily=true), 否则按 日志->账户->高度 顺序写入, 任一步失败即抛出异常
+     * commit block undo journal, account states and confirmed height together, atomically only in column family mode
      *
      * @param chainId
      * @param height
-     * @param blockSnapshotAccounts
+     * @param undoJournal
+     * @param accountStateMap
+     * @param accountStateMemMap
      * @throws Exception
      */
-    void saveBlockSnapshot(int chainId, long height, BlockSnapshotAccounts blockSnapshotAccounts) throws Exception;
+    void commitBlock(int chainId, long height, BlockUndoJournal undoJournal, Map<byte[], byte[]> accountStateMap, Map<String, AccountState> accountStateMemMap) throws Exception;
 
     /**
      * 获取区块快照
@@ -0,0 +1,251 @@
+/*-
+ * ⁣⁣
+ * MIT License
+ * ⁣⁣
+ * Copyright (C) 2017 - 2018 nuls.io
+ * ⁣⁣
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ⁣⁣
+ */
+package io.nuls.ledger.storage.impl;
+
+import io.nuls.ledger.model.po.AccountState;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 已确认账户状态缓存, 按字节预算分片的分段LRU
+ * 新写入的账户进入试用段, 再次命中后晋升到保护段, 淘汰优先发生在试用段, 一次性访问的账户不会挤掉热点账户
+ * 缓存中的对象视为不可变快照, 写入方交出所有权后不得再修改, 需要修改的读取方自行复制
+ * Confirmed account state cache: a byte-budgeted, sharded segmented LRU holding immutable snapshots.
+ */
+public class AccountStateCache {
+
+    private static final int SHARDS = 16;
+    /**
+     * 每个缓存项除账户状态序列化长度外的估算开销
+     */
+    private static final int ENTRY_OVERHEAD = 160;
+    /**
+     * 保护段占分片预算的比例
+     */
+    private static final int PROTECTED_PERCENT = 80;
+
+    private final Shard[] shards = new Shard[SHARDS];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public AccountStateCache(long maxBytes) {
+        long shardBytes = Math.max(maxBytes / SHARDS, 1);
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard(shardBytes);
+        }
+    }
+
+    private Shard shard(String key) {
+        int h = key.hashCode();
+        return shards[(h ^ (h >>> 16)) & (SHARDS - 1)];
+    }
+
+    private static long weigh(String key, AccountState accountState) {
+        return ENTRY_OVERHEAD + key.length() + accountState.size();
+    }
+
+    /**
+     * 获取账户状态快照, 返回对象不可修改
+     */
+    public AccountState get(String key) {
+        AccountState accountState = shard(key).get(key);
+        if (accountState == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return accountState;
+    }
+
+    /**
+     * 写入或覆盖账户状态
+     */
+    public void put(String key, AccountState accountState) {
+        shard(key).put(key, accountState, true);
+    }
+
+    /**
+     * 仅在不存在时写入, 用于数据库读取后回填, 避免覆盖并发写入的新值
+     */
+    public void putIfAbsent(String key, AccountState accountState) {
+        shard(key).put(key, accountState, false);
+    }
+
+    public void remove(String key) {
+        shard(key).remove(key);
+    }
+
+    public long getBytes() {
+        long bytes = 0;
+        for (Shard shard : shards) {
+            bytes += shard.bytes();
+        }
+        return bytes;
+    }
+
+    public Map<String, Object> getStats() {
+        long hit = hits.sum();
+        long miss = misses.sum();
+        long entries = 0;
+        for (Shard shard : shards) {
+            entries += shard.entries();
+        }
+        Map<String, Object> stats = new HashMap<>(8);
+        stats.put("hits", hit);
+        stats.put("misses", miss);
+        stats.put("hitRate", hit + miss == 0 ? 0D : (double) hit / (hit + miss));
+        stats.put("evictions", evictions.sum());
+        stats.put("entries", entries);
+        stats.put("bytes", getBytes());
+        return stats;
+    }
+
+    private static class Entry {
+        private final AccountState accountState;
+        private final long weight;
+
+        Entry(AccountState accountState, long weight) {
+            this.accountState = accountState;
+            this.weight = weight;
+        }
+    }
+
+    private class Shard {
+        private final long maxBytes;
+        private final long protectedMaxBytes;
+        /**
+         * 试用段与保护段, 均按插入顺序排列, 命中时重新插入到末尾
+         */
+        private final LinkedHashMap<String, Entry> probation = new LinkedHashMap<>();
+        private final LinkedHashMap<String, Entry> protect = new LinkedHashMap<>();
+        private long probationBytes;
+        private long protectedBytes;
+
+        Shard(long maxBytes) {
+            this.maxBytes = maxBytes;
+            this.protectedMaxBytes = maxBytes * PROTECTED_PERCENT / 100;
+        }
+
+        synchronized AccountState get(String key) {
+            Entry entry = protect.remove(key);
+            if (entry != null) {
+                protect.put(key, entry);
+                return entry.accountState;
+            }
+            entry = probation.remove(key);
+            if (entry == null) {
+                return null;
+            }
+            probationBytes -= entry.weight;
+            protect.put(key, entry);
+            protectedBytes += entry.weight;
+            demote();
+            return entry.accountState;
+        }
+
+        synchronized void put(String key, AccountState accountState, boolean replace) {
+            Entry entry = new Entry(accountState, weigh(key, accountState));
+            Entry old = protect.get(key);
+            if (old != null) {
+                if (replace) {
+                    protect.remove(key);
+                    protect.put(key, entry);
+                    protectedBytes += entry.weight - old.weight;
+                    demote();
+                    evict();
+                }
+                return;
+            }
+            old = probation.remove(key);
+            if (old != null) {
+                probationBytes -= old.weight;
+                if (!replace) {
+                    entry = old;
+                }
+            }
+            probation.put(key, entry);
+            probationBytes += entry.weight;
+            evict();
+        }
+
+        synchronized void remove(String key) {
+            Entry entry = protect.remove(key);
+            if (entry != null) {
+                protectedBytes -= entry.weight;
+            }
+            entry = probation.remove(key);
+            if (entry != null) {
+                probationBytes -= entry.weight;
+            }
+        }
+
+        synchronized long bytes() {
+            return probationBytes + protectedBytes;
+        }
+
+        synchronized int entries() {
+            return probation.size() + protect.size();
+        }
+
+        /**
+         * 保护段超出预算时, 将最久未命中的项降回试用段
+         */
+        private void demote() {
+            Iterator<Map.Entry<String, Entry>> it = protect.entrySet().iterator();
+            while (protectedBytes > protectedMaxBytes && it.hasNext()) {
+                Map.Entry<String, Entry> eldest = it.next();
+                it.remove();
+                protectedBytes -= eldest.getValue().weight;
+                probation.put(eldest.getKey(), eldest.getValue());
+                probationBytes += eldest.getValue().weight;
+            }
+        }
+
+        private void evict() {
+            evict(probation.entrySet().iterator(), true);
+            evict(protect.entrySet().iterator(), false);
+        }
+
+        private void evict(Iterator<Map.Entry<String, Entry>> it, boolean fromProbation) {
+            while (probationBytes + protectedBytes > maxBytes && it.hasNext()) {
+                Map.Entry<String, Entry> eldest = it.next();
+                it.remove();
+                if (fromProbation) {
+                    probationBytes -= eldest.getValue().weight;
+                } else {
+                    protectedBytes -= eldest.getValue().weight;
+                }
+                evictions.increment();
+            }
+        }
+    }
+
+}
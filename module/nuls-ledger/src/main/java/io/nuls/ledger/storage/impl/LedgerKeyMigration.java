@@ -0,0 +1,112 @@
+/*-
+ * ⁣⁣
+ * MIT License
+ * ⁣⁣
+ * Copyright (C) 2017 - 2018 nuls.io
+ * ⁣⁣
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ⁣⁣
+ */
+package io.nuls.ledger.storage.impl;
+
+import io.nuls.core.core.annotation.Component;
+import io.nuls.core.core.ioc.SpringLiteContext;
+import io.nuls.core.crypto.HexUtil;
+import io.nuls.core.model.ByteUtils;
+import io.nuls.core.rockdb.model.Entry;
+import io.nuls.core.rockdb.model.TableProfile;
+import io.nuls.core.rockdb.service.RocksDBService;
+import io.nuls.ledger.constant.LedgerConstant;
+import io.nuls.ledger.storage.DataBaseArea;
+import io.nuls.ledger.utils.LedgerKeyUtil;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static io.nuls.ledger.utils.LoggerUtil.logger;
+
+/**
+ * 账本数据库key迁移
+ * 旧版本账户、nonce、交易hash表使用字符串key, 启动时一次性改写为LedgerKeyUtil定义的二进制key
+ * 每批先写新key再删旧key, 中途退出后重启会继续迁移剩余的旧key, 完成后按链记录版本号
+ */
+@Component
+public class LedgerKeyMigration {
+    private static final int MIGRATE_BATCH_SIZE = 10000;
+
+
+    public void migrate(int chainId) throws Exception {
+        String versionTable = DataBaseArea.TB_LEDGER_KEY_VERSION;
+        if (!RocksDBService.existTable(versionTable)) {
+            RocksDBService.createTable(versionTable, TableProfile.HOT);
+        }
+        byte[] versionKey = ByteUtils.intToBytes(chainId);
+        byte[] version = RocksDBService.get(versionTable, versionKey);
+        if (null != version && ByteUtils.bytesToInt(version) >= LedgerConstant.LEDGER_KEY_VERSION) {
+            return;
+        }
+        RepositoryImpl repository = SpringLiteContext.getBean(RepositoryImpl.class);
+        LgBlockSyncRepositoryImpl lgBlockSyncRepository = SpringLiteContext.getBean(LgBlockSyncRepositoryImpl.class);
+        long accounts = migrateTable(chainId, repository.getLedgerAccountTableName(chainId),
+                key -> key.length == LedgerKeyUtil.ACCOUNT_KEY_LENGTH ? null : LedgerKeyUtil.getAccountKey(toStr(key)));
+        long nonces = migrateTable(chainId, lgBlockSyncRepository.getLedgerNonceTableName(chainId),
+                key -> key.length == LedgerKeyUtil.NONCE_KEY_LENGTH ? null : LedgerKeyUtil.getNonceKey(toStr(key)));
+        long hashes = migrateTable(chainId, lgBlockSyncRepository.getLedgerHashTableName(chainId),
+                key -> key.length == LedgerKeyUtil.TX_HASH_KEY_LENGTH ? null : HexUtil.decode(toStr(key)));
+        RocksDBService.put(versionTable, versionKey, ByteUtils.intToBytes(LedgerConstant.LEDGER_KEY_VERSION));
+        logger(chainId).info("ledger key migration done,chainId={},accounts={},nonces={},hashes={}", chainId, accounts, nonces, hashes);
+    }
+
+    private static String toStr(byte[] key) {
+        return ByteUtils.toString(key, LedgerConstant.DEFAULT_ENCODING);
+    }
+
+    /**
+     * @param keyConverter 返回null表示已是新格式
+     * @return 迁移的条数
+     */
+    private long migrateTable(int chainId, String table, Function<byte[], byte[]> keyConverter) throws Exception {
+        if (!RocksDBService.existTable(table)) {
+            return 0;
+        }
+        long[] count = {0};
+        RocksDBService.forEachBatch(table, MIGRATE_BATCH_SIZE, entries -> {
+            Map<byte[], byte[]> converted = new HashMap<>(entries.size());
+            List<byte[]> legacyKeys = new ArrayList<>();
+            for (Entry<byte[], byte[]> entry : entries) {
+                byte[] newKey = keyConverter.apply(entry.getKey());
+                if (null != newKey) {
+                    converted.put(newKey, entry.getValue());
+                    legacyKeys.add(entry.getKey());
+                }
+            }
+            if (!converted.isEmpty()) {
+                RocksDBService.batchPut(table, converted);
+                RocksDBService.deleteKeys(table, legacyKeys);
+                count[0] += legacyKeys.size();
+                logger(chainId).info("ledger key migration table={},migrated={}", table, count[0]);
+            }
+            return true;
+        });
+        return count[0];
+    }
+}
@@ -34,6 +34,7 @@ import io.nuls.ledger.constant.LedgerConstant;
 import io.nuls.ledger.model.po.BlockSnapshotTxs;
 import io.nuls.ledger.storage.DataBaseArea;
 import io.nuls.ledger.storage.LgBlockSyncRepository;
+import io.nuls.ledger.utils.LedgerKeyUtil;
 import io.nuls.ledger.utils.LoggerUtil;
 
 import java.io.UnsupportedEncodingException;
@@ -197,14 +198,13 @@ public class LgBlockSyncRepositoryImpl implements LgBlockSyncRepository, Initial
     }
 
     @Override
-    public void deleteAccountNonces(int chainId, String accountNonceKey) throws Exception {
-        RocksDBService.delete(getLedgerNonceTableName(chainId), ByteUtils.toBytes(accountNonceKey, LedgerConstant.DEFAULT_ENCODING));
+    public void deleteAccountNonces(int chainId, byte[] accountNonceKey) throws Exception {
+        RocksDBService.delete(getLedgerNonceTableName(chainId), accountNonceKey);
     }
 
     @Override
-    public boolean existAccountNonce(int chainId, String accountNonceKey) throws Exception {
-//        return RocksDBService.keyMayExist(getLedgerNonceTableName(chainId), ByteUtils.toBytes(accountNonceKey, LedgerConstant.DEFAULT_ENCODING));
-        return (null != RocksDBService.get(getLedgerNonceTableName(chainId), ByteUtils.toBytes(accountNonceKey, LedgerConstant.DEFAULT_ENCODING)));
+    public boolean existAccountNonce(int chainId, byte[] accountNonceKey) throws Exception {
+        return (null != RocksDBService.get(getLedgerNonceTableName(chainId), accountNonceKey));
     }
 
 
@@ -222,7 +222,7 @@ public class LgBlockSyncRepositoryImpl implements LgBlockSyncRepository, Initial
 
         List<byte[]> list = new ArrayList<>();
         for (String hash : hashList) {
-            list.add(ByteUtils.toBytes(hash, LedgerConstant.DEFAULT_ENCODING));
+            list.add(LedgerKeyUtil.getTxHashKey(hash));
         }
         if (list.size() > 0) {
             RocksDBService.deleteKeys(table, list);
@@ -230,8 +230,8 @@ public class LgBlockSyncRepositoryImpl implements LgBlockSyncRepository, Initial
     }
 
     @Override
-    public void deleteAccountHash(int chainId, String hash) throws Exception {
-        RocksDBService.delete(getLedgerHashTableName(chainId), ByteUtils.toBytes(hash, LedgerConstant.DEFAULT_ENCODING));
+    public void deleteAccountHash(int chainId, byte[] hash) throws Exception {
+        RocksDBService.delete(getLedgerHashTableName(chainId), hash);
     }
 
     @Override
@@ -239,7 +239,7 @@ public class LgBlockSyncRepositoryImpl implements LgBlockSyncRepository, Initial
         String table = getLedgerNonceTableName(chainId);
         List<byte[]> list = new ArrayList<>();
         for (String addressNonce : noncesList) {
-            list.add(ByteUtils.toBytes(addressNonce, LedgerConstant.DEFAULT_ENCODING));
+            list.add(LedgerKeyUtil.getNonceKey(addressNonce));
         }
         if (list.size() > 0) {
             RocksDBService.deleteKeys(table, list);
@@ -247,8 +247,7 @@ public class LgBlockSyncRepositoryImpl implements LgBlockSyncRepository, Initial
     }
 
     @Override
-    public boolean existAccountHash(int chainId, String hash) throws Exception {
-//        return RocksDBService.keyMayExist(getLedgerHashTableName(chainId),ByteUtils.toBytes(hash, LedgerConstant.DEFAULT_ENCODING));
-        return (null != RocksDBService.get(getLedgerHashTableName(chainId), ByteUtils.toBytes(hash, LedgerConstant.DEFAULT_ENCODING)));
+    public boolean existAccountHash(int chainId, byte[] hash) throws Exception {
+        return (null != RocksDBService.get(getLedgerHashTableName(chainId), hash));
     }
 }
@@ -27,22 +27,30 @@ package io.nuls.ledger.storage.impl;
 
 import io.nuls.base.basic.NulsByteBuffer;
 import io.nuls.core.basic.InitializingBean;
+import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
 import io.nuls.core.exception.NulsException;
 import io.nuls.core.log.Log;
 import io.nuls.core.model.ByteUtils;
-import io.nuls.core.rockdb.model.Entry;
+import io.nuls.core.rockdb.model.TableProfile;
+import io.nuls.core.rockdb.service.MultiTableBatchOperation;
 import io.nuls.core.rockdb.service.RocksDBService;
+import io.nuls.ledger.config.LedgerConfig;
+import io.nuls.ledger.constant.LedgerConstant;
 import io.nuls.ledger.model.ChainHeight;
 import io.nuls.ledger.model.po.AccountState;
 import io.nuls.ledger.model.po.BlockSnapshotAccounts;
+import io.nuls.ledger.model.po.BlockUndoJournal;
+import io.nuls.ledger.model.po.sub.AccountStateUndo;
 import io.nuls.ledger.storage.DataBaseArea;
 import io.nuls.ledger.storage.Repository;
+import io.nuls.ledger.utils.LedgerKeyUtil;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static io.nuls.ledger.utils.LoggerUtil.logger;
 
@@ -54,52 +62,134 @@ import static io.nuls.ledger.utils.LoggerUtil.logger;
 @Component
 public class RepositoryImpl implements Repository, InitializingBean {
     /**
-     * key1=chainId,  Map1=确认账户状态， key2= addr+assetkey  value=AccountState
+     * 非列族模式下逐表提交区块只提示一次
      */
-    Map<String, Map<String, AccountState>> memChainsAccounts = new ConcurrentHashMap<>(16);
+    private static final AtomicBoolean NON_ATOMIC_COMMIT_LOGGED = new AtomicBoolean(false);
+    @Autowired
+    private LedgerConfig ledgerConfig;
+    /**
+     * key=chainId, value=确认账户状态缓存, 缓存key为addr+assetkey
+     */
+    private final Map<Integer, AccountStateCache> memChainsAccounts = new ConcurrentHashMap<>(16);
+    /**
+     * key=chainId, value=已确认高度, 随区块提交更新, 解冻计算不再每次读库
+     */
+    private final Map<Integer, Long> memChainsHeight = new ConcurrentHashMap<>(16);
 
     public RepositoryImpl() {
 
     }
 
+    private AccountStateCache getAccountCache(int chainId) {
+        return memChainsAccounts.computeIfAbsent(chainId, k -> new AccountStateCache(ledgerConfig.getAccountCacheBytes()));
+    }
+
     @Override
     public void batchUpdateAccountState(int addressChainId, Map<byte[], byte[]> accountStateMap, Map<String, AccountState> accountStateMemMap) throws Exception {
-        if (null == memChainsAccounts.get(String.valueOf(addressChainId))) {
-            memChainsAccounts.put(String.valueOf(addressChainId), new ConcurrentHashMap<>(1024));
-        }
+        AccountStateCache cache = getAccountCache(addressChainId);
         if (null != accountStateMemMap) {
-            memChainsAccounts.get(String.valueOf(addressChainId)).putAll(accountStateMemMap);
+            for (Map.Entry<String, AccountState> entry : accountStateMemMap.entrySet()) {
+                cache.put(entry.getKey(), entry.getValue());
+            }
         }
         //update account
-        RocksDBService.batchPut(getLedgerAccountTableName(addressChainId), accountStateMap);
-
+        try {
+            RocksDBService.batchPut(getLedgerAccountTableName(addressChainId), accountStateMap);
+        } catch (Exception e) {
+            //落库失败时缓存不能领先于数据库
+            clearAccountStateMem(addressChainId, accountStateMemMap);
+            throw e;
+        }
     }
 
     @Override
     public void clearAccountStateMem(int addressChainId, Map<String, AccountState> accountStateMemMap) throws Exception {
-        if (null == memChainsAccounts.get(String.valueOf(addressChainId))) {
-            memChainsAccounts.put(String.valueOf(addressChainId), new ConcurrentHashMap<>(1024));
-        }
         if (null != accountStateMemMap) {
-            memChainsAccounts.get(String.valueOf(addressChainId)).putAll(accountStateMemMap);
+            AccountStateCache cache = getAccountCache(addressChainId);
+            for (String key : accountStateMemMap.keySet()) {
+                cache.remove(key);
+            }
         }
     }
 
+    @Override
+    public Map<String, Object> getAccountCacheStats(int chainId) {
+        return getAccountCache(chainId).getStats();
+    }
+
 
     @Override
     public void delBlockSnapshot(int chainId, long height) throws Exception {
-        RocksDBService.delete(getBlockSnapshotTableName(chainId), ByteUtils.longToBytes(height));
+        byte[] key = ByteUtils.longToBytes(height);
+        RocksDBService.delete(getBlockUndoTableName(chainId), key);
+        RocksDBService.delete(getBlockSnapshotTableName(chainId), key);
     }
 
     @Override
-    public void saveBlockSnapshot(int chainId, long height, BlockSnapshotAccounts blockSnapshotAccounts) throws Exception {
-        RocksDBService.put(getBlockSnapshotTableName(chainId), ByteUtils.longToBytes(height), blockSnapshotAccounts.serialize());
-
+    public void commitBlock(int chainId, long height, BlockUndoJournal undoJournal, Map<byte[], byte[]> accountStateMap, Map<String, AccountState> accountStateMemMap) throws Exception {
+        AccountStateCache cache = getAccountCache(chainId);
+        if (null != accountStateMemMap) {
+            for (Map.Entry<String, AccountState> entry : accountStateMemMap.entrySet()) {
+                cache.put(entry.getKey(), entry.getValue());
+            }
+        }
+        byte[] heightKey = ByteUtils.longToBytes(height);
+        byte[] expiredKey = height > LedgerConstant.CACHE_ACCOUNT_BLOCK ? ByteUtils.longToBytes(height - LedgerConstant.CACHE_ACCOUNT_BLOCK) : null;
+        try {
+            MultiTableBatchOperation batch = null;
+            if (RocksDBService.isColumnFamilyMode()) {
+                batch = RocksDBService.createMultiTableWriteBatch(getLedgerAccountTableName(chainId), getBlockUndoTableName(chainId), getChainsHeightTableName());
+            } else if (NON_ATOMIC_COMMIT_LOGGED.compareAndSet(false, true)) {
+                logger(chainId).info("dbColumnFamily=false, ledger commits blocks table by table, an interrupted commit is rolled back by the undo journal");
+            }
+            if (null != batch) {
+                batch.put(getBlockUndoTableName(chainId), heightKey, undoJournal.serialize());
+                for (Map.Entry<byte[], byte[]> entry : accountStateMap.entrySet()) {
+                    batch.put(getLedgerAccountTableName(chainId), entry.getKey(), entry.getValue());
+                }
+                batch.put(getChainsHeightTableName(), ByteUtils.intToBytes(chainId), heightKey);
+                if (null != expiredKey) {
+                    batch.delete(getBlockUndoTableName(chainId), expiredKey);
+                }
+                if (!batch.executeBatch()) {
+                    throw new Exception("commitBlock executeBatch fail");
+                }
+                memChainsHeight.put(chainId, height);
+            } else {
+                //非列族模式无法跨表原子写入,按 日志->账户->高度 顺序写入, 中途失败时由日志回滚
+                if (!RocksDBService.put(getBlockUndoTableName(chainId), heightKey, undoJournal.serialize())) {
+                    throw new Exception("commitBlock save undo journal fail");
+                }
+                if (accountStateMap.size() > 0 && !RocksDBService.batchPut(getLedgerAccountTableName(chainId), accountStateMap)) {
+                    throw new Exception("commitBlock save account states fail");
+                }
+                if (!RocksDBService.put(getChainsHeightTableName(), ByteUtils.intToBytes(chainId), heightKey)) {
+                    throw new Exception("commitBlock save chain height fail");
+                }
+                memChainsHeight.put(chainId, height);
+                if (null != expiredKey) {
+                    RocksDBService.delete(getBlockUndoTableName(chainId), expiredKey);
+                }
+            }
+            if (null != expiredKey) {
+                RocksDBService.delete(getBlockSnapshotTableName(chainId), expiredKey);
+            }
+        } catch (Exception e) {
+            //落库失败时缓存不能领先于数据库
+            clearAccountStateMem(chainId, accountStateMemMap);
+            throw e;
+        }
     }
 
     @Override
     public BlockSnapshotAccounts getBlockSnapshot(int chainId, long height) {
-        byte[] stream = RocksDBService.get(getBlockSnapshotTableName(chainId), ByteUtils.longToBytes(height));
+        byte[] key = ByteUtils.longToBytes(height);
+        byte[] stream = RocksDBService.get(getBlockUndoTableName(chainId), key);
+        if (stream != null) {
+            return getBlockSnapshotByUndo(chainId, stream);
+        }
+        //升级前写入的完整快照
+        stream = RocksDBService.get(getBlockSnapshotTableName(chainId), key);
         if (stream == null) {
             return null;
         }
@@ -112,6 +202,29 @@ public class RepositoryImpl implements Repository, InitializingBean {
         return blockSnapshotAccounts;
     }
 
+    /**
+     * 以账户当前状态叠加回滚日志, 还原区块前的完整账户快照
+     */
+    private BlockSnapshotAccounts getBlockSnapshotByUndo(int chainId, byte[] stream) {
+        BlockUndoJournal undoJournal = new BlockUndoJournal();
+        BlockSnapshotAccounts blockSnapshotAccounts = new BlockSnapshotAccounts();
+        try {
+            undoJournal.parse(new NulsByteBuffer(stream));
+        } catch (NulsException e) {
+            logger(chainId).error("getBlockSnapshot undo serialize error.", e);
+            return blockSnapshotAccounts;
+        }
+        for (AccountStateUndo undo : undoJournal.getUndos()) {
+            AccountState current = getAccountStateSnapshot(chainId, undo.getAccountKey());
+            if (null == current) {
+                //账户状态未落库, 区块前为初始状态
+                current = new AccountState();
+            }
+            blockSnapshotAccounts.addAccountState(undo.toSnapshot(current));
+        }
+        return blockSnapshotAccounts;
+    }
+
 
     /**
      * get accountState from rocksdb
@@ -136,32 +249,43 @@ public class RepositoryImpl implements Repository, InitializingBean {
 
     @Override
     public AccountState getAccountStateByMemory(int chainId, String key) {
-        //缓存有值,则直接获取
-        if (null != memChainsAccounts.get(String.valueOf(chainId))) {
-            AccountState accountStateMem = memChainsAccounts.get(String.valueOf(chainId)).get(key);
-            if (null != accountStateMem) {
-                AccountState accountState = new AccountState();
-                System.arraycopy(accountStateMem.getNonce(), 0, accountState.getNonce(), 0, accountStateMem.getNonce().length);
-                accountState.setTotalFromAmount(accountStateMem.getTotalFromAmount());
-                accountState.setTotalToAmount(accountStateMem.getTotalToAmount());
-                accountState.setLatestUnFreezeTime(accountStateMem.getLatestUnFreezeTime());
-                accountState.getFreezeHeightStates().addAll(accountStateMem.getFreezeHeightStates());
-                accountState.getFreezeLockTimeStates().addAll(accountStateMem.getFreezeLockTimeStates());
-                return accountState;
-            }
+        //缓存有值,则复制后返回,调用方可以修改
+        AccountState accountStateMem = getAccountCache(chainId).get(key);
+        if (null != accountStateMem) {
+            return accountStateMem.deepClone();
         }
         return null;
     }
 
+    @Override
+    public AccountState getAccountStateSnapshot(int chainId, String key) {
+        AccountStateCache cache = getAccountCache(chainId);
+        AccountState accountState = cache.get(key);
+        if (null != accountState) {
+            return accountState;
+        }
+        accountState = getAccountState(chainId, LedgerKeyUtil.getAccountKey(key));
+        if (null != accountState) {
+            cache.putIfAbsent(key, accountState);
+        }
+        return accountState;
+    }
+
     @Override
     public long getBlockHeight(int chainId) {
+        Long memHeight = memChainsHeight.get(chainId);
+        if (null != memHeight) {
+            return memHeight;
+        }
         byte[] stream = RocksDBService.get(getChainsHeightTableName(), ByteUtils.intToBytes(chainId));
         if (stream == null) {
             return -1;
         }
         try {
             long height = ByteUtils.byteToLong(stream);
-            return height;
+            //读库期间若已提交新高度, 以提交的为准
+            Long prev = memChainsHeight.putIfAbsent(chainId, height);
+            return null == prev ? height : prev;
         } catch (Exception e) {
             logger(chainId).error("getBlockHeight serialize error.", e);
         }
@@ -172,7 +296,9 @@ public class RepositoryImpl implements Repository, InitializingBean {
     public void saveOrUpdateBlockHeight(int chainId, long height) {
         try {
             RocksDBService.put(getChainsHeightTableName(), ByteUtils.intToBytes(chainId), ByteUtils.longToBytes(height));
+            memChainsHeight.put(chainId, height);
         } catch (Exception e) {
+            memChainsHeight.remove(chainId);
             logger(chainId).error("saveBlockHeight serialize error.", e);
         }
 
@@ -180,16 +306,21 @@ public class RepositoryImpl implements Repository, InitializingBean {
 
     @Override
     public List<ChainHeight> getChainsBlockHeight() {
-        List<Entry<byte[], byte[]>> list = RocksDBService.entryList(getChainsHeightTableName());
         List<ChainHeight> rtList = new ArrayList<>();
-        if (null == list || 0 == list.size()) {
+        try {
+            RocksDBService.forEach(getChainsHeightTableName(), (key, value) -> {
+                ChainHeight chainHeight = new ChainHeight();
+                chainHeight.setChainId(ByteUtils.bytesToInt(key));
+                chainHeight.setBlockHeight(ByteUtils.byteToLong(value));
+                rtList.add(chainHeight);
+                return true;
+            });
+        } catch (Exception e) {
+            Log.error(e);
             return null;
         }
-        for (Entry<byte[], byte[]> entry : list) {
-            ChainHeight chainHeight = new ChainHeight();
-            chainHeight.setChainId(ByteUtils.bytesToInt(entry.getKey()));
-            chainHeight.setBlockHeight(ByteUtils.byteToLong(entry.getValue()));
-            rtList.add(chainHeight);
+        if (rtList.isEmpty()) {
+            return null;
         }
         return rtList;
     }
@@ -206,6 +337,10 @@ public class RepositoryImpl implements Repository, InitializingBean {
         return getChainTableName(DataBaseArea.TB_LEDGER_ACCOUNT_BLOCK_SNAPSHOT, chainId);
     }
 
+    String getBlockUndoTableName(int chainId) {
+        return getChainTableName(DataBaseArea.TB_LEDGER_ACCOUNT_BLOCK_UNDO, chainId);
+    }
+
     public String getChainsHeightTableName() {
         return DataBaseArea.TB_LEDGER_BLOCK_HEIGHT;
     }
@@ -216,10 +351,13 @@ public class RepositoryImpl implements Repository, InitializingBean {
     public void initChainDb(int addressChainId) {
         try {
             if (!RocksDBService.existTable(getLedgerAccountTableName(addressChainId))) {
-                RocksDBService.createTable(getLedgerAccountTableName(addressChainId));
+                RocksDBService.createTable(getLedgerAccountTableName(addressChainId), TableProfile.POINT_LOOKUP);
             }
             if (!RocksDBService.existTable(getBlockSnapshotTableName(addressChainId))) {
-                RocksDBService.createTable(getBlockSnapshotTableName(addressChainId));
+                RocksDBService.createTable(getBlockSnapshotTableName(addressChainId), TableProfile.SEQUENTIAL);
+            }
+            if (!RocksDBService.existTable(getBlockUndoTableName(addressChainId))) {
+                RocksDBService.createTable(getBlockUndoTableName(addressChainId), TableProfile.SEQUENTIAL);
             }
         } catch (Exception e) {
             logger(addressChainId).error(e);
@@ -235,7 +373,7 @@ public class RepositoryImpl implements Repository, InitializingBean {
     public void initTableName() throws NulsException {
         try {
             if (!RocksDBService.existTable(getChainsHeightTableName())) {
-                RocksDBService.createTable(getChainsHeightTableName());
+                RocksDBService.createTable(getChainsHeightTableName(), TableProfile.HOT);
             } else {
                 Log.info("table {} exist.", getChainsHeightTableName());
             }
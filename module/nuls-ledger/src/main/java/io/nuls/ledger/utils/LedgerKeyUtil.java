@@ -0,0 +1,100 @@
+/*-
+ * ⁣⁣
+ * MIT License
+ * ⁣⁣
+ * Copyright (C) 2017 - 2018 nuls.io
+ * ⁣⁣
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ⁣⁣
+ */
+package io.nuls.ledger.utils;
+
+import io.nuls.base.basic.AddressTool;
+import io.nuls.core.crypto.HexUtil;
+import io.nuls.ledger.constant.LedgerConstant;
+
+/**
+ * 账本数据库二进制定长key
+ * 账户key: 原始地址(23) + 资产链id(2) + 资产id(2), 大端序
+ * nonce key: 账户key + nonce(8)
+ * 交易hash key: 原始hash(32)
+ * 旧版本使用 "地址-资产链id-资产id" 字符串key, 长度与二进制key不同, 迁移时按长度区分
+ */
+public class LedgerKeyUtil {
+    public static final int ASSET_KEY_LENGTH = 4;
+    public static final int ACCOUNT_KEY_LENGTH = 23 + ASSET_KEY_LENGTH;
+    public static final int NONCE_KEY_LENGTH = ACCOUNT_KEY_LENGTH + LedgerConstant.NONCE_LENGHT;
+    public static final int TX_HASH_KEY_LENGTH = 32;
+
+    private static final char SEPARATOR = '-';
+
+    public static byte[] getAccountKey(byte[] address, int assetChainId, int assetId) {
+        byte[] key = new byte[address.length + ASSET_KEY_LENGTH];
+        System.arraycopy(address, 0, key, 0, address.length);
+        writeAsset(key, address.length, assetChainId, assetId);
+        return key;
+    }
+
+    public static byte[] getAccountKey(String address, int assetChainId, int assetId) {
+        return getAccountKey(AddressTool.getAddressByRealAddr(address), assetChainId, assetId);
+    }
+
+    /**
+     * 由 "地址-资产链id-资产id" 形式的缓存key生成数据库key
+     */
+    public static byte[] getAccountKey(String keyStr) {
+        int assetIdx = keyStr.lastIndexOf(SEPARATOR);
+        int chainIdx = keyStr.lastIndexOf(SEPARATOR, assetIdx - 1);
+        return getAccountKey(keyStr.substring(0, chainIdx),
+                Integer.parseInt(keyStr.substring(chainIdx + 1, assetIdx)),
+                Integer.parseInt(keyStr.substring(assetIdx + 1)));
+    }
+
+    public static byte[] getNonceKey(byte[] address, int assetChainId, int assetId, byte[] nonce) {
+        byte[] key = new byte[address.length + ASSET_KEY_LENGTH + nonce.length];
+        System.arraycopy(address, 0, key, 0, address.length);
+        writeAsset(key, address.length, assetChainId, assetId);
+        System.arraycopy(nonce, 0, key, address.length + ASSET_KEY_LENGTH, nonce.length);
+        return key;
+    }
+
+    /**
+     * 由 LedgerUtil.getAccountNoncesStrKey 生成的字符串key生成数据库key
+     */
+    public static byte[] getNonceKey(String nonceKeyStr) {
+        int nonceIdx = nonceKeyStr.lastIndexOf(SEPARATOR);
+        int assetIdx = nonceKeyStr.lastIndexOf(SEPARATOR, nonceIdx - 1);
+        int chainIdx = nonceKeyStr.lastIndexOf(SEPARATOR, assetIdx - 1);
+        return getNonceKey(AddressTool.getAddressByRealAddr(nonceKeyStr.substring(0, chainIdx)),
+                Integer.parseInt(nonceKeyStr.substring(chainIdx + 1, assetIdx)),
+                Integer.parseInt(nonceKeyStr.substring(assetIdx + 1, nonceIdx)),
+                HexUtil.decode(nonceKeyStr.substring(nonceIdx + 1)));
+    }
+
+    public static byte[] getTxHashKey(String txHash) {
+        return HexUtil.decode(txHash);
+    }
+
+    private static void writeAsset(byte[] key, int offset, int assetChainId, int assetId) {
+        key[offset] = (byte) (assetChainId >>> 8);
+        key[offset + 1] = (byte) assetChainId;
+        key[offset + 2] = (byte) (assetId >>> 8);
+        key[offset + 3] = (byte) assetId;
+    }
+}
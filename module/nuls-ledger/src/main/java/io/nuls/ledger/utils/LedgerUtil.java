@@ -6,11 +6,8 @@ import io.nuls.base.data.Transaction;
 import io.nuls.base.protocol.ProtocolGroupManager;
 import io.nuls.core.constant.TxType;
 import io.nuls.core.crypto.HexUtil;
-import io.nuls.core.log.Log;
-import io.nuls.ledger.constant.LedgerConstant;
 import io.nuls.ledger.model.tx.txdata.TxLedgerAsset;
 
-import java.io.UnsupportedEncodingException;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -52,13 +49,7 @@ public class LedgerUtil {
      * @return byte[]
      */
     public static byte[] getKey(String address, int assetChainId, int assetId) {
-        String key = address + "-" + assetChainId + "-" + assetId;
-        try {
-            return (key.getBytes(LedgerConstant.DEFAULT_ENCODING));
-        } catch (UnsupportedEncodingException e) {
-            Log.error(e);
-        }
-        return null;
+        return LedgerKeyUtil.getAccountKey(address, assetChainId, assetId);
     }
 
     public static byte[] getNonceDecode(String nonceStr) {
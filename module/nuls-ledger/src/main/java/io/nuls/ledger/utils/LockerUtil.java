@@ -24,16 +24,60 @@
  */
 package io.nuls.ledger.utils;
 
-import java.util.concurrent.locks.Lock;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
+ * 账本锁
+ * 未确认交易按账户分段加锁, 不同账户的交易可以并行提交; 区块提交与回滚持有写锁, 与所有未确认处理互斥
+ *
  * @author lan
  * @description
  * @date 2019/01/07
  **/
 public class LockerUtil {
 //    public final static Lock BLOCK_SYNC_LOCKER = new ReentrantLock();
-    public final static Lock UNCONFIRMED_SYNC_LOCKER = new ReentrantLock();
-    public final static Lock LEDGER_LOCKER = new ReentrantLock();
+    /**
+     * 区块提交屏障: 未确认处理持有读锁, 区块提交/回滚及清空未确认数据持有写锁
+     */
+    public final static ReentrantReadWriteLock LEDGER_LOCKER = new ReentrantReadWriteLock();
+
+    private final static int ACCOUNT_STRIPES = 256;
+    private final static ReentrantLock[] ACCOUNT_LOCKERS = new ReentrantLock[ACCOUNT_STRIPES];
+
+    static {
+        for (int i = 0; i < ACCOUNT_STRIPES; i++) {
+            ACCOUNT_LOCKERS[i] = new ReentrantLock();
+        }
+    }
+
+    static int stripe(String accountKey) {
+        int h = accountKey.hashCode();
+        return (h ^ (h >>> 16)) & (ACCOUNT_STRIPES - 1);
+    }
+
+    /**
+     * 锁定一组账户(address-assetChainId-assetId), 先取屏障读锁, 再按分段序号升序加锁, 多账户交易之间不会死锁
+     *
+     * @param accountKeys 账户key
+     * @return 已加锁的分段序号, 用于{@link #unlockAccounts(int[])}
+     */
+    public static int[] lockAccounts(Collection<String> accountKeys) {
+        int[] stripes = accountKeys.stream().mapToInt(LockerUtil::stripe).distinct().toArray();
+        Arrays.sort(stripes);
+        LEDGER_LOCKER.readLock().lock();
+        for (int stripe : stripes) {
+            ACCOUNT_LOCKERS[stripe].lock();
+        }
+        return stripes;
+    }
+
+    public static void unlockAccounts(int[] stripes) {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            ACCOUNT_LOCKERS[stripes[i]].unlock();
+        }
+        LEDGER_LOCKER.readLock().unlock();
+    }
 }
@@ -0,0 +1,108 @@
+/*-
+ * ⁣⁣
+ * MIT License
+ * ⁣⁣
+ * Copyright (C) 2017 - 2018 nuls.io
+ * ⁣⁣
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * ⁣⁣
+ */
+package io.nuls.ledger.utils;
+
+import io.nuls.base.data.CoinData;
+import io.nuls.base.data.CoinFrom;
+import io.nuls.base.data.CoinTo;
+import io.nuls.base.data.Transaction;
+
+import java.util.*;
+
+/**
+ * 按账户冲突对区块交易分组
+ * 涉及同一账户资产(from或to), 或解锁同一笔锁定nonce的交易归入同一组, 组内保持区块中的原始顺序,
+ * 不同组之间没有共享状态, 可以并行校验
+ */
+public class TxConflictPartitioner {
+
+    /**
+     * 分组, 返回的组按首笔交易在区块中的位置排序
+     *
+     * @param txs 区块交易
+     * @return 交易分组
+     */
+    public static List<List<Transaction>> partition(List<Transaction> txs) {
+        int size = txs.size();
+        int[] parent = new int[size];
+        for (int i = 0; i < size; i++) {
+            parent[i] = i;
+        }
+        Map<String, Integer> owners = new HashMap<>(size * 4);
+        for (int i = 0; i < size; i++) {
+            for (String key : conflictKeys(txs.get(i))) {
+                Integer owner = owners.putIfAbsent(key, i);
+                if (null != owner) {
+                    union(parent, owner, i);
+                }
+            }
+        }
+        Map<Integer, List<Transaction>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            groups.computeIfAbsent(find(parent, i), k -> new ArrayList<>()).add(txs.get(i));
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    /**
+     * 交易涉及的冲突key: 账户资产key, 以及解锁交易的锁定nonce(校验时按资产+nonce判重, 不含地址)
+     */
+    static Set<String> conflictKeys(Transaction tx) {
+        CoinData coinData = CoinDataUtil.parseCoinData(tx.getCoinData());
+        if (null == coinData) {
+            return Collections.emptySet();
+        }
+        Set<String> keys = new HashSet<>();
+        for (CoinFrom from : coinData.getFrom()) {
+            keys.add(LedgerUtil.getAccountAssetStrKey(from));
+            if (from.getLocked() != 0) {
+                keys.add("locked-" + from.getAssetsChainId() + "-" + from.getAssetsId() + "-" + LedgerUtil.getNonceEncode(from.getNonce()));
+            }
+        }
+        for (CoinTo to : coinData.getTo()) {
+            keys.add(LedgerUtil.getKeyStr(LedgerUtil.getRealAddressStr(to.getAddress()), to.getAssetsChainId(), to.getAssetsId()));
+        }
+        return keys;
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA != rootB) {
+            //保留较小的根, 使组的顺序与首笔交易一致
+            parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+        }
+    }
+
+}
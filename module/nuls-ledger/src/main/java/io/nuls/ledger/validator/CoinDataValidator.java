@@ -29,12 +29,14 @@ import io.nuls.base.basic.AddressTool;
 import io.nuls.base.data.CoinData;
 import io.nuls.base.data.CoinFrom;
 import io.nuls.base.data.CoinTo;
+import io.nuls.base.data.NulsHash;
 import io.nuls.base.data.Transaction;
 import io.nuls.core.constant.TxType;
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
 import io.nuls.core.crypto.HexUtil;
 import io.nuls.core.model.BigIntegerUtils;
+import io.nuls.ledger.config.LedgerConfig;
 import io.nuls.ledger.constant.LedgerConstant;
 import io.nuls.ledger.constant.LedgerErrorCode;
 import io.nuls.ledger.model.TempAccountNonce;
@@ -50,12 +52,16 @@ import io.nuls.ledger.service.UnconfirmedStateService;
 import io.nuls.ledger.service.processor.TxLockedProcessor;
 import io.nuls.ledger.storage.Repository;
 import io.nuls.ledger.utils.CoinDataUtil;
+import io.nuls.ledger.utils.LedgerKeyUtil;
 import io.nuls.ledger.utils.LedgerUtil;
 import io.nuls.ledger.utils.LoggerUtil;
+import io.nuls.ledger.utils.TxConflictPartitioner;
 
 import java.math.BigInteger;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 
 import static io.nuls.ledger.utils.LoggerUtil.logger;
 
@@ -106,6 +112,13 @@ public class CoinDataValidator {
     private Repository repository;
     @Autowired
     private TxLockedProcessor txLockedProcessor;
+    @Autowired
+    private LedgerConfig ledgerConfig;
+
+    /**
+     * 区块交易分组并行校验线程池
+     */
+    private static final ForkJoinPool VALIDATE_POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
 
     public Map<String, String> getBatchValidateTxMap(int addressChainId) {
         return chainsBatchValidateTxMap.get(String.valueOf(addressChainId));
@@ -202,6 +215,55 @@ public class CoinDataValidator {
             LoggerUtil.logger(chainId).error("addressChainId ={},blockHeight={},ledgerBlockHeight={}", chainId, height, currentDbHeight);
             return false;
         }
+        for (Transaction tx : txs) {
+            tx.setBlockHeight(height);
+        }
+        if (txs.size() < LedgerConstant.PARALLEL_VALIDATE_MIN_TXS) {
+            return blockValidateSerial(chainId, txs);
+        }
+        List<List<Transaction>> groups = TxConflictPartitioner.partition(txs);
+        if (groups.size() < 2) {
+            return blockValidateSerial(chainId, txs);
+        }
+        boolean result = blockValidateParallel(chainId, txs, groups);
+        if (ledgerConfig.isBlockValidateDifferential()) {
+            boolean serial = blockValidateSerial(chainId, txs);
+            if (serial != result) {
+                logger(chainId).error("blockValidate differential mismatch! height={},parallel={},serial={}", height, result, serial);
+            }
+            return serial;
+        }
+        return result;
+    }
+
+    /**
+     * 按账户冲突分组后并行校验, 各组使用独立的临时状态, 组内按区块顺序逐笔校验
+     * 组间唯一的共享检查是交易hash重复, 在分组前统一完成
+     */
+    private boolean blockValidateParallel(int chainId, List<Transaction> txs, List<List<Transaction>> groups) {
+        Set<NulsHash> hashes = new HashSet<>(txs.size());
+        for (Transaction tx : txs) {
+            if (!hashes.add(tx.getHash())) {
+                logger(chainId).error("{} tx exist!", tx.getHash().toHex());
+                return false;
+            }
+        }
+        try {
+            return VALIDATE_POOL.submit(() -> groups.parallelStream().allMatch(group -> blockValidateSerial(chainId, group))).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger(chainId).error(e);
+            return false;
+        } catch (ExecutionException e) {
+            logger(chainId).error(e);
+            return false;
+        }
+    }
+
+    /**
+     * 逐笔校验一组交易
+     */
+    private boolean blockValidateSerial(int chainId, List<Transaction> txs) {
         Set<String> batchValidateTxSet = new HashSet<>(txs.size());
         Map<String, List<TempAccountNonce>> accountValidateTxMap = new HashMap<>(1024);
         Map<String, AccountState> accountStateMap = new HashMap<>(1024);
@@ -210,7 +272,6 @@ public class CoinDataValidator {
         Map<String, List<FreezeHeightState>> lockedHeightMap = new ConcurrentHashMap<String, List<FreezeHeightState>>();
 
         for (Transaction tx : txs) {
-            tx.setBlockHeight(height);
             if (LoggerUtil.logger(chainId).isDebugEnabled()) {
                 LoggerUtil.logger(chainId).debug("[TEST] blocksValidate tx type: {}, hash: {}", tx.getType(), tx.getHash().toHex());
             }
@@ -400,7 +461,7 @@ public class CoinDataValidator {
         }
         //判断是否已经在打包或已完成的交易
         try {
-            if (transactionService.hadTxExist(chainId, txHash)) {
+            if (transactionService.hadTxExist(chainId, tx.getHash().getBytes())) {
                 return ValidateResult.getResult(LedgerErrorCode.TX_EXIST, new String[]{"--", txHash});
             }
         } catch (Exception e) {
@@ -515,7 +576,7 @@ public class CoinDataValidator {
      * @param fromNonce
      * @return
      */
-    private ValidateResult validateCommonCoinData(int addressChainId, int assetChainId, int assetId, AccountState accountState, String address, BigInteger fromAmount, byte[] fromNonce, byte[] txNonce, boolean containUncomfirmedAmount) {
+    private ValidateResult validateCommonCoinData(int addressChainId, int assetChainId, int assetId, AccountState accountState, String address, byte[] addressBytes, BigInteger fromAmount, byte[] fromNonce, byte[] txNonce, boolean containUncomfirmedAmount) {
         AccountStateUnconfirmed accountStateUnconfirmed = null;
         if (containUncomfirmedAmount) {
             accountStateUnconfirmed = unconfirmedStateService.getUnconfirmedInfo(address, addressChainId, assetChainId, assetId, accountState);
@@ -555,7 +616,7 @@ public class CoinDataValidator {
                 return ValidateResult.getResult(LedgerErrorCode.DOUBLE_EXPENSES, new String[]{address, fromNonceStr});
             }
             //上面没连接上，但是fromNonce又存储过，则双花了
-            if (transactionService.fromNonceExist(addressChainId, LedgerUtil.getAccountNoncesStrKey(address, assetChainId, assetId, fromNonceStr))) {
+            if (transactionService.fromNonceExist(addressChainId, LedgerKeyUtil.getNonceKey(addressBytes, assetChainId, assetId, fromNonce))) {
                 logger(addressChainId).info("DOUBLE_EXPENSES_CODE address={},fromNonceStr={},tx={} fromNonce exist", address, fromNonceStr, LedgerUtil.getNonceEncode(txNonce));
                 return ValidateResult.getResult(LedgerErrorCode.DOUBLE_EXPENSES, new String[]{address, fromNonceStr});
             }
@@ -705,7 +766,7 @@ public class CoinDataValidator {
             return ValidateResult.getResult(LedgerErrorCode.TX_EXIST, new String[]{"--", txHash});
         }
         try {
-            if (transactionService.hadTxExist(chainId, txHash)) {
+            if (transactionService.hadTxExist(chainId, tx.getHash().getBytes())) {
                 logger(chainId).error("{} tx exist!", txHash);
                 return ValidateResult.getResult(LedgerErrorCode.TX_EXIST, new String[]{"--", txHash});
             }
@@ -895,7 +956,7 @@ public class CoinDataValidator {
     public ValidateResult validateCoinData(int addressChainId, Transaction tx) throws Exception {
         String txHash = tx.getHash().toHex();
         byte[] txNonce = LedgerUtil.getNonceByTx(tx);
-        if (transactionService.hadTxExist(addressChainId, txHash)) {
+        if (transactionService.hadTxExist(addressChainId, tx.getHash().getBytes())) {
             return ValidateResult.getResult(LedgerErrorCode.TX_EXIST, new String[]{"--", txHash});
         }
         CoinData coinData = CoinDataUtil.parseCoinData(tx.getCoinData());
@@ -923,7 +984,7 @@ public class CoinDataValidator {
             AccountState accountState = accountStateService.getAccountStateReCal(address, addressChainId, coinFrom.getAssetsChainId(), coinFrom.getAssetsId());
             //普通交易
             if (coinFrom.getLocked() == 0) {
-                return validateCommonCoinData(addressChainId, coinFrom.getAssetsChainId(), coinFrom.getAssetsId(), accountState, address, coinFrom.getAmount(), coinFrom.getNonce(), txNonce, true);
+                return validateCommonCoinData(addressChainId, coinFrom.getAssetsChainId(), coinFrom.getAssetsId(), accountState, address, coinFrom.getAddress(), coinFrom.getAmount(), coinFrom.getNonce(), txNonce, true);
             } else {
                 if (!isValidateFreezeTx(coinFrom.getLocked(), accountState, coinFrom.getAmount(), coinFrom.getNonce())) {
                     //确认交易未找到冻结的交易
@@ -936,7 +997,7 @@ public class CoinDataValidator {
 
     public ValidateResult analysisCoinData(int addressChainId, Transaction tx, Map<String, TxUnconfirmed> accountsMap, byte[] txNonce) throws Exception {
         String txHash = tx.getHash().toHex();
-        if (transactionService.hadTxExist(addressChainId, txHash)) {
+        if (transactionService.hadTxExist(addressChainId, tx.getHash().getBytes())) {
             return ValidateResult.getResult(LedgerErrorCode.TX_EXIST, new String[]{"--", txHash});
         }
         CoinData coinData = CoinDataUtil.parseCoinData(tx.getCoinData());
@@ -965,7 +1026,7 @@ public class CoinDataValidator {
             AccountState accountState = accountStateService.getAccountStateReCal(address, addressChainId, coinFrom.getAssetsChainId(), coinFrom.getAssetsId());
             //普通交易
             if (coinFrom.getLocked() == 0) {
-                ValidateResult validateResult = validateCommonCoinData(addressChainId, assetChainId, assetId, accountState, address, coinFrom.getAmount(), coinFrom.getNonce(), txNonce, false);
+                ValidateResult validateResult = validateCommonCoinData(addressChainId, assetChainId, assetId, accountState, address, coinFrom.getAddress(), coinFrom.getAmount(), coinFrom.getNonce(), txNonce, false);
                 if (validateResult.isSuccess()) {
                     CoinDataUtil.calTxFromAmount(accountsMap, coinFrom, txNonce, accountKey, address);
                 } else {
@@ -0,0 +1,80 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.ledger.test.storage;
+
+import io.nuls.ledger.model.po.AccountState;
+import io.nuls.ledger.storage.impl.AccountStateCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Map;
+
+public class AccountStateCacheTest {
+
+    private static AccountState state(long amount) {
+        AccountState accountState = new AccountState();
+        accountState.setTotalToAmount(BigInteger.valueOf(amount));
+        return accountState;
+    }
+
+    /**
+     * 读取返回同一快照, 覆盖写入与删除立即生效
+     */
+    @Test
+    public void putGetRemove() {
+        AccountStateCache cache = new AccountStateCache(1024 * 1024);
+        AccountState accountState = state(1);
+        cache.put("a-2-1", accountState);
+        Assert.assertSame(accountState, cache.get("a-2-1"));
+        cache.putIfAbsent("a-2-1", state(2));
+        Assert.assertSame(accountState, cache.get("a-2-1"));
+        cache.put("a-2-1", state(3));
+        Assert.assertEquals(BigInteger.valueOf(3), cache.get("a-2-1").getTotalToAmount());
+        cache.remove("a-2-1");
+        Assert.assertNull(cache.get("a-2-1"));
+        Map<String, Object> stats = cache.getStats();
+        Assert.assertEquals(3L, stats.get("hits"));
+        Assert.assertEquals(1L, stats.get("misses"));
+    }
+
+    /**
+     * 超出字节预算时淘汰, 多次命中的热点账户保留
+     */
+    @Test
+    public void boundedByBytes() {
+        long budget = 64 * 1024;
+        AccountStateCache cache = new AccountStateCache(budget);
+        cache.put("hot-2-1", state(1));
+        for (int i = 0; i < 10000; i++) {
+            cache.put("cold" + i + "-2-1", state(i));
+            Assert.assertNotNull(cache.get("hot-2-1"));
+        }
+        Assert.assertTrue(cache.getBytes() <= budget);
+        Assert.assertTrue((Long) cache.getStats().get("evictions") > 0);
+        Assert.assertNull(cache.get("cold0-2-1"));
+    }
+
+}
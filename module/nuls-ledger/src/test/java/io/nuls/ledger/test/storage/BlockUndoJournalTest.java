@@ -0,0 +1,78 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.ledger.test.storage;
+
+import io.nuls.base.basic.AddressTool;
+import io.nuls.base.basic.NulsByteBuffer;
+import io.nuls.ledger.model.po.AccountState;
+import io.nuls.ledger.model.po.BlockUndoJournal;
+import io.nuls.ledger.model.po.sub.AccountStateSnapshot;
+import io.nuls.ledger.model.po.sub.AccountStateUndo;
+import io.nuls.ledger.model.po.sub.AmountNonce;
+import io.nuls.ledger.model.po.sub.FreezeHeightState;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+public class BlockUndoJournalTest {
+
+    /**
+     * 回滚日志只记录变动字段, 序列化后以区块后状态还原出区块前快照, 重复还原结果不变
+     */
+    @Test
+    public void restorePreState() throws Exception {
+        String address = AddressTool.getStringAddressNoPrefix(AddressTool.getAddress(new byte[33], 2));
+        AccountState pre = new AccountState();
+        pre.setTotalToAmount(BigInteger.valueOf(1000));
+        AccountStateSnapshot snapshot = new AccountStateSnapshot(2, 2, 1, address, pre.deepClone());
+        snapshot.getNonces().add(new AmountNonce(new byte[8], new byte[]{1, 1, 1, 1, 1, 1, 1, 1}, BigInteger.TEN));
+
+        AccountState now = pre.deepClone();
+        now.setNonce(new byte[]{1, 1, 1, 1, 1, 1, 1, 1});
+        now.setTotalFromAmount(BigInteger.TEN);
+        now.setLatestUnFreezeTime(1600000000L);
+        FreezeHeightState heightState = new FreezeHeightState();
+        heightState.setTxHash("00");
+        heightState.setNonce(new byte[8]);
+        heightState.setAmount(BigInteger.ONE);
+        heightState.setHeight(100);
+        now.getFreezeHeightStates().add(heightState);
+
+        BlockUndoJournal journal = new BlockUndoJournal();
+        journal.add(snapshot, now);
+        byte[] bytes = journal.serialize();
+        Assert.assertEquals(journal.size(), bytes.length);
+
+        BlockUndoJournal parsed = new BlockUndoJournal();
+        parsed.parse(new NulsByteBuffer(bytes));
+        AccountStateUndo undo = parsed.getUndos().get(0);
+        Assert.assertEquals(address + "-2-1", undo.getAccountKey());
+        AccountStateSnapshot restored = undo.toSnapshot(now);
+        Assert.assertArrayEquals(snapshot.serialize(), restored.serialize());
+        Assert.assertArrayEquals(snapshot.serialize(), undo.toSnapshot(restored.getAccountState()).serialize());
+        Assert.assertEquals(1, now.getFreezeHeightStates().size());
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.ledger.test.storage;
+
+import io.nuls.base.basic.AddressTool;
+import io.nuls.core.crypto.HexUtil;
+import io.nuls.ledger.utils.LedgerKeyUtil;
+import io.nuls.ledger.utils.LedgerUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LedgerKeyUtilTest {
+
+    /**
+     * 二进制key定长, 且与旧字符串key一一对应
+     */
+    @Test
+    public void fixedWidthKeys() {
+        byte[] address = AddressTool.getAddress(new byte[33], 2);
+        String addressStr = LedgerUtil.getRealAddressStr(address);
+        byte[] nonce = HexUtil.decode("0102030405060708");
+
+        byte[] accountKey = LedgerKeyUtil.getAccountKey(address, 2, 300);
+        Assert.assertEquals(LedgerKeyUtil.ACCOUNT_KEY_LENGTH, accountKey.length);
+        Assert.assertArrayEquals(accountKey, LedgerKeyUtil.getAccountKey(LedgerUtil.getKeyStr(addressStr, 2, 300)));
+        Assert.assertArrayEquals(accountKey, LedgerUtil.getKey(addressStr, 2, 300));
+        Assert.assertEquals(1, accountKey[accountKey.length - 2]);
+        Assert.assertEquals(44, accountKey[accountKey.length - 1]);
+
+        byte[] nonceKey = LedgerKeyUtil.getNonceKey(address, 2, 300, nonce);
+        Assert.assertEquals(LedgerKeyUtil.NONCE_KEY_LENGTH, nonceKey.length);
+        Assert.assertArrayEquals(nonceKey, LedgerKeyUtil.getNonceKey(LedgerUtil.getAccountNoncesStrKey(addressStr, 2, 300, LedgerUtil.getNonceEncode(nonce))));
+
+        String legacyAccountKey = LedgerUtil.getKeyStr(addressStr, 2, 300);
+        Assert.assertTrue(legacyAccountKey.length() > LedgerKeyUtil.ACCOUNT_KEY_LENGTH);
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.ledger.test.utils;
+
+import io.nuls.ledger.utils.LockerUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+public class LockerUtilTest {
+
+    /**
+     * 超时未获得锁的线程, 锁释放后会自行完成
+     */
+    private final List<Thread> pending = new ArrayList<>();
+
+    /**
+     * 不同顺序锁定重叠账户的两个线程不会死锁
+     * Two threads locking overlapping accounts in opposite orders do not deadlock
+     */
+    @Test(timeout = 30000)
+    public void oppositeOrderTest() throws Exception {
+        List<String> keys = distinctStripeKeys(3);
+        List<String> reversed = new ArrayList<>(keys);
+        Collections.reverse(reversed);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> forward = executor.submit(() -> lockRepeatedly(keys, 20000));
+            Future<?> backward = executor.submit(() -> lockRepeatedly(reversed, 20000));
+            forward.get(20, TimeUnit.SECONDS);
+            backward.get(20, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(0, LockerUtil.LEDGER_LOCKER.getReadLockCount());
+    }
+
+    /**
+     * 重复账户及落在同一分段的不同账户只加一次锁, 解锁后完全释放
+     * Duplicate keys and keys sharing a stripe are locked once and fully released
+     */
+    @Test(timeout = 30000)
+    public void sameStripeTest() throws Exception {
+        String[] pair = sameStripeKeys();
+        int[] stripes = LockerUtil.lockAccounts(Arrays.asList(pair[0], pair[1], pair[0]));
+        Assert.assertEquals(1, stripes.length);
+        //持有期间其他线程不能获得该分段
+        Assert.assertFalse(lockInOtherThread(Collections.singleton(pair[1]), 200));
+        LockerUtil.unlockAccounts(stripes);
+        joinPending();
+        Assert.assertEquals(0, LockerUtil.LEDGER_LOCKER.getReadLockCount());
+        Assert.assertTrue(lockInOtherThread(Collections.singleton(pair[0]), 5000));
+        Assert.assertTrue(lockInOtherThread(Collections.singleton(pair[1]), 5000));
+    }
+
+    /**
+     * 区块提交的写锁与未确认处理互斥
+     * The block commit write lock excludes in-flight unconfirmed tx holders
+     */
+    @Test(timeout = 30000)
+    public void writeBarrierTest() throws Exception {
+        List<String> keys = distinctStripeKeys(2);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            int[] stripes = LockerUtil.lockAccounts(keys);
+            try {
+                locked.countDown();
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                LockerUtil.unlockAccounts(stripes);
+            }
+        });
+        holder.start();
+        locked.await();
+        //未确认处理进行中, 区块提交必须等待
+        Assert.assertFalse(LockerUtil.LEDGER_LOCKER.writeLock().tryLock(200, TimeUnit.MILLISECONDS));
+        release.countDown();
+        holder.join();
+        Assert.assertTrue(LockerUtil.LEDGER_LOCKER.writeLock().tryLock(5, TimeUnit.SECONDS));
+        try {
+            //区块提交进行中, 未确认处理必须等待
+            Assert.assertFalse(lockInOtherThread(keys, 200));
+        } finally {
+            LockerUtil.LEDGER_LOCKER.writeLock().unlock();
+        }
+        joinPending();
+        Assert.assertTrue(lockInOtherThread(keys, 5000));
+        Assert.assertEquals(0, LockerUtil.LEDGER_LOCKER.getReadLockCount());
+    }
+
+    private void joinPending() throws InterruptedException {
+        for (Thread thread : pending) {
+            thread.join();
+        }
+        pending.clear();
+    }
+
+    private static void lockRepeatedly(List<String> keys, int times) {
+        for (int i = 0; i < times; i++) {
+            int[] stripes = LockerUtil.lockAccounts(keys);
+            LockerUtil.unlockAccounts(stripes);
+        }
+    }
+
+    /**
+     * 在另一个线程中锁定账户, 超时内加锁成功后立即解锁
+     */
+    private boolean lockInOtherThread(Collection<String> keys, long timeoutMillis) throws Exception {
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread thread = new Thread(() -> {
+            int[] stripes = LockerUtil.lockAccounts(keys);
+            acquired.countDown();
+            LockerUtil.unlockAccounts(stripes);
+        });
+        thread.setDaemon(true);
+        thread.start();
+        boolean result = acquired.await(timeoutMillis, TimeUnit.MILLISECONDS);
+        if (!result) {
+            pending.add(thread);
+            return false;
+        }
+        thread.join();
+        return true;
+    }
+
+    private static int stripeOf(String key) {
+        int[] stripes = LockerUtil.lockAccounts(Collections.singleton(key));
+        LockerUtil.unlockAccounts(stripes);
+        return stripes[0];
+    }
+
+    private static List<String> distinctStripeKeys(int count) {
+        List<String> keys = new ArrayList<>();
+        Set<Integer> used = new HashSet<>();
+        for (int i = 0; keys.size() < count; i++) {
+            String key = "tNULSeBaMoG1oaW1JZnh6Ly65Ttp6raeTFBfCG" + i + "-2-1";
+            if (used.add(stripeOf(key))) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    private static String[] sameStripeKeys() {
+        Map<Integer, String> seen = new HashMap<>();
+        for (int i = 0; ; i++) {
+            String key = "tNULSeBaMoG1oaW1JZnh6Ly65Ttp6raeTFBfCG" + i + "-2-1";
+            String other = seen.putIfAbsent(stripeOf(key), key);
+            if (other != null) {
+                return new String[]{other, key};
+            }
+        }
+    }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.ledger.test.validater;
+
+import io.nuls.ledger.model.po.AccountState;
+import io.nuls.ledger.model.po.sub.FreezeHeightState;
+import io.nuls.ledger.model.po.sub.FreezeLockTimeState;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+public class FreezeReleaseTest {
+
+    private static FreezeHeightState height(long height, long amount) {
+        FreezeHeightState heightState = new FreezeHeightState();
+        heightState.setTxHash("00");
+        heightState.setNonce(new byte[8]);
+        heightState.setHeight(height);
+        heightState.setAmount(BigInteger.valueOf(amount));
+        return heightState;
+    }
+
+    private static FreezeLockTimeState time(long lockTime, long amount) {
+        FreezeLockTimeState lockTimeState = new FreezeLockTimeState();
+        lockTimeState.setTxHash("00");
+        lockTimeState.setNonce(new byte[8]);
+        lockTimeState.setLockTime(lockTime);
+        lockTimeState.setAmount(BigInteger.valueOf(amount));
+        return lockTimeState;
+    }
+
+    /**
+     * 高度锁有序插入, 只释放到期前缀, 冻结总额同步更新
+     */
+    @Test
+    public void releaseHeight() {
+        AccountState accountState = new AccountState();
+        accountState.addFreezeHeightState(height(10, 1));
+        accountState.addFreezeHeightState(height(5, 2));
+        accountState.addFreezeHeightState(height(20, 4));
+        accountState.addFreezeHeightState(height(5, 8));
+        Assert.assertEquals(BigInteger.valueOf(15), accountState.getFreezeTotal());
+        Assert.assertEquals(2, accountState.getFreezeHeightStates().get(0).getAmount().intValue());
+        Assert.assertEquals(8, accountState.getFreezeHeightStates().get(1).getAmount().intValue());
+
+        Assert.assertEquals(BigInteger.ZERO, accountState.releaseFreezeHeight(4));
+        Assert.assertEquals(BigInteger.valueOf(11), accountState.releaseFreezeHeight(10));
+        Assert.assertEquals(1, accountState.getFreezeHeightStates().size());
+        Assert.assertEquals(BigInteger.valueOf(4), accountState.getFreezeTotal());
+    }
+
+    /**
+     * 永久锁定不释放, 毫秒时间锁只在includeMlTime时释放
+     */
+    @Test
+    public void releaseLockTime() throws Exception {
+        long now = 1600000000L;
+        long nowMl = now * 1000;
+        AccountState accountState = new AccountState();
+        accountState.addFreezeLockTimeState(time(nowMl - 1, 1));
+        accountState.addFreezeLockTimeState(time(now + 100, 2));
+        accountState.addFreezeLockTimeState(time(-1, 4));
+        accountState.addFreezeLockTimeState(time(now - 10, 8));
+        accountState.addFreezeLockTimeState(time(nowMl + 1, 16));
+
+        AccountState v1 = accountState.deepClone();
+        Assert.assertEquals(BigInteger.valueOf(8), v1.releaseFreezeLockTime(now, nowMl, false));
+        Assert.assertEquals(BigInteger.valueOf(23), v1.getFreezeTotal());
+
+        Assert.assertEquals(BigInteger.valueOf(9), accountState.releaseFreezeLockTime(now, nowMl, true));
+        Assert.assertEquals(3, accountState.getFreezeLockTimeStates().size());
+        Assert.assertEquals(-1, accountState.getFreezeLockTimeStates().get(0).getLockTime());
+        Assert.assertEquals(BigInteger.valueOf(22), accountState.getFreezeTotal());
+
+        //反序列化后保持有序
+        AccountState parsed = new AccountState();
+        parsed.parse(accountState.serialize(), 0);
+        Assert.assertArrayEquals(accountState.serialize(), parsed.serialize());
+        Assert.assertEquals(BigInteger.valueOf(22), parsed.getFreezeTotal());
+    }
+}
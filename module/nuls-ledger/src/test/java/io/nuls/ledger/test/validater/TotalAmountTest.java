@@ -7,8 +7,8 @@ import io.nuls.core.rockdb.manager.RocksDBManager;
 import io.nuls.core.rockdb.model.Entry;
 import org.junit.Test;
 
-import java.io.UnsupportedEncodingException;
 import java.math.BigInteger;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -22,20 +22,22 @@ public class TotalAmountTest {
         List<Entry<byte[], byte[]>> list = RocksDBManager.entryList("account_1");
         BigInteger total = list.stream().map(d -> {
             try {
-                String key = new String(d.getKey(), "UTF8");
-                String[] keyAry = key.split("-");
-                byte[] address = AddressTool.getAddress("NULSd" + keyAry[0]);
+                //key: 地址(23) + 资产链id(2) + 资产id(2)
+                byte[] key = d.getKey();
+                byte[] address = Arrays.copyOf(key, key.length - 4);
                 if (AddressTool.getChainIdByAddress(address) != 1) {
                     return BigInteger.ZERO;
                 }
-                if ("9".equals(keyAry[1]) && "1".equals(keyAry[2]) && !"6HgWSU1iR6BfNoQi85mAMT52JMFzpnok".equals(keyAry[0])) {
+                int assetChainId = ((key[key.length - 4] & 0xff) << 8) | (key[key.length - 3] & 0xff);
+                int assetId = ((key[key.length - 2] & 0xff) << 8) | (key[key.length - 1] & 0xff);
+                if (assetChainId == 9 && assetId == 1 && !"6HgWSU1iR6BfNoQi85mAMT52JMFzpnok".equals(AddressTool.getStringAddressNoPrefix(address))) {
                     io.nuls.ledger.model.po.AccountState accountState = new io.nuls.ledger.model.po.AccountState();
                     accountState.parse(d.getValue(), 0);
                     return accountState.getTotalAmount();
                 } else {
                     return BigInteger.ZERO;
                 }
-            } catch (UnsupportedEncodingException | NulsException e) {
+            } catch (NulsException e) {
                 return BigInteger.ZERO;
             }
         }).reduce(BigInteger::add).orElse(BigInteger.ZERO);
@@ -0,0 +1,77 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.ledger.test.validater;
+
+import io.nuls.base.basic.AddressTool;
+import io.nuls.base.data.CoinData;
+import io.nuls.base.data.CoinFrom;
+import io.nuls.base.data.CoinTo;
+import io.nuls.base.data.Transaction;
+import io.nuls.ledger.utils.TxConflictPartitioner;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+
+public class TxConflictPartitionerTest {
+
+    private static byte[] address(int i) {
+        byte[] publicKey = new byte[33];
+        publicKey[0] = 2;
+        publicKey[1] = (byte) i;
+        return AddressTool.getAddress(publicKey, 2);
+    }
+
+    private static Transaction transfer(int from, int to, long time) throws IOException {
+        CoinData coinData = new CoinData();
+        coinData.addFrom(new CoinFrom(address(from), 2, 1, BigInteger.ONE, new byte[8], (byte) 0));
+        coinData.addTo(new CoinTo(address(to), 2, 1, BigInteger.ONE));
+        Transaction tx = new Transaction(2);
+        tx.setTime(time);
+        tx.setCoinData(coinData.serialize());
+        return tx;
+    }
+
+    /**
+     * 共享账户的交易归入同一组并保持区块顺序, 不相关的交易单独成组
+     */
+    @Test
+    public void partition() throws IOException {
+        Transaction t0 = transfer(1, 2, 0);
+        Transaction t1 = transfer(3, 4, 1);
+        Transaction t2 = transfer(2, 5, 2);
+        Transaction t3 = transfer(6, 7, 3);
+        Transaction t4 = transfer(5, 1, 4);
+        List<List<Transaction>> groups = TxConflictPartitioner.partition(Arrays.asList(t0, t1, t2, t3, t4));
+        Assert.assertEquals(3, groups.size());
+        Assert.assertEquals(Arrays.asList(t0, t2, t4), groups.get(0));
+        Assert.assertEquals(Arrays.asList(t1), groups.get(1));
+        Assert.assertEquals(Arrays.asList(t3), groups.get(2));
+    }
+
+}
@@ -24,7 +24,6 @@
  */
 package io.nuls.network.manager.handler.message;
 
-import io.nuls.base.RPCUtil;
 import io.nuls.core.constant.BaseConstant;
 import io.nuls.core.rpc.info.Constants;
 import io.nuls.core.rpc.model.CmdPriority;
@@ -90,8 +89,8 @@ public class OtherModuleMessageHandler extends BaseMessageHandler {
         paramMap.put("nodeId", node.getId());
         String cmd = header.getCommandStr();
         paramMap.put("cmd", cmd);
-        String messageBody = RPCUtil.encode(payLoadBody);
-        paramMap.put("messageBody", messageBody);
+        //消息体以原始字节转发，不再转为十六进制字符串
+        paramMap.put("messageBody", payLoadBody);
         Map<String, CmdPriority> protocolRoles = MessageHandlerFactory.getInstance().getProtocolRoleHandlerMap(cmd);
         if (protocolRoles == null || protocolRoles.isEmpty()) {
             LoggerUtil.logger(chainId).error("unknown mssages. cmd={},handler may be unRegistered to network.", cmd);
@@ -105,7 +104,7 @@ public class OtherModuleMessageHandler extends BaseMessageHandler {
                         LoggerUtil.COMMON_LOG.error("chainId = {},cmd={},CacheMsgQueue size={}.RPC fail,drop msg", chainId, cmd, nodeGroup.getCacheMsgQueue().size());
                     } else {
                         LoggerUtil.COMMON_LOG.error("chainId = {},cmd={},RPC fail,add to cache", chainId, cmd);
-                        RpcCacheMessage peerMessage = new RpcCacheMessage(node.getId(), cmd, messageBody);
+                        RpcCacheMessage peerMessage = new RpcCacheMessage(node.getId(), cmd, payLoadBody);
                         nodeGroup.getCacheMsgQueue().addLast(peerMessage);
                     }
                 }
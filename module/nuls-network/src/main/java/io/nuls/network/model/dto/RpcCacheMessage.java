@@ -12,11 +12,11 @@ import java.util.Map;
 public class RpcCacheMessage {
     String nodeId;
     String cmd;
-    String messageBody;
+    byte[] messageBody;
     long createTime = 0;
     int tryTimes = 0;
 
-    public RpcCacheMessage(String nodeId, String cmd, String messageBody) {
+    public RpcCacheMessage(String nodeId, String cmd, byte[] messageBody) {
         this.cmd = cmd;
         this.nodeId = nodeId;
         this.messageBody = messageBody;
@@ -49,11 +49,11 @@ public class RpcCacheMessage {
         this.cmd = cmd;
     }
 
-    public String getMessageBody() {
+    public byte[] getMessageBody() {
         return messageBody;
     }
 
-    public void setMessageBody(String messageBody) {
+    public void setMessageBody(byte[] messageBody) {
         this.messageBody = messageBody;
     }
 
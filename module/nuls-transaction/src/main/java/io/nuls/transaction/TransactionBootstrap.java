@@ -46,6 +46,7 @@ import io.nuls.transaction.constant.TxDBConstant;
 import io.nuls.transaction.manager.ChainManager;
 import io.nuls.transaction.model.bo.Chain;
 import io.nuls.transaction.utils.DBUtil;
+import io.nuls.transaction.utils.TxDuplicateRemoval;
 import io.nuls.transaction.utils.TxUtil;
 
 import java.util.Set;
@@ -85,6 +86,7 @@ public class TransactionBootstrap extends RpcModule {
             initDB();
             chainManager.initChain();
             TxUtil.blackHolePublicKey = HexUtil.decode(txConfig.getBlackHolePublicKey());
+            TxDuplicateRemoval.init(txConfig.getTxDuplicateFilterCapacity(), txConfig.getTxDuplicateFilterFpp());
             ModuleHelper.init(this);
         } catch (Exception e) {
             LOG.error("Transaction init error!");
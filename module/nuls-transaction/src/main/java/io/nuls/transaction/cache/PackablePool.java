@@ -1,18 +1,28 @@
 package io.nuls.transaction.cache;
 
+import io.nuls.base.basic.AddressTool;
+import io.nuls.base.data.CoinData;
 import io.nuls.base.data.Transaction;
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
-import io.nuls.core.model.ByteArrayWrapper;
+import io.nuls.core.core.ioc.SpringLiteContext;
+import io.nuls.core.exception.NulsException;
+import io.nuls.transaction.constant.TxConfig;
+import io.nuls.transaction.constant.TxConstant;
+import io.nuls.transaction.manager.TxManager;
 import io.nuls.transaction.model.bo.Chain;
+import io.nuls.transaction.service.TxService;
 import io.nuls.transaction.storage.UnconfirmedTxStorageService;
 
+import java.math.BigInteger;
 import java.util.List;
-import java.util.Map;
 
 /**
  * 交易已完成交易管理模块的校验(打包的时候从这里取)
  * Waiting for a packaged transaction pool
+ * <p>
+ * 交易按手续费率从高到低取出, 同一账户的交易按nonce顺序取出, 详见{@link TxMempool}
+ * Transactions are taken by fee rate, transactions of one account follow their nonce order, see {@link TxMempool}
  *
  * @author: Charlie
  * @date: 2018/11/13
@@ -20,101 +30,79 @@ import java.util.Map;
 @Component
 public class PackablePool {
 
+    private static final BigInteger KB = BigInteger.valueOf(1024);
+    private static final BigInteger MAX_FEE_RATE = BigInteger.valueOf(Long.MAX_VALUE);
+
     @Autowired
     private UnconfirmedTxStorageService unconfirmedTxStorageService;
 
+    @Autowired
+    private TxConfig txConfig;
+
     /**
-     * 将交易加入到待打包队列最前端，打包时最先取出
-     * Add the transaction to the front of the queue to be packed, and take it out first when it is packed
+     * 将交易加入到待打包池, 同等手续费率时排在最前面, 打包时最先取出
+     * Add the transaction to the pool ahead of transactions with the same fee rate
      *
      * @param chain
      * @param tx
      * @return
      */
     public boolean offerFirst(Chain chain, Transaction tx) {
-        ByteArrayWrapper hash = new ByteArrayWrapper(tx.getHash().getBytes());
-        synchronized (hash) {
-            if (chain.getPackableHashQueue().offerFirst(hash)) {
-                chain.getPackableTxMap().put(hash, tx);
-                return true;
-            }
-        }
-        chain.getLogger().error("PackableHashQueue offerFirst false");
-        return false;
+        chain.getTxMempool().add(tx, feeRate(chain, tx), true);
+        evict(chain);
+        return true;
     }
 
     /**
      * 只还hash 不需要还到map中
+     * 交易已不在池中(已被确认或清理)时, 从未确认库中移除
+     * If the transaction has left the pool (confirmed or cleared), it is removed from the unconfirmed storage
+     *
      * @param chain
      * @param tx
      * @return
      */
     public boolean offerFirstOnlyHash(Chain chain, Transaction tx) {
-        ByteArrayWrapper hash = new ByteArrayWrapper(tx.getHash().getBytes());
-        synchronized (hash) {
-            if (chain.getPackableHashQueue().offerFirst(hash)) {
-                return true;
-            }
+        if (!chain.getTxMempool().putBack(tx)) {
+            unconfirmedTxStorageService.removeTx(chain.getChainId(), tx.getHash().getBytes());
         }
-        chain.getLogger().error("PackableHashQueue offerFirst false");
-        return false;
+        return true;
     }
 
     /**
-     * 将交易加入到待打包队列队尾
-     * Add the transaction to the end of the queue to be packed
+     * 将交易加入到待打包池, 同等手续费率时排在后面
+     * Add the transaction to the pool behind transactions with the same fee rate
      *
      * @param chain
      * @param tx
      * @return
      */
     public boolean add(Chain chain, Transaction tx) {
-        ByteArrayWrapper hash = new ByteArrayWrapper(tx.getHash().getBytes());
-        synchronized (hash) {
-            if (chain.getPackableHashQueue().offer(hash)) {
-                chain.getPackableTxMap().put(hash, tx);
-                return true;
-            }
-        }
-        chain.getLogger().error("PackableHashQueue add false");
-        return false;
+        chain.getTxMempool().add(tx, feeRate(chain, tx), false);
+        evict(chain);
+        return true;
     }
 
     /**
-     * 从待打包队列获取一笔交易
-     * Gets a transaction from the queue to be packaged
+     * 从待打包池获取一笔交易
+     * Gets a transaction from the pool to be packaged
      * <p>
-     * 1.从队列中取出hash，然后再去map中获取交易
-     * 2.如果map没有说明已经被打包确认，然后接着拿下一个，直到获取到一个交易，或者队列为空
+     * 取手续费率最高的交易, 父交易(同一账户资产的上一个nonce)还未取出时不会取出子交易,
+     * 交易仍保留在池中, 直到被确认或清理
      * <p>
-     * 1.Fetch the hash from the queue, and then fetch the transaction from the map
-     * 2.If the map does not indicate that it has been packaged for confirmation,
-     * then take one down until a transaction is obtained, or if the queue is empty
+     * Takes the transaction with the highest fee rate whose parent (previous nonce of the same account asset)
+     * has already been taken; the transaction stays in the pool until it is confirmed or cleared
      *
      * @param chain
      * @return
      */
     public Transaction poll(Chain chain) {
-        while (true) {
-            ByteArrayWrapper hash = chain.getPackableHashQueue().poll();
-            if (null == hash) {
-                return null;
-            }
-            synchronized (hash) {
-                Transaction tx = chain.getPackableTxMap().get(hash);
-                if (null != tx) {
-                    return tx;
-                } else {
-                    unconfirmedTxStorageService.removeTx(chain.getChainId(), hash.getBytes());
-                }
-            }
-        }
-
+        return chain.getTxMempool().poll();
     }
 
     /**
-     * 获取并移除此双端队列的最后一个元素；如果此双端队列为空，则返回 null
-     * Gets and removes the last element of the other double-ended queue; If this double-ended queue is empty, null is returned
+     * 获取优先级最低的一笔交易；如果没有可打包交易，则返回 null
+     * Gets the transaction with the lowest priority; If there is none, null is returned
      *
      * 协议升级时需要重新处理未打包的交易
      * When the agreement is upgraded, unpackaged transactions need to be reprocessed
@@ -123,40 +111,24 @@ public class PackablePool {
      * @return
      */
     public Transaction pollLast(Chain chain) {
-        while (true) {
-            ByteArrayWrapper hash = chain.getPackableHashQueue().pollLast();
-            if (null == hash) {
-                return null;
-            }
-            synchronized (hash) {
-                Transaction tx = chain.getPackableTxMap().get(hash);
-                if (null != tx) {
-                    return tx;
-                } else {
-                    unconfirmedTxStorageService.removeTx(chain.getChainId(), hash.getBytes());
-                }
-            }
-        }
+        return chain.getTxMempool().pollLast();
     }
 
     public void clearConfirmedTxs(Chain chain, List<byte[]> txHashs) {
-        Map<ByteArrayWrapper, Transaction> map = chain.getPackableTxMap();
+        TxMempool mempool = chain.getTxMempool();
         for (byte[] hash : txHashs) {
-            ByteArrayWrapper wrapper = new ByteArrayWrapper(hash);
-            map.remove(wrapper);
+            mempool.remove(hash);
         }
     }
 
     public void removeInvalidTxFromMap(Chain chain, Transaction tx) {
-        Map<ByteArrayWrapper, Transaction> map = chain.getPackableTxMap();
-        ByteArrayWrapper wrapper = new ByteArrayWrapper(tx.getHash().getBytes());
-        map.remove(wrapper);
+        chain.getTxMempool().remove(tx.getHash().getBytes());
     }
 
     /**
-     * 判断交易是否在待打包队列的hash queue中，交易如果存在于待打包map中, 不一定存在于hash队列.
-     * Determine if the transaction is in the hash queue to be packaged;
-     * if the transaction exists in the map, it does not necessarily exist in the hash queue to be packaged.
+     * 判断交易是否在待打包池中并且可打包, 交易如果已被取出正在打包, 则不算可打包.
+     * Determine if the transaction is in the pool and available;
+     * a transaction taken out for packaging is still in the pool but not available.
      *
      *
      * @param chain
@@ -164,20 +136,77 @@ public class PackablePool {
      * @return
      */
     public boolean exist(Chain chain, Transaction tx) {
-        ByteArrayWrapper hash = new ByteArrayWrapper(tx.getHash().getBytes());
-        return chain.getPackableHashQueue().contains(hash);
+        return chain.getTxMempool().isAvailable(tx);
     }
 
     public int packableHashQueueSize(Chain chain) {
-        return chain.getPackableHashQueue().size();
+        return chain.getTxMempool().availableSize();
     }
 
     public int packableTxMapSize(Chain chain) {
-        return chain.getPackableTxMap().size();
+        return chain.getTxMempool().size();
+    }
+
+    /**
+     * 待打包池中交易总大小
+     * Total data size of the transactions in the pool
+     *
+     * @param chain
+     * @return
+     */
+    public int getDataSize(Chain chain) {
+        return (int) chain.getTxMempool().getDataSize();
     }
 
     public void clear(Chain chain) {
-        chain.getPackableHashQueue().clear();
+        chain.getTxMempool().clearAvailable();
+    }
+
+    /**
+     * 超过待打包池容量上限时, 剔除手续费率最低的交易并回滚其未确认状态
+     * Above the pool capacity, evict the lowest fee transactions and roll back their unconfirmed state
+     */
+    private void evict(Chain chain) {
+        List<Transaction> evicted = chain.getTxMempool().evict(TxConstant.PACKABLE_TX_MAP_MAX_DATA_SIZE);
+        if (evicted.isEmpty()) {
+            return;
+        }
+        TxService txService = SpringLiteContext.getBean(TxService.class);
+        for (Transaction tx : evicted) {
+            chain.getLogger().debug("Packable pool tx data size reach the max, evict transaction, hash:{}", tx.getHash().toHex());
+            txService.clearInvalidTx(chain, tx);
+        }
+    }
+
+    /**
+     * 计算每KB手续费, 手续费资产与交易验证时一致
+     * Fee per KB, in the same fee asset as the transaction validation
+     */
+    private long feeRate(Chain chain, Transaction tx) {
+        if (null == tx.getCoinData() || tx.getCoinData().length == 0) {
+            return 0L;
+        }
+        try {
+            CoinData coinData = tx.getCoinDataInstance();
+            if (null == coinData.getFrom() || coinData.getFrom().isEmpty()) {
+                return 0L;
+            }
+            int feeAssetChainId = chain.getConfig().getChainId();
+            int feeAssetId = chain.getConfig().getAssetId();
+            if (TxManager.isCrossTx(tx.getType())
+                    && AddressTool.getChainIdByAddress(coinData.getFrom().get(0).getAddress()) != chain.getChainId()) {
+                feeAssetChainId = txConfig.getMainChainId();
+                feeAssetId = txConfig.getMainAssetId();
+            }
+            BigInteger fee = coinData.getFeeByAsset(feeAssetChainId, feeAssetId);
+            if (fee.signum() <= 0) {
+                return 0L;
+            }
+            return fee.multiply(KB).divide(BigInteger.valueOf(Math.max(tx.size(), 1))).min(MAX_FEE_RATE).longValue();
+        } catch (NulsException e) {
+            chain.getLogger().error(e);
+            return 0L;
+        }
     }
 
 }
@@ -0,0 +1,131 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.transaction.cache;
+
+import com.google.common.hash.HashFunction;
+import io.nuls.base.data.CompactBlock;
+import io.nuls.base.data.NulsHash;
+import io.nuls.core.model.ByteArrayWrapper;
+
+import java.util.*;
+
+/**
+ * 未确认交易的紧凑区块短ID索引
+ * Compact block short id index of unconfirmed transactions
+ * <p>
+ * 短ID由区块hash与盐决定, 无法预先计算; 索引在收到新的区块hash与盐时按内存中的交易hash重建一次,
+ * 之后新增、删除的交易增量维护, 同一紧凑区块的多次查询直接命中, 不再扫描未确认库.
+ * <p>
+ * Short ids depend on the block hash and salt, so they cannot be precomputed; the index is rebuilt once from the
+ * in-memory hash set when a new block hash and salt arrive, then kept up to date as transactions are added or removed,
+ * so repeated lookups for the same compact block never scan the unconfirmed table.
+ */
+public class ShortIdIndex {
+
+    /**
+     * 未确认库中的全部交易hash
+     */
+    private final Set<ByteArrayWrapper> hashes = new HashSet<>();
+
+    /**
+     * 当前盐下的短ID -> 交易hash, 同一短ID可能对应多笔交易
+     */
+    private final Map<Long, List<byte[]>> index = new HashMap<>();
+
+    private NulsHash blockHash;
+
+    private long nonce;
+
+    private HashFunction hasher;
+
+    public synchronized void add(byte[] hash) {
+        if (hashes.add(new ByteArrayWrapper(hash)) && null != hasher) {
+            index.computeIfAbsent(shortId(hash), k -> new ArrayList<>(1)).add(hash);
+        }
+    }
+
+    public synchronized void remove(byte[] hash) {
+        if (!hashes.remove(new ByteArrayWrapper(hash)) || null == hasher) {
+            return;
+        }
+        long shortId = shortId(hash);
+        List<byte[]> list = index.get(shortId);
+        if (null == list) {
+            return;
+        }
+        list.removeIf(item -> Arrays.equals(item, hash));
+        if (list.isEmpty()) {
+            index.remove(shortId);
+        }
+    }
+
+    public synchronized void clear() {
+        hashes.clear();
+        index.clear();
+    }
+
+    public synchronized int size() {
+        return hashes.size();
+    }
+
+    /**
+     * 按短ID查找交易hash, 区块hash或盐与上次不同时先重建索引
+     * Look up tx hashes by short id, rebuilding the index first when the block hash or salt changed
+     *
+     * @param blockHash 区块hash
+     * @param nonce     盐
+     * @param shortIds  短ID
+     * @return 命中的交易hash, 同一短ID命中的都会返回
+     */
+    public synchronized List<byte[]> get(NulsHash blockHash, long nonce, Collection<Long> shortIds) {
+        if (null == hasher || this.nonce != nonce || !this.blockHash.equals(blockHash)) {
+            rebuild(blockHash, nonce);
+        }
+        List<byte[]> result = new ArrayList<>();
+        for (Long shortId : shortIds) {
+            List<byte[]> list = index.get(shortId);
+            if (null != list) {
+                result.addAll(list);
+            }
+        }
+        return result;
+    }
+
+    private void rebuild(NulsHash blockHash, long nonce) {
+        this.blockHash = blockHash;
+        this.nonce = nonce;
+        this.hasher = CompactBlock.shortIdHasher(blockHash, nonce);
+        index.clear();
+        for (ByteArrayWrapper wrapper : hashes) {
+            byte[] hash = wrapper.getBytes();
+            index.computeIfAbsent(shortId(hash), k -> new ArrayList<>(1)).add(hash);
+        }
+    }
+
+    private long shortId(byte[] hash) {
+        return hasher.hashBytes(hash).asLong() & CompactBlock.SHORT_ID_MASK;
+    }
+}
@@ -0,0 +1,435 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.transaction.cache;
+
+import io.nuls.base.data.CoinData;
+import io.nuls.base.data.CoinFrom;
+import io.nuls.base.data.Transaction;
+import io.nuls.core.exception.NulsException;
+import io.nuls.core.model.ByteArrayWrapper;
+import io.nuls.core.model.ByteUtils;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 按手续费和nonce索引的待打包交易池
+ * Packable transaction pool indexed by fee rate and account nonce
+ * <p>
+ * 1.交易按hash索引, 判断是否存在为O(1)
+ * 2.可打包交易按手续费率倒序、加入顺序正序排列
+ * 3.按账户资产的nonce链记录交易间的依赖, 父交易仍在池中可打包时, 子交易不会被取出
+ * 4.记录池中交易总大小, 超过上限时剔除手续费率最低且没有子交易的交易
+ * <p>
+ * 1.Transactions are indexed by hash, membership is O(1)
+ * 2.Available transactions are ordered by fee rate desc, then by arrival
+ * 3.Dependencies follow each account asset's nonce chain; a child is not handed out while its parent is still available
+ * 4.The total data size is tracked; above the cap the lowest fee leaf transactions are evicted
+ */
+public class TxMempool {
+
+    /**
+     * nonce长度, 为交易hash的后8个字节
+     */
+    private static final int NONCE_LENGTH = 8;
+
+    private static final Comparator<Entry> PRIORITY = (o1, o2) -> {
+        int rs = Long.compare(o2.feeRate, o1.feeRate);
+        if (rs != 0) {
+            return rs;
+        }
+        return Long.compare(o1.sequence, o2.sequence);
+    };
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 池中所有交易(包含已被取出正在打包的交易)
+     */
+    private final Map<ByteArrayWrapper, Entry> entries = new HashMap<>();
+
+    /**
+     * 账户资产+交易产生的nonce -> 交易
+     */
+    private final Map<ByteArrayWrapper, Entry> producedNonces = new HashMap<>();
+
+    /**
+     * 账户资产+交易花费的nonce -> 交易
+     */
+    private final Map<ByteArrayWrapper, Entry> spentNonces = new HashMap<>();
+
+    /**
+     * 可打包, 并且没有可打包父交易的交易
+     */
+    private final TreeSet<Entry> ready = new TreeSet<>(PRIORITY);
+
+    /**
+     * 所有可打包交易, 用于按手续费剔除
+     */
+    private final TreeSet<Entry> available = new TreeSet<>(PRIORITY);
+
+    private long dataSize;
+
+    private long headSequence;
+
+    private long tailSequence;
+
+    /**
+     * 加入交易, 交易已存在时重新置为可打包
+     * Add a transaction, or make an existing one available again
+     *
+     * @param tx      交易
+     * @param feeRate 每KB手续费
+     * @param first   同等手续费率时排在最前面
+     * @return 是否为新加入的交易
+     */
+    public boolean add(Transaction tx, long feeRate, boolean first) {
+        ByteArrayWrapper hash = new ByteArrayWrapper(tx.getHash().getBytes());
+        lock.lock();
+        try {
+            Entry entry = entries.get(hash);
+            if (null != entry) {
+                makeAvailable(entry);
+                return false;
+            }
+            entry = new Entry(hash, tx, feeRate, first ? --headSequence : ++tailSequence);
+            entries.put(hash, entry);
+            for (ByteArrayWrapper key : entry.produceKeys) {
+                producedNonces.putIfAbsent(key, entry);
+            }
+            for (ByteArrayWrapper key : entry.spendKeys) {
+                spentNonces.putIfAbsent(key, entry);
+            }
+            for (Entry parent : parents(entry)) {
+                if (parent.available) {
+                    entry.pendingParents++;
+                }
+            }
+            dataSize += entry.size;
+            makeAvailable(entry);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 只还hash, 交易必须还在池中
+     * Make a transaction that is still in the pool available again
+     *
+     * @return 交易不在池中时返回false
+     */
+    public boolean putBack(Transaction tx) {
+        ByteArrayWrapper hash = new ByteArrayWrapper(tx.getHash().getBytes());
+        lock.lock();
+        try {
+            Entry entry = entries.get(hash);
+            if (null == entry) {
+                return false;
+            }
+            makeAvailable(entry);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 取出手续费率最高且没有可打包父交易的交易, 交易仍保留在池中直到被确认或清理
+     * Take the best transaction whose parents are no longer available; it stays in the pool until confirmed or cleared
+     */
+    public Transaction poll() {
+        return take(true);
+    }
+
+    /**
+     * 取出优先级最低的交易
+     * Take the transaction with the lowest priority
+     */
+    public Transaction pollLast() {
+        return take(false);
+    }
+
+    private Transaction take(boolean best) {
+        lock.lock();
+        try {
+            Entry entry = best ? ready.pollFirst() : ready.pollLast();
+            if (null == entry) {
+                return null;
+            }
+            makeUnavailable(entry);
+            return entry.tx;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 从池中移除交易
+     * Remove a transaction from the pool
+     */
+    public Transaction remove(byte[] hash) {
+        lock.lock();
+        try {
+            Entry entry = entries.get(new ByteArrayWrapper(hash));
+            if (null == entry) {
+                return null;
+            }
+            removeEntry(entry);
+            return entry.tx;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 总大小超过上限时, 剔除手续费率最低并且没有子交易在池中的可打包交易
+     * Evict the lowest fee available transactions without pooled children until the data size is within the cap
+     *
+     * @return 被剔除的交易
+     */
+    public List<Transaction> evict(long maxDataSize) {
+        lock.lock();
+        try {
+            if (dataSize <= maxDataSize) {
+                return Collections.emptyList();
+            }
+            List<Transaction> evicted = new ArrayList<>();
+            Iterator<Entry> it = available.descendingIterator();
+            while (dataSize > maxDataSize && it.hasNext()) {
+                Entry entry = it.next();
+                if (!children(entry).isEmpty()) {
+                    continue;
+                }
+                it.remove();
+                removeEntry(entry);
+                evicted.add(entry.tx);
+            }
+            return evicted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 交易在池中并且可打包
+     * Whether the transaction is in the pool and available
+     */
+    public boolean isAvailable(Transaction tx) {
+        lock.lock();
+        try {
+            Entry entry = entries.get(new ByteArrayWrapper(tx.getHash().getBytes()));
+            return null != entry && entry.available;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 可打包交易数
+     */
+    public int availableSize() {
+        lock.lock();
+        try {
+            return available.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 池中交易数
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 池中交易总大小
+     */
+    public long getDataSize() {
+        lock.lock();
+        try {
+            return dataSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 所有交易置为不可打包, 交易仍保留在池中, 已取出交易上的父交易计数一并清零
+     * Mark all transactions unavailable, they stay in the pool; parent counts of taken transactions are reset too
+     */
+    public void clearAvailable() {
+        lock.lock();
+        try {
+            for (Entry entry : entries.values()) {
+                entry.available = false;
+                entry.pendingParents = 0;
+            }
+            available.clear();
+            ready.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void makeAvailable(Entry entry) {
+        if (entry.available) {
+            return;
+        }
+        entry.available = true;
+        available.add(entry);
+        for (Entry child : children(entry)) {
+            if (++child.pendingParents == 1 && child.available) {
+                ready.remove(child);
+            }
+        }
+        if (entry.pendingParents == 0) {
+            ready.add(entry);
+        }
+    }
+
+    private void makeUnavailable(Entry entry) {
+        if (!entry.available) {
+            return;
+        }
+        entry.available = false;
+        available.remove(entry);
+        ready.remove(entry);
+        for (Entry child : children(entry)) {
+            if (--child.pendingParents == 0 && child.available) {
+                ready.add(child);
+            }
+        }
+    }
+
+    private void removeEntry(Entry entry) {
+        makeUnavailable(entry);
+        entries.remove(entry.hash);
+        for (ByteArrayWrapper key : entry.produceKeys) {
+            producedNonces.remove(key, entry);
+        }
+        for (ByteArrayWrapper key : entry.spendKeys) {
+            spentNonces.remove(key, entry);
+        }
+        dataSize -= entry.size;
+    }
+
+    /**
+     * 池中花费了该交易所产生nonce的交易
+     */
+    private List<Entry> children(Entry entry) {
+        List<Entry> list = new ArrayList<>(1);
+        for (ByteArrayWrapper key : entry.produceKeys) {
+            if (producedNonces.get(key) != entry) {
+                continue;
+            }
+            Entry child = spentNonces.get(key);
+            if (null != child && child != entry && !list.contains(child)) {
+                list.add(child);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 池中产生了该交易所花费nonce的交易
+     */
+    private List<Entry> parents(Entry entry) {
+        List<Entry> list = new ArrayList<>(1);
+        for (ByteArrayWrapper key : entry.spendKeys) {
+            if (spentNonces.get(key) != entry) {
+                continue;
+            }
+            Entry parent = producedNonces.get(key);
+            if (null != parent && parent != entry && !list.contains(parent)) {
+                list.add(parent);
+            }
+        }
+        return list;
+    }
+
+    private static class Entry {
+        private final ByteArrayWrapper hash;
+        private final Transaction tx;
+        private final int size;
+        private final long feeRate;
+        private final long sequence;
+        private final List<ByteArrayWrapper> produceKeys = new ArrayList<>(1);
+        private final List<ByteArrayWrapper> spendKeys = new ArrayList<>(1);
+        private boolean available;
+        /**
+         * 处于可打包状态的父交易数
+         */
+        private int pendingParents;
+
+        private Entry(ByteArrayWrapper hash, Transaction tx, long feeRate, long sequence) {
+            this.hash = hash;
+            this.tx = tx;
+            this.size = tx.size();
+            this.feeRate = feeRate;
+            this.sequence = sequence;
+            List<CoinFrom> froms = coinFroms(tx);
+            if (froms.isEmpty()) {
+                return;
+            }
+            byte[] hashBytes = hash.getBytes();
+            byte[] txNonce = Arrays.copyOfRange(hashBytes, hashBytes.length - NONCE_LENGTH, hashBytes.length);
+            for (CoinFrom from : froms) {
+                //只有非锁定的from按nonce链依赖
+                if (from.getLocked() != 0) {
+                    continue;
+                }
+                byte[] account = ByteUtils.concatenate(from.getAddress(),
+                        ByteUtils.shortToBytes((short) from.getAssetsChainId()),
+                        ByteUtils.shortToBytes((short) from.getAssetsId()));
+                ByteArrayWrapper produceKey = new ByteArrayWrapper(ByteUtils.concatenate(account, txNonce));
+                if (!produceKeys.contains(produceKey)) {
+                    produceKeys.add(produceKey);
+                }
+                spendKeys.add(new ByteArrayWrapper(ByteUtils.concatenate(account, from.getNonce())));
+            }
+        }
+
+        private static List<CoinFrom> coinFroms(Transaction tx) {
+            if (null == tx.getCoinData() || tx.getCoinData().length == 0) {
+                return Collections.emptyList();
+            }
+            try {
+                CoinData coinData = tx.getCoinDataInstance();
+                return null == coinData.getFrom() ? Collections.emptyList() : coinData.getFrom();
+            } catch (NulsException e) {
+                return Collections.emptyList();
+            }
+        }
+    }
+}
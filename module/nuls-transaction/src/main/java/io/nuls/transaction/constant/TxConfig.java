@@ -33,6 +33,10 @@ public class TxConfig extends ConfigBean implements ModuleConfig {
     /** 未确认交易过期时间秒 */
     private long unconfirmedTxExpire;
     private String blackHolePublicKey;
+    /** 交易去重过滤器每一代的交易数 */
+    private int txDuplicateFilterCapacity = TxConstant.TX_DUPLICATE_FILTER_CAPACITY;
+    /** 交易去重过滤器误判率 */
+    private double txDuplicateFilterFpp = TxConstant.TX_DUPLICATE_FILTER_FPP;
 
     public String getBlackHolePublicKey() {
         return blackHolePublicKey;
@@ -108,6 +112,22 @@ public class TxConfig extends ConfigBean implements ModuleConfig {
         this.unconfirmedTxExpire = unconfirmedTxExpire;
     }
 
+    public int getTxDuplicateFilterCapacity() {
+        return txDuplicateFilterCapacity;
+    }
+
+    public void setTxDuplicateFilterCapacity(int txDuplicateFilterCapacity) {
+        this.txDuplicateFilterCapacity = txDuplicateFilterCapacity;
+    }
+
+    public double getTxDuplicateFilterFpp() {
+        return txDuplicateFilterFpp;
+    }
+
+    public void setTxDuplicateFilterFpp(double txDuplicateFilterFpp) {
+        this.txDuplicateFilterFpp = txDuplicateFilterFpp;
+    }
+
     @Override
     public VersionChangeInvoker getVersionChangeInvoker() throws ClassNotFoundException, NoSuchMethodException, IllegalAccessException, InvocationTargetException, InstantiationException {
         Class<?> aClass = Class.forName("io.nuls.transaction.rpc.upgrade.TxVersionChangeInvoker");
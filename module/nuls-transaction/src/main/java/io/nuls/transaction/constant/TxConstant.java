@@ -18,6 +18,10 @@ public interface TxConstant {
 
     /** 新交易线程名称*/
     String TX_THREAD = "newNetTxThread";
+    /** 新交易账本验证阶段线程名称*/
+    String TX_LEDGER_THREAD = "newNetTxLedgerThread";
+    /** 新交易存储转发阶段线程名称*/
+    String TX_STORE_THREAD = "newNetTxStoreThread";
     /** 孤儿交易处理线程名称*/
     String TX_ORPHAN_THREAD = "orphanTxThread";
     /** 未确认交易清理机制线程名称 */
@@ -40,6 +44,14 @@ public interface TxConstant {
     int PACKAGE_ORPHAN_MAP_MAXCOUNT = 10000;
     /** 处理网络新交易时，一次从待处理集合中获取新交易的最大值 */
     int NET_TX_PROCESS_NUMBER_ONCE = 3000;
+    /** 处理网络新交易时，收到第一笔交易后等待凑满一批的最长时间(毫秒) */
+    long NET_TX_BATCH_WINDOW = 50L;
+    /** 处理网络新交易时，没有新交易的最长等待时间(毫秒)，到时重新检查状态 */
+    long NET_TX_IDLE_WAIT = 3000L;
+    /** 处理网络新交易时，各阶段之间最多缓存的批次数，满了则上一阶段等待 */
+    int NET_TX_STAGE_QUEUE_SIZE = 2;
+    /** 处理网络新交易时，各阶段吞吐统计日志的间隔(毫秒) */
+    long NET_TX_STATS_LOG_INTERVAL = 60000L;
 
     /** 打包时，一批次给账本进行验证的交易数 */
     int PACKAGE_TX_VERIFY_COINDATA_NUMBER_OF_TIMES_TO_PROCESS = 2000;
@@ -63,6 +75,17 @@ public interface TxConstant {
 
     int ORPHAN_LIST_MAX_DATA_SIZE = 50000 * 300;
 
+    /** 交易去重过滤器每一代的交易数, 始终记住最近1~2倍该数量的交易 */
+    int TX_DUPLICATE_FILTER_CAPACITY = 500000;
+    /** 交易去重过滤器默认误判率 */
+    double TX_DUPLICATE_FILTER_FPP = 0.000001;
+    /** 转发排除节点记录的存活时间(毫秒) */
+    long TX_EXCLUDE_NODE_EXPIRE = 120000L;
+    /** 转发排除节点每批记录的最大交易数 */
+    int TX_EXCLUDE_NODE_MAX_SIZE = 20000;
+    /** 转发排除节点最多记录的节点数 */
+    int TX_EXCLUDE_NODE_MAX_PEERS = 4096;
+
     int PACKAGE_TX_MAX_COUNT = 10000;
     /** 一个区块中最大允许跨链模块交易的数量*/
     int PACKAGE_CROSS_TX_MAX_COUNT = 500;
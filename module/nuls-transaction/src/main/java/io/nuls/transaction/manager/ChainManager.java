@@ -29,6 +29,7 @@ import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
 import io.nuls.core.log.logback.NulsLogger;
 import io.nuls.core.rockdb.constant.DBErrorCode;
+import io.nuls.core.rockdb.model.TableProfile;
 import io.nuls.core.rockdb.service.RocksDBService;
 import io.nuls.transaction.constant.TxConfig;
 import io.nuls.transaction.constant.TxDBConstant;
@@ -164,7 +165,7 @@ public class ChainManager {
             创建已确认交易表
             Create confirmed transaction table
             */
-            RocksDBService.createTable(TxDBConstant.DB_TRANSACTION_CONFIRMED_PREFIX + chainId);
+            RocksDBService.createTable(TxDBConstant.DB_TRANSACTION_CONFIRMED_PREFIX + chainId, TableProfile.POINT_LOOKUP);
 
 
             /*
@@ -275,9 +275,9 @@ public class LedgerCall {
     /**
      * 提交已确认交易给账本
      * @param chain
-     * @param txList
+     * @param txList 交易序列化数据, byte[]或十六进制字符串
      */
-    public static boolean commitTxsLedger(Chain chain, List<String> txList, Long blockHeight) throws NulsException {
+    public static boolean commitTxsLedger(Chain chain, List<?> txList, Long blockHeight) throws NulsException {
         try {
             Map<String, Object> params = new HashMap<>(TxConstant.INIT_CAPACITY_8);
             params.put(Constants.VERSION_KEY_STR, TxConstant.RPC_VERSION);
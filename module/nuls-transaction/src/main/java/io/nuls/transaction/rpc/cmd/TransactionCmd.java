@@ -293,12 +293,13 @@ public class TransactionCmd extends BaseCmd {
             if (null == chain) {
                 throw new NulsException(TxErrorCode.CHAIN_NOT_FOUND);
             }
-            List<String> txStrList = (List<String>) params.get("txList");
-            if (null == txStrList) {
+            //区块模块通过二进制通道传来原始字节, 旧版本或JSON通道为十六进制字符串
+            List<byte[]> txList = RPCUtil.decodeList(params.get("txList"));
+            if (null == txList) {
                 throw new NulsException(TxErrorCode.PARAMETER_ERROR);
             }
             List<String> contractList = (List<String>) params.get("contractList");
-            result = confirmedTxService.saveTxList(chain, txStrList, contractList, (String) params.get("blockHeader"));
+            result = confirmedTxService.saveTxList(chain, txList, contractList, (String) params.get("blockHeader"));
         } catch (NulsException e) {
             errorLogProcess(chain, e);
             return failed(e.getErrorCode());
@@ -333,8 +334,8 @@ public class TransactionCmd extends BaseCmd {
             if (null == chain) {
                 throw new NulsException(TxErrorCode.CHAIN_NOT_FOUND);
             }
-            List<String> txStrList = (List<String>) params.get("txList");
-            result = confirmedTxService.saveGengsisTxList(chain, txStrList, (String) params.get("blockHeader"));
+            List<byte[]> txList = RPCUtil.decodeList(params.get("txList"));
+            result = confirmedTxService.saveGengsisTxList(chain, txList, (String) params.get("blockHeader"));
         } catch (NulsException e) {
             errorLogProcess(chain, e);
             return failed(e.getErrorCode());
@@ -603,6 +604,44 @@ public class TransactionCmd extends BaseCmd {
     }
 
 
+    @CmdAnnotation(cmd = TxCmd.TX_GET_BLOCK_TXS_BY_SHORT_IDS, version = 1.0, description = "根据紧凑区块的短ID，获取未确认交易/Get unconfirmed transactions by compact block short ids")
+    @Parameters(value = {
+            @Parameter(parameterName = "chainId", requestType = @TypeDescriptor(value = int.class), parameterDes = "链id"),
+            @Parameter(parameterName = "blockHash", requestType = @TypeDescriptor(value = String.class), parameterDes = "区块hash"),
+            @Parameter(parameterName = "nonce", requestType = @TypeDescriptor(value = long.class), parameterDes = "短ID的盐"),
+            @Parameter(parameterName = "shortIds", requestType = @TypeDescriptor(value = String.class), parameterDes = "拼接的6字节短ID, 原始字节或十六进制字符串")
+    })
+    @ResponseData(name = "返回值", description = "返回一个Map", responseType = @TypeDescriptor(value = Map.class, mapKeys = {
+            @Key(name = "txList", valueType = List.class, valueElement = String.class, description = "返回交易序列化数据, 二进制通道为原始字节")
+    }))
+    public Response getBlockTxsByShortIds(Map params) {
+        Chain chain = null;
+        try {
+            ObjectUtils.canNotEmpty(params.get("chainId"), TxErrorCode.PARAMETER_ERROR.getMsg());
+            ObjectUtils.canNotEmpty(params.get("blockHash"), TxErrorCode.PARAMETER_ERROR.getMsg());
+            ObjectUtils.canNotEmpty(params.get("nonce"), TxErrorCode.PARAMETER_ERROR.getMsg());
+            ObjectUtils.canNotEmpty(params.get("shortIds"), TxErrorCode.PARAMETER_ERROR.getMsg());
+            chain = chainManager.getChain((Integer) params.get("chainId"));
+            if (null == chain) {
+                throw new NulsException(TxErrorCode.CHAIN_NOT_FOUND);
+            }
+            NulsHash blockHash = NulsHash.fromHex((String) params.get("blockHash"));
+            long nonce = Long.parseLong(params.get("nonce").toString());
+            //短ID与交易均以原始字节传输, JSON通道为十六进制字符串
+            byte[] shortIds = RPCUtil.decode(params.get("shortIds"));
+            List<byte[]> txList = confirmedTxService.getUnconfirmedTxListByShortIds(chain, blockHash, nonce, shortIds);
+            Map<String, List<byte[]>> resultMap = new HashMap<>(TxConstant.INIT_CAPACITY_2);
+            resultMap.put("txList", txList);
+            return success(resultMap);
+        } catch (NulsException e) {
+            errorLogProcess(chain, e);
+            return failed(e.getErrorCode());
+        } catch (Exception e) {
+            errorLogProcess(chain, e);
+            return failed(TxErrorCode.SYS_UNKOWN_EXCEPTION);
+        }
+    }
+
     @CmdAnnotation(cmd = TxCmd.TX_GET_NONEXISTENT_UNCONFIRMED_HASHS, version = 1.0, description = "查询传入的交易hash中,不在未确认库中的交易hash/Get nonexistent unconfirmed transaction hashs")
     @Parameters(value = {
             @Parameter(parameterName = "chainId", requestType = @TypeDescriptor(value = int.class), parameterDes = "链id"),
@@ -640,7 +679,8 @@ public class TransactionCmd extends BaseCmd {
             @Parameter(parameterName = "chainId", requestType = @TypeDescriptor(value = int.class), parameterDes = "链id"),
             @Parameter(parameterName = "txList", requestType = @TypeDescriptor(value = List.class, collectionElement = String.class), parameterDes = "待验证交易序列化数据字符串集合"),
             @Parameter(parameterName = "blockHeader", parameterType = "String", parameterDes = "对应的区块头"),
-            @Parameter(parameterName = "preStateRoot", parameterType = "String", parameterDes = "前一个区块状态根")
+            @Parameter(parameterName = "preStateRoot", parameterType = "String", parameterDes = "前一个区块状态根"),
+            @Parameter(parameterName = "assumeValid", requestType = @TypeDescriptor(value = boolean.class), parameterDes = "区块位于可信检查点之前, 跳过签名与模块统一验证器", canNull = true)
     })
     @ResponseData(name = "返回值", description = "返回一个Map，包含两个key", responseType = @TypeDescriptor(value = Map.class, mapKeys = {
             @Key(name = "value", valueType = boolean.class, description = "是否验证成功"),
@@ -658,18 +698,21 @@ public class TransactionCmd extends BaseCmd {
             if (null == chain) {
                 throw new NulsException(TxErrorCode.CHAIN_NOT_FOUND);
             }
-            List<String> txList = (List<String>) params.get("txList");
+            //共识模块通过二进制通道传来原始字节, 旧版本或JSON通道为十六进制字符串
+            List<byte[]> txList = RPCUtil.decodeList(params.get("txList"));
 
             String blockHeaderStr = (String) params.get("blockHeader");
             BlockHeader blockHeader = TxUtil.getInstanceRpcStr(blockHeaderStr, BlockHeader.class);
 
             String preStateRoot = (String) params.get("preStateRoot");
+            //同步可信检查点之前的区块时, 跳过签名与模块统一验证器
+            boolean assumeValid = Boolean.TRUE.equals(params.get("assumeValid"));
 
             Map<String, Object> resultMap;
             if(ProtocolGroupManager.getCurrentVersion(chain.getChainId()) >= TxContext.UPDATE_VERSION_CONTRACT_ASSET ) {
-                resultMap = txService.batchVerifyV8(chain, txList, blockHeader, blockHeaderStr, preStateRoot);
+                resultMap = txService.batchVerifyV8(chain, txList, blockHeader, blockHeaderStr, preStateRoot, assumeValid);
             } else {
-                resultMap = txService.batchVerify(chain, txList, blockHeader, blockHeaderStr, preStateRoot);
+                resultMap = txService.batchVerify(chain, txList, blockHeader, blockHeaderStr, preStateRoot, assumeValid);
             }
             return success(resultMap);
         } catch (NulsException e) {
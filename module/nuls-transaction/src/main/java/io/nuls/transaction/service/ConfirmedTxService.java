@@ -27,21 +27,21 @@ public interface ConfirmedTxService {
     /**
      * 保存创世块的交易
      * @param chain
-     * @param txStrList
+     * @param txList 交易序列化数据
      * @param blockHeader
      * @return
      * @throws NulsException
      */
-    boolean saveGengsisTxList(Chain chain, List<String> txStrList, String blockHeader) throws NulsException;
+    boolean saveGengsisTxList(Chain chain, List<byte[]> txList, String blockHeader) throws NulsException;
 
     /**
      * 保存区块中已确认交易
      * @param chain
-     * @param txStrList
+     * @param txList 交易序列化数据
      * @param blockHeader
      * @return
      */
-    boolean saveTxList(Chain chain, List<String> txStrList, List<String> contractList, String blockHeader) throws NulsException;
+    boolean saveTxList(Chain chain, List<byte[]> txList, List<String> contractList, String blockHeader) throws NulsException;
 
 
 
@@ -82,4 +82,15 @@ public interface ConfirmedTxService {
      * @return
      */
     List<String> getNonexistentUnconfirmedHashList(Chain chain, List<String> hashList);
+
+    /**
+     * 按紧凑区块的短ID在未确认库中查找交易，同一短ID命中的交易都会返回，由调用方处理碰撞
+     * Find unconfirmed txs by compact block short ids, every tx matching a requested id is returned and the caller resolves collisions
+     * @param chain
+     * @param blockHash 区块hash，与nonce一起决定短ID
+     * @param nonce
+     * @param shortIds 拼接的6字节短ID
+     * @return List<byte[]> 交易序列化数据
+     */
+    List<byte[]> getUnconfirmedTxListByShortIds(Chain chain, NulsHash blockHash, long nonce, byte[] shortIds);
 }
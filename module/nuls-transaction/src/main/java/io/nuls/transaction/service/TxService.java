@@ -110,12 +110,13 @@ public interface TxService {
      * @param chain
      * @param list
      * @param preStateRoot
+     * @param assumeValid 区块位于可信检查点之前, 跳过签名与模块统一验证器, 仍执行账本验证与智能合约
      * @return
      * @throws NulsException
      */
-    Map<String, Object> batchVerify(Chain chain, List<String> list, BlockHeader blockHeader, String blockHeaderStr, String preStateRoot) throws Exception;
+    Map<String, Object> batchVerify(Chain chain, List<byte[]> list, BlockHeader blockHeader, String blockHeaderStr, String preStateRoot, boolean assumeValid) throws Exception;
 
-    Map<String, Object> batchVerifyV8(Chain chain, List<String> list, BlockHeader blockHeader, String blockHeaderStr, String preStateRoot) throws Exception;
+    Map<String, Object> batchVerifyV8(Chain chain, List<byte[]> list, BlockHeader blockHeader, String blockHeaderStr, String preStateRoot, boolean assumeValid) throws Exception;
 
 
 
@@ -2,6 +2,7 @@ package io.nuls.transaction.service.impl;
 
 import io.nuls.base.RPCUtil;
 import io.nuls.base.data.BlockHeader;
+import io.nuls.base.data.CompactBlock;
 import io.nuls.base.data.NulsHash;
 import io.nuls.base.data.Transaction;
 import io.nuls.base.protocol.ProtocolGroupManager;
@@ -13,6 +14,7 @@ import io.nuls.core.core.annotation.Component;
 import io.nuls.core.crypto.HexUtil;
 import io.nuls.core.exception.NulsException;
 import io.nuls.core.log.logback.NulsLogger;
+import io.nuls.core.parse.SerializeUtils;
 import io.nuls.core.rpc.model.ModuleE;
 import io.nuls.core.rpc.util.NulsDateUtils;
 import io.nuls.transaction.cache.PackablePool;
@@ -69,11 +71,11 @@ public class ConfirmedTxServiceImpl implements ConfirmedTxService {
     }
 
     @Override
-    public boolean saveGengsisTxList(Chain chain, List<String> txStrList, String blockHeader) throws NulsException {
-        if (null == chain || txStrList == null || txStrList.size() == 0) {
+    public boolean saveGengsisTxList(Chain chain, List<byte[]> txList, String blockHeader) throws NulsException {
+        if (null == chain || txList == null || txList.size() == 0) {
             throw new NulsException(TxErrorCode.PARAMETER_ERROR);
         }
-        if (!saveBlockTxList(chain, txStrList, blockHeader, true)) {
+        if (!saveBlockTxList(chain, txList, blockHeader, true)) {
             chain.getLogger().debug("Save gengsis txs fail");
             return false;
         }
@@ -82,32 +84,33 @@ public class ConfirmedTxServiceImpl implements ConfirmedTxService {
     }
 
     @Override
-    public boolean saveTxList(Chain chain, List<String> txStrList, List<String> contractList, String blockHeader) throws NulsException {
-        if (null == chain || txStrList == null || txStrList.size() == 0) {
+    public boolean saveTxList(Chain chain, List<byte[]> txBytesList, List<String> contractList, String blockHeader) throws NulsException {
+        if (null == chain || txBytesList == null || txBytesList.size() == 0) {
             throw new NulsException(TxErrorCode.PARAMETER_ERROR);
         }
         //将智能合约交易(如果有)，从区块交易倒数第二个交易后插入
         if(contractList.size() > 0){
-            int ide = txStrList.size() - 1;
-            String lastTxStr = txStrList.get(ide);
+            List<byte[]> contractBytesList = RPCUtil.decodeList(contractList);
+            int ide = txBytesList.size() - 1;
+            byte[] lastTxBytes = txBytesList.get(ide);
             //如果区块最后一笔交易是智能合约返还GAS的交易, 则将contractList交易, 加入该交易之前,否则直接加入队尾
-            if (TxUtil.extractTxTypeFromTx(lastTxStr) == TxType.CONTRACT_RETURN_GAS) {
-                txStrList.remove(ide);
-                txStrList.addAll(contractList);
-                txStrList.add(lastTxStr);
+            if (TxUtil.extractTxTypeFromTx(lastTxBytes) == TxType.CONTRACT_RETURN_GAS) {
+                txBytesList.remove(ide);
+                txBytesList.addAll(contractBytesList);
+                txBytesList.add(lastTxBytes);
             }else{
-                txStrList.addAll(contractList);
+                txBytesList.addAll(contractBytesList);
             }
         }
         try {
-            return saveBlockTxList(chain, txStrList, blockHeader, false);
+            return saveBlockTxList(chain, txBytesList, blockHeader, false);
         } catch (Exception e) {
             chain.getLogger().error(e);
             return false;
         }
     }
 
-    private boolean saveBlockTxList(Chain chain, List<String> txStrList, String blockHeaderStr, boolean gengsis) {
+    private boolean saveBlockTxList(Chain chain, List<byte[]> txBytesList, String blockHeaderStr, boolean gengsis) {
         long start = NulsDateUtils.getCurrentTimeMillis();
         List<Transaction> txList = new ArrayList<>();
         int chainId = chain.getChainId();
@@ -119,15 +122,17 @@ public class ConfirmedTxServiceImpl implements ConfirmedTxService {
         List<String> crossChainTxList = new ArrayList<>();
         try {
             blockHeader = TxUtil.getInstanceRpcStr(blockHeaderStr, BlockHeader.class);
-            logger.debug("[保存区块] 开始 -----高度:{} -----数量:{}", blockHeader.getHeight(), txStrList.size());
-            for (String txStr : txStrList) {
-                Transaction tx =TxUtil.getInstanceRpcStr(txStr, Transaction.class);
+            logger.debug("[保存区块] 开始 -----高度:{} -----数量:{}", blockHeader.getHeight(), txBytesList.size());
+            for (byte[] txBytes : txBytesList) {
+                Transaction tx = TxUtil.getInstance(txBytes, Transaction.class);
                 txList.add(tx);
                 tx.setBlockHeight(blockHeader.getHeight());
                 txHashs.add(tx.getHash().getBytes());
                 if(TxManager.isSystemSmartContract(chain, tx.getType())) {
                     continue;
                 }
+                //各模块的提交接口仍使用十六进制字符串
+                String txStr = RPCUtil.encode(txBytes);
                 // add by pierre at 2019-12-01 把type10交易发送到合约模块筛选处理
                 if(TxType.CROSS_CHAIN == tx.getType()) {
                     crossChainTxList.add(txStr);
@@ -162,7 +167,7 @@ public class ConfirmedTxServiceImpl implements ConfirmedTxService {
         logger.debug("[保存区块] 交易业务提交 执行时间:{}", NulsDateUtils.getCurrentTimeMillis() - commitStart);
 
         long ledgerStart = NulsDateUtils.getCurrentTimeMillis();
-        if (!commitLedger(chain, txStrList, blockHeader.getHeight())) {
+        if (!commitLedger(chain, txBytesList, blockHeader.getHeight())) {
             if (!gengsis) {
                 rollbackTxs(chain, moduleVerifyMap, blockHeaderStr, false);
             }
@@ -219,7 +224,7 @@ public class ConfirmedTxServiceImpl implements ConfirmedTxService {
         return true;
     }
 
-    private boolean commitLedger(Chain chain, List<String> txList, long blockHeight) {
+    private boolean commitLedger(Chain chain, List<?> txList, long blockHeight) {
         try {
             chain.getPackableState().set(false);
             boolean rs = LedgerCall.commitTxsLedger(chain, txList, blockHeight);
@@ -361,9 +366,7 @@ public class ConfirmedTxServiceImpl implements ConfirmedTxService {
         int packableTxMapDataSize = 0;
         if(chain.getPackaging().get()) {
             //是打包节点才计算待打包队列的当前容量
-            for (Transaction tx : chain.getPackableTxMap().values()) {
-                packableTxMapDataSize += tx.size();
-            }
+            packableTxMapDataSize = packablePool.getDataSize(chain);
         }
         for (int i = txList.size() - 1; i >= 0; i--) {
             Transaction tx = txList.get(i);
@@ -486,4 +489,31 @@ public class ConfirmedTxServiceImpl implements ConfirmedTxService {
         return txHashList;
     }
 
+    @Override
+    public List<byte[]> getUnconfirmedTxListByShortIds(Chain chain, NulsHash blockHash, long nonce, byte[] shortIds) {
+        List<byte[]> txList = new ArrayList<>();
+        if (shortIds == null || shortIds.length == 0) {
+            return txList;
+        }
+        List<Long> shortIdList = new ArrayList<>(shortIds.length / CompactBlock.SHORT_ID_LENGTH);
+        for (int i = 0; i + CompactBlock.SHORT_ID_LENGTH <= shortIds.length; i += CompactBlock.SHORT_ID_LENGTH) {
+            shortIdList.add(SerializeUtils.readUint48(shortIds, i));
+        }
+        int chainId = chain.getChainId();
+        //通过内存中的短ID索引找到交易hash, 命中后再批量读取交易
+        List<byte[]> keys = unconfirmedTxStorageService.getKeysByShortIds(chainId, blockHash, nonce, shortIdList);
+        if (keys.isEmpty()) {
+            return txList;
+        }
+        try {
+            for (Transaction tx : unconfirmedTxStorageService.getTxList(chainId, keys)) {
+                txList.add(tx.serialize());
+            }
+        } catch (IOException e) {
+            chain.getLogger().error(e);
+            return new ArrayList<>();
+        }
+        return txList;
+    }
+
 }
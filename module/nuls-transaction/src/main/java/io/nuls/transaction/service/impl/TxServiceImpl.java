@@ -33,6 +33,7 @@ import io.nuls.base.protocol.ProtocolGroupManager;
 import io.nuls.base.protocol.TxRegisterDetail;
 import io.nuls.base.signture.MultiSignTxSignature;
 import io.nuls.base.signture.SignatureUtil;
+import io.nuls.base.signture.SignatureVerifier;
 import io.nuls.core.constant.BaseConstant;
 import io.nuls.core.constant.ErrorCode;
 import io.nuls.core.constant.TxStatusEnum;
@@ -44,14 +45,11 @@ import io.nuls.core.exception.NulsException;
 import io.nuls.core.log.Log;
 import io.nuls.core.log.logback.NulsLogger;
 import io.nuls.core.model.BigIntegerUtils;
-import io.nuls.core.model.ByteArrayWrapper;
 import io.nuls.core.parse.JSONUtils;
 import io.nuls.core.parse.SerializeUtils;
 import io.nuls.core.rpc.info.Constants;
 import io.nuls.core.rpc.model.ModuleE;
 import io.nuls.core.rpc.util.NulsDateUtils;
-import io.nuls.core.thread.ThreadUtils;
-import io.nuls.core.thread.commom.NulsThreadFactory;
 import io.nuls.transaction.cache.PackablePool;
 import io.nuls.transaction.constant.TxConfig;
 import io.nuls.transaction.constant.TxConstant;
@@ -74,12 +72,10 @@ import io.nuls.transaction.utils.TxUtil;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.util.*;
-import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 
-import static io.nuls.transaction.constant.TxConstant.CACHED_SIZE;
 
 /**
  * @author: Charlie
@@ -103,8 +99,6 @@ public class TxServiceImpl implements TxService {
     @Autowired
     private TxConfig txConfig;
 
-    private ExecutorService verifySignExecutor = ThreadUtils.createThreadPool(Runtime.getRuntime().availableProcessors(), CACHED_SIZE, new NulsThreadFactory(TxConstant.VERIFY_TX_SIGN_THREAD));
-
     @Override
     public boolean register(Chain chain, ModuleTxRegisterDTO moduleTxRegisterDto) {
         try {
@@ -200,7 +194,7 @@ public class TxServiceImpl implements TxService {
                 throw new NulsException(TxErrorCode.TX_BROADCAST_FAIL);
             }
             //加入去重过滤集合,防止其他节点转发回来再次处理该交易
-            TxDuplicateRemoval.insertAndCheck(hash.toHex());
+            TxDuplicateRemoval.insertAndCheck(hash.getBytes());
 
         } catch (IOException e) {
             throw new NulsException(TxErrorCode.DESERIALIZE_ERROR);
@@ -324,6 +318,35 @@ public class TxServiceImpl implements TxService {
         }
     }
 
+    /**
+     * 批量基础验证区块中本地未确认的交易
+     * 先把全部交易的签名拆开一次性并行预验证并缓存, 再并行执行逐笔基础验证(签名验证直接命中缓存)
+     *
+     * @param chain
+     * @param txs
+     * @return 全部交易验证通过时结果为true
+     */
+    private Future<Boolean> batchBaseValidateTx(Chain chain, List<Transaction> txs) {
+        return SignatureVerifier.submit(() -> {
+            SignatureVerifier.preVerify(txs);
+            return txs.parallelStream().allMatch(tx -> {
+                try {
+                    //只验证单个交易的基础内容(TX模块本地验证)
+                    TxRegister txRegister = TxManager.getTxRegister(chain, tx.getType());
+                    if (null == txRegister) {
+                        throw new NulsException(TxErrorCode.TX_TYPE_INVALID);
+                    }
+                    baseValidateTx(chain, tx, txRegister);
+                } catch (Exception e) {
+                    chain.getLogger().error("batchVerify failed, single tx verify failed. hash:{}, -type:{}", tx.getHash().toHex(), tx.getType());
+                    chain.getLogger().error(e);
+                    return false;
+                }
+                return true;
+            });
+        });
+    }
+
     /**
      * 验证签名 只需要验证,需要验证签名的交易(一些系统交易不用签名)
      * 验证签名数据中的公钥和from中是否匹配, 验证签名正确性
@@ -1348,13 +1371,7 @@ public class TxServiceImpl implements TxService {
         if (txList.isEmpty()) {
             return;
         }
-        //孤儿交易排倒序,全加回待打包队列去
-        txList.sort(new Comparator<TxPackageWrapper>() {
-            @Override
-            public int compare(TxPackageWrapper o1, TxPackageWrapper o2) {
-                return o1.compareTo(o2.getIndex());
-            }
-        });
+        //全加回待打包池, 待打包池按手续费和nonce顺序重新排列, 不需要再排序
         for (TxPackageWrapper txPackageWrapper : txList) {
             packablePool.offerFirstOnlyHash(chain, txPackageWrapper.getTx());
         }
@@ -1478,12 +1495,12 @@ public class TxServiceImpl implements TxService {
     }
 
     @Override
-    public Map<String, Object> batchVerify(Chain chain, List<String> txStrList, BlockHeader blockHeader, String blockHeaderStr, String preStateRoot) throws NulsException {
+    public Map<String, Object> batchVerify(Chain chain, List<byte[]> txBytesList, BlockHeader blockHeader, String blockHeaderStr, String preStateRoot, boolean assumeValid) throws NulsException {
         NulsLogger logger = chain.getLogger();
         long s1 = NulsDateUtils.getCurrentTimeMillis();
         long blockHeight = blockHeader.getHeight();
         if (logger.isDebugEnabled()) {
-            logger.debug("[验区块交易] 开始 -----高度:{} -----区块交易数:{}", blockHeight, txStrList.size());
+            logger.debug("[验区块交易] 开始 -----高度:{} -----区块交易数:{}", blockHeight, txBytesList.size());
         }
         List<TxVerifyWrapper> txList = new ArrayList<>();
         //验证区块中只允许有一个的交易不能有多个
@@ -1492,7 +1509,6 @@ public class TxServiceImpl implements TxService {
         boolean contractNotify = false;
         Transaction scReturnGas = null;
         long blockTime = blockHeader.getTime();
-        List<Future<Boolean>> futures = new ArrayList<>();
         //组装统一验证参数数据,key为各模块统一验证器cmd
         Map<String, List<String>> moduleVerifyMap = new HashMap<>(TxConstant.INIT_CAPACITY_8);
         int chainId = chain.getChainId();
@@ -1502,8 +1518,12 @@ public class TxServiceImpl implements TxService {
         long timeF4 = 0L;
         List<byte[]> keys = new ArrayList<>();
         long f1 = System.currentTimeMillis();
-        for (String txStr : txStrList) {
-            Transaction tx = TxUtil.getInstanceRpcStr(txStr, Transaction.class);
+        //账本及各模块验证器仍使用十六进制字符串
+        List<String> txStrList = new ArrayList<>(txBytesList.size());
+        for (byte[] txBytes : txBytesList) {
+            Transaction tx = TxUtil.getInstance(txBytes, Transaction.class);
+            String txStr = RPCUtil.encode(txBytes);
+            txStrList.add(txStr);
             txList.add(new TxVerifyWrapper(tx, txStr));
             int type = tx.getType();
             verifySysTxCount(onlyOneTxTypes, type);
@@ -1583,37 +1603,20 @@ public class TxServiceImpl implements TxService {
         Set<String> set = new HashSet<>();
         set.addAll(unconfirmedList);
         unconfirmedList = null;
-        long d = 0L;
+        List<Transaction> baseValidateTxs = new ArrayList<>();
         for (TxVerifyWrapper txVerifyWrapper : txList) {
             Transaction tx = txVerifyWrapper.getTx();
             tx.setBlockHeight(blockHeight);
             //能加入表明未确认中没有,则需要处理
             if (set.add(tx.getHash().toHex())) {
-                long d1 = System.currentTimeMillis();
                 //不在未确认中就进行基础验证
-                //多线程处理单个交易
-                Future<Boolean> res = verifySignExecutor.submit(new Callable<Boolean>() {
-                    @Override
-                    public Boolean call() {
-                        try {
-                            //只验证单个交易的基础内容(TX模块本地验证)
-                            TxRegister txRegister = TxManager.getTxRegister(chain, tx.getType());
-                            if (null == txRegister) {
-                                throw new NulsException(TxErrorCode.TX_TYPE_INVALID);
-                            }
-                            baseValidateTx(chain, tx, txRegister);
-                        } catch (Exception e) {
-                            logger.error("batchVerify failed, single tx verify failed. hash:{}, -type:{}", tx.getHash().toHex(), tx.getType());
-                            logger.error(e);
-                            return false;
-                        }
-                        return true;
-                    }
-                });
-                futures.add(res);
-                d += (System.currentTimeMillis() - d1);
+                baseValidateTxs.add(tx);
             }
         }
+        long d1 = System.currentTimeMillis();
+        //整个区块的签名一次性并行验证后,再多线程处理单个交易, 可信检查点之前的区块跳过
+        Future<Boolean> baseValidateResult = assumeValid ? CompletableFuture.completedFuture(true) : batchBaseValidateTx(chain, baseValidateTxs);
+        long d = System.currentTimeMillis() - d1;
 
         if (logger.isDebugEnabled()) {
             timeF4 = System.currentTimeMillis() - f4;
@@ -1646,7 +1649,7 @@ public class TxServiceImpl implements TxService {
         //模块统一验证器
         long moduleV = NulsDateUtils.getCurrentTimeMillis();
         Iterator<Map.Entry<String, List<String>>> it = moduleVerifyMap.entrySet().iterator();
-        while (it.hasNext()) {
+        while (!assumeValid && it.hasNext()) {
             Map.Entry<String, List<String>> entry = it.next();
             List<String> txHashList = TransactionCall.txModuleValidator(chain,
                     entry.getKey(), entry.getValue(), blockHeaderStr);
@@ -1799,11 +1802,9 @@ public class TxServiceImpl implements TxService {
 
         //多线程处理结果
         try {
-            for (Future<Boolean> future : futures) {
-                if (!future.get()) {
-                    logger.error("batchVerify failed, single tx verify failed");
-                    throw new NulsException(TxErrorCode.TX_VERIFY_FAIL);
-                }
+            if (!baseValidateResult.get()) {
+                logger.error("batchVerify failed, single tx verify failed");
+                throw new NulsException(TxErrorCode.TX_VERIFY_FAIL);
             }
         } catch (InterruptedException e) {
             logger.error(e);
@@ -1832,10 +1833,7 @@ public class TxServiceImpl implements TxService {
     @Override
     public void clearInvalidTx(Chain chain, Transaction tx, boolean changeStatus) {
         unconfirmedTxStorageService.removeTx(chain.getChainId(), tx.getHash());
-        //从待打包队里存交易的map中移除
-        ByteArrayWrapper wrapper = new ByteArrayWrapper(tx.getHash().getBytes());
-        chain.getPackableTxMap().remove(wrapper);
-        //从待打包队列中存实际交易的的map中移除该笔交易
+        //从待打包池中移除该笔交易
         packablePool.removeInvalidTxFromMap(chain, tx);
         //判断如果交易已被确认就不用调用账本清理了!!
         TransactionConfirmedPO txConfirmed = confirmedTxService.getConfirmedTransaction(chain, tx.getHash());
@@ -2295,11 +2293,11 @@ public class TxServiceImpl implements TxService {
     }
 
     @Override
-    public Map<String, Object> batchVerifyV8(Chain chain, List<String> txStrList, BlockHeader blockHeader, String blockHeaderStr, String preStateRoot) throws NulsException {
+    public Map<String, Object> batchVerifyV8(Chain chain, List<byte[]> txBytesList, BlockHeader blockHeader, String blockHeaderStr, String preStateRoot, boolean assumeValid) throws NulsException {
         NulsLogger logger = chain.getLogger();
         long s1 = NulsDateUtils.getCurrentTimeMillis();
         long blockHeight = blockHeader.getHeight();
-        logger.info("[验区块交易] 开始 -----高度:{} -----区块交易数:{}", blockHeight, txStrList.size());
+        logger.info("[验区块交易] 开始 -----高度:{} -----区块交易数:{}", blockHeight, txBytesList.size());
         List<TxVerifyWrapper> txList = new ArrayList<>();
         //验证区块中只允许有一个的交易不能有多个
         Set<Integer> onlyOneTxTypes = new HashSet<>();
@@ -2307,7 +2305,6 @@ public class TxServiceImpl implements TxService {
         boolean contractNotify = false;
         Transaction scReturnGas = null;
         long blockTime = blockHeader.getTime();
-        List<Future<Boolean>> futures = new ArrayList<>();
         //组装统一验证参数数据,key为各模块统一验证器cmd
         Map<String, List<String>> moduleVerifyMap = new HashMap<>(TxConstant.INIT_CAPACITY_8);
         int chainId = chain.getChainId();
@@ -2320,8 +2317,12 @@ public class TxServiceImpl implements TxService {
         long totalGasInBlock = 0;
         List<String> contractGenerateTxs = new ArrayList<>();
 
-        for (String txStr : txStrList) {
-            Transaction tx = TxUtil.getInstanceRpcStr(txStr, Transaction.class);
+        //账本及各模块验证器仍使用十六进制字符串
+        List<String> txStrList = new ArrayList<>(txBytesList.size());
+        for (byte[] txBytes : txBytesList) {
+            Transaction tx = TxUtil.getInstance(txBytes, Transaction.class);
+            String txStr = RPCUtil.encode(txBytes);
+            txStrList.add(txStr);
             txList.add(new TxVerifyWrapper(tx, txStr));
             int type = tx.getType();
             verifySysTxCount(onlyOneTxTypes, type);
@@ -2409,37 +2410,20 @@ public class TxServiceImpl implements TxService {
 
         Set<String> set = new HashSet<>();
         set.addAll(unconfirmedList);
-        long d = 0L;
+        List<Transaction> baseValidateTxs = new ArrayList<>();
         for (TxVerifyWrapper txVerifyWrapper : txList) {
             Transaction tx = txVerifyWrapper.getTx();
             tx.setBlockHeight(blockHeight);
             //能加入表明未确认中没有,则需要处理
             if (set.add(tx.getHash().toHex())) {
-                long d1 = System.currentTimeMillis();
                 //不在未确认中就进行基础验证
-                //多线程处理单个交易
-                Future<Boolean> res = verifySignExecutor.submit(new Callable<Boolean>() {
-                    @Override
-                    public Boolean call() {
-                        try {
-                            //只验证单个交易的基础内容(TX模块本地验证)
-                            TxRegister txRegister = TxManager.getTxRegister(chain, tx.getType());
-                            if (null == txRegister) {
-                                throw new NulsException(TxErrorCode.TX_TYPE_INVALID);
-                            }
-                            baseValidateTx(chain, tx, txRegister);
-                        } catch (Exception e) {
-                            logger.error("batchVerify failed, single tx verify failed. hash:{}, -type:{}", tx.getHash().toHex(), tx.getType());
-                            logger.error(e);
-                            return false;
-                        }
-                        return true;
-                    }
-                });
-                futures.add(res);
-                d += (System.currentTimeMillis() - d1);
+                baseValidateTxs.add(tx);
             }
         }
+        long d1 = System.currentTimeMillis();
+        //整个区块的签名一次性并行验证后,再多线程处理单个交易, 可信检查点之前的区块跳过
+        Future<Boolean> baseValidateResult = assumeValid ? CompletableFuture.completedFuture(true) : batchBaseValidateTx(chain, baseValidateTxs);
+        long d = System.currentTimeMillis() - d1;
 
         timeF4 = System.currentTimeMillis() - f4;
         logger.info("[验区块交易] 反序列化,合约,分组:{} -是否确认过:{} -是否在未确认中:{}, -单个验证:{} -单内部处理:{} -合计时间:{}",
@@ -2465,7 +2449,7 @@ public class TxServiceImpl implements TxService {
         //模块统一验证器
         long moduleV = NulsDateUtils.getCurrentTimeMillis();
         Iterator<Map.Entry<String, List<String>>> it = moduleVerifyMap.entrySet().iterator();
-        while (it.hasNext()) {
+        while (!assumeValid && it.hasNext()) {
             Map.Entry<String, List<String>> entry = it.next();
             List<String> txHashList = TransactionCall.txModuleValidator(chain,
                     entry.getKey(), entry.getValue(), blockHeaderStr);
@@ -2619,11 +2603,9 @@ public class TxServiceImpl implements TxService {
 
         //多线程处理结果
         try {
-            for (Future<Boolean> future : futures) {
-                if (!future.get()) {
-                    logger.error("batchVerify failed, single tx verify failed");
-                    throw new NulsException(TxErrorCode.TX_VERIFY_FAIL);
-                }
+            if (!baseValidateResult.get()) {
+                logger.error("batchVerify failed, single tx verify failed");
+                throw new NulsException(TxErrorCode.TX_VERIFY_FAIL);
             }
         } catch (InterruptedException e) {
             logger.error(e);
@@ -5,6 +5,7 @@ import io.nuls.base.data.Transaction;
 import io.nuls.transaction.model.po.TransactionNetPO;
 import io.nuls.transaction.model.po.TransactionUnconfirmedPO;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -120,4 +121,15 @@ public interface UnconfirmedTxStorageService {
      * @return
      */
     List<String> getExistKeysStr(int chainId, List<byte[]> hashList);
+
+    /**
+     * 按紧凑区块的短ID查找未确认交易hash, 通过内存索引查找, 不扫描数据库
+     * Find unconfirmed tx hashes by compact block short ids through the in-memory index, without scanning the table
+     * @param chainId
+     * @param blockHash 区块hash，与nonce一起决定短ID
+     * @param nonce
+     * @param shortIds 短ID
+     * @return 命中的交易hash
+     */
+    List<byte[]> getKeysByShortIds(int chainId, NulsHash blockHash, long nonce, Collection<Long> shortIds);
 }
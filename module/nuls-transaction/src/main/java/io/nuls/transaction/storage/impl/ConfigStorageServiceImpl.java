@@ -27,7 +27,6 @@ package io.nuls.transaction.storage.impl;
 import io.nuls.base.basic.NulsByteBuffer;
 import io.nuls.core.core.annotation.Component;
 import io.nuls.core.model.ByteUtils;
-import io.nuls.core.rockdb.model.Entry;
 import io.nuls.core.rockdb.service.RocksDBService;
 import io.nuls.transaction.constant.TxConstant;
 import io.nuls.transaction.constant.TxDBConstant;
@@ -35,7 +34,6 @@ import io.nuls.transaction.model.bo.config.ConfigBean;
 import io.nuls.transaction.storage.ConfigStorageService;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import static io.nuls.transaction.utils.LoggerUtil.LOG;
@@ -84,14 +82,14 @@ public class ConfigStorageServiceImpl implements ConfigStorageService {
     @Override
     public Map<Integer, ConfigBean> getList() {
         try {
-            List<Entry<byte[], byte[]>> list = RocksDBService.entryList(TxDBConstant.DB_MODULE_CONGIF);
             Map<Integer, ConfigBean> configBeanMap = new HashMap<>(TxConstant.INIT_CAPACITY_2);
-            for (Entry<byte[], byte[]>entry : list) {
-                int key = ByteUtils.bytesToInt(entry.getKey());
+            RocksDBService.forEach(TxDBConstant.DB_MODULE_CONGIF, (key, value) -> {
+                int chainId = ByteUtils.bytesToInt(key);
                 ConfigBean configBean = new ConfigBean();
-                configBean.parse(new NulsByteBuffer(entry.getValue()));
-                configBeanMap.put(key, configBean);
-            }
+                configBean.parse(new NulsByteBuffer(value));
+                configBeanMap.put(chainId, configBean);
+                return true;
+            });
             return configBeanMap;
         }catch (Exception e){
             LOG.error(e);
@@ -10,16 +10,15 @@ import io.nuls.core.exception.NulsRuntimeException;
 import io.nuls.core.model.StringUtils;
 import io.nuls.core.rockdb.service.RocksDBService;
 import io.nuls.core.rpc.util.NulsDateUtils;
+import io.nuls.transaction.cache.ShortIdIndex;
 import io.nuls.transaction.constant.TxDBConstant;
 import io.nuls.transaction.constant.TxErrorCode;
 import io.nuls.transaction.model.po.TransactionNetPO;
 import io.nuls.transaction.model.po.TransactionUnconfirmedPO;
 import io.nuls.transaction.storage.UnconfirmedTxStorageService;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static io.nuls.transaction.utils.LoggerUtil.LOG;
 
@@ -33,6 +32,11 @@ import static io.nuls.transaction.utils.LoggerUtil.LOG;
 @Component
 public class UnconfirmedTxStorageServiceImpl implements UnconfirmedTxStorageService {
 
+    /**
+     * 各链未确认交易的短ID索引, 随写入、删除同步维护
+     */
+    private final Map<Integer, ShortIdIndex> shortIdIndexes = new ConcurrentHashMap<>();
+
     @Override
     public boolean putTx(int chainId, Transaction tx) {
         if (tx == null) {
@@ -47,6 +51,9 @@ public class UnconfirmedTxStorageServiceImpl implements UnconfirmedTxStorageServ
         } catch (Exception e) {
             LOG.error(e);
         }
+        if (result) {
+            getShortIdIndex(chainId).add(txHashBytes);
+        }
         return result;
     }
 
@@ -63,7 +70,14 @@ public class UnconfirmedTxStorageServiceImpl implements UnconfirmedTxStorageServ
                 //序列化对象为byte数组存储
                 txPOMap.put(tx.getHash().getBytes(), txPO.serialize());
             }
-            return RocksDBService.batchPut(TxDBConstant.DB_TRANSACTION_UNCONFIRMED_PREFIX + chainId, txPOMap);
+            boolean result = RocksDBService.batchPut(TxDBConstant.DB_TRANSACTION_UNCONFIRMED_PREFIX + chainId, txPOMap);
+            if (result) {
+                ShortIdIndex shortIdIndex = getShortIdIndex(chainId);
+                for (byte[] hash : txPOMap.keySet()) {
+                    shortIdIndex.add(hash);
+                }
+            }
+            return result;
         } catch (Exception e) {
             LOG.error(e.getMessage());
             throw new NulsRuntimeException(TxErrorCode.DB_SAVE_BATCH_ERROR);
@@ -128,6 +142,9 @@ public class UnconfirmedTxStorageServiceImpl implements UnconfirmedTxStorageServ
         } catch (Exception e) {
             LOG.error(e);
         }
+        if (result) {
+            getShortIdIndex(chainId).remove(hash);
+        }
         return result;
     }
 
@@ -165,7 +182,14 @@ public class UnconfirmedTxStorageServiceImpl implements UnconfirmedTxStorageServ
 
         try {
             //delete transaction
-            return RocksDBService.deleteKeys(TxDBConstant.DB_TRANSACTION_UNCONFIRMED_PREFIX + chainId, hashList);
+            boolean result = RocksDBService.deleteKeys(TxDBConstant.DB_TRANSACTION_UNCONFIRMED_PREFIX + chainId, hashList);
+            if (result) {
+                ShortIdIndex shortIdIndex = getShortIdIndex(chainId);
+                for (byte[] hash : hashList) {
+                    shortIdIndex.remove(hash);
+                }
+            }
+            return result;
         } catch (Exception e) {
             LOG.error(e);
         }
@@ -218,4 +242,25 @@ public class UnconfirmedTxStorageServiceImpl implements UnconfirmedTxStorageServ
         }
         return list;
     }
+
+    @Override
+    public List<byte[]> getKeysByShortIds(int chainId, NulsHash blockHash, long nonce, Collection<Long> shortIds) {
+        return getShortIdIndex(chainId).get(blockHash, nonce, shortIds);
+    }
+
+    /**
+     * 首次使用时按库中已有的key建立索引
+     */
+    private ShortIdIndex getShortIdIndex(int chainId) {
+        return shortIdIndexes.computeIfAbsent(chainId, id -> {
+            ShortIdIndex shortIdIndex = new ShortIdIndex();
+            List<byte[]> keys = getAllTxkeyList(id);
+            if (null != keys) {
+                for (byte[] key : keys) {
+                    shortIdIndex.add(key);
+                }
+            }
+            return shortIdIndex;
+        });
+    }
 }
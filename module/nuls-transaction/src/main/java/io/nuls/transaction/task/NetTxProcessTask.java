@@ -28,6 +28,7 @@ import io.nuls.base.data.Transaction;
 import io.nuls.core.constant.BaseConstant;
 import io.nuls.core.core.ioc.SpringLiteContext;
 import io.nuls.core.exception.NulsException;
+import io.nuls.core.thread.ThreadUtils;
 import io.nuls.transaction.cache.PackablePool;
 import io.nuls.transaction.constant.TxConstant;
 import io.nuls.transaction.constant.TxErrorCode;
@@ -38,15 +39,27 @@ import io.nuls.transaction.model.po.TransactionNetPO;
 import io.nuls.transaction.rpc.call.LedgerCall;
 import io.nuls.transaction.rpc.call.NetworkCall;
 import io.nuls.transaction.rpc.call.TransactionCall;
-import io.nuls.transaction.service.TxService;
 import io.nuls.transaction.storage.UnconfirmedTxStorageService;
 import io.nuls.transaction.utils.TxDuplicateRemoval;
 import io.nuls.transaction.utils.TxUtil;
 
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Process new transactions broadcast by other nodes in the network
+ * <p>
+ * 分三个阶段流水线处理, 各阶段之间用有界队列连接, 下游满了上游等待:
+ * 1.收集一批交易(有交易即唤醒, 按数量或时间凑批), 调用各模块验证器
+ * 2.账本验证并提交未确认交易, 按批次顺序执行
+ * 3.保存未确认交易, 放入待打包池并转发
+ * <p>
+ * Three overlapping stages connected by bounded queues, a full queue blocks the upstream stage:
+ * 1.collect a micro-batch (woken on arrival, bounded by count and time) and run the module validators
+ * 2.verify and commit the batch in the ledger, in batch order
+ * 3.persist, add to the packable pool and forward
  *
  * @author: Charlie
  * @date: 2019/6/11
@@ -54,9 +67,15 @@ import java.util.*;
 public class NetTxProcessTask implements Runnable {
     private PackablePool packablePool = SpringLiteContext.getBean(PackablePool.class);
     private UnconfirmedTxStorageService unconfirmedTxStorageService = SpringLiteContext.getBean(UnconfirmedTxStorageService.class);
-    private TxService txService = SpringLiteContext.getBean(TxService.class);
     private Chain chain;
 
+    private final BlockingQueue<List<TransactionNetPO>> ledgerQueue = new ArrayBlockingQueue<>(TxConstant.NET_TX_STAGE_QUEUE_SIZE);
+    private final BlockingQueue<List<TransactionNetPO>> storeQueue = new ArrayBlockingQueue<>(TxConstant.NET_TX_STAGE_QUEUE_SIZE);
+
+    private final NetTxStageCounter verifyCounter = new NetTxStageCounter("verify");
+    private final NetTxStageCounter ledgerCounter = new NetTxStageCounter("ledger");
+    private final NetTxStageCounter storeCounter = new NetTxStageCounter("store");
+
     public NetTxProcessTask(Chain chain) {
         this.chain = chain;
     }
@@ -64,6 +83,8 @@ public class NetTxProcessTask implements Runnable {
     @Override
     public void run() {
         try {
+            ThreadUtils.createAndRunThread(TxConstant.TX_LEDGER_THREAD, () -> stage(ledgerQueue, ledgerCounter, this::ledgerStage));
+            ThreadUtils.createAndRunThread(TxConstant.TX_STORE_THREAD, () -> stage(storeQueue, storeCounter, this::storeStage));
             process();
         } catch (Exception e) {
             chain.getLogger().error("NetTxProcessTask Exception");
@@ -71,63 +92,140 @@ public class NetTxProcessTask implements Runnable {
         }
     }
 
+    public List<NetTxStageCounter> getStageCounters() {
+        return List.of(verifyCounter, ledgerCounter, storeCounter);
+    }
+
     private void process() {
+        long lastStatsLog = System.currentTimeMillis();
         while (true) {
             try {
-                if (chain.getUnverifiedQueue().isEmpty()) {
-                    Thread.sleep(3000L);
-                    continue;
+                long now = System.currentTimeMillis();
+                if (now - lastStatsLog >= TxConstant.NET_TX_STATS_LOG_INTERVAL) {
+                    lastStatsLog = now;
+                    logStats();
                 }
                 if (chain.getProtocolUpgrade().get()) {
                     chain.getLogger().info("Protocol upgrade pause process new tx..");
                     Thread.sleep(10000L);
                     continue;
                 }
-                List<TransactionNetPO> txNetList = new ArrayList<>(TxConstant.NET_TX_PROCESS_NUMBER_ONCE);
-                chain.getUnverifiedQueue().drainTo(txNetList, TxConstant.NET_TX_PROCESS_NUMBER_ONCE);
-                //分组 调验证器
-                Map<String, List<String>> moduleVerifyMap = new HashMap<>(TxConstant.INIT_CAPACITY_8);
-                Iterator<TransactionNetPO> it = txNetList.iterator();
-                int packableTxMapDataSize = 0;
-                for(Transaction tx : chain.getPackableTxMap().values()){
-                    packableTxMapDataSize += tx.size();
-                }
-                while (it.hasNext()) {
-                    TransactionNetPO txNetPO = it.next();
-                    Transaction tx = txNetPO.getTx();
-                    //待打包队列map超过预定值,则不再接受处理交易,直接转发交易完整交易
-                    if (TxUtil.discardTx(chain, packableTxMapDataSize, tx)) {
-                        //待打包队列map超过预定值, 不处理转发失败的情况
-                        String hash = tx.getHash().toHex();
-                        NetworkCall.broadcastTx(chain, tx, TxDuplicateRemoval.getExcludeNode(hash));
-                        it.remove();
-                        continue;
-                    }
-                    TxUtil.moduleGroups(chain, moduleVerifyMap, tx);
-                }
-                verifiction(chain, moduleVerifyMap, txNetList);
-                verifyCoinData(chain, txNetList);
+                List<TransactionNetPO> txNetList = collectBatch();
                 if (txNetList.isEmpty()) {
                     continue;
                 }
-                //保存到rocksdb
-                unconfirmedTxStorageService.putTxList(chain.getChainId(), txNetList);
-                for (TransactionNetPO txNet : txNetList) {
-                    Transaction tx = txNet.getTx();
-                    if (chain.getPackaging().get()) {
-                        //当节点是出块节点时, 才将交易放入待打包队列
-                        packablePool.add(chain, tx);
-                    }
-                    //网络交易不处理转发失败的情况
-                    String hash = tx.getHash().toHex();
-                    NetworkCall.forwardTxHash(chain, tx.getHash(), TxDuplicateRemoval.getExcludeNode(hash));
+                long start = System.nanoTime();
+                int count = txNetList.size();
+                verifyStage(txNetList);
+                verifyCounter.record(count, txNetList.size(), System.nanoTime() - start);
+                if (!txNetList.isEmpty()) {
+                    ledgerQueue.put(txNetList);
                 }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                chain.getLogger().error(e);
+                return;
             } catch (Exception e) {
                 chain.getLogger().error(e);
             }
         }
     }
 
+    /**
+     * 等待新交易到达, 然后在时间窗口内凑满一批
+     * Wait for the first transaction, then fill the batch until it is full or the window has passed
+     */
+    private List<TransactionNetPO> collectBatch() throws InterruptedException {
+        BlockingQueue<TransactionNetPO> unverifiedQueue = chain.getUnverifiedQueue();
+        TransactionNetPO first = unverifiedQueue.poll(TxConstant.NET_TX_IDLE_WAIT, TimeUnit.MILLISECONDS);
+        if (null == first) {
+            return Collections.emptyList();
+        }
+        List<TransactionNetPO> txNetList = new ArrayList<>(TxConstant.NET_TX_PROCESS_NUMBER_ONCE);
+        txNetList.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TxConstant.NET_TX_BATCH_WINDOW);
+        while (txNetList.size() < TxConstant.NET_TX_PROCESS_NUMBER_ONCE) {
+            unverifiedQueue.drainTo(txNetList, TxConstant.NET_TX_PROCESS_NUMBER_ONCE - txNetList.size());
+            long remaining = deadline - System.nanoTime();
+            if (txNetList.size() >= TxConstant.NET_TX_PROCESS_NUMBER_ONCE || remaining <= 0) {
+                break;
+            }
+            TransactionNetPO next = unverifiedQueue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (null == next) {
+                break;
+            }
+            txNetList.add(next);
+        }
+        return txNetList;
+    }
+
+    private void stage(BlockingQueue<List<TransactionNetPO>> queue, NetTxStageCounter counter, StageHandler handler) {
+        while (true) {
+            try {
+                List<TransactionNetPO> txNetList = queue.take();
+                long start = System.nanoTime();
+                int count = txNetList.size();
+                handler.handle(txNetList);
+                counter.record(count, txNetList.size(), System.nanoTime() - start);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                chain.getLogger().error(e);
+                return;
+            } catch (Exception e) {
+                chain.getLogger().error(e);
+            }
+        }
+    }
+
+    private void verifyStage(List<TransactionNetPO> txNetList) throws NulsException {
+        //分组 调验证器
+        Map<String, List<String>> moduleVerifyMap = new HashMap<>(TxConstant.INIT_CAPACITY_8);
+        Iterator<TransactionNetPO> it = txNetList.iterator();
+        int packableTxMapDataSize = packablePool.getDataSize(chain);
+        while (it.hasNext()) {
+            TransactionNetPO txNetPO = it.next();
+            Transaction tx = txNetPO.getTx();
+            //待打包队列map超过预定值,则不再接受处理交易,直接转发交易完整交易
+            if (TxUtil.discardTx(chain, packableTxMapDataSize, tx)) {
+                //待打包队列map超过预定值, 不处理转发失败的情况
+                NetworkCall.broadcastTx(chain, tx, TxDuplicateRemoval.getExcludeNode(tx.getHash().getBytes()));
+                it.remove();
+                continue;
+            }
+            TxUtil.moduleGroups(chain, moduleVerifyMap, tx);
+        }
+        verifiction(chain, moduleVerifyMap, txNetList);
+    }
+
+    private void ledgerStage(List<TransactionNetPO> txNetList) throws Exception {
+        verifyCoinData(chain, txNetList);
+        if (!txNetList.isEmpty()) {
+            storeQueue.put(txNetList);
+        }
+    }
+
+    private void storeStage(List<TransactionNetPO> txNetList) throws NulsException {
+        //保存到rocksdb
+        unconfirmedTxStorageService.putTxList(chain.getChainId(), txNetList);
+        for (TransactionNetPO txNet : txNetList) {
+            Transaction tx = txNet.getTx();
+            if (chain.getPackaging().get()) {
+                //当节点是出块节点时, 才将交易放入待打包队列
+                packablePool.add(chain, tx);
+            }
+            //网络交易不处理转发失败的情况
+            NetworkCall.forwardTxHash(chain, tx.getHash(), TxDuplicateRemoval.getExcludeNode(tx.getHash().getBytes()));
+        }
+    }
+
+    private void logStats() {
+        if (verifyCounter.getBatches() == 0L) {
+            return;
+        }
+        chain.getLogger().info("Net new tx pipeline {} {} {}, unverified:{}, ledgerQueue:{}, storeQueue:{}",
+                verifyCounter.summary(), ledgerCounter.summary(), storeCounter.summary(),
+                chain.getUnverifiedQueue().size(), ledgerQueue.size(), storeQueue.size());
+    }
 
     private void verifiction(Chain chain, Map<String, List<String>> moduleVerifyMap, List<TransactionNetPO> txNetList) {
         Iterator<Map.Entry<String, List<String>>> it = moduleVerifyMap.entrySet().iterator();
@@ -135,21 +233,17 @@ public class NetTxProcessTask implements Runnable {
             Map.Entry<String, List<String>> entry = it.next();
             List<String> moduleList = entry.getValue();
             String moduleCode = entry.getKey();
-            List<String> txHashList = null;
+            List<String> txHashList;
             try {
                 txHashList = TransactionCall.txModuleValidator(chain, moduleCode, moduleList);
             } catch (NulsException e) {
-                chain.getLogger().error("Net new tx verify failed -txModuleValidator Exception:{}, module-code:{}, count:{} , return count:{}",
-                        BaseConstant.TX_VALIDATOR, moduleCode, moduleList.size(), txHashList.size());
+                chain.getLogger().error("Net new tx verify failed -txModuleValidator Exception:{}, module-code:{}, count:{}",
+                        BaseConstant.TX_VALIDATOR, moduleCode, moduleList.size());
                 //出错则删掉整个模块的交易
-                Iterator<TransactionNetPO> its = txNetList.iterator();
-                while (its.hasNext()) {
-                    Transaction tx = its.next().getTx();
-                    TxRegister txRegister = TxManager.getTxRegister(chain, tx.getType());
-                    if (txRegister.getModuleCode().equals(moduleCode)) {
-                        its.remove();
-                    }
-                }
+                txNetList.removeIf(txNet -> {
+                    TxRegister txRegister = TxManager.getTxRegister(chain, txNet.getTx().getType());
+                    return txRegister.getModuleCode().equals(moduleCode);
+                });
                 continue;
             }
             if (null == txHashList || txHashList.isEmpty()) {
@@ -158,16 +252,8 @@ public class NetTxProcessTask implements Runnable {
             chain.getLogger().error("[Net new tx verify failed] module:{}, module-code:{}, count:{} , return count:{}",
                     BaseConstant.TX_VALIDATOR, moduleCode, moduleList.size(), txHashList.size());
             /**冲突检测有不通过的, 执行清除和未确认回滚 从txNetList删除*/
-            for (int i = 0; i < txHashList.size(); i++) {
-                String hash = txHashList.get(i);
-                Iterator<TransactionNetPO> its = txNetList.iterator();
-                while (its.hasNext()) {
-                    Transaction tx = its.next().getTx();
-                    if (hash.equals(tx.getHash().toHex())) {
-                        its.remove();
-                    }
-                }
-            }
+            Set<String> failHashs = new HashSet<>(txHashList);
+            txNetList.removeIf(txNet -> failHashs.contains(txNet.getTx().getHash().toHex()));
         }
     }
 
@@ -183,37 +269,26 @@ public class NetTxProcessTask implements Runnable {
             if (failHashs.isEmpty() && orphanHashs.isEmpty()) {
                 return;
             }
-
+            Set<String> failSet = new HashSet<>(failHashs);
+            Set<String> orphanSet = new HashSet<>(orphanHashs);
             Iterator<TransactionNetPO> it = txNetList.iterator();
-            removeAndGo:
             while (it.hasNext()) {
                 TransactionNetPO transactionNetPO = it.next();
-                Transaction tx = transactionNetPO.getTx();
+                String hashStr = transactionNetPO.getTx().getHash().toHex();
                 //去除账本验证失败的交易
-                for (String hash : failHashs) {
-                    String hashStr = tx.getHash().toHex();
-                    if (hash.equals(hashStr)) {
-                        it.remove();
-                        continue removeAndGo;
-                    }
+                if (failSet.contains(hashStr)) {
+                    it.remove();
+                    continue;
                 }
                 //去除孤儿交易, 同时把孤儿交易放入孤儿池
-                for (String hash : orphanHashs) {
-                    String hashStr = tx.getHash().toHex();
-                    if (hash.equals(hashStr)) {
-                        //孤儿交易
+                if (orphanSet.contains(hashStr)) {
+                    it.remove();
+                    //孤儿交易集合数据总大小
+                    if (chain.getOrphanListDataSize().get() < TxConstant.ORPHAN_LIST_MAX_DATA_SIZE) {
                         List<TransactionNetPO> chainOrphan = chain.getOrphanList();
-                        //孤儿交易集合数据总大小
-                        if (chain.getOrphanListDataSize().get() >= TxConstant.ORPHAN_LIST_MAX_DATA_SIZE) {
-                            it.remove();
-                            break;
-                        } else {
-                            synchronized (chainOrphan) {
-                                chainOrphan.add(transactionNetPO);
-                                chain.getOrphanListDataSize().addAndGet(transactionNetPO.getTx().size());
-                            }
-                            it.remove();
-                            continue removeAndGo;
+                        synchronized (chainOrphan) {
+                            chainOrphan.add(transactionNetPO);
+                            chain.getOrphanListDataSize().addAndGet(transactionNetPO.getTx().size());
                         }
                     }
                 }
@@ -224,4 +299,9 @@ public class NetTxProcessTask implements Runnable {
         }
     }
 
+    @FunctionalInterface
+    private interface StageHandler {
+        void handle(List<TransactionNetPO> txNetList) throws Exception;
+    }
+
 }
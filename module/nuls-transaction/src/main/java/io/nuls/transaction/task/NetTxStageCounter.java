@@ -0,0 +1,98 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.transaction.task;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 网络新交易处理各阶段的吞吐统计
+ * Throughput counters of one network transaction intake stage
+ */
+public class NetTxStageCounter {
+
+    private final String name;
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder txIn = new LongAdder();
+    private final LongAdder txOut = new LongAdder();
+    private final LongAdder busyNanos = new LongAdder();
+
+    private long lastTxOut;
+    private long lastBusyNanos;
+
+    public NetTxStageCounter(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 记录一个批次
+     *
+     * @param in        进入该阶段的交易数
+     * @param out       通过该阶段的交易数
+     * @param costNanos 该批次耗时
+     */
+    public void record(int in, int out, long costNanos) {
+        batches.increment();
+        txIn.add(in);
+        txOut.add(out);
+        busyNanos.add(costNanos);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public long getTxIn() {
+        return txIn.sum();
+    }
+
+    public long getTxOut() {
+        return txOut.sum();
+    }
+
+    public long getBusyNanos() {
+        return busyNanos.sum();
+    }
+
+    /**
+     * 距上次调用以来的统计, 吞吐量按该阶段的实际处理时间计算
+     * Summary since the previous call, throughput is measured over the stage's busy time
+     */
+    public synchronized String summary() {
+        long out = getTxOut();
+        long busy = getBusyNanos();
+        long intervalOut = out - lastTxOut;
+        long intervalBusy = busy - lastBusyNanos;
+        lastTxOut = out;
+        lastBusyNanos = busy;
+        long tps = intervalBusy > 0 ? intervalOut * 1_000_000_000L / intervalBusy : 0L;
+        return String.format("%s[batches:%d, in:%d, out:%d, busy:%dms, tps:%d]",
+                name, getBatches(), getTxIn(), out, intervalBusy / 1_000_000L, tps);
+    }
+}
@@ -152,14 +152,9 @@ public class OrphanTxProcessTask implements Runnable {
                 return true;
             }
             //待打包队列map超过预定值,则不再接受处理交易,直接转发交易完整交易
-            int packableTxMapDataSize = 0;
-            for(Transaction transaction : chain.getPackableTxMap().values()){
-                packableTxMapDataSize += transaction.size();
-            }
-            if(TxUtil.discardTx(chain, packableTxMapDataSize, tx)){
+            if(TxUtil.discardTx(chain, packablePool.getDataSize(chain), tx)){
                 //待打包队列map超过预定值, 不处理转发失败的情况
-                String hash = tx.getHash().toHex();
-                NetworkCall.broadcastTx(chain, tx, TxDuplicateRemoval.getExcludeNode(hash));
+                NetworkCall.broadcastTx(chain, tx, TxDuplicateRemoval.getExcludeNode(tx.getHash().getBytes()));
                 return true;
             }
             VerifyLedgerResult verifyLedgerResult = LedgerCall.commitUnconfirmedTx(chain, RPCUtil.encode(tx.serialize()));
@@ -170,8 +165,7 @@ public class OrphanTxProcessTask implements Runnable {
                 }
                 unconfirmedTxStorageService.putTx(chainId, tx);
                 //转发交易hash,网络交易不处理转发失败的情况
-                String hash = tx.getHash().toHex();
-                NetworkCall.forwardTxHash(chain, tx.getHash(), TxDuplicateRemoval.getExcludeNode(hash));
+                NetworkCall.forwardTxHash(chain, tx.getHash(), TxDuplicateRemoval.getExcludeNode(tx.getHash().getBytes()));
                 return true;
             }
             if (!verifyLedgerResult.getSuccess()) {
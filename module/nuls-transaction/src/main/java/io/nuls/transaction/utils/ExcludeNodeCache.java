@@ -0,0 +1,199 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.transaction.utils;
+
+import io.nuls.core.model.ByteArrayWrapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 记录向本节点发送过交易(或交易hash)的节点, 转发时排除掉
+ * Records the peers that sent a transaction (or its hash), so forwarding can skip them
+ * <p>
+ * 节点id映射为序号, 每个交易hash只保存一个节点bitset; 记录按时间分为新旧两批,
+ * 当前一批超过存活时间或数量上限后变为旧批, 更旧的一批整体过期.
+ * <p>
+ * Peer ids are mapped to indexes so each hash only keeps a peer bitset; entries live in two
+ * age buckets, the current bucket turns old once it exceeds its age or size limit and the
+ * older bucket expires as a whole.
+ */
+public class ExcludeNodeCache {
+
+    private final long expireMillis;
+    private final int maxSize;
+    private final int maxPeers;
+
+    private final Map<String, Integer> peerIndexes = new ConcurrentHashMap<>();
+    private volatile String[] peers = new String[0];
+
+    private volatile Bucket current;
+    private volatile Bucket previous;
+
+    /**
+     * @param expireMillis 每批记录的存活时间
+     * @param maxSize      每批记录的最大交易数
+     * @param maxPeers     最多记录的节点数, 超过则全部重置
+     */
+    public ExcludeNodeCache(long expireMillis, int maxSize, int maxPeers) {
+        this.expireMillis = expireMillis;
+        this.maxSize = maxSize;
+        this.maxPeers = maxPeers;
+        this.current = new Bucket(System.currentTimeMillis());
+        this.previous = new Bucket(System.currentTimeMillis());
+    }
+
+    public void put(byte[] hash, String nodeId) {
+        int index = peerIndex(nodeId);
+        if (index < 0) {
+            return;
+        }
+        ByteArrayWrapper key = new ByteArrayWrapper(hash);
+        Bucket cur = currentBucket();
+        PeerBits bits = cur.map.get(key);
+        if (null == bits) {
+            bits = previous.map.get(key);
+        }
+        if (null == bits) {
+            bits = cur.map.computeIfAbsent(key, k -> new PeerBits());
+        }
+        bits.set(index);
+    }
+
+    /**
+     * @return 逗号分隔的节点id, 没有记录时返回null
+     */
+    public String get(byte[] hash) {
+        PeerBits bits = find(new ByteArrayWrapper(hash));
+        if (null == bits) {
+            return null;
+        }
+        return bits.join(peers);
+    }
+
+    public void remove(byte[] hash) {
+        ByteArrayWrapper key = new ByteArrayWrapper(hash);
+        current.map.remove(key);
+        previous.map.remove(key);
+    }
+
+    public int size() {
+        return current.map.size() + previous.map.size();
+    }
+
+    private PeerBits find(ByteArrayWrapper key) {
+        PeerBits bits = current.map.get(key);
+        if (null == bits) {
+            bits = previous.map.get(key);
+        }
+        return bits;
+    }
+
+    private Bucket currentBucket() {
+        Bucket cur = current;
+        long now = System.currentTimeMillis();
+        if (now - cur.createTime >= expireMillis || cur.map.size() >= maxSize) {
+            synchronized (this) {
+                if (current == cur) {
+                    previous = cur;
+                    current = new Bucket(now);
+                }
+                cur = current;
+            }
+        }
+        return cur;
+    }
+
+    private int peerIndex(String nodeId) {
+        if (null == nodeId) {
+            return -1;
+        }
+        Integer index = peerIndexes.get(nodeId);
+        if (null != index) {
+            return index;
+        }
+        synchronized (this) {
+            index = peerIndexes.get(nodeId);
+            if (null != index) {
+                return index;
+            }
+            if (peers.length >= maxPeers) {
+                //节点序号用完, 全部重置
+                peerIndexes.clear();
+                peers = new String[0];
+                long now = System.currentTimeMillis();
+                previous = new Bucket(now);
+                current = new Bucket(now);
+            }
+            String[] newPeers = new String[peers.length + 1];
+            System.arraycopy(peers, 0, newPeers, 0, peers.length);
+            newPeers[peers.length] = nodeId;
+            peers = newPeers;
+            peerIndexes.put(nodeId, peers.length - 1);
+            return peers.length - 1;
+        }
+    }
+
+    private static class Bucket {
+        private final long createTime;
+        private final Map<ByteArrayWrapper, PeerBits> map = new ConcurrentHashMap<>();
+
+        private Bucket(long createTime) {
+            this.createTime = createTime;
+        }
+    }
+
+    private static class PeerBits {
+        private long[] words = new long[1];
+
+        private synchronized void set(int index) {
+            int word = index >>> 6;
+            if (word >= words.length) {
+                long[] newWords = new long[word + 1];
+                System.arraycopy(words, 0, newWords, 0, words.length);
+                words = newWords;
+            }
+            words[word] |= 1L << index;
+        }
+
+        private synchronized String join(String[] peers) {
+            List<String> list = new ArrayList<>();
+            for (int word = 0; word < words.length; word++) {
+                long bits = words[word];
+                while (bits != 0) {
+                    int index = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    if (index < peers.length) {
+                        list.add(peers[index]);
+                    }
+                }
+            }
+            return list.isEmpty() ? null : String.join(",", list);
+        }
+    }
+}
@@ -24,21 +24,40 @@
 
 package io.nuls.transaction.utils;
 
-import io.nuls.core.crypto.HexUtil;
+import io.nuls.transaction.constant.TxConstant;
 
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * 交易去重, 以及记录转发hash时需要排除的节点
+ * Transaction deduplication and the peers to exclude when forwarding
+ *
  * @author: Charlie
  * @date: 2019/5/9
  */
 public class TxDuplicateRemoval {
 
-    private static HashSetDuplicateProcessor processorOfTx = new HashSetDuplicateProcessor(1000000);
+    private static volatile TxHashFilter processorOfTx =
+            new TxHashFilter(TxConstant.TX_DUPLICATE_FILTER_CAPACITY, TxConstant.TX_DUPLICATE_FILTER_FPP);
 
-    public static boolean exist(String hash) {
+    /**
+     * 记录向本节点发送完整交易的其他网络节点，转发hash时排除掉
+     */
+    private static final ExcludeNodeCache EXCLUDE_NODES = new ExcludeNodeCache(TxConstant.TX_EXCLUDE_NODE_EXPIRE,
+            TxConstant.TX_EXCLUDE_NODE_MAX_SIZE, TxConstant.TX_EXCLUDE_NODE_MAX_PEERS);
+
+    /**
+     * 按配置重建去重过滤器, 需在开始接收交易前调用
+     * Rebuild the filter from the configuration, before transactions are received
+     *
+     * @param capacity 每一代过滤器的交易数
+     * @param fpp      误判率
+     */
+    public static void init(int capacity, double fpp) {
+        processorOfTx = new TxHashFilter(capacity, fpp);
+    }
+
+    public static boolean exist(byte[] hash) {
         return processorOfTx.contains(hash);
     }
 
@@ -47,50 +66,29 @@ public class TxDuplicateRemoval {
      * @param hash
      * @return
      */
-    public static boolean insertAndCheck(String hash) {
+    public static boolean insertAndCheck(byte[] hash) {
         return processorOfTx.insertAndCheck(hash);
     }
 
-    /**
-     * 记录向本节点发送完整交易的其他网络节点，转发hash时排除掉
-     */
-    private static Map<String, StringBuffer> forwardHashExcludeNodesMap = new ConcurrentHashMap<>();
-
-    /**
-     * 超过指定数量则清理
-     */
-    private static int maxSize = 20000;
-
-    public static void putExcludeNode(String hash, String newExcludeNode){
-        if(forwardHashExcludeNodesMap.size() >= maxSize){
-            forwardHashExcludeNodesMap.clear();
-        }
-        StringBuffer excludeNodes = forwardHashExcludeNodesMap.putIfAbsent(hash, new StringBuffer(newExcludeNode));
-        if(null != excludeNodes){
-            excludeNodes.append(",").append(newExcludeNode);
-            forwardHashExcludeNodesMap.put(hash, excludeNodes);
-        }
+    public static void putExcludeNode(byte[] hash, String newExcludeNode){
+        EXCLUDE_NODES.put(hash, newExcludeNode);
     }
 
-    public static String getExcludeNode(String hash){
-        StringBuffer excludeNodes = forwardHashExcludeNodesMap.get(hash);
-        if(null != excludeNodes){
-            return excludeNodes.toString();
-        }
-        return null;
+    public static String getExcludeNode(byte[] hash){
+        return EXCLUDE_NODES.get(hash);
     }
 
-    public static void removeExcludeNode(String hash){
-        forwardHashExcludeNodesMap.remove(hash);
+    public static void removeExcludeNode(byte[] hash){
+        EXCLUDE_NODES.remove(hash);
     }
 
     public static void removeExcludeNode(List<byte[]> hashs){
         for(byte[] hash : hashs){
-            forwardHashExcludeNodesMap.remove(HexUtil.encode(hash));
+            EXCLUDE_NODES.remove(hash);
         }
     }
 
     public static int sizeExcludeNode(){
-        return forwardHashExcludeNodesMap.size();
+        return EXCLUDE_NODES.size();
     }
 }
@@ -0,0 +1,191 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.transaction.utils;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 交易hash去重过滤器, 由新旧两代布隆过滤器轮换组成
+ * Transaction hash duplicate filter made of two rotating bloom filter generations
+ * <p>
+ * 直接使用32字节的交易hash计算位置, 各bit通过CAS置位; 同一hash的插入按其首个位置所在的分段串行,
+ * 因此并发插入同一hash时只有一个线程得到"新加入". 当前一代插入数达到容量后, 变为上一代, 再上一代被丢弃,
+ * 因此始终能记住最近 capacity ~ 2 * capacity 个hash. 结果可能误判为已存在, 不会漏判.
+ * <p>
+ * Bit positions are derived from the raw 32-byte hash and set with CAS; inserts of the same hash are serialized
+ * on the stripe of its first bit position, so only one of several concurrent inserts reports it as new.
+ * Once the current generation reaches its capacity it becomes the previous one and the older one is dropped,
+ * so the latest capacity to 2 * capacity hashes are remembered. False positives are possible, false negatives are not.
+ */
+public class TxHashFilter {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final int capacity;
+    private final int numBits;
+    private final int numHashes;
+    private final long seed1;
+    private final long seed2;
+
+    private volatile Generation current;
+    private volatile Generation previous;
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    /**
+     * @param capacity 每一代的hash数
+     * @param fpp      整体误判率, 两代各占一半
+     */
+    public TxHashFilter(int capacity, double fpp) {
+        if (capacity <= 0 || fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("capacity:" + capacity + ", fpp:" + fpp);
+        }
+        double generationFpp = fpp / 2;
+        long bits = (long) Math.ceil(-capacity * Math.log(generationFpp) / (Math.log(2) * Math.log(2)));
+        this.numBits = (int) Math.min(Integer.MAX_VALUE - 63, (bits + 63) / 64 * 64);
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / capacity * Math.log(2)));
+        this.capacity = capacity;
+        SecureRandom random = new SecureRandom();
+        this.seed1 = random.nextLong();
+        this.seed2 = random.nextLong();
+        this.current = new Generation(numBits);
+        this.previous = new Generation(numBits);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * 加入，返回false则表示已存在; 检查与置位对同一hash是原子的
+     * Insert the hash, false means it was already present; test and set are atomic for the same hash
+     */
+    public boolean insertAndCheck(byte[] hash) {
+        int[] indexes = indexes(hash);
+        Generation cur;
+        boolean inPrevious;
+        synchronized (locks[indexes[0] & (LOCK_STRIPES - 1)]) {
+            cur = current;
+            inPrevious = previous.mightContain(indexes);
+            if (!cur.put(indexes)) {
+                return false;
+            }
+        }
+        if (cur.count.incrementAndGet() >= capacity) {
+            rotate(cur);
+        }
+        return !inPrevious;
+    }
+
+    public boolean contains(byte[] hash) {
+        int[] indexes = indexes(hash);
+        return current.mightContain(indexes) || previous.mightContain(indexes);
+    }
+
+    public int getNumBits() {
+        return numBits;
+    }
+
+    public int getNumHashes() {
+        return numHashes;
+    }
+
+    private synchronized void rotate(Generation expected) {
+        if (current != expected) {
+            return;
+        }
+        previous = expected;
+        current = new Generation(numBits);
+    }
+
+    /**
+     * 交易hash本身是均匀分布的, 取前16字节做双重哈希; 加入随机种子, 避免构造的hash冲突
+     */
+    private int[] indexes(byte[] hash) {
+        long h1 = seed1 ^ readLong(hash, 0);
+        long h2 = (seed2 ^ readLong(hash, 8)) | 1L;
+        int[] indexes = new int[numHashes];
+        for (int i = 0; i < numHashes; i++) {
+            indexes[i] = (int) Math.floorMod(h1 + i * h2, (long) numBits);
+        }
+        return indexes;
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        long value = 0L;
+        for (int i = 0; i < 8; i++) {
+            int index = offset + i;
+            value = (value << 8) | (index < bytes.length ? bytes[index] & 0xFFL : 0L);
+        }
+        if (bytes.length < offset + 8) {
+            //不足16字节时混入完整内容
+            value ^= Arrays.hashCode(bytes) * 0x9E3779B97F4A7C15L;
+        }
+        return value;
+    }
+
+    private static class Generation {
+        private final AtomicLongArray words;
+        private final AtomicInteger count = new AtomicInteger();
+
+        private Generation(int numBits) {
+            this.words = new AtomicLongArray(numBits / 64);
+        }
+
+        /**
+         * @return 有新置位的bit, 即之前不存在
+         */
+        private boolean put(int[] indexes) {
+            boolean changed = false;
+            for (int index : indexes) {
+                int word = index >>> 6;
+                long mask = 1L << index;
+                long old;
+                do {
+                    old = words.get(word);
+                    if ((old & mask) != 0) {
+                        break;
+                    }
+                } while (!words.compareAndSet(word, old, old | mask));
+                if ((old & mask) == 0) {
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+
+        private boolean mightContain(int[] indexes) {
+            for (int index : indexes) {
+                if ((words.get(index >>> 6) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -338,6 +338,11 @@ public class TxUtil {
         return byteBuffer.readUint16();
     }
 
+    public static int extractTxTypeFromTx(byte[] txBytes) throws NulsException {
+        NulsByteBuffer byteBuffer = new NulsByteBuffer(txBytes);
+        return byteBuffer.readUint16();
+    }
+
 
     /**
      * 根据待打包队列存交易的map交易的数据总和, 来计算是放弃当前交易
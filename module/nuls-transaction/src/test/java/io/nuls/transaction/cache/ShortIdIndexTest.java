@@ -0,0 +1,55 @@
+package io.nuls.transaction.cache;
+
+import com.google.common.hash.HashFunction;
+import io.nuls.base.data.CompactBlock;
+import io.nuls.base.data.NulsHash;
+import io.nuls.core.crypto.Sha256Hash;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+public class ShortIdIndexTest {
+
+    /**
+     * 按当前区块hash与盐查到交易hash, 增删交易后索引同步更新, 换盐后重建
+     * Hashes are found under the current block hash and salt, adds and removes keep the index current, a new salt rebuilds it
+     */
+    @Test
+    public void lookupTest() {
+        ShortIdIndex shortIdIndex = new ShortIdIndex();
+        byte[] first = hash(1);
+        byte[] second = hash(2);
+        shortIdIndex.add(first);
+        NulsHash blockHash = new NulsHash(hash(100));
+
+        List<byte[]> found = shortIdIndex.get(blockHash, 1L, Collections.singletonList(shortId(blockHash, 1L, first)));
+        Assert.assertEquals(1, found.size());
+        Assert.assertArrayEquals(first, found.get(0));
+
+        //索引建立后加入的交易增量维护
+        shortIdIndex.add(second);
+        found = shortIdIndex.get(blockHash, 1L, Collections.singletonList(shortId(blockHash, 1L, second)));
+        Assert.assertEquals(1, found.size());
+        Assert.assertArrayEquals(second, found.get(0));
+
+        shortIdIndex.remove(first);
+        Assert.assertTrue(shortIdIndex.get(blockHash, 1L, Collections.singletonList(shortId(blockHash, 1L, first))).isEmpty());
+        Assert.assertEquals(1, shortIdIndex.size());
+
+        //换盐后按新的短ID查找
+        found = shortIdIndex.get(blockHash, 2L, Collections.singletonList(shortId(blockHash, 2L, second)));
+        Assert.assertEquals(1, found.size());
+        Assert.assertArrayEquals(second, found.get(0));
+    }
+
+    private static long shortId(NulsHash blockHash, long nonce, byte[] hash) {
+        HashFunction hasher = CompactBlock.shortIdHasher(blockHash, nonce);
+        return CompactBlock.shortTxId(hasher, new NulsHash(hash));
+    }
+
+    private static byte[] hash(int i) {
+        return Sha256Hash.hashTwice(String.valueOf(i).getBytes());
+    }
+}
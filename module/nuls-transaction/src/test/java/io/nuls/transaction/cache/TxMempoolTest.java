@@ -0,0 +1,121 @@
+package io.nuls.transaction.cache;
+
+import io.nuls.base.data.CoinData;
+import io.nuls.base.data.CoinFrom;
+import io.nuls.base.data.CoinTo;
+import io.nuls.base.data.Transaction;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+
+public class TxMempoolTest {
+
+    private static final byte[] ADDRESS_A = address((byte) 1);
+    private static final byte[] ADDRESS_B = address((byte) 2);
+
+    /**
+     * 手续费高的先取出, 子交易在父交易取出后才可取出
+     * Higher fee first, a child only after its parent has been taken
+     */
+    @Test
+    public void pollOrderTest() throws Exception {
+        TxMempool mempool = new TxMempool();
+        Transaction parent = transfer(ADDRESS_A, new byte[8], 1);
+        Transaction child = transfer(ADDRESS_A, nonce(parent), 2);
+        Transaction other = transfer(ADDRESS_B, new byte[8], 3);
+        mempool.add(child, 300, false);
+        mempool.add(parent, 100, false);
+        mempool.add(other, 200, false);
+        Assert.assertEquals(3, mempool.availableSize());
+
+        Assert.assertSame(other, mempool.poll());
+        Assert.assertSame(parent, mempool.poll());
+        Assert.assertFalse(mempool.isAvailable(parent));
+        Assert.assertSame(child, mempool.poll());
+        Assert.assertNull(mempool.poll());
+
+        //还回父交易后, 子交易需要等父交易再次取出
+        mempool.putBack(child);
+        mempool.putBack(parent);
+        Assert.assertSame(parent, mempool.poll());
+        Assert.assertSame(child, mempool.poll());
+
+        mempool.remove(parent.getHash().getBytes());
+        Assert.assertEquals(2, mempool.size());
+        Assert.assertEquals(child.size() + other.size(), mempool.getDataSize());
+    }
+
+    /**
+     * 超过上限时剔除手续费最低且没有子交易的交易
+     * Above the cap, the lowest fee transaction without children is evicted
+     */
+    @Test
+    public void evictTest() throws Exception {
+        TxMempool mempool = new TxMempool();
+        Transaction parent = transfer(ADDRESS_A, new byte[8], 1);
+        Transaction child = transfer(ADDRESS_A, nonce(parent), 2);
+        Transaction other = transfer(ADDRESS_B, new byte[8], 3);
+        mempool.add(parent, 100, false);
+        mempool.add(child, 300, false);
+        mempool.add(other, 200, false);
+
+        List<Transaction> evicted = mempool.evict(mempool.getDataSize() - 1);
+        Assert.assertEquals(1, evicted.size());
+        Assert.assertSame(other, evicted.get(0));
+        Assert.assertTrue(mempool.evict(mempool.getDataSize()).isEmpty());
+        Assert.assertEquals(2, mempool.size());
+    }
+
+    /**
+     * 清空可打包状态后, 已取出的子交易不再保留父交易计数, 重新加入后按父子顺序取出
+     * After clearing, a taken child keeps no stale parent count and re-added transactions come out parent first
+     */
+    @Test
+    public void clearAndReAddTest() throws Exception {
+        TxMempool mempool = new TxMempool();
+        Transaction parent = transfer(ADDRESS_A, new byte[8], 1);
+        Transaction child = transfer(ADDRESS_A, nonce(parent), 2);
+        mempool.add(parent, 100, false);
+        mempool.add(child, 300, false);
+        Assert.assertSame(parent, mempool.poll());
+        Assert.assertSame(child, mempool.poll());
+        //父交易还回时子交易已被取出, 计数记在子交易上
+        mempool.putBack(parent);
+
+        mempool.clearAvailable();
+        Assert.assertEquals(0, mempool.availableSize());
+        Assert.assertNull(mempool.poll());
+
+        Assert.assertFalse(mempool.add(child, 300, false));
+        Assert.assertSame(child, mempool.poll());
+        mempool.putBack(child);
+        Assert.assertFalse(mempool.add(parent, 100, false));
+        Assert.assertSame(parent, mempool.poll());
+        Assert.assertSame(child, mempool.poll());
+        Assert.assertNull(mempool.poll());
+    }
+
+    private static Transaction transfer(byte[] from, byte[] nonce, int amount) throws Exception {
+        CoinData coinData = new CoinData();
+        coinData.addFrom(new CoinFrom(from, 2, 1, BigInteger.valueOf(amount + 1), nonce, (byte) 0));
+        coinData.addTo(new CoinTo(ADDRESS_B, 2, 1, BigInteger.valueOf(amount)));
+        Transaction tx = new Transaction(2);
+        tx.setTime(1L);
+        tx.setCoinData(coinData.serialize());
+        return tx;
+    }
+
+    private static byte[] nonce(Transaction tx) {
+        byte[] hash = tx.getHash().getBytes();
+        return Arrays.copyOfRange(hash, hash.length - 8, hash.length);
+    }
+
+    private static byte[] address(byte b) {
+        byte[] address = new byte[23];
+        Arrays.fill(address, b);
+        return address;
+    }
+}
@@ -0,0 +1,107 @@
+package io.nuls.transaction.utils;
+
+import io.nuls.core.crypto.Sha256Hash;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TxDuplicateRemovalTest {
+
+    /**
+     * 已加入的hash不会漏判, 误判率在配置范围内, 轮换后仍记住上一代
+     * No false negatives, false positives within the configured rate, the previous generation is kept on rotation
+     */
+    @Test
+    public void hashFilterTest() {
+        int capacity = 100000;
+        TxHashFilter filter = new TxHashFilter(capacity, 0.001);
+        int rejected = 0;
+        for (int i = 0; i < capacity; i++) {
+            if (!filter.insertAndCheck(hash(i))) {
+                rejected++;
+            }
+        }
+        Assert.assertTrue("rejected:" + rejected, rejected < capacity * 0.002);
+        //刚好轮换, 上一代仍可查到
+        for (int i = 0; i < capacity; i++) {
+            Assert.assertTrue(filter.contains(hash(i)));
+        }
+        Assert.assertFalse(filter.insertAndCheck(hash(0)));
+
+        int falsePositives = 0;
+        for (int i = capacity; i < capacity * 2; i++) {
+            if (filter.contains(hash(i))) {
+                falsePositives++;
+            }
+        }
+        Assert.assertTrue("false positives:" + falsePositives, falsePositives < capacity * 0.002);
+    }
+
+    /**
+     * 多线程同时加入相同的hash, 每个hash最多只有一个线程得到新加入
+     * With several threads inserting the same hashes, at most one of them sees each hash as new
+     */
+    @Test
+    public void concurrentInsertTest() throws Exception {
+        int count = 20000;
+        int threads = 8;
+        TxHashFilter filter = new TxHashFilter(count * 2, 0.001);
+        AtomicInteger added = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> list = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < count; i++) {
+                    if (filter.insertAndCheck(hash(i))) {
+                        added.incrementAndGet();
+                    }
+                }
+            });
+            thread.start();
+            list.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : list) {
+            thread.join();
+        }
+        Assert.assertTrue("added:" + added.get(), added.get() <= count);
+        Assert.assertTrue("added:" + added.get(), added.get() > count * 0.99);
+    }
+
+    @Test
+    public void excludeNodeTest() throws Exception {
+        ExcludeNodeCache cache = new ExcludeNodeCache(50L, 1000, 4);
+        byte[] hash = hash(1);
+        Assert.assertNull(cache.get(hash));
+        cache.put(hash, "1.1.1.1:8001");
+        cache.put(hash, "2.2.2.2:8001");
+        cache.put(hash, "1.1.1.1:8001");
+        Set<String> nodes = new HashSet<>(Arrays.asList(cache.get(hash).split(",")));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("1.1.1.1:8001", "2.2.2.2:8001")), nodes);
+
+        //超过存活时间的记录整批过期
+        Thread.sleep(60L);
+        cache.put(hash(2), "3.3.3.3:8001");
+        Assert.assertNotNull(cache.get(hash));
+        Thread.sleep(60L);
+        cache.put(hash(3), "3.3.3.3:8001");
+        Assert.assertNull(cache.get(hash));
+        Assert.assertEquals("3.3.3.3:8001", cache.get(hash(2)));
+    }
+
+    private static byte[] hash(int i) {
+        return Sha256Hash.hashTwice(String.valueOf(i).getBytes());
+    }
+}